@@ -6,12 +6,10 @@ package com.alibaba.rocketmq.broker;
 import java.io.IOException;
 import java.util.Properties;
 import java.util.Random;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,6 +37,7 @@ import com.alibaba.rocketmq.common.namesrv.TopAddressing;
 import com.alibaba.rocketmq.common.protocol.MQProtos;
 import com.alibaba.rocketmq.common.protocol.MQProtosHelper;
 import com.alibaba.rocketmq.remoting.RemotingServer;
+import com.alibaba.rocketmq.remoting.netty.FairRequestExecutor;
 import com.alibaba.rocketmq.remoting.netty.NettyRemotingServer;
 import com.alibaba.rocketmq.remoting.netty.NettyRequestProcessor;
 import com.alibaba.rocketmq.remoting.netty.NettyServerConfig;
@@ -83,11 +82,11 @@ public class BrokerController {
     // Topic
     private TopicConfigManager topicConfigManager;
     // Ϣ̳߳
-    private ExecutorService sendMessageExecutor;
+    private FairRequestExecutor sendMessageExecutor;
     // ȡϢ̳߳
-    private ExecutorService pullMessageExecutor;
+    private FairRequestExecutor pullMessageExecutor;
     // Broker̳߳
-    private ExecutorService adminBrokerExecutor;
+    private FairRequestExecutor adminBrokerExecutor;
 
     private final PullMessageProcessor pullMessageProcessor;
     private final PullRequestHoldService pullRequestHoldService;
@@ -183,6 +182,8 @@ public class BrokerController {
             try {
                 this.messageStore =
                         new DefaultMessageStore(this.messageStoreConfig, this.defaultTransactionCheckExecuter);
+                // ϢдConsumeQueueѳѯʱԡϢSlaveͬϢͬ
+                this.messageStore.setMessageArrivingListener(this.pullRequestHoldService);
             }
             catch (IOException e) {
                 result = false;
@@ -198,57 +199,33 @@ public class BrokerController {
             this.remotingServer =
                     new NettyRemotingServer(this.nettyServerConfig, this.clientHousekeepingService);
 
-            // ʼ̳߳
+            // ʼ̳߳أн磬ӹƽ
             this.sendMessageExecutor =
-                    Executors.newFixedThreadPool(this.brokerConfig.getSendMessageThreadPoolNums(),
-                        new ThreadFactory() {
-
-                            private AtomicInteger threadIndex = new AtomicInteger(0);
-
-
-                            @Override
-                            public Thread newThread(Runnable r) {
-                                return new Thread(r, "SendMessageThread_"
-                                        + this.threadIndex.incrementAndGet());
-                            }
-                        });
+                    new FairRequestExecutor("SendMessageThread",
+                        this.brokerConfig.getSendMessageThreadPoolNums(),
+                        this.brokerConfig.getSendThreadPoolQueueCapacity(),
+                        this.brokerConfig.getSendMessageMaxWaitTimeMillis());
 
             this.pullMessageExecutor =
-                    Executors.newFixedThreadPool(this.brokerConfig.getPullMessageThreadPoolNums(),
-                        new ThreadFactory() {
-
-                            private AtomicInteger threadIndex = new AtomicInteger(0);
-
-
-                            @Override
-                            public Thread newThread(Runnable r) {
-                                return new Thread(r, "PullMessageThread_"
-                                        + this.threadIndex.incrementAndGet());
-                            }
-                        });
+                    new FairRequestExecutor("PullMessageThread",
+                        this.brokerConfig.getPullMessageThreadPoolNums(),
+                        this.brokerConfig.getPullThreadPoolQueueCapacity(),
+                        this.brokerConfig.getPullMessageMaxWaitTimeMillis());
 
             this.adminBrokerExecutor =
-                    Executors.newFixedThreadPool(this.brokerConfig.getAdminBrokerThreadPoolNums(),
-                        new ThreadFactory() {
-
-                            private AtomicInteger threadIndex = new AtomicInteger(0);
-
-
-                            @Override
-                            public Thread newThread(Runnable r) {
-                                return new Thread(r, "AdminBrokerThread_"
-                                        + this.threadIndex.incrementAndGet());
-                            }
-                        });
+                    new FairRequestExecutor("AdminBrokerThread",
+                        this.brokerConfig.getAdminBrokerThreadPoolNums(),
+                        this.brokerConfig.getAdminBrokerThreadPoolQueueCapacity(),
+                        this.brokerConfig.getAdminBrokerMaxWaitTimeMillis());
 
             this.registerProcessor();
 
-            // ʱˢѽ
+            // ʱˢѽȣֻforceӳڴ
             this.scheduledExecutorService.scheduleAtFixedRate(new Runnable() {
                 @Override
                 public void run() {
                     try {
-                        BrokerController.this.consumerOffsetManager.persist();
+                        BrokerController.this.consumerOffsetManager.flush();
                     }
                     catch (Exception e) {
                         log.error("", e);
@@ -256,6 +233,19 @@ public class BrokerController {
                 }
             }, 1000 * 10, this.brokerConfig.getFlushConsumerOffsetInterval(), TimeUnit.MILLISECONDS);
 
+            // ʱJSONʽѽȣά߶ȡ
+            this.scheduledExecutorService.scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        BrokerController.this.consumerOffsetManager.persist();
+                    }
+                    catch (Exception e) {
+                        log.error("", e);
+                    }
+                }
+            }, 1000 * 60, this.brokerConfig.getExportConsumerOffsetJsonInterval(), TimeUnit.MILLISECONDS);
+
             // ʱӡٶ
             this.scheduledExecutorService.scheduleAtFixedRate(new Runnable() {
                 @Override
@@ -269,6 +259,32 @@ public class BrokerController {
                 }
             }, 1000 * 10, this.brokerConfig.getFlushConsumerOffsetHistoryInterval(), TimeUnit.MILLISECONDS);
 
+            // ʱӡ̳߳صŶ
+            this.scheduledExecutorService.scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        BrokerController.this.printThreadPoolStats();
+                    }
+                    catch (Exception e) {
+                        log.error("", e);
+                    }
+                }
+            }, 1000 * 10, this.brokerConfig.getPrintThreadPoolStatsInterval(), TimeUnit.MILLISECONDS);
+
+            // ʱز
+            this.scheduledExecutorService.scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        BrokerController.this.defaultTransactionCheckExecuter.flushCheckBatch();
+                    }
+                    catch (Exception e) {
+                        log.error("", e);
+                    }
+                }
+            }, 1000 * 10, this.brokerConfig.getTransactionCheckBatchFlushInterval(), TimeUnit.MILLISECONDS);
+
             // slave
             if (BrokerRole.SLAVE == this.messageStoreConfig.getBrokerRole()) {
                 if (this.messageStoreConfig.getMasterAddress() != null
@@ -285,6 +301,13 @@ public class BrokerController {
     }
 
 
+    public void printThreadPoolStats() {
+        log.info(this.sendMessageExecutor.statsAndReset());
+        log.info(this.pullMessageExecutor.statsAndReset());
+        log.info(this.adminBrokerExecutor.statsAndReset());
+    }
+
+
     public void registerProcessor() {
         /**
          * SendMessageProcessor
@@ -324,8 +347,11 @@ public class BrokerController {
         /**
          * EndTransactionProcessor
          */
+        NettyRequestProcessor endTransactionProcessor = new EndTransactionProcessor(this);
         this.remotingServer.registerProcessor(MQProtos.MQRequestCode.END_TRANSACTION_VALUE,
-            new EndTransactionProcessor(this), this.sendMessageExecutor);
+            endTransactionProcessor, this.sendMessageExecutor);
+        this.remotingServer.registerProcessor(MQProtos.MQRequestCode.END_TRANSACTION_BATCH_VALUE,
+            endTransactionProcessor, this.sendMessageExecutor);
 
         /**
          * Default
@@ -385,7 +411,30 @@ public class BrokerController {
             this.adminBrokerExecutor.shutdown();
         }
 
+        // Ϣύȵ̶߳˳ٹرѽȱ
+        this.awaitTermination();
+
         this.consumerOffsetManager.persist();
+        this.consumerOffsetManager.shutdown();
+
+        this.topicConfigManager.shutdown();
+    }
+
+
+    private void awaitTermination() {
+        try {
+            this.scheduledExecutorService.awaitTermination(1000 * 3, TimeUnit.MILLISECONDS);
+            FairRequestExecutor[] executors =
+                    { this.sendMessageExecutor, this.pullMessageExecutor, this.adminBrokerExecutor };
+            for (FairRequestExecutor executor : executors) {
+                if (executor != null && !executor.awaitTermination(1000 * 3)) {
+                    log.warn(executor.getName() + " not terminated in 3 seconds");
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            log.warn("await executors termination interrupted", e);
+        }
     }
 
 
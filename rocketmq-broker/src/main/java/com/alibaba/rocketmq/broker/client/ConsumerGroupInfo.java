@@ -13,6 +13,8 @@ import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.alibaba.rocketmq.broker.offset.ConsumerOffsetHandle;
+import com.alibaba.rocketmq.broker.offset.ConsumerOffsetManager;
 import com.alibaba.rocketmq.common.constant.LoggerName;
 import com.alibaba.rocketmq.common.protocol.heartbeat.ConsumeType;
 import com.alibaba.rocketmq.common.protocol.heartbeat.MessageModel;
@@ -35,6 +37,9 @@ public class ConsumerGroupInfo {
             new ConcurrentHashMap<String, SubscriptionData>();
     private final ConcurrentHashMap<Integer/* channel id */, ClientChannelInfo> channelInfoTable =
             new ConcurrentHashMap<Integer/* channel id */, ClientChannelInfo>(16);
+    // ѽȾÿTopicһ
+    private final ConcurrentHashMap<String/* Topic */, ConsumerOffsetHandle> offsetHandleTable =
+            new ConcurrentHashMap<String, ConsumerOffsetHandle>();
 
     private volatile long lastUpdateTimestamp = System.currentTimeMillis();
 
@@ -154,6 +159,21 @@ public class ConsumerGroupInfo {
         return this.subscriptionTable.get(topic);
     }
 
+
+    /**
+     * ػѽȾһηʱConsumerOffsetManager
+     */
+    public ConsumerOffsetHandle findOffsetHandle(final String topic,
+            final ConsumerOffsetManager consumerOffsetManager) {
+        ConsumerOffsetHandle handle = this.offsetHandleTable.get(topic);
+        if (null == handle) {
+            handle = consumerOffsetManager.findOffsetHandle(this.groupName, topic);
+            this.offsetHandleTable.putIfAbsent(topic, handle);
+        }
+
+        return handle;
+    }
+
     public ConsumeType getConsumeType() {
         return consumeType;
     }
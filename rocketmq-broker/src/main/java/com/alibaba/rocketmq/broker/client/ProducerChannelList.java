@@ -0,0 +1,74 @@
+/**
+ * $Id: ProducerChannelList.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.broker.client;
+
+/**
+ * ͬһgroup hash codeµProducerӣдʱ<br>
+ * ɾֻעᡢעӹرʱƣزѡʱ
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class ProducerChannelList {
+    private static final ClientChannelInfo[] EmptyChannels = new ClientChannelInfo[0];
+
+    private volatile ClientChannelInfo[] channels = EmptyChannels;
+
+
+    private static int indexOf(final ClientChannelInfo[] current, final ClientChannelInfo clientChannelInfo) {
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].equals(clientChannelInfo)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+
+    public synchronized boolean add(final ClientChannelInfo clientChannelInfo) {
+        final ClientChannelInfo[] current = this.channels;
+        if (indexOf(current, clientChannelInfo) >= 0) {
+            return false;
+        }
+
+        ClientChannelInfo[] next = new ClientChannelInfo[current.length + 1];
+        System.arraycopy(current, 0, next, 0, current.length);
+        next[current.length] = clientChannelInfo;
+        this.channels = next;
+        return true;
+    }
+
+
+    public synchronized boolean remove(final ClientChannelInfo clientChannelInfo) {
+        final ClientChannelInfo[] current = this.channels;
+        int index = indexOf(current, clientChannelInfo);
+        if (index < 0) {
+            return false;
+        }
+
+        ClientChannelInfo[] next = new ClientChannelInfo[current.length - 1];
+        System.arraycopy(current, 0, next, 0, index);
+        System.arraycopy(current, index + 1, next, index, current.length - index - 1);
+        this.channels = next;
+        return true;
+    }
+
+
+    /**
+     * ĳһʱ̵
+     */
+    public ClientChannelInfo pick(final int randomNum) {
+        final ClientChannelInfo[] current = this.channels;
+        if (current.length == 0) {
+            return null;
+        }
+
+        return current[randomNum % current.length];
+    }
+
+
+    public int size() {
+        return this.channels.length;
+    }
+}
@@ -5,14 +5,10 @@ package com.alibaba.rocketmq.broker.client;
 
 import io.netty.channel.Channel;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Random;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,25 +18,29 @@ import com.alibaba.rocketmq.remoting.common.RemotingHelper;
 
 
 /**
- * Producer鼰Producer
- * 
+ * Producer鼰Producer<br>
+ * ز鶼ͬһgroup hash codeµдʱ鱣
+ *
  * @author shijia.wxr<vintage.wang@gmail.com>
  */
 public class ProducerManager {
     private static final Logger log = LoggerFactory.getLogger(LoggerName.BrokerLoggerName);
-    private static final long LockTimeoutMillis = 3000;
 
     private static final long ChannelExpiredTimeout = 1000 * 120;
+    // ÿɨδɨ´δӶϵ
+    private static final int MaxScanChannelsPerRound = 2000;
 
     private final Random random = new Random(System.currentTimeMillis());
 
-    private final Lock hashcodeChannelLock = new ReentrantLock();
-    private final HashMap<Integer /* group hash code */, List<ClientChannelInfo>> hashcodeChannelTable =
-            new HashMap<Integer, List<ClientChannelInfo>>();
+    private final ConcurrentHashMap<Integer /* group hash code */, ProducerChannelList> hashcodeChannelTable =
+            new ConcurrentHashMap<Integer, ProducerChannelList>();
 
-    private final Lock groupChannelLock = new ReentrantLock();
-    private final HashMap<String /* group name */, HashMap<Integer/* channel id */, ClientChannelInfo>> groupChannelTable =
-            new HashMap<String, HashMap<Integer, ClientChannelInfo>>();
+    // group name -> channel id -> ClientChannelInfo
+    private final ConcurrentHashMap<String, ConcurrentHashMap<Integer, ClientChannelInfo>> groupChannelTable =
+            new ConcurrentHashMap<String, ConcurrentHashMap<Integer, ClientChannelInfo>>();
+
+    // ֻClientHousekeepingService߳ʹ
+    private Iterator<Map.Entry<String, ConcurrentHashMap<Integer, ClientChannelInfo>>> scanIterator;
 
 
     public ProducerManager() {
@@ -59,302 +59,153 @@ public class ProducerManager {
 
 
     public ClientChannelInfo pickProducerChannelRandomly(final int producerGroupHashCode) {
-        try {
-            if (this.hashcodeChannelLock.tryLock(LockTimeoutMillis, TimeUnit.MILLISECONDS)) {
-                try {
-                    List<ClientChannelInfo> channelInfoList = this.hashcodeChannelTable.get(producerGroupHashCode);
-                    if (channelInfoList != null && !channelInfoList.isEmpty()) {
-                        int index = this.generateRandmonNum() % channelInfoList.size();
-                        ClientChannelInfo info = channelInfoList.get(index);
-                        return info;
-                    }
-                }
-                finally {
-                    this.hashcodeChannelLock.unlock();
-                }
-            }
-            else {
-                log.warn("ProducerManager pickProducerChannelRandomly lock timeout");
-            }
-        }
-        catch (InterruptedException e) {
-            log.error("", e);
+        ProducerChannelList channelList = this.hashcodeChannelTable.get(producerGroupHashCode);
+        if (channelList != null) {
+            // Math.abs(Integer.MIN_VALUE)Ϊ
+            return channelList.pick(this.generateRandmonNum() & Integer.MAX_VALUE);
         }
 
         return null;
     }
 
 
-    public void scanNotActiveChannel() {
-        try {
-            if (this.hashcodeChannelLock.tryLock(LockTimeoutMillis, TimeUnit.MILLISECONDS)) {
-                try {
-                    for (final Map.Entry<Integer, List<ClientChannelInfo>> entry : this.hashcodeChannelTable
-                        .entrySet()) {
-                        final Integer groupHashCode = entry.getKey();
-                        final List<ClientChannelInfo> clientChannelInfoList = entry.getValue();
-                        final List<ClientChannelInfo> willRemoveChannel = new ArrayList<ClientChannelInfo>();
-                        for (ClientChannelInfo clientChannelInfo : clientChannelInfoList) {
-                            long diff = System.currentTimeMillis() - clientChannelInfo.getLastUpdateTimestamp();
-                            if (diff > ChannelExpiredTimeout) {
-                                willRemoveChannel.add(clientChannelInfo);
-                            }
-                        }
-
-                        for (ClientChannelInfo clientChannelInfo : willRemoveChannel) {
-                            boolean result = clientChannelInfoList.remove(clientChannelInfo);
-                            if (result) {
-                                log.warn(
-                                    "SCAN: remove expired channel[{}] from ProducerManager hashcodeChannelTable, producer group hash code: {}",
-                                    RemotingHelper.parseChannelRemoteAddr(clientChannelInfo.getChannel()),
-                                    groupHashCode);
-                                clientChannelInfo.getChannel().close();
-                            }
-                        }
-                    }
-                }
-                finally {
-                    this.hashcodeChannelLock.unlock();
-                }
-            }
-            else {
-                log.warn("ProducerManager scanNotActiveChannel lock timeout");
+    private ProducerChannelList findOrCreateChannelList(final String group) {
+        ProducerChannelList channelList = this.hashcodeChannelTable.get(group.hashCode());
+        if (null == channelList) {
+            channelList = new ProducerChannelList();
+            ProducerChannelList prev = this.hashcodeChannelTable.putIfAbsent(group.hashCode(), channelList);
+            if (prev != null) {
+                channelList = prev;
             }
         }
-        catch (InterruptedException e) {
-            log.error("", e);
+
+        return channelList;
+    }
+
+
+    /**
+     * űɾchannelListɣ֤һ£ʱ
+     */
+    private ClientChannelInfo removeChannel(final String group,
+            final ConcurrentHashMap<Integer, ClientChannelInfo> channelTable, final Integer channelId) {
+        ProducerChannelList channelList = this.findOrCreateChannelList(group);
+        synchronized (channelList) {
+            ClientChannelInfo old = channelTable.remove(channelId);
+            if (old != null) {
+                channelList.remove(old);
+            }
+
+            return old;
         }
+    }
+
 
-        try {
-            if (this.groupChannelLock.tryLock(LockTimeoutMillis, TimeUnit.MILLISECONDS)) {
-                try {
-                    for (final Map.Entry<String, HashMap<Integer, ClientChannelInfo>> entry : this.groupChannelTable
-                        .entrySet()) {
-                        final String group = entry.getKey();
-                        final HashMap<Integer, ClientChannelInfo> chlMap = entry.getValue();
-
-                        for (final Map.Entry<Integer, ClientChannelInfo> item : chlMap.entrySet()) {
-                            final Integer id = item.getKey();
-                            final ClientChannelInfo info = item.getValue();
-
-                            long diff = System.currentTimeMillis() - info.getLastUpdateTimestamp();
-                            if (diff > ChannelExpiredTimeout) {
-                                ClientChannelInfo old = chlMap.remove(id);
-                                if (old != null) {
-                                    log.warn(
-                                        "SCAN: remove expired channel[{}] from ProducerManager groupChannelTable, producer group name: {}",
-                                        RemotingHelper.parseChannelRemoteAddr(info.getChannel()), group);
-                                    info.getChannel().close();
-                                }
-                            }
-                        }
+    /**
+     * ɨ裬ÿMaxScanChannelsPerRoundӣز
+     */
+    public void scanNotActiveChannel() {
+        if (null == this.scanIterator || !this.scanIterator.hasNext()) {
+            this.scanIterator = this.groupChannelTable.entrySet().iterator();
+        }
+
+        int scanned = 0;
+        while (scanned < MaxScanChannelsPerRound && this.scanIterator.hasNext()) {
+            final Map.Entry<String, ConcurrentHashMap<Integer, ClientChannelInfo>> entry =
+                    this.scanIterator.next();
+            final String group = entry.getKey();
+            final ConcurrentHashMap<Integer, ClientChannelInfo> chlMap = entry.getValue();
+
+            for (final Map.Entry<Integer, ClientChannelInfo> item : chlMap.entrySet()) {
+                final Integer id = item.getKey();
+                final ClientChannelInfo info = item.getValue();
+                scanned++;
+
+                long diff = System.currentTimeMillis() - info.getLastUpdateTimestamp();
+                if (diff > ChannelExpiredTimeout) {
+                    if (this.removeChannel(group, chlMap, id) != null) {
+                        log.warn(
+                            "SCAN: remove expired channel[{}] from ProducerManager groupChannelTable, producer group name: {}",
+                            RemotingHelper.parseChannelRemoteAddr(info.getChannel()), group);
+                        info.getChannel().close();
                     }
                 }
-                finally {
-                    this.groupChannelLock.unlock();
-                }
-            }
-            else {
-                log.warn("ProducerManager scanNotActiveChannel lock timeout");
             }
         }
-        catch (InterruptedException e) {
-            log.error("", e);
-        }
     }
 
 
     public void doChannelCloseEvent(final String remoteAddr, final Channel channel) {
         if (channel != null) {
-            try {
-                if (this.hashcodeChannelLock.tryLock(LockTimeoutMillis, TimeUnit.MILLISECONDS)) {
-                    try {
-                        for (final Map.Entry<Integer, List<ClientChannelInfo>> entry : this.hashcodeChannelTable
-                            .entrySet()) {
-                            final Integer groupHashCode = entry.getKey();
-                            final List<ClientChannelInfo> clientChannelInfoList = entry.getValue();
-                            boolean result = clientChannelInfoList.remove(new ClientChannelInfo(channel));
-                            if (result) {
-                                log.info(
-                                    "NETTY EVENT: remove channel[{}][{}] from ProducerManager hashcodeChannelTable, producer group hash code: {}",
-                                    RemotingHelper.parseChannelRemoteAddr(channel), remoteAddr, groupHashCode);
-                            }
-                        }
-                    }
-                    finally {
-                        this.hashcodeChannelLock.unlock();
-                    }
-                }
-                else {
-                    log.warn("ProducerManager doChannelCloseEvent lock timeout");
+            for (final Map.Entry<String, ConcurrentHashMap<Integer, ClientChannelInfo>> entry : this.groupChannelTable
+                .entrySet()) {
+                final String group = entry.getKey();
+                final ConcurrentHashMap<Integer, ClientChannelInfo> clientChannelInfoTable = entry.getValue();
+                final ClientChannelInfo clientChannelInfo =
+                        this.removeChannel(group, clientChannelInfoTable, channel.id());
+                if (clientChannelInfo != null) {
+                    log.info(
+                        "NETTY EVENT: remove channel[{}][{}] from ProducerManager groupChannelTable, producer group: {}",
+                        clientChannelInfo.toString(), remoteAddr, group);
                 }
             }
-            catch (InterruptedException e) {
-                log.error("", e);
-            }
-
-            try {
-                if (this.groupChannelLock.tryLock(LockTimeoutMillis, TimeUnit.MILLISECONDS)) {
-                    try {
-                        for (final Map.Entry<String, HashMap<Integer, ClientChannelInfo>> entry : this.groupChannelTable
-                            .entrySet()) {
-                            final String group = entry.getKey();
-                            final HashMap<Integer, ClientChannelInfo> clientChannelInfoTable = entry.getValue();
-                            final ClientChannelInfo clientChannelInfo =
-                                    clientChannelInfoTable.remove(channel.id());
-                            if (clientChannelInfo != null) {
-                                log.info(
-                                    "NETTY EVENT: remove channel[{}][{}] from ProducerManager groupChannelTable, producer group: {}",
-                                    clientChannelInfo.toString(), remoteAddr, group);
-                            }
-                        }
-                    }
-                    finally {
-                        this.groupChannelLock.unlock();
-                    }
-                }
-                else {
-                    log.warn("ProducerManager doChannelCloseEvent lock timeout");
-                }
-            }
-            catch (InterruptedException e) {
-                log.error("", e);
-            }
         }
     }
 
 
+    /**
+     * עֻʱ
+     */
     public void registerProducer(final String group, final ClientChannelInfo clientChannelInfo) {
-        try {
-            ClientChannelInfo clientChannelInfoFound = null;
-            if (this.hashcodeChannelLock.tryLock(LockTimeoutMillis, TimeUnit.MILLISECONDS)) {
-                try {
-                    List<ClientChannelInfo> clientChannelInfoList =
-                            this.hashcodeChannelTable.get(group.hashCode());
-                    if (null == clientChannelInfoList) {
-                        clientChannelInfoList = new ArrayList<ClientChannelInfo>();
-                        this.hashcodeChannelTable.put(group.hashCode(), clientChannelInfoList);
-                    }
-
-                    int index = clientChannelInfoList.indexOf(clientChannelInfo);
-                    if (index >= 0) {
-                        clientChannelInfoFound = clientChannelInfoList.get(index);
-                    }
-
-                    if (null == clientChannelInfoFound) {
-                        clientChannelInfoList.add(clientChannelInfo);
-                    }
-                }
-                finally {
-                    this.hashcodeChannelLock.unlock();
-                }
-
-                if (clientChannelInfoFound != null) {
-                    clientChannelInfoFound.setLastUpdateTimestamp(System.currentTimeMillis());
-                }
-            }
-            else {
-                log.warn("ProducerManager registerProducer lock timeout");
+        ConcurrentHashMap<Integer, ClientChannelInfo> channelTable = this.groupChannelTable.get(group);
+        if (channelTable != null) {
+            ClientChannelInfo clientChannelInfoFound = channelTable.get(clientChannelInfo.getChannel().id());
+            if (clientChannelInfoFound != null) {
+                clientChannelInfoFound.setLastUpdateTimestamp(System.currentTimeMillis());
+                return;
             }
         }
-        catch (InterruptedException e) {
-            log.error("", e);
-        }
-
-        try {
-            ClientChannelInfo clientChannelInfoFound = null;
 
-            if (this.groupChannelLock.tryLock(LockTimeoutMillis, TimeUnit.MILLISECONDS)) {
-                try {
-                    HashMap<Integer, ClientChannelInfo> channelTable = this.groupChannelTable.get(group);
-                    if (null == channelTable) {
-                        channelTable = new HashMap<Integer, ClientChannelInfo>();
-                        this.groupChannelTable.put(group, channelTable);
-                    }
-
-                    clientChannelInfoFound = channelTable.get(clientChannelInfo.getChannel().id());
-                    if (null == clientChannelInfoFound) {
-                        channelTable.put(clientChannelInfo.getChannel().id(), clientChannelInfo);
-                        log.info("new producer connected, group: {} channel: {}", group,
-                            clientChannelInfo.toString());
-                    }
-                }
-                finally {
-                    this.groupChannelLock.unlock();
-                }
-
-                if (clientChannelInfoFound != null) {
-                    clientChannelInfoFound.setLastUpdateTimestamp(System.currentTimeMillis());
-                }
+        // ȴchannelList֤groupChannelTableеӶҵӦchannelList
+        ProducerChannelList channelList = this.findOrCreateChannelList(group);
+        if (null == channelTable) {
+            channelTable = new ConcurrentHashMap<Integer, ClientChannelInfo>();
+            ConcurrentHashMap<Integer, ClientChannelInfo> prev =
+                    this.groupChannelTable.putIfAbsent(group, channelTable);
+            if (prev != null) {
+                channelTable = prev;
             }
-            else {
-                log.warn("ProducerManager registerProducer lock timeout");
+        }
+
+        ClientChannelInfo clientChannelInfoFound = null;
+        synchronized (channelList) {
+            clientChannelInfoFound =
+                    channelTable.putIfAbsent(clientChannelInfo.getChannel().id(), clientChannelInfo);
+            if (null == clientChannelInfoFound) {
+                channelList.add(clientChannelInfo);
             }
         }
-        catch (InterruptedException e) {
-            log.error("", e);
+
+        if (clientChannelInfoFound != null) {
+            clientChannelInfoFound.setLastUpdateTimestamp(System.currentTimeMillis());
+        }
+        else {
+            log.info("new producer connected, group: {} channel: {}", group, clientChannelInfo.toString());
         }
     }
 
 
+    /**
+     * յgroup벢עᾺgroup
+     */
     public void unregisterProducer(final String group, final ClientChannelInfo clientChannelInfo) {
-        try {
-            if (this.hashcodeChannelLock.tryLock(LockTimeoutMillis, TimeUnit.MILLISECONDS)) {
-                try {
-                    List<ClientChannelInfo> clientChannelInfoList =
-                            this.hashcodeChannelTable.get(group.hashCode());
-                    if (null != clientChannelInfoList && !clientChannelInfoList.isEmpty()) {
-                        boolean result = clientChannelInfoList.remove(clientChannelInfo);
-                        if (result) {
-                            log.info("unregister a producer[{}] from hashcodeChannelTable {}", group,
-                                clientChannelInfo.toString());
-                        }
-
-                        if (clientChannelInfoList.isEmpty()) {
-                            this.hashcodeChannelTable.remove(group.hashCode());
-                            log.info("unregister a producer group[{}] from hashcodeChannelTable", group);
-                        }
-                    }
-                }
-                finally {
-                    this.hashcodeChannelLock.unlock();
-                }
+        ConcurrentHashMap<Integer, ClientChannelInfo> channelTable = this.groupChannelTable.get(group);
+        if (null != channelTable) {
+            ClientChannelInfo old =
+                    this.removeChannel(group, channelTable, clientChannelInfo.getChannel().id());
+            if (old != null) {
+                log.info("unregister a producer[{}] from groupChannelTable {}", group,
+                    clientChannelInfo.toString());
             }
-            else {
-                log.warn("ProducerManager unregisterProducer lock timeout");
-            }
-        }
-        catch (InterruptedException e) {
-            log.error("", e);
-        }
-
-        try {
-            if (this.groupChannelLock.tryLock(LockTimeoutMillis, TimeUnit.MILLISECONDS)) {
-                try {
-                    HashMap<Integer, ClientChannelInfo> channelTable = this.groupChannelTable.get(group);
-                    if (null != channelTable && !channelTable.isEmpty()) {
-                        ClientChannelInfo old = channelTable.remove(clientChannelInfo.getChannel().id());
-                        if (old != null) {
-                            log.info("unregister a producer[{}] from groupChannelTable {}", group,
-                                clientChannelInfo.toString());
-                        }
-
-                        if (channelTable.isEmpty()) {
-                            this.hashcodeChannelTable.remove(group.hashCode());
-                            log.info("unregister a producer group[{}] from groupChannelTable", group);
-                        }
-                    }
-                }
-                finally {
-                    this.groupChannelLock.unlock();
-                }
-            }
-            else {
-                log.warn("ProducerManager unregisterProducer lock timeout");
-            }
-        }
-        catch (InterruptedException e) {
-            log.error("", e);
         }
     }
 }
@@ -5,16 +5,20 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.FileRegion;
 
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.alibaba.rocketmq.broker.BrokerController;
+import com.alibaba.rocketmq.broker.pagecache.ManyMessageTransfer;
 import com.alibaba.rocketmq.broker.pagecache.OneMessageTransfer;
 import com.alibaba.rocketmq.common.constant.LoggerName;
 import com.alibaba.rocketmq.common.protocol.MQProtos.MQRequestCode;
 import com.alibaba.rocketmq.common.protocol.header.CheckTransactionStateRequestHeader;
 import com.alibaba.rocketmq.common.protocol.header.NotifyConsumerIdsChangedRequestHeader;
 import com.alibaba.rocketmq.remoting.protocol.RemotingCommand;
+import com.alibaba.rocketmq.store.GetMessageResult;
 import com.alibaba.rocketmq.store.SelectMapedBufferResult;
 
 
@@ -66,6 +70,44 @@ public class Broker2Client {
     }
 
 
+    /**
+     * BrokerزProducer״̬Oneway<br>
+     * ϢɶPreparedϢ˳ƴӣÿϢQueueOffsetΪ״̬Offset
+     */
+    public void checkProducerTransactionStateBatch(//
+            final Channel channel,//
+            final List<SelectMapedBufferResult> selectMapedBufferResultList//
+    ) {
+        final GetMessageResult getMessageResult = new GetMessageResult();
+        for (SelectMapedBufferResult selectMapedBufferResult : selectMapedBufferResultList) {
+            getMessageResult.addMessage(selectMapedBufferResult);
+        }
+
+        RemotingCommand request =
+                RemotingCommand.createRequestCommand(MQRequestCode.CHECK_TRANSACTION_STATE_BATCH_VALUE, null);
+        request.markOnewayRPC();
+
+        try {
+            FileRegion fileRegion =
+                    new ManyMessageTransfer(request.encodeHeader(getMessageResult.getBufferTotalSize()),
+                        getMessageResult);
+            channel.sendFile(fileRegion).addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) throws Exception {
+                    getMessageResult.release();
+                    if (!future.isSuccess()) {
+                        log.error("invokeProducer batch failed,", future.cause());
+                    }
+                }
+            });
+        }
+        catch (Throwable e) {
+            log.error("invokeProducer batch exception", e);
+            getMessageResult.release();
+        }
+    }
+
+
     /**
      * Broker֪ͨConsumerIdб仯Oneway
      */
@@ -35,4 +35,9 @@ public class ManyPullRequest {
 
         return null;
     }
+
+
+    public synchronized boolean hasPullRequest() {
+        return !this.pullRequestList.isEmpty();
+    }
 }
@@ -5,7 +5,13 @@ package com.alibaba.rocketmq.broker.longpolling;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,6 +20,7 @@ import com.alibaba.rocketmq.broker.BrokerController;
 import com.alibaba.rocketmq.common.ServiceThread;
 import com.alibaba.rocketmq.common.constant.LoggerName;
 import com.alibaba.rocketmq.remoting.exception.RemotingCommandException;
+import com.alibaba.rocketmq.store.MessageArrivingListener;
 
 
 /**
@@ -22,61 +29,115 @@ import com.alibaba.rocketmq.remoting.exception.RemotingCommandException;
  * @author shijia.wxr<vintage.wang@gmail.com>
  * 
  */
-public class PullRequestHoldService extends ServiceThread {
+public class PullRequestHoldService extends ServiceThread implements MessageArrivingListener {
     private static final Logger log = LoggerFactory.getLogger(LoggerName.BrokerLoggerName);
-    private static final String TOPIC_QUEUEID_SEPARATOR = "@";
 
-    private ConcurrentHashMap<String/* topic@queueid */, ManyPullRequest> pullRequestTable =
-            new ConcurrentHashMap<String, ManyPullRequest>(1024);
+    // TopicϢʱҪƴKey
+    private final ConcurrentHashMap<String, ConcurrentHashMap<Integer, ManyPullRequest>> pullRequestTable =
+            new ConcurrentHashMap<String, ConcurrentHashMap<Integer, ManyPullRequest>>(1024);
 
     private final BrokerController brokerController;
 
+    // ڶִ̳߳Уַ߳
+    private final ExecutorService notifyExecutor;
+
 
     public PullRequestHoldService(final BrokerController brokerController) {
         this.brokerController = brokerController;
+        final int threads = brokerController.getBrokerConfig().getPullNotifyThreadPoolNums();
+        this.notifyExecutor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private AtomicInteger threadIndex = new AtomicInteger(0);
+
+
+            @Override
+            public Thread newThread(Runnable r) {
+                return new Thread(r, "PullRequestNotifyThread_" + this.threadIndex.incrementAndGet());
+            }
+        });
     }
 
 
-    private String buildKey(final String topic, final int queueId) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(topic);
-        sb.append(TOPIC_QUEUEID_SEPARATOR);
-        sb.append(queueId);
-        return sb.toString();
+    private ManyPullRequest findManyPullRequest(final String topic, final int queueId) {
+        ConcurrentHashMap<Integer, ManyPullRequest> queueTable = this.pullRequestTable.get(topic);
+        if (queueTable != null) {
+            return queueTable.get(queueId);
+        }
+
+        return null;
     }
 
 
     public void suspendPullRequest(final String topic, final int queueId, final PullRequest pullRequest) {
-        String key = this.buildKey(topic, queueId);
-        ManyPullRequest mpr = this.pullRequestTable.get(key);
+        ConcurrentHashMap<Integer, ManyPullRequest> queueTable = this.pullRequestTable.get(topic);
+        if (null == queueTable) {
+            queueTable = new ConcurrentHashMap<Integer, ManyPullRequest>(16);
+            ConcurrentHashMap<Integer, ManyPullRequest> prev =
+                    this.pullRequestTable.putIfAbsent(topic, queueTable);
+            if (prev != null) {
+                queueTable = prev;
+            }
+        }
+
+        ManyPullRequest mpr = queueTable.get(queueId);
         if (null == mpr) {
             mpr = new ManyPullRequest();
-            ManyPullRequest prev = this.pullRequestTable.putIfAbsent(key, mpr);
+            ManyPullRequest prev = queueTable.putIfAbsent(queueId, mpr);
             if (prev != null) {
                 mpr = prev;
             }
         }
 
         mpr.addPullRequest(pullRequest);
+
+        // Ϣ֮䵽ϢѾ֪ͨﲹһΣȵʱ
+        final long maxOffset = this.brokerController.getMessageStore().getMaxOffsetInQuque(topic, queueId);
+        if (maxOffset > pullRequest.getPullFromThisOffset()) {
+            this.arriving(topic, queueId, maxOffset - 1);
+        }
+    }
+
+
+    /**
+     * ַ߳дConsumeQueueصйʱύ
+     */
+    @Override
+    public void arriving(final String topic, final int queueId, final long logicOffset) {
+        ManyPullRequest mpr = this.findManyPullRequest(topic, queueId);
+        if (mpr != null && mpr.hasPullRequest()) {
+            try {
+                this.notifyExecutor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        notifyMessageArriving(topic, queueId, logicOffset);
+                    }
+                });
+            }
+            catch (RejectedExecutionException e) {
+                // رУɶʱ鶵
+                log.warn("submit pull request notify task rejected, " + topic + " " + queueId);
+            }
+        }
     }
 
 
     private void checkHoldRequest() {
-        for (String key : this.pullRequestTable.keySet()) {
-            String[] kArray = key.split(TOPIC_QUEUEID_SEPARATOR);
-            if (kArray != null && 2 == kArray.length) {
-                String topic = kArray[0];
-                int queueId = Integer.parseInt(kArray[1]);
-                final long offset = this.brokerController.getMessageStore().getMaxOffsetInQuque(topic, queueId);
-                this.notifyMessageArriving(topic, queueId, offset);
+        for (Map.Entry<String, ConcurrentHashMap<Integer, ManyPullRequest>> topicEntry : this.pullRequestTable
+            .entrySet()) {
+            final String topic = topicEntry.getKey();
+            for (Map.Entry<Integer, ManyPullRequest> queueEntry : topicEntry.getValue().entrySet()) {
+                if (queueEntry.getValue().hasPullRequest()) {
+                    final int queueId = queueEntry.getKey();
+                    final long offset =
+                            this.brokerController.getMessageStore().getMaxOffsetInQuque(topic, queueId);
+                    this.notifyMessageArriving(topic, queueId, offset);
+                }
             }
         }
     }
 
 
     public void notifyMessageArriving(final String topic, final int queueId, final long offset) {
-        String key = this.buildKey(topic, queueId);
-        ManyPullRequest mpr = this.pullRequestTable.get(key);
+        ManyPullRequest mpr = this.findManyPullRequest(topic, queueId);
         if (mpr != null) {
             List<PullRequest> requestList = mpr.cloneListAndClear();
             if (requestList != null) {
@@ -151,6 +212,13 @@ public class PullRequestHoldService extends ServiceThread {
     }
 
 
+    @Override
+    public void shutdown() {
+        super.shutdown();
+        this.notifyExecutor.shutdown();
+    }
+
+
     @Override
     public String getServiceName() {
         return PullRequestHoldService.class.getSimpleName();
@@ -0,0 +1,93 @@
+/**
+ * $Id: ConsumerOffsetHandle.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.broker.offset;
+
+/**
+ * һ(group, topic)ѽȣqueueId±ҵȱеĲλ<br>
+ * һκ󻺴ConsumerGroupInfoУύѯȲƴKeyװ
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class ConsumerOffsetHandle {
+    private final String group;
+    private final String topic;
+    private final ConsumerOffsetTable consumerOffsetTable;
+    // ±ΪqueueIdֵΪλ-1ʾδ䣬ʱ滻
+    private volatile int[] slots = new int[0];
+
+
+    public ConsumerOffsetHandle(final String group, final String topic,
+            final ConsumerOffsetTable consumerOffsetTable) {
+        this.group = group;
+        this.topic = topic;
+        this.consumerOffsetTable = consumerOffsetTable;
+    }
+
+
+    public void commitOffset(final int queueId, final long offset) {
+        int slot = this.findSlot(queueId);
+        if (slot < 0) {
+            slot = this.consumerOffsetTable.allocateSlot(this, queueId);
+            if (slot < 0) {
+                return;
+            }
+        }
+
+        this.consumerOffsetTable.writeOffset(slot, offset);
+    }
+
+
+    public long queryOffset(final int queueId) {
+        int slot = this.findSlot(queueId);
+        if (slot >= 0) {
+            return this.consumerOffsetTable.readOffset(slot);
+        }
+
+        return -1;
+    }
+
+
+    public int findSlot(final int queueId) {
+        final int[] current = this.slots;
+        if (queueId >= 0 && queueId < current.length) {
+            return current[queueId];
+        }
+
+        return -1;
+    }
+
+
+    /**
+     * ѷλqueueId1
+     */
+    public int getQueueNums() {
+        return this.slots.length;
+    }
+
+
+    /**
+     * ֻConsumerOffsetTableڳʱ
+     */
+    void putSlot(final int queueId, final int slot) {
+        final int[] current = this.slots;
+        int[] next = new int[Math.max(current.length, queueId + 1)];
+        System.arraycopy(current, 0, next, 0, current.length);
+        for (int i = current.length; i < next.length; i++) {
+            next[i] = -1;
+        }
+
+        next[queueId] = slot;
+        this.slots = next;
+    }
+
+
+    public String getGroup() {
+        return group;
+    }
+
+
+    public String getTopic() {
+        return topic;
+    }
+}
@@ -3,6 +3,7 @@
  */
 package com.alibaba.rocketmq.broker.offset;
 
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
@@ -11,11 +12,14 @@ import org.slf4j.LoggerFactory;
 import com.alibaba.rocketmq.broker.BrokerController;
 import com.alibaba.rocketmq.common.ConfigManager;
 import com.alibaba.rocketmq.common.constant.LoggerName;
+import com.alibaba.rocketmq.common.protocol.header.ConsumerOffsetBatchBody;
+import com.alibaba.rocketmq.common.protocol.header.ConsumerOffsetBatchBody.TopicOffset;
 import com.alibaba.rocketmq.remoting.protocol.RemotingSerializable;
 
 
 /**
- * Consumerѽȹ
+ * Consumerѽȹ<br>
+ * ȱӳڴĶƱУJSONʽֻάߵ
  * 
  * @author shijia.wxr<vintage.wang@gmail.com>
  * 
@@ -24,11 +28,12 @@ public class ConsumerOffsetManager extends ConfigManager {
     private static final Logger log = LoggerFactory.getLogger(LoggerName.BrokerLoggerName);
     private static final String TOPIC_GROUP_SEPARATOR = "@";
 
-    private ConcurrentHashMap<String/* topic@group */, ConcurrentHashMap<Integer, Long>> offsetTable =
-            new ConcurrentHashMap<String, ConcurrentHashMap<Integer, Long>>(512);
+    // ֻJSONлconsumerOffsetTableΪ׼
+    private ConcurrentHashMap<String/* topic@group */, ConcurrentHashMap<Integer, Long>> offsetTable;
 
-    private transient volatile ConcurrentHashMap<String, ConcurrentHashMap<Integer, Long>> offsetTableLastLast;
-    private transient volatile ConcurrentHashMap<String, ConcurrentHashMap<Integer, Long>> offsetTableLast;
+    private transient ConsumerOffsetTable consumerOffsetTable;
+    private transient volatile long[] offsetSnapshotLastLast;
+    private transient volatile long[] offsetSnapshotLast;
     private transient BrokerController brokerController;
 
 
@@ -38,45 +43,50 @@ public class ConsumerOffsetManager extends ConfigManager {
 
     public ConsumerOffsetManager(BrokerController brokerController) {
         this.brokerController = brokerController;
+        this.consumerOffsetTable =
+                new ConsumerOffsetTable(brokerController.getBrokerConfig().getConsumerOffsetTableDir(),
+                    brokerController.getBrokerConfig().getConsumerOffsetTableMaxSlots());
     }
 
 
-    private static ConcurrentHashMap<String, ConcurrentHashMap<Integer, Long>> cloneOffsetTable(
-            final ConcurrentHashMap<String, ConcurrentHashMap<Integer, Long>> input) {
-        ConcurrentHashMap<String, ConcurrentHashMap<Integer, Long>> out =
-                new ConcurrentHashMap<String, ConcurrentHashMap<Integer, Long>>(input.size());
-
-        for (String topicgroup : input.keySet()) {
-            ConcurrentHashMap<Integer, Long> map = input.get(topicgroup);
-            if (map != null) {
-                ConcurrentHashMap<Integer, Long> mapNew = new ConcurrentHashMap<Integer, Long>(map.size());
-                for (Integer queueId : map.keySet()) {
-                    Long offset = map.get(queueId);
-                    Integer queueIdNew = new Integer(queueId.intValue());
-                    Long offsetNew = new Long(offset.longValue());
-                    map.put(queueIdNew, offsetNew);
-                }
+    @Override
+    public boolean load() {
+        if (!this.consumerOffsetTable.load()) {
+            return false;
+        }
 
-                String topicgroupNew = new String(topicgroup);
-                out.put(topicgroupNew, mapNew);
-            }
+        // ƱΪʱJSONյ룬ǰ
+        if (this.consumerOffsetTable.isEmpty()) {
+            return super.load();
         }
 
-        return out;
+        return true;
+    }
+
+
+    /**
+     * ʱˢֻ̣forceӳڴslot־
+     */
+    public void flush() {
+        this.consumerOffsetTable.flush();
     }
 
 
-    public long computePullTPS(final String topicgroup) {
-        ConcurrentHashMap<Integer, Long> mapLast = this.offsetTableLast.get(topicgroup);
-        ConcurrentHashMap<Integer, Long> mapLastLast = this.offsetTableLastLast.get(topicgroup);
+    public void shutdown() {
+        this.consumerOffsetTable.shutdown();
+    }
+
+
+    public long computePullTPS(final ConsumerOffsetHandle handle) {
+        final long[] last = this.offsetSnapshotLast;
+        final long[] lastLast = this.offsetSnapshotLastLast;
         long totalMsgs = 0;
-        if (mapLast != null && mapLastLast != null) {
-            for (Integer queueIdLast : mapLast.keySet()) {
-                Long offsetLast = mapLast.get(queueIdLast);
-                Long offsetLastLast = mapLastLast.get(queueIdLast);
-                if (offsetLast != null && offsetLastLast != null) {
-                    long diff = offsetLast - offsetLastLast;
-                    totalMsgs += diff;
+        if (last != null && lastLast != null) {
+            for (int queueId = 0; queueId < handle.getQueueNums(); queueId++) {
+                int slot = handle.findSlot(queueId);
+                // ϴο֮·Ĳλͳ
+                if (slot >= 0 && slot < lastLast.length && lastLast[slot] >= 0) {
+                    totalMsgs += last[slot] - lastLast[slot];
                 }
             }
         }
@@ -93,51 +103,77 @@ public class ConsumerOffsetManager extends ConfigManager {
 
 
     public void recordPullTPS() {
-        ConcurrentHashMap<String, ConcurrentHashMap<Integer, Long>> snapshotNow =
-                cloneOffsetTable(this.offsetTable);
-        this.offsetTableLastLast = this.offsetTableLast;
-        this.offsetTableLast = snapshotNow;
-
-        if (this.offsetTableLast != null && this.offsetTableLastLast != null) {
-            for (String topicgroupLast : this.offsetTableLast.keySet()) {
-                long tps = this.computePullTPS(topicgroupLast);
-                log.info(topicgroupLast + " pull tps, " + tps);
+        // ֻλеlongȸMap
+        this.offsetSnapshotLastLast = this.offsetSnapshotLast;
+        this.offsetSnapshotLast = this.consumerOffsetTable.snapshot();
+
+        if (this.offsetSnapshotLast != null && this.offsetSnapshotLastLast != null) {
+            for (ConcurrentHashMap<String, ConsumerOffsetHandle> topicTable : this.consumerOffsetTable
+                .getHandleTable().values()) {
+                for (ConsumerOffsetHandle handle : topicTable.values()) {
+                    long tps = this.computePullTPS(handle);
+                    log.info(handle.getTopic() + TOPIC_GROUP_SEPARATOR + handle.getGroup() + " pull tps, "
+                            + tps);
+                }
             }
         }
     }
 
 
+    /**
+     * grouptopicңƴKeyʱ
+     */
+    public ConsumerOffsetHandle findOffsetHandle(final String group, final String topic) {
+        return this.consumerOffsetTable.findOrCreateHandle(group, topic);
+    }
+
+
     public void commitOffset(final String group, final String topic, final int queueId, final long offset) {
-        // topic@group
-        String key = topic + TOPIC_GROUP_SEPARATOR + group;
-        this.commitOffset(key, queueId, offset);
+        this.findOffsetHandle(group, topic).commitOffset(queueId, offset);
     }
 
 
     public long queryOffset(final String group, final String topic, final int queueId) {
-        // topic@group
-        String key = topic + TOPIC_GROUP_SEPARATOR + group;
-        ConcurrentHashMap<Integer, Long> map = this.offsetTable.get(key);
-        if (null != map) {
-            Long offset = map.get(queueId);
-            if (offset != null)
-                return offset;
+        ConsumerOffsetHandle handle = this.consumerOffsetTable.findHandle(group, topic);
+        if (handle != null) {
+            return handle.queryOffset(queueId);
         }
 
         return -1;
     }
 
 
-    private void commitOffset(final String key, final int queueId, final long offset) {
-        ConcurrentHashMap<Integer, Long> map = this.offsetTable.get(key);
-        if (null == map) {
-            map = new ConcurrentHashMap<Integer, Long>(32);
-            map.put(queueId, offset);
-            this.offsetTable.put(key, map);
+    /**
+     * ύһGroupѽȣÿTopicֻһξ
+     */
+    public void commitOffsetBatch(final String group, final ConsumerOffsetBatchBody body) {
+        for (TopicOffset topicOffset : body.getTopicOffsetList()) {
+            ConsumerOffsetHandle handle = this.findOffsetHandle(group, topicOffset.getTopic());
+            for (int i = 0; i < topicOffset.getSize(); i++) {
+                handle.commitOffset(topicOffset.getQueueId(i), topicOffset.getOffset(i));
+            }
         }
-        else {
-            map.put(queueId, offset);
+    }
+
+
+    /**
+     * ѯһGroupѽȣ鲻Ķз-1
+     */
+    public ConsumerOffsetBatchBody queryOffsetBatch(final String group, final ConsumerOffsetBatchBody body) {
+        ConsumerOffsetBatchBody result = new ConsumerOffsetBatchBody();
+        for (TopicOffset topicOffset : body.getTopicOffsetList()) {
+            ConsumerOffsetHandle handle = this.consumerOffsetTable.findHandle(group, topicOffset.getTopic());
+            for (int i = 0; i < topicOffset.getSize(); i++) {
+                final int queueId = topicOffset.getQueueId(i);
+                long offset = -1;
+                if (handle != null) {
+                    offset = handle.queryOffset(queueId);
+                }
+                result.addOffset(topicOffset.getTopic(), queueId, offset);
+            }
         }
+
+        return result;
     }
 
 
@@ -152,8 +188,23 @@ public class ConsumerOffsetManager extends ConfigManager {
         if (jsonString != null) {
             ConsumerOffsetManager obj =
                     RemotingSerializable.fromJson(jsonString, ConsumerOffsetManager.class);
-            if (obj != null) {
-                this.offsetTable = obj.offsetTable;
+            if (obj != null && obj.offsetTable != null) {
+                for (Map.Entry<String, ConcurrentHashMap<Integer, Long>> entry : obj.offsetTable.entrySet()) {
+                    // topic@group
+                    String key = entry.getKey();
+                    int index = key.indexOf(TOPIC_GROUP_SEPARATOR);
+                    if (index < 0) {
+                        log.warn("illegal consumer offset key, " + key);
+                        continue;
+                    }
+
+                    ConsumerOffsetHandle handle =
+                            this.findOffsetHandle(key.substring(index + 1), key.substring(0, index));
+                    for (Map.Entry<Integer, Long> queueEntry : entry.getValue().entrySet()) {
+                        handle.commitOffset(queueEntry.getKey(), queueEntry.getValue());
+                    }
+                }
+                log.info("import consumer offset from json, " + obj.offsetTable.size() + " topic@group");
             }
         }
     }
@@ -165,8 +216,34 @@ public class ConsumerOffsetManager extends ConfigManager {
     }
 
 
+    /**
+     * JSONʱɶƱ
+     */
     public ConcurrentHashMap<String, ConcurrentHashMap<Integer, Long>> getOffsetTable() {
-        return offsetTable;
+        if (null == this.consumerOffsetTable) {
+            return offsetTable;
+        }
+
+        ConcurrentHashMap<String, ConcurrentHashMap<Integer, Long>> result =
+                new ConcurrentHashMap<String, ConcurrentHashMap<Integer, Long>>(512);
+        for (ConcurrentHashMap<String, ConsumerOffsetHandle> topicTable : this.consumerOffsetTable
+            .getHandleTable().values()) {
+            for (ConsumerOffsetHandle handle : topicTable.values()) {
+                ConcurrentHashMap<Integer, Long> map = new ConcurrentHashMap<Integer, Long>(32);
+                for (int queueId = 0; queueId < handle.getQueueNums(); queueId++) {
+                    int slot = handle.findSlot(queueId);
+                    if (slot >= 0) {
+                        map.put(queueId, this.consumerOffsetTable.readOffset(slot));
+                    }
+                }
+
+                if (!map.isEmpty()) {
+                    result.put(handle.getTopic() + TOPIC_GROUP_SEPARATOR + handle.getGroup(), map);
+                }
+            }
+        }
+
+        return result;
     }
 
 
@@ -0,0 +1,309 @@
+/**
+ * $Id: ConsumerOffsetTable.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.broker.offset;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.rocketmq.common.constant.LoggerName;
+import com.alibaba.rocketmq.store.MapedFile;
+
+
+/**
+ * ѽȶƱÿ(topic@group, queueId)һ̶λλֻһlong<br>
+ * ύֱдӳڴ棬ʱforceˢ̣л<br>
+ * λ׷дslot־ʱط־ָλ־ֻµѶгʱ
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class ConsumerOffsetTable {
+    private static final Logger log = LoggerFactory.getLogger(LoggerName.BrokerLoggerName);
+    private static final Charset KeyCharset = Charset.forName("UTF-8");
+    private static final int SlotSize = 8;
+    private static final String TOPIC_GROUP_SEPARATOR = "@";
+    // queueIdޣֹ쳣Ŵλ±
+    private static final int MaxQueueId = 1024 * 64;
+
+    private final String tableFilePath;
+    private final String slotLogPath;
+    private final int maxSlots;
+
+    private RandomAccessFile randomAccessFile;
+    private FileChannel fileChannel;
+    private MappedByteBuffer mappedByteBuffer;
+    private FileOutputStream slotLogFile;
+    private DataOutputStream slotLogStream;
+
+    // λgrouptopicңٱ仯
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, ConsumerOffsetHandle>> handleTable =
+            new ConcurrentHashMap<String, ConcurrentHashMap<String, ConsumerOffsetHandle>>(512);
+    private volatile int slotCount = 0;
+    // رպٶдӳڴ棬Netty IO߳ϵϢڹر
+    private volatile boolean stopped = false;
+
+
+    public ConsumerOffsetTable(final String storeDir, final int maxSlots) {
+        this.tableFilePath = storeDir + File.separator + "offsettable";
+        this.slotLogPath = storeDir + File.separator + "offsetslot";
+        this.maxSlots = maxSlots;
+    }
+
+
+    public boolean load() {
+        try {
+            MapedFile.ensureDirOK(new File(this.tableFilePath).getParent());
+            this.randomAccessFile = new RandomAccessFile(this.tableFilePath, "rw");
+            this.fileChannel = this.randomAccessFile.getChannel();
+            this.mappedByteBuffer =
+                    this.fileChannel.map(MapMode.READ_WRITE, 0, (long) this.maxSlots * SlotSize);
+
+            this.replaySlotLog();
+
+            this.slotLogFile = new FileOutputStream(this.slotLogPath, true);
+            this.slotLogStream = new DataOutputStream(new BufferedOutputStream(this.slotLogFile));
+            log.info("load consumer offset table OK, slots " + this.slotCount + ", " + this.tableFilePath);
+            return true;
+        }
+        catch (IOException e) {
+            log.error("load consumer offset table exception, " + this.tableFilePath, e);
+            return false;
+        }
+    }
+
+
+    /**
+     * ¼ʽslot(4) queueId(4) keyLength(2) keykeyΪtopic@group
+     */
+    private void replaySlotLog() throws IOException {
+        File file = new File(this.slotLogPath);
+        if (!file.exists()) {
+            return;
+        }
+
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        long validLength = 0;
+        try {
+            while (true) {
+                int slot = in.readInt();
+                int queueId = in.readInt();
+                byte[] keyData = new byte[in.readUnsignedShort()];
+                in.readFully(keyData);
+                // λñСʱܽضϣܾ
+                if (slot < 0 || slot >= this.maxSlots) {
+                    throw new IOException("slot log record out of range, slot " + slot + ", maxSlots "
+                            + this.maxSlots);
+                }
+
+                String key = new String(keyData, KeyCharset);
+                int index = key.indexOf(TOPIC_GROUP_SEPARATOR);
+                if (index < 0) {
+                    throw new IOException("illegal slot log record key, " + key);
+                }
+
+                String topic = key.substring(0, index);
+                String group = key.substring(index + 1);
+                this.findOrCreateHandle(group, topic).putSlot(queueId, slot);
+                this.slotCount = Math.max(this.slotCount, slot + 1);
+                validLength += 4 + 4 + 2 + keyData.length;
+            }
+        }
+        catch (EOFException e) {
+            // һ¼ûд
+        }
+        finally {
+            in.close();
+        }
+
+        if (validLength < file.length()) {
+            log.warn("truncate consumer offset slot log from " + file.length() + " to " + validLength);
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            try {
+                raf.setLength(validLength);
+            }
+            finally {
+                raf.close();
+            }
+        }
+    }
+
+
+    public ConsumerOffsetHandle findHandle(final String group, final String topic) {
+        ConcurrentHashMap<String, ConsumerOffsetHandle> topicTable = this.handleTable.get(group);
+        if (topicTable != null) {
+            return topicTable.get(topic);
+        }
+
+        return null;
+    }
+
+
+    public ConsumerOffsetHandle findOrCreateHandle(final String group, final String topic) {
+        ConcurrentHashMap<String, ConsumerOffsetHandle> topicTable = this.handleTable.get(group);
+        if (null == topicTable) {
+            topicTable = new ConcurrentHashMap<String, ConsumerOffsetHandle>(16);
+            ConcurrentHashMap<String, ConsumerOffsetHandle> prev =
+                    this.handleTable.putIfAbsent(group, topicTable);
+            if (prev != null) {
+                topicTable = prev;
+            }
+        }
+
+        ConsumerOffsetHandle handle = topicTable.get(topic);
+        if (null == handle) {
+            handle = new ConsumerOffsetHandle(group, topic, this);
+            ConsumerOffsetHandle prev = topicTable.putIfAbsent(topic, handle);
+            if (prev != null) {
+                handle = prev;
+            }
+        }
+
+        return handle;
+    }
+
+
+    /**
+     * µѶзλ׷slot־λ귵-1
+     */
+    public synchronized int allocateSlot(final ConsumerOffsetHandle handle, final int queueId) {
+        int slot = handle.findSlot(queueId);
+        if (slot >= 0 || this.stopped) {
+            return slot;
+        }
+
+        final String key = handle.getTopic() + TOPIC_GROUP_SEPARATOR + handle.getGroup();
+        if (queueId < 0 || queueId >= MaxQueueId) {
+            log.error("illegal queueId " + queueId + ", " + key);
+            return -1;
+        }
+
+        if (this.slotCount >= this.maxSlots) {
+            log.error("consumer offset table is full, maxSlots " + this.maxSlots + ", drop " + key + " "
+                    + queueId);
+            return -1;
+        }
+
+        slot = this.slotCount;
+        // ȰѲλֵˢ׷slot־崻־еĲλ0߽ضǰеľɽ
+        this.writeOffset(slot, -1);
+        this.mappedByteBuffer.force();
+
+        byte[] keyData = key.getBytes(KeyCharset);
+        try {
+            this.slotLogStream.writeInt(slot);
+            this.slotLogStream.writeInt(queueId);
+            this.slotLogStream.writeShort(keyData.length);
+            this.slotLogStream.write(keyData);
+            this.slotLogStream.flush();
+        }
+        catch (IOException e) {
+            log.error("append consumer offset slot log exception", e);
+            return -1;
+        }
+
+        handle.putSlot(queueId, slot);
+        this.slotCount = slot + 1;
+        return slot;
+    }
+
+
+    public void writeOffset(final int slot, final long offset) {
+        if (this.stopped) {
+            log.warn("consumer offset table stopped, drop offset " + offset + " of slot " + slot);
+            return;
+        }
+
+        this.mappedByteBuffer.putLong(slot * SlotSize, offset);
+    }
+
+
+    public long readOffset(final int slot) {
+        if (this.stopped) {
+            return -1;
+        }
+
+        return this.mappedByteBuffer.getLong(slot * SlotSize);
+    }
+
+
+    /**
+     * ǰвλĽȿգͳٶ
+     */
+    public long[] snapshot() {
+        final int count = this.slotCount;
+        long[] offsets = new long[count];
+        for (int i = 0; i < count; i++) {
+            offsets[i] = this.readOffset(i);
+        }
+
+        return offsets;
+    }
+
+
+    public synchronized void flush() {
+        if (null == this.mappedByteBuffer || this.stopped) {
+            return;
+        }
+
+        this.forceAll();
+    }
+
+
+    private void forceAll() {
+        this.mappedByteBuffer.force();
+        try {
+            this.slotLogFile.getFD().sync();
+        }
+        catch (IOException e) {
+            log.error("sync consumer offset slot log exception", e);
+        }
+    }
+
+
+    /**
+     * ֻˢ̲ӳ䣬ر֮;Ķдͷŵڴ棬ӳ˳ͷ
+     */
+    public synchronized void shutdown() {
+        if (null == this.mappedByteBuffer || this.stopped) {
+            return;
+        }
+
+        this.stopped = true;
+        this.forceAll();
+
+        try {
+            this.slotLogStream.close();
+            this.fileChannel.close();
+            this.randomAccessFile.close();
+        }
+        catch (IOException e) {
+            log.error("close consumer offset table exception", e);
+        }
+    }
+
+
+    public boolean isEmpty() {
+        return 0 == this.slotCount;
+    }
+
+
+    public ConcurrentHashMap<String, ConcurrentHashMap<String, ConsumerOffsetHandle>> getHandleTable() {
+        return handleTable;
+    }
+}
@@ -6,17 +6,22 @@ package com.alibaba.rocketmq.broker.processor;
 import io.netty.channel.ChannelHandlerContext;
 
 import java.io.UnsupportedEncodingException;
+import java.util.Map;
 import java.util.Properties;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.alibaba.rocketmq.broker.BrokerController;
+import com.alibaba.rocketmq.broker.topic.TopicConfigManager;
+import com.alibaba.rocketmq.common.ConfigChangeTracker.ChangeSet;
 import com.alibaba.rocketmq.common.MixAll;
 import com.alibaba.rocketmq.common.TopicConfig;
 import com.alibaba.rocketmq.common.constant.LoggerName;
 import com.alibaba.rocketmq.common.protocol.MQProtos.MQRequestCode;
 import com.alibaba.rocketmq.common.protocol.MQProtos.MQResponseCode;
+import com.alibaba.rocketmq.common.protocol.header.ConsumerOffsetBatchBody;
+import com.alibaba.rocketmq.common.protocol.header.ConsumerOffsetBatchRequestHeader;
 import com.alibaba.rocketmq.common.protocol.header.CreateTopicRequestHeader;
 import com.alibaba.rocketmq.common.protocol.header.DeleteTopicRequestHeader;
 import com.alibaba.rocketmq.common.protocol.header.GetAllTopicConfigResponseHeader;
@@ -27,10 +32,13 @@ import com.alibaba.rocketmq.common.protocol.header.GetMaxOffsetRequestHeader;
 import com.alibaba.rocketmq.common.protocol.header.GetMaxOffsetResponseHeader;
 import com.alibaba.rocketmq.common.protocol.header.GetMinOffsetRequestHeader;
 import com.alibaba.rocketmq.common.protocol.header.GetMinOffsetResponseHeader;
+import com.alibaba.rocketmq.common.protocol.header.GetTopicConfigDeltaRequestHeader;
+import com.alibaba.rocketmq.common.protocol.header.GetTopicConfigDeltaResponseHeader;
 import com.alibaba.rocketmq.common.protocol.header.QueryConsumerOffsetRequestHeader;
 import com.alibaba.rocketmq.common.protocol.header.QueryConsumerOffsetResponseHeader;
 import com.alibaba.rocketmq.common.protocol.header.SearchOffsetRequestHeader;
 import com.alibaba.rocketmq.common.protocol.header.SearchOffsetResponseHeader;
+import com.alibaba.rocketmq.common.protocol.header.TopicConfigDeltaBody;
 import com.alibaba.rocketmq.common.protocol.header.UpdateConsumerOffsetRequestHeader;
 import com.alibaba.rocketmq.common.protocol.header.UpdateConsumerOffsetResponseHeader;
 import com.alibaba.rocketmq.remoting.exception.RemotingCommandException;
@@ -70,6 +78,8 @@ public class AdminBrokerProcessor implements NettyRequestProcessor {
             // ȡTopic
         case GET_ALL_TOPIC_CONFIG:
             return this.getAllTopicConfig(ctx, request);
+        case GET_TOPIC_CONFIG_DELTA:
+            return this.getTopicConfigDelta(ctx, request);
 
             // Broker TODO ܴڲ
         case UPDATE_BROKER_CONFIG:
@@ -93,6 +103,10 @@ public class AdminBrokerProcessor implements NettyRequestProcessor {
             return this.updateConsumerOffset(ctx, request);
         case QUERY_CONSUMER_OFFSET:
             return this.queryConsumerOffset(ctx, request);
+        case UPDATE_CONSUMER_OFFSET_BATCH:
+            return this.updateConsumerOffsetBatch(ctx, request);
+        case QUERY_CONSUMER_OFFSET_BATCH:
+            return this.queryConsumerOffsetBatch(ctx, request);
 
             // ȡBrokerʱϢ
         case GET_BROKER_RUNTIME_INFO:
@@ -201,6 +215,65 @@ public class AdminBrokerProcessor implements NettyRequestProcessor {
     }
 
 
+    /**
+     * ֻϴ֮ͬ޸ġɾTopicepochһ»ɾ¼ѱ̭ʱȫ
+     */
+    private RemotingCommand getTopicConfigDelta(ChannelHandlerContext ctx, RemotingCommand request)
+            throws RemotingCommandException {
+        final RemotingCommand response =
+                RemotingCommand.createResponseCommand(GetTopicConfigDeltaResponseHeader.class);
+        final GetTopicConfigDeltaResponseHeader responseHeader =
+                (GetTopicConfigDeltaResponseHeader) response.getCustomHeader();
+        final GetTopicConfigDeltaRequestHeader requestHeader =
+                (GetTopicConfigDeltaRequestHeader) request
+                    .decodeCommandCustomHeader(GetTopicConfigDeltaRequestHeader.class);
+
+        final TopicConfigManager topicConfigManager = this.brokerController.getTopicConfigManager();
+        ChangeSet changeSet = null;
+        if (requestHeader.getDataEpoch() != null && requestHeader.getSinceSequence() != null) {
+            changeSet =
+                    topicConfigManager.changesSince(requestHeader.getDataEpoch(),
+                        requestHeader.getSinceSequence());
+        }
+
+        TopicConfigDeltaBody body = new TopicConfigDeltaBody();
+        if (changeSet != null) {
+            Map<String, TopicConfig> topicConfigTable = topicConfigManager.getTopicConfigTable();
+            for (String topic : changeSet.getChangedKeys()) {
+                TopicConfig topicConfig = topicConfigTable.get(topic);
+                // ȡкֱ֮ɾɾ´ٴ
+                if (topicConfig != null) {
+                    body.getTopicConfigTable().put(topic, topicConfig);
+                }
+                else {
+                    body.getDeletedTopicList().add(topic);
+                }
+            }
+            body.getDeletedTopicList().addAll(changeSet.getDeletedKeys());
+
+            responseHeader.setDataEpoch(changeSet.getDataEpoch());
+            responseHeader.setSequence(changeSet.getSequence());
+            responseHeader.setFullSync(false);
+        }
+        else {
+            // ȡкٶ
+            responseHeader.setDataEpoch(topicConfigManager.currentDataEpoch());
+            responseHeader.setSequence(topicConfigManager.currentSequence());
+            responseHeader.setFullSync(true);
+            body.setTopicConfigTable(topicConfigManager.getTopicConfigTable());
+        }
+
+        response.setBody(body.encode());
+        responseHeader.setBrokerName(brokerController.getBrokerConfig().getBrokerName());
+        responseHeader.setBrokerId(brokerController.getBrokerConfig().getBrokerId());
+        responseHeader.setClusterName(brokerController.getBrokerConfig().getBrokerClusterName());
+
+        response.setCode(ResponseCode.SUCCESS_VALUE);
+        response.setRemark(null);
+        return response;
+    }
+
+
     private RemotingCommand updateBrokerConfig(ChannelHandlerContext ctx, RemotingCommand request) {
         final RemotingCommand response = RemotingCommand.createResponseCommand(null);
 
@@ -404,4 +477,40 @@ public class AdminBrokerProcessor implements NettyRequestProcessor {
 
         return response;
     }
+
+
+    private RemotingCommand updateConsumerOffsetBatch(ChannelHandlerContext ctx, RemotingCommand request)
+            throws RemotingCommandException {
+        final RemotingCommand response = RemotingCommand.createResponseCommand(null);
+        final ConsumerOffsetBatchRequestHeader requestHeader =
+                (ConsumerOffsetBatchRequestHeader) request
+                    .decodeCommandCustomHeader(ConsumerOffsetBatchRequestHeader.class);
+        final ConsumerOffsetBatchBody requestBody = ConsumerOffsetBatchBody.decode(request.getBody());
+
+        this.brokerController.getConsumerOffsetManager().commitOffsetBatch(requestHeader.getConsumerGroup(),
+            requestBody);
+
+        response.setCode(ResponseCode.SUCCESS_VALUE);
+        response.setRemark(null);
+        return response;
+    }
+
+
+    private RemotingCommand queryConsumerOffsetBatch(ChannelHandlerContext ctx, RemotingCommand request)
+            throws RemotingCommandException {
+        final RemotingCommand response = RemotingCommand.createResponseCommand(null);
+        final ConsumerOffsetBatchRequestHeader requestHeader =
+                (ConsumerOffsetBatchRequestHeader) request
+                    .decodeCommandCustomHeader(ConsumerOffsetBatchRequestHeader.class);
+        final ConsumerOffsetBatchBody requestBody = ConsumerOffsetBatchBody.decode(request.getBody());
+
+        ConsumerOffsetBatchBody responseBody =
+                this.brokerController.getConsumerOffsetManager().queryOffsetBatch(
+                    requestHeader.getConsumerGroup(), requestBody);
+
+        response.setBody(responseBody.encode());
+        response.setCode(ResponseCode.SUCCESS_VALUE);
+        response.setRemark(null);
+        return response;
+    }
 }
@@ -14,7 +14,9 @@ import com.alibaba.rocketmq.common.constant.LoggerName;
 import com.alibaba.rocketmq.common.message.Message;
 import com.alibaba.rocketmq.common.message.MessageDecoder;
 import com.alibaba.rocketmq.common.message.MessageExt;
+import com.alibaba.rocketmq.common.protocol.MQProtos.MQRequestCode;
 import com.alibaba.rocketmq.common.protocol.MQProtos.MQResponseCode;
+import com.alibaba.rocketmq.common.protocol.header.EndTransactionBatchRequestBody;
 import com.alibaba.rocketmq.common.protocol.header.EndTransactionRequestHeader;
 import com.alibaba.rocketmq.common.sysflag.MessageSysFlag;
 import com.alibaba.rocketmq.remoting.common.RemotingHelper;
@@ -25,6 +27,7 @@ import com.alibaba.rocketmq.remoting.protocol.RemotingProtos.ResponseCode;
 import com.alibaba.rocketmq.store.MessageExtBrokerInner;
 import com.alibaba.rocketmq.store.MessageStore;
 import com.alibaba.rocketmq.store.PutMessageResult;
+import com.alibaba.rocketmq.store.UpdateTransactionStateStatus;
 
 
 /**
@@ -78,9 +81,47 @@ public class EndTransactionProcessor implements NettyRequestProcessor {
     @Override
     public RemotingCommand processRequest(ChannelHandlerContext ctx, RemotingCommand request)
             throws RemotingCommandException {
-        final RemotingCommand response = RemotingCommand.createResponseCommand(null);
+        if (MQRequestCode.END_TRANSACTION_BATCH_VALUE == request.getCode()) {
+            return this.endTransactionBatch(ctx, request);
+        }
+
         final EndTransactionRequestHeader requestHeader =
                 (EndTransactionRequestHeader) request.decodeCommandCustomHeader(EndTransactionRequestHeader.class);
+        return this.endTransaction(ctx, requestHeader, request.getRemark());
+    }
+
+
+    /**
+     * زӦOnewayã޷ֵ
+     */
+    private RemotingCommand endTransactionBatch(ChannelHandlerContext ctx, RemotingCommand request) {
+        if (null == request.getBody()) {
+            return null;
+        }
+
+        final EndTransactionBatchRequestBody requestBody =
+                EndTransactionBatchRequestBody.decode(request.getBody(), EndTransactionBatchRequestBody.class);
+        for (EndTransactionRequestHeader requestHeader : requestBody.getEndTransactionList()) {
+            try {
+                requestHeader.checkFields();
+                RemotingCommand response = this.endTransaction(ctx, requestHeader, request.getRemark());
+                if (response != null && response.getCode() != ResponseCode.SUCCESS_VALUE) {
+                    logTransaction.warn("end transaction in batch failed, RequestHeader: {} Remark: {}",
+                        requestHeader.toString(), response.getRemark());
+                }
+            }
+            catch (Exception e) {
+                log.error("end transaction in batch exception, " + requestHeader, e);
+            }
+        }
+
+        return null;
+    }
+
+
+    private RemotingCommand endTransaction(ChannelHandlerContext ctx,
+            final EndTransactionRequestHeader requestHeader, final String remark) {
+        final RemotingCommand response = RemotingCommand.createResponseCommand(null);
 
         // زӦ
         if (requestHeader.getFromTransactionCheck()) {
@@ -91,7 +132,7 @@ public class EndTransactionProcessor implements NettyRequestProcessor {
                         + "RequestHeader: {} Remark: {}",//
                     RemotingHelper.parseChannelRemoteAddr(ctx.channel()), //
                     requestHeader.toString(),//
-                    request.getRemark());
+                    remark);
                 return null;
             }
             // ύ
@@ -100,7 +141,7 @@ public class EndTransactionProcessor implements NettyRequestProcessor {
                         + "RequestHeader: {} Remark: {}",//
                     RemotingHelper.parseChannelRemoteAddr(ctx.channel()), //
                     requestHeader.toString(),//
-                    request.getRemark());
+                    remark);
 
                 break;
             }
@@ -110,7 +151,7 @@ public class EndTransactionProcessor implements NettyRequestProcessor {
                         + "RequestHeader: {} Remark: {}",//
                     RemotingHelper.parseChannelRemoteAddr(ctx.channel()), //
                     requestHeader.toString(),//
-                    request.getRemark());
+                    remark);
                 break;
             }
             default:
@@ -127,7 +168,7 @@ public class EndTransactionProcessor implements NettyRequestProcessor {
                             + "RequestHeader: {} Remark: {}",//
                     RemotingHelper.parseChannelRemoteAddr(ctx.channel()), //
                     requestHeader.toString(),//
-                    request.getRemark());
+                    remark);
                 return null;
             }
             // ύ
@@ -140,7 +181,7 @@ public class EndTransactionProcessor implements NettyRequestProcessor {
                         + "RequestHeader: {} Remark: {}",//
                     RemotingHelper.parseChannelRemoteAddr(ctx.channel()), //
                     requestHeader.toString(),//
-                    request.getRemark());
+                    remark);
                 break;
             }
             default:
@@ -173,6 +214,28 @@ public class EndTransactionProcessor implements NettyRequestProcessor {
                 return response;
             }
 
+            // ֱӸ״ַ̬̣߳ظCommitRollbackдϢ
+            final MessageStore messageStore = this.brokerController.getMessageStore();
+            final UpdateTransactionStateStatus updateStatus =
+                    messageStore.updateTransactionState(requestHeader.getTranStateTableOffset(),
+                        requestHeader.getCommitLogOffset(), pgroupRead.hashCode(),
+                        MessageSysFlag.TransactionPreparedType, requestHeader.getCommitOrRollback());
+            if (UpdateTransactionStateStatus.UPDATED_BEFORE == updateStatus) {
+                response.setCode(ResponseCode.SUCCESS_VALUE);
+                response.setRemark("the transaction is ended before");
+                return response;
+            }
+            // Ѿ෴ķʽύع
+            else if (UpdateTransactionStateStatus.UPDATE_CONFLICT == updateStatus) {
+                logTransaction.warn("the producer[{}] end transaction conflict, the transaction is ended "
+                        + "in another way before.\nRequestHeader: {}",//
+                    RemotingHelper.parseChannelRemoteAddr(ctx.channel()), //
+                    requestHeader.toString());
+                response.setCode(ResponseCode.SYSTEM_ERROR_VALUE);
+                response.setRemark("the transaction is ended in another way before");
+                return response;
+            }
+
             MessageExtBrokerInner msgInner = this.endMessageTransaction(msgExt);
             msgInner.setSysFlag(MessageSysFlag.resetTransactionValue(msgInner.getSysFlag(),
                 requestHeader.getCommitOrRollback()));
@@ -184,7 +247,6 @@ public class EndTransactionProcessor implements NettyRequestProcessor {
                 msgInner.setBody(null);
             }
 
-            final MessageStore messageStore = this.brokerController.getMessageStore();
             final PutMessageResult putMessageResult = messageStore.putMessage(msgInner);
             if (putMessageResult != null) {
                 switch (putMessageResult.getPutMessageStatus()) {
@@ -219,13 +281,19 @@ public class EndTransactionProcessor implements NettyRequestProcessor {
                     response.setRemark("UNKNOWN_ERROR DEFAULT");
                     break;
                 }
-
-                return response;
             }
             else {
                 response.setCode(ResponseCode.SYSTEM_ERROR_VALUE);
                 response.setRemark("store putMessage return null");
             }
+
+            // ϢдʧܣָPrepared״̬ȴProducerԻBrokerز
+            if (response.getCode() != ResponseCode.SUCCESS_VALUE
+                    && UpdateTransactionStateStatus.UPDATE_OK == updateStatus) {
+                messageStore.updateTransactionState(requestHeader.getTranStateTableOffset(),
+                    requestHeader.getCommitLogOffset(), pgroupRead.hashCode(),
+                    requestHeader.getCommitOrRollback(), MessageSysFlag.TransactionPreparedType);
+            }
         }
         else {
             response.setCode(ResponseCode.SYSTEM_ERROR_VALUE);
@@ -9,12 +9,18 @@ import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.FileRegion;
 
+import java.nio.ByteBuffer;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.alibaba.rocketmq.broker.BrokerController;
+import com.alibaba.rocketmq.broker.client.ConsumerGroupInfo;
 import com.alibaba.rocketmq.broker.longpolling.PullRequest;
+import com.alibaba.rocketmq.broker.offset.ConsumerOffsetHandle;
+import com.alibaba.rocketmq.broker.offset.ConsumerOffsetManager;
 import com.alibaba.rocketmq.broker.pagecache.ManyMessageTransfer;
+import com.alibaba.rocketmq.common.BrokerConfig;
 import com.alibaba.rocketmq.common.TopicConfig;
 import com.alibaba.rocketmq.common.constant.LoggerName;
 import com.alibaba.rocketmq.common.constant.PermName;
@@ -28,7 +34,9 @@ import com.alibaba.rocketmq.common.subscription.SubscriptionGroupConfig;
 import com.alibaba.rocketmq.common.sysflag.PullSysFlag;
 import com.alibaba.rocketmq.remoting.common.RemotingHelper;
 import com.alibaba.rocketmq.remoting.exception.RemotingCommandException;
-import com.alibaba.rocketmq.remoting.netty.NettyRequestProcessor;
+import com.alibaba.rocketmq.remoting.netty.NettyEncoder;
+import com.alibaba.rocketmq.remoting.netty.NettyInlineRequestProcessor;
+import com.alibaba.rocketmq.remoting.protocol.CompressCodecs;
 import com.alibaba.rocketmq.remoting.protocol.RemotingCommand;
 import com.alibaba.rocketmq.remoting.protocol.RemotingProtos.ResponseCode;
 import com.alibaba.rocketmq.store.GetMessageResult;
@@ -40,7 +48,7 @@ import com.alibaba.rocketmq.store.GetMessageResult;
  * @author shijia.wxr<vintage.wang@gmail.com>
  * 
  */
-public class PullMessageProcessor implements NettyRequestProcessor {
+public class PullMessageProcessor implements NettyInlineRequestProcessor {
     private static final Logger log = LoggerFactory.getLogger(LoggerName.BrokerLoggerName);
 
     private final BrokerController brokerController;
@@ -58,6 +66,46 @@ public class PullMessageProcessor implements NettyRequestProcessor {
     }
 
 
+    /**
+     * ҪȡϢѾڲPageCacheʱIO߳ϴݺͿܹύϢ̳߳<br>
+     * IỌ߳Ҳύ̳߳أ鲻ڣԶʱͬˢ̣ӦҪѹ
+     * ڷֲ洢СѹĿ϶
+     */
+    @Override
+    public boolean canProcessInline(final ChannelHandlerContext ctx, final RemotingCommand request) {
+        final BrokerConfig brokerConfig = this.brokerController.getBrokerConfig();
+        if (!brokerConfig.isPullInlineEnable()) {
+            return false;
+        }
+
+        if (brokerConfig.isTransferMsgCompressEnable() && NettyEncoder.isCompressSupported(ctx.channel())) {
+            return false;
+        }
+
+        try {
+            final PullMessageRequestHeader requestHeader =
+                    (PullMessageRequestHeader) request
+                        .decodeCommandCustomHeader(PullMessageRequestHeader.class);
+            if (null == requestHeader) {
+                return false;
+            }
+
+            if (!this.brokerController.getSubscriptionGroupManager().getSubscriptionGroupTable()
+                .containsKey(requestHeader.getConsumerGroup())) {
+                return false;
+            }
+
+            return this.brokerController.getMessageStore().checkInMemByConsumeOffset(
+                requestHeader.getTopic(), requestHeader.getQueueId(), requestHeader.getQueueOffset(),
+                brokerConfig.getPullInlineMaxScanCount());
+        }
+        catch (Throwable e) {
+            // ̳߳شprocessRequestӦ
+            return false;
+        }
+    }
+
+
     public void excuteRequestWhenWakeup(final Channel channel, final RemotingCommand request)
             throws RemotingCommandException {
         final RemotingCommand response = this.processRequest(channel, request, false);
@@ -86,6 +134,31 @@ public class PullMessageProcessor implements NettyRequestProcessor {
     }
 
 
+    private boolean isTransferMsgCompress(final Channel channel, final GetMessageResult getMessageResult) {
+        return this.brokerController.getBrokerConfig().isTransferMsgCompressEnable()
+                && getMessageResult.getBufferTotalSize() >= this.brokerController.getBrokerConfig()
+                    .getTransferMsgCompressThreshold() && NettyEncoder.isCompressSupported(channel);
+    }
+
+
+    private byte[] readGetMessageResult(final GetMessageResult getMessageResult) {
+        final byte[] body = new byte[getMessageResult.getBufferTotalSize()];
+        int pos = 0;
+        try {
+            for (ByteBuffer bb : getMessageResult.getMessageBufferList()) {
+                int size = bb.remaining();
+                bb.get(body, pos, size);
+                pos += size;
+            }
+        }
+        finally {
+            getMessageResult.release();
+        }
+
+        return body;
+    }
+
+
     private RemotingCommand processRequest(final Channel channel, RemotingCommand request,
             boolean brokerAllowSuspend) throws RemotingCommandException {
         RemotingCommand response = RemotingCommand.createResponseCommand(PullMessageResponseHeader.class);
@@ -163,7 +236,10 @@ public class PullMessageProcessor implements NettyRequestProcessor {
             return response;
         }
 
-        // Ĺϵ
+        // ĹϵConsumerGroupInfoֻһΣύʱ
+        final ConsumerGroupInfo consumerGroupInfo =
+                this.brokerController.getConsumerManager().getConsumerGroupInfo(
+                    requestHeader.getConsumerGroup());
         SubscriptionData subscriptionData = null;
         if (hasSubscriptionFlag) {
             try {
@@ -181,9 +257,9 @@ public class PullMessageProcessor implements NettyRequestProcessor {
             }
         }
         else {
-            subscriptionData =
-                    this.brokerController.getConsumerManager().findSubscriptionData(
-                        requestHeader.getConsumerGroup(), requestHeader.getTopic());
+            if (consumerGroupInfo != null) {
+                subscriptionData = consumerGroupInfo.findSubscriptionData(requestHeader.getTopic());
+            }
             if (null == subscriptionData) {
                 log.warn("the consumer's subscription not exist, group: {}", requestHeader.getConsumerGroup());
                 response.setCode(MQResponseCode.SUBSCRIPTION_NOT_EXIST_VALUE);
@@ -253,10 +329,20 @@ public class PullMessageProcessor implements NettyRequestProcessor {
 
             switch (response.getCode()) {
             case ResponseCode.SUCCESS_VALUE:
+                // Զ֧ѹʱڣNettyEncoderѹ
+                if (this.isTransferMsgCompress(channel, getMessageResult)) {
+                    response.setBody(this.readGetMessageResult(getMessageResult));
+                    response.setBodyCompressCodec(CompressCodecs.findCodec(this.brokerController
+                        .getBrokerConfig().getTransferMsgCompressCodec()));
+                    break;
+                }
+
                 try {
-                    FileRegion fileRegion =
-                            new ManyMessageTransfer(response.encodeHeader(getMessageResult
-                                .getBufferTotalSize()), getMessageResult);
+                    // 㿽ͲNettyEncoderHeaderʽЭ̵Ľ
+                    ByteBuffer header =
+                            response.encodeHeader(getMessageResult.getBufferTotalSize(),
+                                NettyEncoder.getSerializeType(channel));
+                    FileRegion fileRegion = new ManyMessageTransfer(header, getMessageResult);
                     channel.sendFile(fileRegion).addListener(new ChannelFutureListener() {
                         @Override
                         public void operationComplete(ChannelFuture future) throws Exception {
@@ -304,9 +390,20 @@ public class PullMessageProcessor implements NettyRequestProcessor {
         // 洢Consumerѽ
         if (brokerAllowSuspend) { // ˵״εãڳѯ֪ͨ
             if (hasCommitOffsetFlag) {
-                this.brokerController.getConsumerOffsetManager().commitOffset(
-                    requestHeader.getConsumerGroup(), requestHeader.getTopic(), requestHeader.getQueueId(),
-                    requestHeader.getCommitOffset());
+                final ConsumerOffsetManager consumerOffsetManager =
+                        this.brokerController.getConsumerOffsetManager();
+                final ConsumerOffsetHandle handle;
+                if (consumerGroupInfo != null) {
+                    handle =
+                            consumerGroupInfo.findOffsetHandle(requestHeader.getTopic(),
+                                consumerOffsetManager);
+                }
+                else {
+                    handle =
+                            consumerOffsetManager.findOffsetHandle(requestHeader.getConsumerGroup(),
+                                requestHeader.getTopic());
+                }
+                handle.commitOffset(requestHeader.getQueueId(), requestHeader.getCommitOffset());
             }
         }
 
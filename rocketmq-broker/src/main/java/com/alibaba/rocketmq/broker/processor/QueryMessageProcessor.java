@@ -73,14 +73,25 @@ public class QueryMessageProcessor implements NettyRequestProcessor {
         // ʹsendfileԱҪ
         response.setOpaque(request.getOpaque());
 
-        final QueryMessageResult queryMessageResult =
-                this.brokerController.getMessageStore().queryMessage(requestHeader.getTopic(),
-                    requestHeader.getKey(), requestHeader.getMaxNum(), requestHeader.getBeginTimestamp(),
-                    requestHeader.getEndTimestamp());
+        // ҳѯÿҳֽɴ洢
+        final QueryMessageResult queryMessageResult;
+        if (Boolean.TRUE.equals(requestHeader.getPagination())) {
+            queryMessageResult =
+                    this.brokerController.getMessageStore().queryMessageByCursor(requestHeader.getTopic(),
+                        requestHeader.getKey(), requestHeader.getMaxNum(), requestHeader.getBeginTimestamp(),
+                        requestHeader.getEndTimestamp(), requestHeader.getCursor());
+        }
+        else {
+            queryMessageResult =
+                    this.brokerController.getMessageStore().queryMessage(requestHeader.getTopic(),
+                        requestHeader.getKey(), requestHeader.getMaxNum(), requestHeader.getBeginTimestamp(),
+                        requestHeader.getEndTimestamp());
+        }
         assert queryMessageResult != null;
 
         responseHeader.setIndexLastUpdatePhyoffset(queryMessageResult.getIndexLastUpdatePhyoffset());
         responseHeader.setIndexLastUpdateTimestamp(queryMessageResult.getIndexLastUpdateTimestamp());
+        responseHeader.setNextCursor(queryMessageResult.getNextCursor());
 
         // ˵ҵϢ
         if (queryMessageResult.getBufferTotalSize() > 0) {
@@ -109,6 +120,13 @@ public class QueryMessageProcessor implements NettyRequestProcessor {
             return null;
         }
 
+        // һҳϢѱɾǻһҳ
+        if (queryMessageResult.getNextCursor() != null) {
+            response.setCode(ResponseCode.SUCCESS_VALUE);
+            response.setRemark(null);
+            return response;
+        }
+
         response.setCode(MQResponseCode.QUERY_NOT_FOUND_VALUE);
         response.setRemark("can not find message, maybe time range not correct");
         return response;
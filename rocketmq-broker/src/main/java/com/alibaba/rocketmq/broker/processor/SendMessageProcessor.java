@@ -34,6 +34,7 @@ import com.alibaba.rocketmq.common.sysflag.MessageSysFlag;
 import com.alibaba.rocketmq.remoting.common.RemotingHelper;
 import com.alibaba.rocketmq.remoting.exception.RemotingCommandException;
 import com.alibaba.rocketmq.remoting.netty.NettyRequestProcessor;
+import com.alibaba.rocketmq.remoting.netty.NettyWriteCoalescer;
 import com.alibaba.rocketmq.remoting.protocol.RemotingCommand;
 import com.alibaba.rocketmq.remoting.protocol.RemotingProtos.ResponseCode;
 import com.alibaba.rocketmq.store.MessageExtBrokerInner;
@@ -325,7 +326,9 @@ public class SendMessageProcessor implements NettyRequestProcessor {
                 // ֱӷ
                 if (!request.isOnewayRPC()) {
                     try {
-                        ctx.write(response).addListener(new ChannelFutureListener() {
+                        ChannelFuture writeFuture =
+                                NettyWriteCoalescer.writeResponse(ctx.channel(), request.getCode(), response);
+                        writeFuture.addListener(new ChannelFutureListener() {
                             @Override
                             public void operationComplete(ChannelFuture future) throws Exception {
                                 if (!future.isSuccess()) {
@@ -344,10 +347,6 @@ public class SendMessageProcessor implements NettyRequestProcessor {
                     }
                 }
 
-                this.brokerController.getPullRequestHoldService().notifyMessageArriving(
-                    requestHeader.getTopic(), queueIdInt,
-                    putMessageResult.getAppendMessageResult().getLogicsOffset());
-
                 return null;
             }
         }
@@ -6,6 +6,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.alibaba.rocketmq.broker.BrokerController;
+import com.alibaba.rocketmq.common.ConfigChangeTracker;
+import com.alibaba.rocketmq.common.ConfigChangeTracker.ChangeSet;
 import com.alibaba.rocketmq.common.ConfigManager;
 import com.alibaba.rocketmq.common.DataVersion;
 import com.alibaba.rocketmq.common.constant.LoggerName;
@@ -20,7 +22,10 @@ import com.alibaba.rocketmq.remoting.protocol.RemotingSerializable;
  */
 public class SubscriptionGroupManager extends ConfigManager {
     private static final Logger log = LoggerFactory.getLogger(LoggerName.BrokerLoggerName);
+    private static final int MaxDeletedGroups = 10000;
     private transient BrokerController brokerController;
+    // ͬãTopicConfigManagerͬ
+    private transient final ConfigChangeTracker changeTracker = new ConfigChangeTracker(MaxDeletedGroups);
 
     // 
     private final ConcurrentHashMap<String, SubscriptionGroupConfig> subscriptionGroupTable =
@@ -43,9 +48,15 @@ public class SubscriptionGroupManager extends ConfigManager {
             if (brokerController.getBrokerConfig().isAutoCreateSubscriptionGroup()) {
                 subscriptionGroupConfig = new SubscriptionGroupConfig();
                 subscriptionGroupConfig.setGroupName(group);
-                this.subscriptionGroupTable.putIfAbsent(group, subscriptionGroupConfig);
+                SubscriptionGroupConfig prev =
+                        this.subscriptionGroupTable.putIfAbsent(group, subscriptionGroupConfig);
+                if (prev != null) {
+                    return prev;
+                }
+
                 log.info("auto create a subscription group, {}", subscriptionGroupConfig.toString());
                 this.dataVersion.nextVersion();
+                this.changeTracker.markChanged(group);
                 this.persist();
             }
         }
@@ -54,6 +65,24 @@ public class SubscriptionGroupManager extends ConfigManager {
     }
 
 
+    public String currentDataEpoch() {
+        return this.changeTracker.getDataEpoch();
+    }
+
+
+    public long currentSequence() {
+        return this.changeTracker.currentSequence();
+    }
+
+
+    /**
+     * nullʾҪȫͬ
+     */
+    public ChangeSet changesSince(final String dataEpoch, final long sinceSequence) {
+        return this.changeTracker.changesSince(dataEpoch, sinceSequence);
+    }
+
+
     @Override
     public String encode() {
         return RemotingSerializable.toJson(this);
@@ -3,7 +3,12 @@
  */
 package com.alibaba.rocketmq.broker.topic;
 
-import java.util.concurrent.ConcurrentHashMap;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -12,6 +17,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.alibaba.rocketmq.broker.BrokerController;
+import com.alibaba.rocketmq.common.ConfigChangeTracker;
+import com.alibaba.rocketmq.common.ConfigChangeTracker.ChangeSet;
 import com.alibaba.rocketmq.common.ConfigManager;
 import com.alibaba.rocketmq.common.DataVersion;
 import com.alibaba.rocketmq.common.MixAll;
@@ -20,6 +27,7 @@ import com.alibaba.rocketmq.common.constant.LoggerName;
 import com.alibaba.rocketmq.common.constant.PermName;
 import com.alibaba.rocketmq.remoting.protocol.RemotingSerializable;
 import com.alibaba.rocketmq.store.schedule.ScheduleMessageService;
+import com.alibaba.rocketmq.store.timer.TimerMessageService;
 
 
 /**
@@ -29,12 +37,15 @@ import com.alibaba.rocketmq.store.schedule.ScheduleMessageService;
 public class TopicConfigManager extends ConfigManager {
     private static final Logger log = LoggerFactory.getLogger(LoggerName.BrokerLoggerName);
     private static final long LockTimeoutMillis = 3000;
+    private static final int MaxDeletedTopics = 10000;
     private transient final Lock lockTopicConfigTable = new ReentrantLock();
     private transient BrokerController brokerController;
+    private transient TopicConfigPersistService persistService;
+    // Namesrvͬãֻ¼֮޸
+    private transient final ConfigChangeTracker changeTracker = new ConfigChangeTracker(MaxDeletedTopics);
 
-    // Topic
-    private final ConcurrentHashMap<String, TopicConfig> topicConfigTable =
-            new ConcurrentHashMap<String, TopicConfig>(1024);
+    // Topicãɱգ޸ʱڸһ滻ȡ
+    private volatile Map<String, TopicConfig> topicConfigTable = Collections.emptyMap();
     private final DataVersion dataVersion = new DataVersion();
 
 
@@ -44,6 +55,11 @@ public class TopicConfigManager extends ConfigManager {
 
     public TopicConfigManager(BrokerController brokerController) {
         this.brokerController = brokerController;
+        this.persistService = new TopicConfigPersistService(this, //
+            brokerController.getBrokerConfig().getTopicConfigPath() + ".changelog", //
+            brokerController.getBrokerConfig().getTopicConfigCompactThreshold(), //
+            brokerController.getBrokerConfig().getTopicConfigCompactInterval());
+        Map<String, TopicConfig> table = new HashMap<String, TopicConfig>();
 
         // MixAll.DEFAULT_TOPIC
         TopicConfig topicConfig = new TopicConfig(MixAll.DEFAULT_TOPIC);
@@ -53,13 +69,13 @@ public class TopicConfigManager extends ConfigManager {
                 this.brokerController.getBrokerConfig().isAutoCreateTopicEnable() ? PermName.PERM_INHERIT : 0;
         perm |= PermName.PERM_READ | PermName.PERM_WRITE;
         topicConfig.setPerm(perm);
-        this.topicConfigTable.put(topicConfig.getTopicName(), topicConfig);
+        table.put(topicConfig.getTopicName(), topicConfig);
 
         // MixAll.SELF_TEST_TOPIC
         topicConfig = new TopicConfig(MixAll.SELF_TEST_TOPIC);
         topicConfig.setReadQueueNums(1);
         topicConfig.setWriteQueueNums(1);
-        this.topicConfigTable.put(topicConfig.getTopicName(), topicConfig);
+        table.put(topicConfig.getTopicName(), topicConfig);
 
         // Ⱥ
         topicConfig = new TopicConfig(this.brokerController.getBrokerConfig().getBrokerClusterName());
@@ -68,7 +84,95 @@ public class TopicConfigManager extends ConfigManager {
             perm |= PermName.PERM_READ | PermName.PERM_WRITE;
         }
         topicConfig.setPerm(perm);
-        this.topicConfigTable.put(topicConfig.getTopicName(), topicConfig);
+        table.put(topicConfig.getTopicName(), topicConfig);
+
+        this.topicConfigTable = Collections.unmodifiableMap(table);
+    }
+
+
+    /**
+     * topics.jsonطű־ȻϲһΣ֤־ӿļʼ׷
+     */
+    @Override
+    public boolean load() {
+        if (!super.load()) {
+            return false;
+        }
+
+        if (this.persistService != null) {
+            try {
+                Map<String, TopicConfig> changes = this.persistService.recover();
+                if (!changes.isEmpty()) {
+                    Map<String, TopicConfig> table = new HashMap<String, TopicConfig>(this.topicConfigTable);
+                    for (Map.Entry<String, TopicConfig> entry : changes.entrySet()) {
+                        if (entry.getValue() != null) {
+                            table.put(entry.getKey(), entry.getValue());
+                        }
+                        else {
+                            table.remove(entry.getKey());
+                        }
+                    }
+                    this.topicConfigTable = Collections.unmodifiableMap(table);
+                }
+            }
+            catch (IOException e) {
+                log.error("recover topic config change log exception", e);
+                return false;
+            }
+
+            if (!this.persistService.compact()) {
+                return false;
+            }
+
+            this.persistService.start();
+        }
+
+        return true;
+    }
+
+
+    public void shutdown() {
+        if (this.persistService != null) {
+            this.persistService.shutdown();
+        }
+    }
+
+
+    /**
+     * lockTopicConfigTableڵ
+     */
+    private void putTopicConfig(final TopicConfig topicConfig) {
+        Map<String, TopicConfig> table = new HashMap<String, TopicConfig>(this.topicConfigTable);
+        table.put(topicConfig.getTopicName(), topicConfig);
+        this.topicConfigTable = Collections.unmodifiableMap(table);
+        this.dataVersion.nextVersion();
+        this.changeTracker.markChanged(topicConfig.getTopicName());
+
+        if (this.persistService != null) {
+            this.persistService.putChange(topicConfig.getTopicName(), topicConfig);
+        }
+    }
+
+
+    /**
+     * lockTopicConfigTableڵ
+     */
+    private TopicConfig removeTopicConfig(final String topic) {
+        if (!this.topicConfigTable.containsKey(topic)) {
+            return null;
+        }
+
+        Map<String, TopicConfig> table = new HashMap<String, TopicConfig>(this.topicConfigTable);
+        TopicConfig old = table.remove(topic);
+        this.topicConfigTable = Collections.unmodifiableMap(table);
+        this.dataVersion.nextVersion();
+        this.changeTracker.markDeleted(topic);
+
+        if (this.persistService != null) {
+            this.persistService.putChange(topic, null);
+        }
+
+        return old;
     }
 
 
@@ -77,12 +181,31 @@ public class TopicConfigManager extends ConfigManager {
     }
 
 
+    public String currentDataEpoch() {
+        return this.changeTracker.getDataEpoch();
+    }
+
+
+    public long currentSequence() {
+        return this.changeTracker.currentSequence();
+    }
+
+
+    /**
+     * nullʾҪȫͬȡкٶգֻк£෢޸´λط
+     */
+    public ChangeSet changesSince(final String dataEpoch, final long sinceSequence) {
+        return this.changeTracker.changesSince(dataEpoch, sinceSequence);
+    }
+
+
     public boolean isSystemTopic(final String topic) {
         boolean res = //
                 topic.equals(MixAll.DEFAULT_TOPIC)//
                         || topic.equals(MixAll.SELF_TEST_TOPIC)//
                         || topic.equals(this.brokerController.getBrokerConfig().getBrokerClusterName())//
                         || topic.equals(ScheduleMessageService.SCHEDULE_TOPIC)//
+                        || topic.equals(TimerMessageService.TIMER_TOPIC)//
                         || topic.equals(MixAll.SELF_TEST_TOPIC);
 
         return res;
@@ -150,9 +273,7 @@ public class TopicConfigManager extends ConfigManager {
                         log.info("create new topic by default topic[" + defaultTopic + "], " + topicConfig
                                 + " producer: " + remoteAddress);
 
-                        this.topicConfigTable.put(topic, topicConfig);
-
-                        this.persist();
+                        this.putTopicConfig(topicConfig);
                     }
 
                     return topicConfig;
@@ -190,8 +311,7 @@ public class TopicConfigManager extends ConfigManager {
 
                     if (topicConfig != null) {
                         log.info("create new topic {}", topicConfig);
-                        this.topicConfigTable.put(topic, topicConfig);
-                        this.persist();
+                        this.putTopicConfig(topicConfig);
                     }
                 }
                 finally {
@@ -208,23 +328,37 @@ public class TopicConfigManager extends ConfigManager {
 
 
     public void updateTopicConfig(final TopicConfig topicConfig) {
-        TopicConfig old = this.topicConfigTable.put(topicConfig.getTopicName(), topicConfig);
+        TopicConfig old = null;
+        this.lockTopicConfigTable.lock();
+        try {
+            old = this.topicConfigTable.get(topicConfig.getTopicName());
+            this.putTopicConfig(topicConfig);
+        }
+        finally {
+            this.lockTopicConfigTable.unlock();
+        }
+
         if (old != null) {
             log.info("update topic config, old: " + old + " new: " + topicConfig);
         }
         else {
             log.info("create new topic, " + topicConfig);
         }
-
-        this.persist();
     }
 
 
     public void deleteTopicConfig(final String topic) {
-        TopicConfig old = this.topicConfigTable.remove(topic);
+        TopicConfig old = null;
+        this.lockTopicConfigTable.lock();
+        try {
+            old = this.removeTopicConfig(topic);
+        }
+        finally {
+            this.lockTopicConfigTable.unlock();
+        }
+
         if (old != null) {
             log.info("delete topic config OK, topic: " + old);
-            this.persist();
         }
         else {
             log.warn("delete topic config failed, topic: " + topic + " not exist");
@@ -243,13 +377,74 @@ public class TopicConfigManager extends ConfigManager {
         if (jsonString != null) {
             TopicConfigManager obj = RemotingSerializable.fromJson(jsonString, TopicConfigManager.class);
             if (obj != null) {
-                this.topicConfigTable.putAll(obj.topicConfigTable);
+                Map<String, TopicConfig> table = new HashMap<String, TopicConfig>(this.topicConfigTable);
+                if (obj.topicConfigTable != null) {
+                    table.putAll(obj.topicConfigTable);
+                }
+                this.topicConfigTable = Collections.unmodifiableMap(table);
                 this.dataVersion.assignNewOne(obj.dataVersion);
             }
         }
     }
 
 
+    private static void writeAndSync(final String str, final File file) throws IOException {
+        File fileParent = file.getParentFile();
+        if (fileParent != null) {
+            fileParent.mkdirs();
+        }
+
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(str.getBytes());
+            out.getFD().sync();
+        }
+        finally {
+            out.close();
+        }
+    }
+
+
+    /**
+     * дʱļˢٸ崻topics.json𻵻߸ݻû
+     */
+    public synchronized boolean persistSnapshot() {
+        String jsonString = this.encode();
+        if (null == jsonString) {
+            return false;
+        }
+
+        String fileName = this.configFilePath();
+        String tmpFileName = fileName + ".tmp";
+        File file = new File(fileName);
+        File tmpFile = new File(tmpFileName);
+        try {
+            writeAndSync(jsonString, tmpFile);
+        }
+        catch (IOException e) {
+            log.error("write topic config file exception, " + tmpFileName, e);
+            return false;
+        }
+
+        if (!tmpFile.renameTo(file)) {
+            // WindowsĿļʱʧ
+            file.delete();
+            if (!tmpFile.renameTo(file)) {
+                log.error("rename topic config file failed, " + tmpFileName);
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+    @Override
+    public synchronized void persist() {
+        this.persistSnapshot();
+    }
+
+
     @Override
     public String configFilePath() {
         return this.brokerController.getBrokerConfig().getTopicConfigPath();
@@ -261,7 +456,15 @@ public class TopicConfigManager extends ConfigManager {
     }
 
 
-    public ConcurrentHashMap<String, TopicConfig> getTopicConfigTable() {
+    public Map<String, TopicConfig> getTopicConfigTable() {
         return topicConfigTable;
     }
+
+
+    /**
+     * ֻڷлʱ޸ıͨupdateTopicConfig/deleteTopicConfig
+     */
+    public void setTopicConfigTable(Map<String, TopicConfig> topicConfigTable) {
+        this.topicConfigTable = topicConfigTable;
+    }
 }
@@ -0,0 +1,252 @@
+/**
+ * $Id: TopicConfigPersistService.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.broker.topic;
+
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.rocketmq.common.ServiceThread;
+import com.alibaba.rocketmq.common.TopicConfig;
+import com.alibaba.rocketmq.common.constant.LoggerName;
+
+
+/**
+ * Topicų́־û<br>
+ * ޸ֻ׷ӵ־ͬһTopicһˢǰĶ޸ĺϲΪһ־ֵ߶ںϲtopics.json<br>
+ * ־ÿһ¼P topicConfig  D topic
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class TopicConfigPersistService extends ServiceThread {
+    private static final Logger log = LoggerFactory.getLogger(LoggerName.BrokerLoggerName);
+    private static final Charset ChangeLogCharset = Charset.forName("UTF-8");
+    private static final String RecordPut = "P ";
+    private static final String RecordDelete = "D ";
+
+    private final TopicConfigManager topicConfigManager;
+    private final String changeLogPath;
+    private final int compactThreshold;
+    private final long compactInterval;
+
+    // topic -> ãnullʾɾ
+    private final Object pendingLock = new Object();
+    private LinkedHashMap<String, TopicConfig> pendingChanges = new LinkedHashMap<String, TopicConfig>();
+
+    // ֻڷ߳з
+    private FileOutputStream changeLogFile;
+    private Writer changeLogWriter;
+    private int changeLogRecords = 0;
+    private long lastCompactTimestamp = System.currentTimeMillis();
+
+
+    public TopicConfigPersistService(final TopicConfigManager topicConfigManager, final String changeLogPath,
+            final int compactThreshold, final long compactInterval) {
+        this.topicConfigManager = topicConfigManager;
+        this.changeLogPath = changeLogPath;
+        this.compactThreshold = compactThreshold;
+        this.compactInterval = compactInterval;
+    }
+
+
+    /**
+     * ȡϴκϲ֮ıͬһTopicֻһvalueΪnullʾɾ<br>
+     * һûлз˵ûд꣬
+     */
+    public LinkedHashMap<String, TopicConfig> recover() throws IOException {
+        LinkedHashMap<String, TopicConfig> changes = new LinkedHashMap<String, TopicConfig>();
+        File file = new File(this.changeLogPath);
+        if (!file.exists()) {
+            return changes;
+        }
+
+        byte[] data = new byte[(int) file.length()];
+        DataInputStream in = new DataInputStream(new FileInputStream(file));
+        try {
+            in.readFully(data);
+        }
+        finally {
+            in.close();
+        }
+
+        String content = new String(data, ChangeLogCharset);
+
+        int lineStart = 0;
+        int lineEnd;
+        while ((lineEnd = content.indexOf('\n', lineStart)) >= 0) {
+            String line = content.substring(lineStart, lineEnd);
+            lineStart = lineEnd + 1;
+            if (line.startsWith(RecordPut)) {
+                TopicConfig topicConfig = new TopicConfig(null);
+                if (topicConfig.decode(line.substring(RecordPut.length()))) {
+                    changes.remove(topicConfig.getTopicName());
+                    changes.put(topicConfig.getTopicName(), topicConfig);
+                    continue;
+                }
+            }
+            else if (line.startsWith(RecordDelete)) {
+                String topic = line.substring(RecordDelete.length());
+                changes.remove(topic);
+                changes.put(topic, null);
+                continue;
+            }
+
+            log.warn("illegal topic config change log record, " + line);
+        }
+
+        log.info("recover topic config change log OK, " + changes.size() + " topics changed");
+        return changes;
+    }
+
+
+    /**
+     * TopicConfigManagerڿ滻֮ã֤д־ʱѾ޸
+     */
+    public void putChange(final String topic, final TopicConfig topicConfig) {
+        synchronized (this.pendingLock) {
+            this.pendingChanges.remove(topic);
+            this.pendingChanges.put(topic, topicConfig);
+        }
+
+        this.wakeup();
+    }
+
+
+    private void appendChanges() {
+        LinkedHashMap<String, TopicConfig> changes;
+        synchronized (this.pendingLock) {
+            if (this.pendingChanges.isEmpty()) {
+                return;
+            }
+
+            changes = this.pendingChanges;
+            this.pendingChanges = new LinkedHashMap<String, TopicConfig>();
+        }
+
+        try {
+            if (null == this.changeLogWriter) {
+                this.openChangeLog(true);
+            }
+
+            for (Map.Entry<String, TopicConfig> entry : changes.entrySet()) {
+                if (entry.getValue() != null) {
+                    this.changeLogWriter.write(RecordPut + entry.getValue().encode() + "\n");
+                }
+                else {
+                    this.changeLogWriter.write(RecordDelete + entry.getKey() + "\n");
+                }
+            }
+
+            this.changeLogWriter.flush();
+            this.changeLogFile.getFD().sync();
+            this.changeLogRecords += changes.size();
+        }
+        catch (IOException e) {
+            // д־ʧʱֱӺϲѾЩ޸
+            log.error("append topic config change log exception, compact now", e);
+            this.changeLogRecords += changes.size();
+            this.closeChangeLog();
+            this.compact();
+        }
+    }
+
+
+    private void openChangeLog(final boolean append) throws IOException {
+        File file = new File(this.changeLogPath);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+
+        this.changeLogFile = new FileOutputStream(file, append);
+        this.changeLogWriter =
+                new BufferedWriter(new OutputStreamWriter(this.changeLogFile, ChangeLogCharset));
+    }
+
+
+    private void closeChangeLog() {
+        if (this.changeLogWriter != null) {
+            try {
+                this.changeLogWriter.close();
+            }
+            catch (IOException e) {
+                log.error("close topic config change log exception", e);
+            }
+
+            this.changeLogWriter = null;
+            this.changeLogFile = null;
+        }
+    }
+
+
+    /**
+     * Ȱдtopics.jsonˢ̣ձ־;崻ط־
+     */
+    public boolean compact() {
+        if (!this.topicConfigManager.persistSnapshot()) {
+            log.error("compact topic config failed, keep change log");
+            return false;
+        }
+
+        this.closeChangeLog();
+        try {
+            this.openChangeLog(false);
+        }
+        catch (IOException e) {
+            log.error("truncate topic config change log exception", e);
+        }
+
+        log.info("compact topic config OK, " + this.changeLogRecords + " change records merged");
+        this.changeLogRecords = 0;
+        this.lastCompactTimestamp = System.currentTimeMillis();
+        return true;
+    }
+
+
+    @Override
+    public void run() {
+        log.info(this.getServiceName() + " service started");
+
+        while (!this.isStoped()) {
+            try {
+                this.waitForRunning(1000);
+                this.appendChanges();
+
+                if (this.changeLogRecords >= this.compactThreshold
+                        || (this.changeLogRecords > 0 && System.currentTimeMillis()
+                                - this.lastCompactTimestamp >= this.compactInterval)) {
+                    this.compact();
+                }
+            }
+            catch (Exception e) {
+                log.warn(this.getServiceName() + " service has exception. ", e);
+            }
+        }
+
+        // ֹͣǰдʣ޸Ĳϲ
+        this.appendChanges();
+        if (this.changeLogRecords > 0) {
+            this.compact();
+        }
+        this.closeChangeLog();
+
+        log.info(this.getServiceName() + " service end");
+    }
+
+
+    @Override
+    public String getServiceName() {
+        return TopicConfigPersistService.class.getSimpleName();
+    }
+}
@@ -1,10 +1,21 @@
 package com.alibaba.rocketmq.broker.transaction;
 
+import io.netty.channel.Channel;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.alibaba.rocketmq.broker.BrokerController;
 import com.alibaba.rocketmq.broker.client.ClientChannelInfo;
+import com.alibaba.rocketmq.common.FixedWindowRateLimiter;
 import com.alibaba.rocketmq.common.constant.LoggerName;
 import com.alibaba.rocketmq.common.protocol.header.CheckTransactionStateRequestHeader;
 import com.alibaba.rocketmq.store.SelectMapedBufferResult;
@@ -12,7 +23,8 @@ import com.alibaba.rocketmq.store.transaction.TransactionCheckExecuter;
 
 
 /**
- * 洢ص˽ӿڣزProducer״̬
+ * 洢ص˽ӿڣزProducer״̬<br>
+ * زProducer Channelϲ󣬲ҶÿChannel
  * 
  * @author shijia.wxr<vintage.wang@gmail.com>
  */
@@ -20,12 +32,35 @@ public class DefaultTransactionCheckExecuter implements TransactionCheckExecuter
     private static final Logger log = LoggerFactory.getLogger(LoggerName.BrokerLoggerName);
     private final BrokerController brokerController;
 
+    // ȴ͵ز
+    private final HashMap<Channel, List<SelectMapedBufferResult>> checkBatchTable =
+            new HashMap<Channel, List<SelectMapedBufferResult>>();
+    // ÿChannelĻز
+    private final ConcurrentHashMap<Channel, FixedWindowRateLimiter> rateLimiterTable =
+            new ConcurrentHashMap<Channel, FixedWindowRateLimiter>();
+
 
     public DefaultTransactionCheckExecuter(final BrokerController brokerController) {
         this.brokerController = brokerController;
     }
 
 
+    private boolean tryAcquireCheckPermit(final Channel channel) {
+        FixedWindowRateLimiter rateLimiter = this.rateLimiterTable.get(channel);
+        if (null == rateLimiter) {
+            rateLimiter =
+                    new FixedWindowRateLimiter(this.brokerController.getBrokerConfig()
+                        .getTransactionCheckMaxPerChannelPerSecond(), 1000);
+            FixedWindowRateLimiter prev = this.rateLimiterTable.putIfAbsent(channel, rateLimiter);
+            if (prev != null) {
+                rateLimiter = prev;
+            }
+        }
+
+        return rateLimiter.tryAcquire(1);
+    }
+
+
     @Override
     public void gotoCheck(int producerGroupHashCode, long tranStateTableOffset, long commitLogOffset, int msgSize) {
         // һѯProducer
@@ -37,6 +72,13 @@ public class DefaultTransactionCheckExecuter implements TransactionCheckExecuter
             return;
         }
 
+        // Ϣֲز飬һֶʱٴλز
+        final Channel channel = clientChannelInfo.getChannel();
+        if (!this.tryAcquireCheckPermit(channel)) {
+            log.debug("check a producer transaction state, but exceed the rate limit of channel[{}]", channel);
+            return;
+        }
+
         // ڶѯϢ
         SelectMapedBufferResult selectMapedBufferResult =
                 this.brokerController.getMessageStore().selectOneMessageByOffset(commitLogOffset, msgSize);
@@ -47,10 +89,59 @@ public class DefaultTransactionCheckExecuter implements TransactionCheckExecuter
         }
 
         // Producer
-        final CheckTransactionStateRequestHeader requestHeader = new CheckTransactionStateRequestHeader();
-        requestHeader.setCommitLogOffset(commitLogOffset);
-        requestHeader.setTranStateTableOffset(tranStateTableOffset);
-        this.brokerController.getBroker2Client().checkProducerTransactionState(clientChannelInfo.getChannel(),
-            requestHeader, selectMapedBufferResult);
+        if (!this.brokerController.getBrokerConfig().isTransactionCheckBatchEnable()) {
+            final CheckTransactionStateRequestHeader requestHeader = new CheckTransactionStateRequestHeader();
+            requestHeader.setCommitLogOffset(commitLogOffset);
+            requestHeader.setTranStateTableOffset(tranStateTableOffset);
+            this.brokerController.getBroker2Client().checkProducerTransactionState(channel, requestHeader,
+                selectMapedBufferResult);
+            return;
+        }
+
+        List<SelectMapedBufferResult> fullBatch = null;
+        synchronized (this.checkBatchTable) {
+            List<SelectMapedBufferResult> batch = this.checkBatchTable.get(channel);
+            if (null == batch) {
+                batch = new ArrayList<SelectMapedBufferResult>();
+                this.checkBatchTable.put(channel, batch);
+            }
+
+            batch.add(selectMapedBufferResult);
+            if (batch.size() >= this.brokerController.getBrokerConfig().getTransactionCheckBatchSize()) {
+                fullBatch = this.checkBatchTable.remove(channel);
+            }
+        }
+
+        if (fullBatch != null) {
+            this.brokerController.getBroker2Client().checkProducerTransactionStateBatch(channel, fullBatch);
+        }
+    }
+
+
+    /**
+     * ʱδزͬʱѾرյChannel
+     */
+    public void flushCheckBatch() {
+        Map<Channel, List<SelectMapedBufferResult>> batchTable = null;
+        synchronized (this.checkBatchTable) {
+            if (!this.checkBatchTable.isEmpty()) {
+                batchTable = new HashMap<Channel, List<SelectMapedBufferResult>>(this.checkBatchTable);
+                this.checkBatchTable.clear();
+            }
+        }
+
+        if (batchTable != null) {
+            for (Entry<Channel, List<SelectMapedBufferResult>> entry : batchTable.entrySet()) {
+                this.brokerController.getBroker2Client().checkProducerTransactionStateBatch(entry.getKey(),
+                    entry.getValue());
+            }
+        }
+
+        for (Iterator<Channel> it = this.rateLimiterTable.keySet().iterator(); it.hasNext();) {
+            Channel channel = it.next();
+            if (!channel.isActive()) {
+                it.remove();
+            }
+        }
     }
 }
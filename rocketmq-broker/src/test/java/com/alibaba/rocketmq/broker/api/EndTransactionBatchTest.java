@@ -0,0 +1,155 @@
+/**
+ * $Id: EndTransactionBatchTest.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.broker.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import com.alibaba.rocketmq.broker.BrokerController;
+import com.alibaba.rocketmq.client.impl.CommunicationMode;
+import com.alibaba.rocketmq.client.impl.MQClientAPIImpl;
+import com.alibaba.rocketmq.client.producer.SendResult;
+import com.alibaba.rocketmq.common.BrokerConfig;
+import com.alibaba.rocketmq.common.MixAll;
+import com.alibaba.rocketmq.common.message.Message;
+import com.alibaba.rocketmq.common.message.MessageDecoder;
+import com.alibaba.rocketmq.common.protocol.header.EndTransactionBatchRequestBody;
+import com.alibaba.rocketmq.common.protocol.header.EndTransactionRequestHeader;
+import com.alibaba.rocketmq.common.protocol.header.SendMessageRequestHeader;
+import com.alibaba.rocketmq.common.sysflag.MessageSysFlag;
+import com.alibaba.rocketmq.remoting.netty.NettyClientConfig;
+import com.alibaba.rocketmq.remoting.netty.NettyServerConfig;
+import com.alibaba.rocketmq.store.DefaultMessageStore;
+import com.alibaba.rocketmq.store.config.MessageStoreConfig;
+import com.alibaba.rocketmq.store.transaction.TransactionStateService;
+
+
+/**
+ * زӦÿһEND_TRANSACTION
+ * 
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class EndTransactionBatchTest {
+    private static final String BrokerAddr = "127.0.0.1:10911";
+    private static final String ProducerGroup = "UnitTestProducerGroup";
+
+
+    private static MessageStoreConfig buildMessageStoreConfig(final File dir) {
+        MessageStoreConfig messageStoreConfig = new MessageStoreConfig();
+        messageStoreConfig.setStorePathCommitLog(new File(dir, "commitlog").getPath());
+        messageStoreConfig.setStorePathConsumeQueue(new File(dir, "consumequeue").getPath());
+        messageStoreConfig.setStorePathIndex(new File(dir, "index").getPath());
+        messageStoreConfig.setStoreCheckpoint(new File(dir, "checkpoint").getPath());
+        messageStoreConfig.setAbortFile(new File(dir, "abort").getPath());
+        messageStoreConfig.setDelayOffsetStorePath(new File(dir, "delayOffset.json").getPath());
+        messageStoreConfig.setStorePathTimerLog(new File(dir, "timerlog").getPath());
+        messageStoreConfig.setTimerCheckpointPath(new File(dir, "timerCheckpoint").getPath());
+        messageStoreConfig.setTranStateTableStorePath(new File(dir, "statetable").getPath());
+        messageStoreConfig.setTranRedoLogStorePath(new File(dir, "redolog").getPath());
+        return messageStoreConfig;
+    }
+
+
+    private static void deleteFile(final File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                deleteFile(f);
+            }
+        }
+        file.delete();
+    }
+
+
+    private static void waitPreparedCount(final TransactionStateService service, final long expect)
+            throws InterruptedException {
+        for (int i = 0; i < 100 && service.getPreparedTransactionCount() != expect; i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(expect, service.getPreparedTransactionCount());
+    }
+
+
+    private static EndTransactionRequestHeader buildEndTransaction(final SendResult sendResult,
+            final String producerGroup, final int commitOrRollback) throws Exception {
+        EndTransactionRequestHeader requestHeader = new EndTransactionRequestHeader();
+        requestHeader.setProducerGroup(producerGroup);
+        requestHeader.setTranStateTableOffset(sendResult.getQueueOffset());
+        requestHeader.setCommitLogOffset(MessageDecoder.decodeMessageId(sendResult.getMsgId()).getOffset());
+        requestHeader.setCommitOrRollback(commitOrRollback);
+        requestHeader.setFromTransactionCheck(true);
+        requestHeader.setMsgId(sendResult.getMsgId());
+        return requestHeader;
+    }
+
+
+    @Test
+    public void test_end_transaction_batch() throws Exception {
+        File dir = new File(System.getProperty("java.io.tmpdir"), //
+            "EndTransactionBatchTest-" + System.nanoTime());
+        BrokerConfig brokerConfig = new BrokerConfig();
+        brokerConfig.setTopicConfigPath(new File(dir, "topics.json").getPath());
+        NettyServerConfig nettyServerConfig = new NettyServerConfig();
+        nettyServerConfig.setListenPort(10911);
+        BrokerController brokerController =
+                new BrokerController(brokerConfig, nettyServerConfig, buildMessageStoreConfig(dir));
+        assertTrue(brokerController.initialize());
+        brokerController.start();
+
+        MQClientAPIImpl client = new MQClientAPIImpl(new NettyClientConfig(), null);
+        client.start();
+
+        try {
+            final TransactionStateService transactionStateService =
+                    ((DefaultMessageStore) brokerController.getMessageStore()).getTransactionStateService();
+            final EndTransactionBatchRequestBody requestBody = new EndTransactionBatchRequestBody();
+            for (int i = 0; i < 4; i++) {
+                Message msg = new Message("UnitTestTopic_Transaction", "TAG1", ("Hello " + i).getBytes());
+                msg.putProperty(Message.PROPERTY_TRANSACTION_PREPARED, "true");
+                msg.putProperty(Message.PROPERTY_PRODUCER_GROUP, ProducerGroup);
+
+                SendMessageRequestHeader requestHeader = new SendMessageRequestHeader();
+                requestHeader.setProducerGroup(ProducerGroup);
+                requestHeader.setTopic(msg.getTopic());
+                requestHeader.setDefaultTopic(MixAll.DEFAULT_TOPIC);
+                requestHeader.setDefaultTopicQueueNums(4);
+                requestHeader.setQueueId(0);
+                requestHeader.setSysFlag(MessageSysFlag.TransactionPreparedType);
+                requestHeader.setBornTimestamp(System.currentTimeMillis());
+                requestHeader.setFlag(msg.getFlag());
+                requestHeader.setProperties(MessageDecoder.messageProperties2String(msg.getProperties()));
+
+                SendResult sendResult =
+                        client.sendMessage(BrokerAddr, "brokerName", msg, requestHeader, 1000 * 5,
+                            CommunicationMode.SYNC, null);
+
+                // Producer GroupƥӦ𱻶ӰͬһеӦ
+                if (0 == i) {
+                    requestBody.getEndTransactionList().add(
+                        buildEndTransaction(sendResult, "WrongProducerGroup",
+                            MessageSysFlag.TransactionCommitType));
+                }
+
+                final int commitOrRollback = i % 2 == 0 ? MessageSysFlag.TransactionCommitType //
+                        : MessageSysFlag.TransactionRollbackType;
+                requestBody.getEndTransactionList().add(
+                    buildEndTransaction(sendResult, ProducerGroup, commitOrRollback));
+            }
+
+            waitPreparedCount(transactionStateService, 4);
+
+            client.endTransactionBatchOneway(BrokerAddr, requestBody, null, 3000);
+            waitPreparedCount(transactionStateService, 0);
+        }
+        finally {
+            client.shutdown();
+            brokerController.shutdown();
+            deleteFile(dir);
+        }
+    }
+}
@@ -26,7 +26,7 @@ public class ConsumerOffsetManagerTest {
         System.out.println("initialize " + initResult);
         brokerController.start();
 
-        ConsumerOffsetManager consumerOffsetManager = new ConsumerOffsetManager(brokerController);
+        ConsumerOffsetManager consumerOffsetManager = brokerController.getConsumerOffsetManager();
 
         Random random = new Random();
 
@@ -42,6 +42,7 @@ public class ConsumerOffsetManagerTest {
             }
         }
 
+        consumerOffsetManager.flush();
         consumerOffsetManager.persist();
 
         brokerController.shutdown();
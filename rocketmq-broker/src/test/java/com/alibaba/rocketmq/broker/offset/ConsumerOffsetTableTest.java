@@ -0,0 +1,109 @@
+/**
+ * $Id: ConsumerOffsetTableTest.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.broker.offset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import org.junit.Test;
+
+
+/**
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class ConsumerOffsetTableTest {
+    private static void deleteDir(final File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+
+    @Test
+    public void test_reload() throws Exception {
+        File dir = new File(System.getProperty("java.io.tmpdir"), "ConsumerOffsetTableTest");
+        deleteDir(dir);
+
+        ConsumerOffsetTable table = new ConsumerOffsetTable(dir.getPath(), 1024);
+        assertTrue(table.load());
+        ConsumerOffsetHandle handleA = table.findOrCreateHandle("GroupA", "TopicTest");
+        for (int queueId = 0; queueId < 16; queueId++) {
+            handleA.commitOffset(queueId, queueId * 100);
+        }
+        table.findOrCreateHandle("GroupB", "TopicTest").commitOffset(0, 7);
+        table.shutdown();
+
+        // ģslot־һ¼ûд
+        RandomAccessFile raf = new RandomAccessFile(new File(dir, "offsetslot"), "rw");
+        raf.seek(raf.length());
+        raf.writeInt(17);
+        raf.close();
+
+        // ģλ17־¼ʧļ˾ɽ
+        raf = new RandomAccessFile(new File(dir, "offsettable"), "rw");
+        raf.seek(17 * 8);
+        raf.writeLong(999);
+        raf.close();
+
+        table = new ConsumerOffsetTable(dir.getPath(), 1024);
+        assertTrue(table.load());
+        handleA = table.findHandle("GroupA", "TopicTest");
+        for (int queueId = 0; queueId < 16; queueId++) {
+            assertEquals(queueId * 100, handleA.queryOffset(queueId));
+        }
+        ConsumerOffsetHandle handleB = table.findHandle("GroupB", "TopicTest");
+        assertEquals(7, handleB.queryOffset(0));
+        assertEquals(-1, handleB.queryOffset(1));
+        assertNull(table.findHandle("GroupC", "TopicTest"));
+
+        // ضϺ䣬λеظ·Ĳλɽ
+        assertEquals(17, table.allocateSlot(handleB, 1));
+        assertEquals(-1, handleB.queryOffset(1));
+        handleB.commitOffset(1, 8);
+        assertEquals(17, handleB.findSlot(1));
+        assertEquals(8, handleB.queryOffset(1));
+        assertEquals(18, table.snapshot().length);
+        table.shutdown();
+
+        deleteDir(dir);
+    }
+
+
+    @Test
+    public void test_access_after_shutdown() throws Exception {
+        File dir = new File(System.getProperty("java.io.tmpdir"), "ConsumerOffsetTableTest");
+        deleteDir(dir);
+
+        ConsumerOffsetTable table = new ConsumerOffsetTable(dir.getPath(), 1024);
+        assertTrue(table.load());
+        ConsumerOffsetHandle handle = table.findOrCreateHandle("GroupA", "TopicTest");
+        handle.commitOffset(0, 100);
+        table.shutdown();
+
+        // ر֮;ܷӳڴ棬Ҳܷ²λ
+        handle.commitOffset(0, 200);
+        handle.commitOffset(1, 300);
+        assertEquals(-1, handle.queryOffset(0));
+        assertEquals(-1, handle.findSlot(1));
+        table.flush();
+        table.shutdown();
+
+        table = new ConsumerOffsetTable(dir.getPath(), 1024);
+        assertTrue(table.load());
+        handle = table.findHandle("GroupA", "TopicTest");
+        assertEquals(100, handle.queryOffset(0));
+        assertEquals(-1, handle.findSlot(1));
+        table.shutdown();
+
+        deleteDir(dir);
+    }
+}
@@ -3,8 +3,12 @@
  */
 package com.alibaba.rocketmq.broker.topic;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+
 import org.junit.Test;
 
 import com.alibaba.rocketmq.broker.BrokerController;
@@ -46,4 +50,29 @@ public class TopicConfigManagerTest {
 
         brokerController.shutdown();
     }
+
+
+    @Test
+    public void test_reloadAfterShutdown() throws Exception {
+        File dir =
+                new File(System.getProperty("java.io.tmpdir"), "TopicConfigManagerTest-" + System.nanoTime());
+        BrokerConfig brokerConfig = new BrokerConfig();
+        brokerConfig.setTopicConfigPath(new File(dir, "topics.json").getPath());
+        BrokerController brokerController =
+                new BrokerController(brokerConfig, new NettyServerConfig(), new MessageStoreConfig());
+
+        TopicConfigManager topicConfigManager = new TopicConfigManager(brokerController);
+        assertTrue(topicConfigManager.load());
+        topicConfigManager.updateTopicConfig(new TopicConfig("UNITTEST-KEEP", 8, 8, 6));
+        topicConfigManager.updateTopicConfig(new TopicConfig("UNITTEST-DELETE", 4, 4, 6));
+        topicConfigManager.deleteTopicConfig("UNITTEST-DELETE");
+        // ֹͣʱд־ϲtopics.json
+        topicConfigManager.shutdown();
+
+        topicConfigManager = new TopicConfigManager(brokerController);
+        assertTrue(topicConfigManager.load());
+        assertEquals(8, topicConfigManager.selectTopicConfig("UNITTEST-KEEP").getWriteQueueNums());
+        assertNull(topicConfigManager.selectTopicConfig("UNITTEST-DELETE"));
+        topicConfigManager.shutdown();
+    }
 }
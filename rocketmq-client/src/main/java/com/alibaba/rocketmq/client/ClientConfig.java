@@ -21,6 +21,10 @@ public class ClientConfig {
     private int pollNameServerInteval = 1000 * 30;
     private int heartbeatBrokerInterval = 1000 * 30;
     private int persistConsumerOffsetInterval = 1000 * 5;
+    // ÿBroker
+    private int clientChannelPoolSize = 1;
+    // ϢʹöӣϢӦϢÿBrokerĬϹر
+    private boolean pullMessageChannelIsolated = false;
 
 
     public String buildMQClientId() {
@@ -43,6 +47,8 @@ public class ClientConfig {
         cc.pollNameServerInteval = pollNameServerInteval;
         cc.heartbeatBrokerInterval = heartbeatBrokerInterval;
         cc.persistConsumerOffsetInterval = persistConsumerOffsetInterval;
+        cc.clientChannelPoolSize = clientChannelPoolSize;
+        cc.pullMessageChannelIsolated = pullMessageChannelIsolated;
         return cc;
     }
 
@@ -125,4 +131,24 @@ public class ClientConfig {
                 + heartbeatBrokerInterval + ", persistConsumerOffsetInterval=" + persistConsumerOffsetInterval
                 + "]";
     }
+
+
+    public int getClientChannelPoolSize() {
+        return clientChannelPoolSize;
+    }
+
+
+    public void setClientChannelPoolSize(int clientChannelPoolSize) {
+        this.clientChannelPoolSize = clientChannelPoolSize;
+    }
+
+
+    public boolean isPullMessageChannelIsolated() {
+        return pullMessageChannelIsolated;
+    }
+
+
+    public void setPullMessageChannelIsolated(boolean pullMessageChannelIsolated) {
+        this.pullMessageChannelIsolated = pullMessageChannelIsolated;
+    }
 }
@@ -3,6 +3,8 @@
  */
 package com.alibaba.rocketmq.client;
 
+import java.util.Iterator;
+
 import com.alibaba.rocketmq.client.exception.MQBrokerException;
 import com.alibaba.rocketmq.client.exception.MQClientException;
 import com.alibaba.rocketmq.common.message.MessageExt;
@@ -113,4 +115,24 @@ public interface MQAdmin {
      */
     public QueryResult queryMessage(final String topic, final String key, final int maxNum, final long begin,
             final long end) throws MQClientException, InterruptedException;
+
+
+    /**
+     * ϢKeyҳѯϢBrokerÿֻһҳߵȡһҳ
+     * 
+     * @param topic
+     *            Ϣ
+     * @param key
+     *            Ϣؼ
+     * @param maxNum
+     *            ص
+     * @param begin
+     *            ʼʱ
+     * @param end
+     *            ʱ
+     * @return ѯBrokerѯʧʱֻسɹĽ
+     * @throws MQClientException
+     */
+    public Iterator<MessageExt> queryMessageIterator(final String topic, final String key, final int maxNum,
+            final long begin, final long end) throws MQClientException;
 }
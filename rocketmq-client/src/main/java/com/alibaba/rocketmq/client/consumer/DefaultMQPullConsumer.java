@@ -4,6 +4,7 @@
 package com.alibaba.rocketmq.client.consumer;
 
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Set;
 
 import com.alibaba.rocketmq.client.ClientConfig;
@@ -115,6 +116,13 @@ public class DefaultMQPullConsumer extends ClientConfig implements MQPullConsume
     }
 
 
+    @Override
+    public Iterator<MessageExt> queryMessageIterator(String topic, String key, int maxNum, long begin,
+            long end) throws MQClientException {
+        return this.defaultMQPullConsumerImpl.queryMessageIterator(topic, key, maxNum, begin, end);
+    }
+
+
     @Override
     public void start() throws MQClientException {
         this.defaultMQPullConsumerImpl.start();
@@ -4,6 +4,7 @@
 package com.alibaba.rocketmq.client.consumer;
 
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 
@@ -182,6 +183,13 @@ public class DefaultMQPushConsumer extends ClientConfig implements MQPushConsume
     }
 
 
+    @Override
+    public Iterator<MessageExt> queryMessageIterator(String topic, String key, int maxNum, long begin,
+            long end) throws MQClientException {
+        return this.defaultMQPushConsumerImpl.queryMessageIterator(topic, key, maxNum, begin, end);
+    }
+
+
     @Override
     public void registerMessageListener(MessageListener messageListener) {
         this.messageListener = messageListener;
@@ -43,6 +43,12 @@ public class LocalFileOffsetStore implements OffsetStore {
     }
 
 
+    @Override
+    public void fetchAll(Set<MessageQueue> mqs) {
+        // ļloadʱȫ
+    }
+
+
     @Override
     public void persistAll(Set<MessageQueue> mqs) {
         // TODO Auto-generated method stub
@@ -27,6 +27,12 @@ public interface OffsetStore {
     public long readOffset(final MessageQueue mq, final boolean fromStore);
 
 
+    /**
+     * Ӵ洢ѽȵػ棬ѻĶ
+     */
+    public void fetchAll(final Set<MessageQueue> mqs);
+
+
     /**
      * ־ûȫѽȣܳ־ûػԶBroker
      */
@@ -1,5 +1,7 @@
 package com.alibaba.rocketmq.client.consumer.store;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
@@ -12,6 +14,9 @@ import com.alibaba.rocketmq.client.impl.FindBrokerResult;
 import com.alibaba.rocketmq.client.impl.factory.MQClientFactory;
 import com.alibaba.rocketmq.client.log.ClientLogger;
 import com.alibaba.rocketmq.common.message.MessageQueue;
+import com.alibaba.rocketmq.common.protocol.header.ConsumerOffsetBatchBody;
+import com.alibaba.rocketmq.common.protocol.header.ConsumerOffsetBatchBody.TopicOffset;
+import com.alibaba.rocketmq.common.protocol.header.ConsumerOffsetBatchRequestHeader;
 import com.alibaba.rocketmq.common.protocol.header.QueryConsumerOffsetRequestHeader;
 import com.alibaba.rocketmq.common.protocol.header.UpdateConsumerOffsetRequestHeader;
 import com.alibaba.rocketmq.remoting.exception.RemotingException;
@@ -88,6 +93,61 @@ public class RemoteBrokerOffsetStore implements OffsetStore {
     }
 
 
+    private String findBrokerAddrInAdmin(final String brokerName, final ConsumerOffsetBatchBody body)
+            throws MQClientException {
+        FindBrokerResult findBrokerResult = this.mQClientFactory.findBrokerAddressInAdmin(brokerName);
+        if (null == findBrokerResult) {
+            for (TopicOffset topicOffset : body.getTopicOffsetList()) {
+                this.mQClientFactory.updateTopicRouteInfoFromNameServer(topicOffset.getTopic());
+            }
+            findBrokerResult = this.mQClientFactory.findBrokerAddressInAdmin(brokerName);
+        }
+
+        if (null == findBrokerResult) {
+            throw new MQClientException("The broker[" + brokerName + "] not exist", null);
+        }
+
+        return findBrokerResult.getBrokerAddr();
+    }
+
+
+    /**
+     * һBrokerϵȫнֻһ
+     */
+    private void updateConsumeOffsetToBrokerBatch(final String brokerName, final ConsumerOffsetBatchBody body)
+            throws RemotingException, MQBrokerException, InterruptedException, MQClientException {
+        ConsumerOffsetBatchRequestHeader requestHeader = new ConsumerOffsetBatchRequestHeader();
+        requestHeader.setConsumerGroup(this.groupName);
+        this.mQClientFactory.getMQClientAPIImpl().updateConsumerOffsetBatch(
+            this.findBrokerAddrInAdmin(brokerName, body), requestHeader, body, 1000 * 5);
+    }
+
+
+    private ConsumerOffsetBatchBody fetchConsumeOffsetFromBrokerBatch(final String brokerName,
+            final ConsumerOffsetBatchBody body) throws RemotingException, MQBrokerException,
+            InterruptedException, MQClientException {
+        ConsumerOffsetBatchRequestHeader requestHeader = new ConsumerOffsetBatchRequestHeader();
+        requestHeader.setConsumerGroup(this.groupName);
+        return this.mQClientFactory.getMQClientAPIImpl().queryConsumerOffsetBatch(
+            this.findBrokerAddrInAdmin(brokerName, body), requestHeader, body, 1000 * 5);
+    }
+
+
+    /**
+     * BrokerName飬Body
+     */
+    private static void addToBrokerBody(final Map<String, ConsumerOffsetBatchBody> brokerBodyTable,
+            final MessageQueue mq, final long offset) {
+        ConsumerOffsetBatchBody body = brokerBodyTable.get(mq.getBrokerName());
+        if (null == body) {
+            body = new ConsumerOffsetBatchBody();
+            brokerBodyTable.put(mq.getBrokerName(), body);
+        }
+
+        body.addOffset(mq.getTopic(), mq.getQueueId(), offset);
+    }
+
+
     @Override
     public void load() {
     }
@@ -103,8 +163,9 @@ public class RemoteBrokerOffsetStore implements OffsetStore {
                     offsetprev.set(offset);
                 }
             }
-
-            offsetOld.set(offset);
+            else {
+                offsetOld.set(offset);
+            }
         }
     }
 
@@ -128,27 +189,93 @@ public class RemoteBrokerOffsetStore implements OffsetStore {
 
                 return offset.get();
             }
+
+            return offset.get();
         }
         return -1;
     }
 
 
+    @Override
+    public void fetchAll(Set<MessageQueue> mqs) {
+        if (null == mqs || mqs.isEmpty()) {
+            return;
+        }
+
+        Map<String, ConsumerOffsetBatchBody> brokerBodyTable = new HashMap<String, ConsumerOffsetBatchBody>();
+        for (MessageQueue mq : mqs) {
+            if (!this.offsetTable.containsKey(mq)) {
+                addToBrokerBody(brokerBodyTable, mq, -1);
+            }
+        }
+
+        for (Map.Entry<String, ConsumerOffsetBatchBody> entry : brokerBodyTable.entrySet()) {
+            try {
+                ConsumerOffsetBatchBody result =
+                        this.fetchConsumeOffsetFromBrokerBatch(entry.getKey(), entry.getValue());
+                for (TopicOffset topicOffset : result.getTopicOffsetList()) {
+                    for (int i = 0; i < topicOffset.getSize(); i++) {
+                        // BrokerûнȵĶл-1뵥ѯʧʱķֵһ
+                        MessageQueue mq =
+                                new MessageQueue(topicOffset.getTopic(), entry.getKey(),
+                                    topicOffset.getQueueId(i));
+                        this.offsetTable.putIfAbsent(mq, new AtomicLong(topicOffset.getOffset(i)));
+                    }
+                }
+            }
+            catch (Exception e) {
+                // ѯʧʱ棬readOffsetвѯ
+                log.warn("fetchConsumeOffsetFromBrokerBatch exception, " + entry.getKey(), e);
+            }
+        }
+    }
+
+
     @Override
     public void persistAll(Set<MessageQueue> mqs) {
         if (mqs != null && !mqs.isEmpty()) {
+            Map<String, ConsumerOffsetBatchBody> brokerBodyTable =
+                    new HashMap<String, ConsumerOffsetBatchBody>();
             for (MessageQueue mq : this.offsetTable.keySet()) {
                 AtomicLong offset = this.offsetTable.get(mq);
-                if (offset != null) {
+                // С0ʾBrokerҲûнȣҪύ
+                if (offset != null && offset.get() >= 0) {
                     if (mqs.contains(mq)) {
-                        try {
-                            this.updateConsumeOffsetToBroker(mq, offset.get());
-                        }
-                        catch (Exception e) {
-                            log.error("updateConsumeOffsetToBroker exception, " + mq.toString(), e);
-                        }
+                        addToBrokerBody(brokerBodyTable, mq, offset.get());
                     }
                 }
             }
+
+            for (Map.Entry<String, ConsumerOffsetBatchBody> entry : brokerBodyTable.entrySet()) {
+                try {
+                    this.updateConsumeOffsetToBrokerBatch(entry.getKey(), entry.getValue());
+                }
+                catch (MQBrokerException e) {
+                    // Broker֧˻Ϊи
+                    log.warn("updateConsumeOffsetToBrokerBatch failed, " + entry.getKey() + " "
+                            + e.getMessage());
+                    this.persistEach(entry.getKey(), entry.getValue());
+                }
+                catch (Exception e) {
+                    log.error("updateConsumeOffsetToBrokerBatch exception, " + entry.getKey(), e);
+                }
+            }
+        }
+    }
+
+
+    private void persistEach(final String brokerName, final ConsumerOffsetBatchBody body) {
+        for (TopicOffset topicOffset : body.getTopicOffsetList()) {
+            for (int i = 0; i < topicOffset.getSize(); i++) {
+                MessageQueue mq =
+                        new MessageQueue(topicOffset.getTopic(), brokerName, topicOffset.getQueueId(i));
+                try {
+                    this.updateConsumeOffsetToBroker(mq, topicOffset.getOffset(i));
+                }
+                catch (Exception e) {
+                    log.error("updateConsumeOffsetToBroker exception, " + mq.toString(), e);
+                }
+            }
         }
     }
 }
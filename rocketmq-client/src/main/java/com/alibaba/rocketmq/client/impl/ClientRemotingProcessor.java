@@ -3,6 +3,10 @@ package com.alibaba.rocketmq.client.impl;
 import io.netty.channel.ChannelHandlerContext;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map.Entry;
 
 import org.slf4j.Logger;
 
@@ -43,6 +47,8 @@ public class ClientRemotingProcessor implements NettyRequestProcessor {
         switch (code) {
         case CHECK_TRANSACTION_STATE:
             return this.checkTransactionState(ctx, request);
+        case CHECK_TRANSACTION_STATE_BATCH:
+            return this.checkTransactionStateBatch(ctx, request);
         case NOTIFY_CONSUMER_IDS_CHANGED:
             return this.notifyConsumerIdsChanged(ctx, request);
         default:
@@ -99,4 +105,46 @@ public class ClientRemotingProcessor implements NettyRequestProcessor {
 
         return null;
     }
+
+
+    /**
+     * Onewayã޷ֵ<br>
+     * ϢɶPreparedϢƴӶɣProducer Group󽻸ӦProducer
+     */
+    public RemotingCommand checkTransactionStateBatch(ChannelHandlerContext ctx, RemotingCommand request)
+            throws RemotingCommandException {
+        if (null == request.getBody()) {
+            return null;
+        }
+
+        final List<MessageExt> msgs = MessageDecoder.decodes(ByteBuffer.wrap(request.getBody()));
+        final HashMap<String, List<MessageExt>> groupMsgTable = new HashMap<String, List<MessageExt>>();
+        for (MessageExt messageExt : msgs) {
+            final String group = messageExt.getProperty(Message.PROPERTY_PRODUCER_GROUP);
+            if (group != null) {
+                List<MessageExt> groupMsgs = groupMsgTable.get(group);
+                if (null == groupMsgs) {
+                    groupMsgs = new ArrayList<MessageExt>();
+                    groupMsgTable.put(group, groupMsgs);
+                }
+                groupMsgs.add(messageExt);
+            }
+            else {
+                log.warn("checkTransactionStateBatch, pick producer group failed");
+            }
+        }
+
+        final String addr = RemotingHelper.parseChannelRemoteAddr(ctx.channel());
+        for (Entry<String, List<MessageExt>> entry : groupMsgTable.entrySet()) {
+            MQProducerInner producer = this.mqClientFactory.selectProducer(entry.getKey());
+            if (producer != null) {
+                producer.checkTransactionStateBatch(addr, entry.getValue());
+            }
+            else {
+                log.debug("checkTransactionStateBatch, pick producer by group[{}] failed", entry.getKey());
+            }
+        }
+
+        return null;
+    }
 }
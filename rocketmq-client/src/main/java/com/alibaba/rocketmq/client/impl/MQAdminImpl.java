@@ -6,6 +6,7 @@ package com.alibaba.rocketmq.client.impl;
 import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
@@ -384,4 +385,34 @@ public class MQAdminImpl {
 
         throw new MQClientException("The topic[" + topic + "] not matched route info", null);
     }
+
+
+    /**
+     * ҳѯBrokerĽȡ߷أmaxNumΪصϢ
+     */
+    public Iterator<MessageExt> queryMessageIterator(String topic, String key, int maxNum, long begin,
+            long end) throws MQClientException {
+        TopicRouteData topicRouteData = this.mQClientFactory.getAnExistTopicRouteData(topic);
+        if (null == topicRouteData) {
+            this.mQClientFactory.updateTopicRouteInfoFromNameServer(topic);
+            topicRouteData = this.mQClientFactory.getAnExistTopicRouteData(topic);
+        }
+
+        if (topicRouteData != null) {
+            List<String> brokerAddrs = new LinkedList<String>();
+            for (BrokerData brokerData : topicRouteData.getBrokerDatas()) {
+                String addr = brokerData.getOneBrokerAddr();
+                if (addr != null) {
+                    brokerAddrs.add(addr);
+                }
+            }
+
+            if (!brokerAddrs.isEmpty()) {
+                return new QueryMessageIterator(this.mQClientFactory.getMQClientAPIImpl(), brokerAddrs, topic,
+                    key, maxNum, begin, end, 1000 * 5);
+            }
+        }
+
+        throw new MQClientException("The topic[" + topic + "] not matched route info", null);
+    }
 }
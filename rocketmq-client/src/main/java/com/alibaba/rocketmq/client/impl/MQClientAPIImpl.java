@@ -26,8 +26,11 @@ import com.alibaba.rocketmq.common.message.MessageQueue;
 import com.alibaba.rocketmq.common.namesrv.TopAddressing;
 import com.alibaba.rocketmq.common.protocol.MQProtos.MQRequestCode;
 import com.alibaba.rocketmq.common.protocol.MQProtos.MQResponseCode;
+import com.alibaba.rocketmq.common.protocol.header.ConsumerOffsetBatchBody;
+import com.alibaba.rocketmq.common.protocol.header.ConsumerOffsetBatchRequestHeader;
 import com.alibaba.rocketmq.common.protocol.header.ConsumerSendMsgBackRequestHeader;
 import com.alibaba.rocketmq.common.protocol.header.CreateTopicRequestHeader;
+import com.alibaba.rocketmq.common.protocol.header.EndTransactionBatchRequestBody;
 import com.alibaba.rocketmq.common.protocol.header.EndTransactionRequestHeader;
 import com.alibaba.rocketmq.common.protocol.header.GetConsumerListByGroupRequestHeader;
 import com.alibaba.rocketmq.common.protocol.header.GetConsumerListByGroupResponseBody;
@@ -664,6 +667,65 @@ public class MQClientAPIImpl {
     }
 
 
+    /**
+     * һGroupͬһBrokerϵConsumerѽ
+     */
+    public void updateConsumerOffsetBatch(//
+            final String addr,//
+            final ConsumerOffsetBatchRequestHeader requestHeader,//
+            final ConsumerOffsetBatchBody requestBody,//
+            final long timeoutMillis//
+    ) throws RemotingException, MQBrokerException, InterruptedException {
+        RemotingCommand request =
+                RemotingCommand.createRequestCommand(MQRequestCode.UPDATE_CONSUMER_OFFSET_BATCH_VALUE,
+                    requestHeader);
+        request.setBody(requestBody.encode());
+        RemotingCommand response = this.remotingClient.invokeSync(addr, request, timeoutMillis);
+        assert response != null;
+        switch (response.getCode()) {
+        case ResponseCode.SUCCESS_VALUE: {
+            return;
+        }
+        default:
+            break;
+        }
+
+        throw new MQBrokerException(response.getCode(), response.getRemark());
+    }
+
+
+    /**
+     * ѯһGroupͬһBrokerϵConsumerѽȣ鲻ĶнΪ-1
+     */
+    public ConsumerOffsetBatchBody queryConsumerOffsetBatch(//
+            final String addr,//
+            final ConsumerOffsetBatchRequestHeader requestHeader,//
+            final ConsumerOffsetBatchBody requestBody,//
+            final long timeoutMillis//
+    ) throws RemotingException, MQBrokerException, InterruptedException {
+        RemotingCommand request =
+                RemotingCommand.createRequestCommand(MQRequestCode.QUERY_CONSUMER_OFFSET_BATCH_VALUE,
+                    requestHeader);
+        request.setBody(requestBody.encode());
+        RemotingCommand response = this.remotingClient.invokeSync(addr, request, timeoutMillis);
+        assert response != null;
+        switch (response.getCode()) {
+        case ResponseCode.SUCCESS_VALUE: {
+            try {
+                return ConsumerOffsetBatchBody.decode(response.getBody());
+            }
+            catch (RemotingCommandException e) {
+                throw new MQBrokerException(response.getCode(), e.getMessage());
+            }
+        }
+        default:
+            break;
+        }
+
+        throw new MQBrokerException(response.getCode(), response.getRemark());
+    }
+
+
     /**
      * 
      */
@@ -734,6 +796,23 @@ public class MQClientAPIImpl {
     }
 
 
+    /**
+     * ӦBrokerز
+     */
+    public void endTransactionBatchOneway(//
+            final String addr,//
+            final EndTransactionBatchRequestBody requestBody,//
+            final String remark,//
+            final long timeoutMillis//
+    ) throws RemotingException, MQBrokerException, InterruptedException {
+        RemotingCommand request =
+                RemotingCommand.createRequestCommand(MQRequestCode.END_TRANSACTION_BATCH_VALUE, null);
+        request.setRemark(remark);
+        request.setBody(requestBody.encode());
+        this.remotingClient.invokeOneway(addr, request, timeoutMillis);
+    }
+
+
     /**
      * ѯϢ
      */
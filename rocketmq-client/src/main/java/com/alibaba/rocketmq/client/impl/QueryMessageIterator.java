@@ -0,0 +1,233 @@
+/**
+ * $Id: QueryMessageIterator.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.client.impl;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+
+import com.alibaba.rocketmq.client.log.ClientLogger;
+import com.alibaba.rocketmq.common.message.Message;
+import com.alibaba.rocketmq.common.message.MessageDecoder;
+import com.alibaba.rocketmq.common.message.MessageExt;
+import com.alibaba.rocketmq.common.protocol.MQProtos.MQResponseCode;
+import com.alibaba.rocketmq.common.protocol.header.QueryMessageRequestHeader;
+import com.alibaba.rocketmq.common.protocol.header.QueryMessageResponseHeader;
+import com.alibaba.rocketmq.remoting.InvokeCallback;
+import com.alibaba.rocketmq.remoting.netty.ResponseFuture;
+import com.alibaba.rocketmq.remoting.protocol.RemotingCommand;
+import com.alibaba.rocketmq.remoting.protocol.RemotingProtos.ResponseCode;
+
+
+/**
+ * KeyҳѯϢ<br>
+ * ͬʱBrokerһҳӦ𵽴˳򷵻ϢȡĳBrokerһҳʱһҳ<br>
+ * ÿBrokerڿͻ໺ҳϢȫڴ
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class QueryMessageIterator implements Iterator<MessageExt> {
+    private final Logger log = ClientLogger.getLog();
+    private final MQClientAPIImpl mQClientAPIImpl;
+    private final String topic;
+    private final String key;
+    private final int maxNum;
+    private final long begin;
+    private final long end;
+    private final long timeoutMillis;
+
+    // BrokerӦҳʧܻ߲ѯҳnextCursorΪnull
+    private final LinkedBlockingQueue<QueryPage> pageQueue = new LinkedBlockingQueue<QueryPage>();
+    // ±ֻڵ߳з
+    private int runningBrokers;
+    private int returnedCount = 0;
+    private Iterator<MessageExt> currentPage = Collections.<MessageExt> emptyList().iterator();
+
+    class QueryPage {
+        private final String brokerAddr;
+        private final List<MessageExt> messageList;
+        private final String nextCursor;
+
+
+        public QueryPage(final String brokerAddr, final List<MessageExt> messageList,
+                final String nextCursor) {
+            this.brokerAddr = brokerAddr;
+            this.messageList = messageList;
+            this.nextCursor = nextCursor;
+        }
+    }
+
+
+    public QueryMessageIterator(final MQClientAPIImpl mQClientAPIImpl, final List<String> brokerAddrs,
+            final String topic, final String key, final int maxNum, final long begin, final long end,
+            final long timeoutMillis) {
+        this.mQClientAPIImpl = mQClientAPIImpl;
+        this.topic = topic;
+        this.key = key;
+        this.maxNum = maxNum;
+        this.begin = begin;
+        this.end = end;
+        this.timeoutMillis = timeoutMillis;
+
+        this.runningBrokers = brokerAddrs.size();
+        for (String addr : brokerAddrs) {
+            this.requestPage(addr, null);
+        }
+    }
+
+
+    /**
+     * KeyĹϣֵңҪ˵ϣͻϢ
+     */
+    public static boolean isKeyMatched(final MessageExt msgExt, final String key) {
+        String keys = msgExt.getKeys();
+        if (keys != null) {
+            for (String k : keys.split(Message.KEY_SEPARATOR)) {
+                if (key.equals(k)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+
+    private void requestPage(final String addr, final String cursor) {
+        QueryMessageRequestHeader requestHeader = new QueryMessageRequestHeader();
+        requestHeader.setTopic(this.topic);
+        requestHeader.setKey(this.key);
+        requestHeader.setMaxNum(this.maxNum);
+        requestHeader.setBeginTimestamp(this.begin);
+        requestHeader.setEndTimestamp(this.end);
+        requestHeader.setPagination(true);
+        requestHeader.setCursor(cursor);
+
+        try {
+            this.mQClientAPIImpl.queryMessage(addr, requestHeader, this.timeoutMillis, new InvokeCallback() {
+                @Override
+                public void operationComplete(ResponseFuture responseFuture) {
+                    QueryPage page = null;
+                    try {
+                        page = parsePage(addr, responseFuture.getResponseCommand());
+                    }
+                    catch (Throwable e) {
+                        log.warn("queryMessage, parse response exception", e);
+                    }
+                    finally {
+                        // ۳ɹҪһҳ߳̾ݴжBrokerǷ
+                        pageQueue.add(page != null ? page : new QueryPage(addr,
+                            Collections.<MessageExt> emptyList(), null));
+                    }
+                }
+            });
+        }
+        catch (Exception e) {
+            log.warn("queryMessage exception", e);
+            this.pageQueue.add(new QueryPage(addr, Collections.<MessageExt> emptyList(), null));
+        }
+    }
+
+
+    private QueryPage parsePage(final String addr, final RemotingCommand response) throws Exception {
+        if (null == response) {
+            log.warn("queryMessage, getResponseCommand return null, " + addr);
+            return null;
+        }
+
+        switch (response.getCode()) {
+        case ResponseCode.SUCCESS_VALUE: {
+            QueryMessageResponseHeader responseHeader =
+                    (QueryMessageResponseHeader) response
+                        .decodeCommandCustomHeader(QueryMessageResponseHeader.class);
+
+            List<MessageExt> messageList = new ArrayList<MessageExt>();
+            if (response.getBody() != null) {
+                for (MessageExt msgExt : MessageDecoder.decodes(ByteBuffer.wrap(response.getBody()), true)) {
+                    if (isKeyMatched(msgExt, this.key)) {
+                        messageList.add(msgExt);
+                    }
+                    else {
+                        log.warn("queryMessage, client find not matched message {}", msgExt.toString());
+                    }
+                }
+            }
+
+            return new QueryPage(addr, messageList, responseHeader.getNextCursor());
+        }
+        case MQResponseCode.QUERY_NOT_FOUND_VALUE:
+            return null;
+        default:
+            log.warn("queryMessage, getResponseCommand failed, {} {}", response.getCode(),
+                response.getRemark());
+            return null;
+        }
+    }
+
+
+    @Override
+    public boolean hasNext() {
+        if (this.returnedCount >= this.maxNum) {
+            return false;
+        }
+
+        while (!this.currentPage.hasNext()) {
+            if (this.runningBrokers <= 0) {
+                return false;
+            }
+
+            QueryPage page = null;
+            try {
+                // ʱҲصһʱֻǷֹصʧ
+                page = this.pageQueue.poll(this.timeoutMillis * 2, TimeUnit.MILLISECONDS);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (null == page) {
+                log.warn("queryMessage, maybe some broker failed, " + this.runningBrokers
+                        + " brokers not finished");
+                this.runningBrokers = 0;
+                return false;
+            }
+
+            // ѾõϢʱBrokerһҳ÷ѵǰҳ
+            if (page.nextCursor != null && this.returnedCount + page.messageList.size() < this.maxNum) {
+                this.requestPage(page.brokerAddr, page.nextCursor);
+            }
+            else {
+                this.runningBrokers--;
+            }
+
+            this.currentPage = page.messageList.iterator();
+        }
+
+        return true;
+    }
+
+
+    @Override
+    public MessageExt next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        this.returnedCount++;
+        return this.currentPage.next();
+    }
+
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("remove");
+    }
+}
@@ -4,6 +4,7 @@
 package com.alibaba.rocketmq.client.impl.consumer;
 
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
@@ -185,6 +186,13 @@ public class DefaultMQPullConsumerImpl implements MQConsumerInner {
     }
 
 
+    public Iterator<MessageExt> queryMessageIterator(String topic, String key, int maxNum, long begin,
+            long end) throws MQClientException {
+        this.makeSureStateOK();
+        return this.mQClientFactory.getMQAdminImpl().queryMessageIterator(topic, key, maxNum, begin, end);
+    }
+
+
     private PullResult pullSyncImpl(MessageQueue mq, String subExpression, long offset, int maxNums,
             boolean block) throws MQClientException, RemotingException, MQBrokerException,
             InterruptedException {
@@ -357,7 +365,13 @@ public class DefaultMQPullConsumerImpl implements MQConsumerInner {
 
 
     public Set<MessageQueue> fetchSubscribeMessageQueues(String topic) throws MQClientException {
-        return this.mQClientFactory.getMQAdminImpl().fetchSubscribeMessageQueues(topic);
+        Set<MessageQueue> result = this.mQClientFactory.getMQAdminImpl().fetchSubscribeMessageQueues(topic);
+        // ʱͨвѯѽȣﰴBrokerԤȡ
+        if (this.offsetStore != null) {
+            this.offsetStore.fetchAll(result);
+        }
+
+        return result;
     }
 
 
@@ -6,6 +6,7 @@ package com.alibaba.rocketmq.client.impl.consumer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -271,6 +272,13 @@ public class DefaultMQPushConsumerImpl implements MQPushConsumer, MQConsumerInne
     }
 
 
+    @Override
+    public Iterator<MessageExt> queryMessageIterator(String topic, String key, int maxNum, long begin,
+            long end) throws MQClientException {
+        return this.mQClientFactory.getMQAdminImpl().queryMessageIterator(topic, key, maxNum, begin, end);
+    }
+
+
     @Override
     public void registerMessageListener(MessageListener messageListener) {
         this.messageListenerInner = messageListener;
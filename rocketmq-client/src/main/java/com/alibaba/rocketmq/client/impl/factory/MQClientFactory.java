@@ -42,6 +42,7 @@ import com.alibaba.rocketmq.common.ServiceState;
 import com.alibaba.rocketmq.common.constant.PermName;
 import com.alibaba.rocketmq.common.help.FAQUrl;
 import com.alibaba.rocketmq.common.message.MessageQueue;
+import com.alibaba.rocketmq.common.protocol.MQProtos.MQRequestCode;
 import com.alibaba.rocketmq.common.protocol.heartbeat.ConsumerData;
 import com.alibaba.rocketmq.common.protocol.heartbeat.HeartbeatData;
 import com.alibaba.rocketmq.common.protocol.heartbeat.ProducerData;
@@ -121,6 +122,11 @@ public class MQClientFactory {
         this.nettyClientConfig = new NettyClientConfig();
         this.nettyClientConfig.setClientCallbackExecutorThreads(clientConfig
             .getClientCallbackExecutorThreads());
+        this.nettyClientConfig.setClientChannelPoolSize(clientConfig.getClientChannelPoolSize());
+        if (clientConfig.isPullMessageChannelIsolated()) {
+            this.nettyClientConfig.setClientIsolatedRequestCodes(String
+                .valueOf(MQRequestCode.PULL_MESSAGE_VALUE));
+        }
         this.clientRemotingProcessor = new ClientRemotingProcessor(this);
         this.mQClientAPIImpl = new MQClientAPIImpl(this.nettyClientConfig, this.clientRemotingProcessor);
 
@@ -5,7 +5,9 @@ package com.alibaba.rocketmq.client.impl.producer;
 
 import java.io.IOException;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
@@ -33,6 +35,7 @@ import com.alibaba.rocketmq.client.producer.SendResult;
 import com.alibaba.rocketmq.client.producer.SendStatus;
 import com.alibaba.rocketmq.client.producer.TransactionCheckListener;
 import com.alibaba.rocketmq.client.producer.TransactionMQProducer;
+import com.alibaba.rocketmq.common.FixedWindowRateLimiter;
 import com.alibaba.rocketmq.common.MixAll;
 import com.alibaba.rocketmq.common.ServiceState;
 import com.alibaba.rocketmq.common.UtilALl;
@@ -44,6 +47,7 @@ import com.alibaba.rocketmq.common.message.MessageId;
 import com.alibaba.rocketmq.common.message.MessageQueue;
 import com.alibaba.rocketmq.common.protocol.MQProtos.MQResponseCode;
 import com.alibaba.rocketmq.common.protocol.header.CheckTransactionStateRequestHeader;
+import com.alibaba.rocketmq.common.protocol.header.EndTransactionBatchRequestBody;
 import com.alibaba.rocketmq.common.protocol.header.EndTransactionRequestHeader;
 import com.alibaba.rocketmq.common.protocol.header.SendMessageRequestHeader;
 import com.alibaba.rocketmq.common.sysflag.MessageSysFlag;
@@ -73,6 +77,9 @@ public class DefaultMQProducerImpl implements MQProducerInner {
      */
     protected BlockingQueue<Runnable> checkRequestQueue;
     protected ExecutorService checkExecutor;
+    // ÿBrokerز
+    private final ConcurrentHashMap<String/* brokerAddr */, FixedWindowRateLimiter> checkRateLimiterTable =
+            new ConcurrentHashMap<String, FixedWindowRateLimiter>();
 
 
     public DefaultMQProducerImpl(final DefaultMQProducer defaultMQProducer) {
@@ -245,6 +252,13 @@ public class DefaultMQProducerImpl implements MQProducerInner {
     }
 
 
+    public Iterator<MessageExt> queryMessageIterator(String topic, String key, int maxNum, long begin,
+            long end) throws MQClientException {
+        this.makeSureStateOK();
+        return this.mQClientFactory.getMQAdminImpl().queryMessageIterator(topic, key, maxNum, begin, end);
+    }
+
+
     private void checkMessage(Message msg) throws MQClientException {
         // topic TODO
         // tags TODO
@@ -266,7 +280,7 @@ public class DefaultMQProducerImpl implements MQProducerInner {
         if (body != null) {
             if (body.length >= this.defaultMQProducer.getCompressMsgBodyOverHowmuch()) {
                 try {
-                    byte[] data = UtilALl.compress(body, 9);
+                    byte[] data = UtilALl.compress(body, this.defaultMQProducer.getCompressLevel());
                     if (data != null) {
                         msg.setBody(data);
                         return true;
@@ -798,4 +812,114 @@ public class DefaultMQProducerImpl implements MQProducerInner {
 
         this.checkExecutor.submit(request);
     }
+
+
+    /**
+     * ʵʻȡĻز
+     */
+    private int tryAcquireCheckPermit(final String brokerAddr, final int permits) {
+        if (!(this.defaultMQProducer instanceof TransactionMQProducer)) {
+            return permits;
+        }
+
+        FixedWindowRateLimiter rateLimiter = this.checkRateLimiterTable.get(brokerAddr);
+        if (null == rateLimiter) {
+            TransactionMQProducer producer = (TransactionMQProducer) this.defaultMQProducer;
+            rateLimiter = new FixedWindowRateLimiter(producer.getCheckRequestMaxPerSecondPerBroker(), 1000);
+            FixedWindowRateLimiter prev = this.checkRateLimiterTable.putIfAbsent(brokerAddr, rateLimiter);
+            if (prev != null) {
+                rateLimiter = prev;
+            }
+        }
+
+        return rateLimiter.tryAcquireUpTo(permits);
+    }
+
+
+    @Override
+    public void checkTransactionStateBatch(final String addr, final List<MessageExt> msgs) {
+        // ɲʱֻܴĲ֣಻ӦBrokerһزٴλز
+        final int permits = this.tryAcquireCheckPermit(addr, msgs.size());
+        if (permits < msgs.size()) {
+            log.warn("checkTransactionStateBatch, exceed the rate limit of broker[{}], defer {} messages", addr,
+                msgs.size() - permits);
+            if (0 == permits) {
+                return;
+            }
+        }
+
+        Runnable request = new Runnable() {
+            private final String brokerAddr = addr;
+            private final List<MessageExt> messages = msgs.subList(0, permits);
+            private final String group = DefaultMQProducerImpl.this.defaultMQProducer.getProducerGroup();
+
+
+            @Override
+            public void run() {
+                TransactionCheckListener transactionCheckListener =
+                        DefaultMQProducerImpl.this.checkListener();
+                if (null == transactionCheckListener) {
+                    log.warn("checkTransactionStateBatch, pick transactionCheckListener by group[{}] failed",
+                        group);
+                    return;
+                }
+
+                final EndTransactionBatchRequestBody requestBody = new EndTransactionBatchRequestBody();
+                final List<EndTransactionRequestHeader> endTransactionList =
+                        new ArrayList<EndTransactionRequestHeader>(messages.size());
+                for (MessageExt message : messages) {
+                    LocalTransactionState localTransactionState = LocalTransactionState.UNKNOW;
+                    try {
+                        localTransactionState = transactionCheckListener.checkLocalTransactionState(message);
+                        if (null == localTransactionState) {
+                            localTransactionState = LocalTransactionState.UNKNOW;
+                        }
+                    }
+                    catch (Throwable e) {
+                        log.error(
+                            "Broker call checkTransactionStateBatch, but checkLocalTransactionState exception", e);
+                    }
+
+                    // ״̬δ֪Ӧ𣬵ȴBrokerһλز
+                    if (LocalTransactionState.UNKNOW == localTransactionState) {
+                        log.warn("when broker check, client donot know this transaction state, {}",
+                            message.getMsgId());
+                        continue;
+                    }
+
+                    final EndTransactionRequestHeader thisHeader = new EndTransactionRequestHeader();
+                    // PreparedϢBrokerϵQueueOffsetΪ״̬Offset
+                    thisHeader.setCommitLogOffset(message.getCommitLogOffset());
+                    thisHeader.setTranStateTableOffset(message.getQueueOffset());
+                    thisHeader.setProducerGroup(group);
+                    thisHeader.setFromTransactionCheck(true);
+                    thisHeader.setMsgId(message.getMsgId());
+                    if (LocalTransactionState.COMMIT_MESSAGE == localTransactionState) {
+                        thisHeader.setCommitOrRollback(MessageSysFlag.TransactionCommitType);
+                    }
+                    else {
+                        thisHeader.setCommitOrRollback(MessageSysFlag.TransactionRollbackType);
+                        log.warn("when broker check, client rollback this transaction, {}", thisHeader);
+                    }
+
+                    endTransactionList.add(thisHeader);
+                }
+
+                if (endTransactionList.isEmpty()) {
+                    return;
+                }
+
+                requestBody.setEndTransactionList(endTransactionList);
+                try {
+                    DefaultMQProducerImpl.this.mQClientFactory.getMQClientAPIImpl().endTransactionBatchOneway(
+                        brokerAddr, requestBody, null, 3000);
+                }
+                catch (Exception e) {
+                    log.error("endTransactionBatchOneway exception", e);
+                }
+            }
+        };
+
+        this.checkExecutor.submit(request);
+    }
 }
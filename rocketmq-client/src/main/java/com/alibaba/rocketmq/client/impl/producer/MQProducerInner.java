@@ -1,5 +1,6 @@
 package com.alibaba.rocketmq.client.impl.producer;
 
+import java.util.List;
 import java.util.Set;
 
 import com.alibaba.rocketmq.client.producer.TransactionCheckListener;
@@ -25,5 +26,10 @@ public interface MQProducerInner {
             final CheckTransactionStateRequestHeader checkRequestHeader);
 
 
+    public void checkTransactionStateBatch(//
+            final String addr, //
+            final List<MessageExt> msgs);
+
+
     public void updateTopicPublishInfo(final String topic, final TopicPublishInfo info);
 }
@@ -3,6 +3,7 @@
  */
 package com.alibaba.rocketmq.client.producer;
 
+import java.util.Iterator;
 import java.util.List;
 
 import sun.reflect.generics.reflectiveObjects.NotImplementedException;
@@ -45,6 +46,10 @@ public class DefaultMQProducer extends ClientConfig implements MQProducer {
      * Message BodyСֵѹ
      */
     private int compressMsgBodyOverHowmuch = 1024 * 4;
+    /**
+     * Message Bodyѹ𣬼9ȼ5ѹʸ߳٣ٶ
+     */
+    private int compressLevel = 5;
     /**
      * ϢѾɹдMasterˢ̳ʱͬSlaveʧܣһBroker޸Ĭֵ<br>
      * ˳ϢЧ
@@ -151,6 +156,13 @@ public class DefaultMQProducer extends ClientConfig implements MQProducer {
     }
 
 
+    @Override
+    public Iterator<MessageExt> queryMessageIterator(String topic, String key, int maxNum, long begin,
+            long end) throws MQClientException {
+        return this.defaultMQProducerImpl.queryMessageIterator(topic, key, maxNum, begin, end);
+    }
+
+
     @Override
     public void send(Message msg, SendCallback sendCallback) throws MQClientException, RemotingException,
             InterruptedException {
@@ -232,6 +244,16 @@ public class DefaultMQProducer extends ClientConfig implements MQProducer {
     }
 
 
+    public int getCompressLevel() {
+        return compressLevel;
+    }
+
+
+    public void setCompressLevel(int compressLevel) {
+        this.compressLevel = compressLevel;
+    }
+
+
     public DefaultMQProducerImpl getDefaultMQProducerImpl() {
         return defaultMQProducerImpl;
     }
@@ -18,6 +18,8 @@ public class TransactionMQProducer extends DefaultMQProducer {
     private int checkThreadPoolMinSize = 1;
     private int checkThreadPoolMaxSize = 1;
     private int checkRequestHoldMax = 2000;
+    // ÿBrokerÿദزĻزֱӶBrokerٴλز
+    private int checkRequestMaxPerSecondPerBroker = 2000;
 
 
     public TransactionMQProducer() {
@@ -91,4 +93,14 @@ public class TransactionMQProducer extends DefaultMQProducer {
     public void setCheckRequestHoldMax(int checkRequestHoldMax) {
         this.checkRequestHoldMax = checkRequestHoldMax;
     }
+
+
+    public int getCheckRequestMaxPerSecondPerBroker() {
+        return checkRequestMaxPerSecondPerBroker;
+    }
+
+
+    public void setCheckRequestMaxPerSecondPerBroker(int checkRequestMaxPerSecondPerBroker) {
+        this.checkRequestMaxPerSecondPerBroker = checkRequestMaxPerSecondPerBroker;
+    }
 }
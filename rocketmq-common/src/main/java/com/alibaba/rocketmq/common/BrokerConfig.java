@@ -38,6 +38,22 @@ public class BrokerConfig {
     private int sendMessageThreadPoolNums = Runtime.getRuntime().availableProcessors() * 6;
     private int pullMessageThreadPoolNums = Runtime.getRuntime().availableProcessors() * 6;
     private int adminBrokerThreadPoolNums = 8;
+    // ̳߳ضʱֱӦϵͳæ
+    private int sendThreadPoolQueueCapacity = 10000;
+    private int pullThreadPoolQueueCapacity = 100000;
+    private int adminBrokerThreadPoolQueueCapacity = 10000;
+    // ̳߳Ŷӳʱ䣬ͻѳʱӺٴ
+    private long sendMessageMaxWaitTimeMillis = 1000 * 3;
+    private long pullMessageMaxWaitTimeMillis = 1000 * 5;
+    private long adminBrokerMaxWaitTimeMillis = 1000 * 3;
+    // ӡ̳߳ŶͳƵļ
+    private long printThreadPoolStatsInterval = 1000 * 60;
+    // ѳѯַ߳߳뷢ֻ߳ύ
+    private int pullNotifyThreadPoolNums = 4;
+    // ȡϢѾڴʱֱIO߳ϴϢ
+    private boolean pullInlineEnable = false;
+    // IO߳ϴʱȡѶĿϢ˵ɨ
+    private int pullInlineMaxScanCount = 256;
 
     private String topicConfigPath = System.getProperty("user.home") + File.separator + "store"
             + File.separator + "config" + File.separator + "topics.json";
@@ -45,6 +61,10 @@ public class BrokerConfig {
     private String consumerOffsetPath = System.getProperty("user.home") + File.separator + "store"
             + File.separator + "config" + File.separator + "consumeroffset.json";
 
+    // ѽȶƱĿ¼
+    private String consumerOffsetTableDir = System.getProperty("user.home") + File.separator + "store"
+            + File.separator + "config" + File.separator + "consumeroffset";
+
     private String consumerOffsetHistoryDir = System.getProperty("user.home") + File.separator + "store"
             + File.separator + "config" + File.separator + "offsethistory";
 
@@ -55,9 +75,30 @@ public class BrokerConfig {
             + File.separator + "config" + File.separator + "subscriptionGroup.json";
 
     private int flushConsumerOffsetInterval = 1000 * 5;
+    // ѽȱĲλÿ(topic@group, queueId)ռһλļСΪλ8ֽ
+    private int consumerOffsetTableMaxSlots = 1024 * 1024 * 2;
+    // JSONʽѽȵļά߶ȡ
+    private int exportConsumerOffsetJsonInterval = 1000 * 60 * 10;
+    // Topicñ־ʱϲtopics.json
+    private int topicConfigCompactThreshold = 1000;
+    // Topicñ־ںϲļ
+    private int topicConfigCompactInterval = 1000 * 60 * 10;
 
     private int flushConsumerOffsetHistoryInterval = 1000 * 60;
 
+    // زǷChannelϲϰ汾Producerʶزȫٿ
+    private boolean transactionCheckBatchEnable = false;
+    // ÿزϢ
+    private int transactionCheckBatchSize = 32;
+    // δزȴʱ
+    private int transactionCheckBatchFlushInterval = 100;
+    // ÿProducer ChannelÿزϢ
+    private int transactionCheckMaxPerChannelPerSecond = 2000;
+    // ϢӦѹҪPageCacheڣԶ֧ѹҴﵽֵʱŷ㿽
+    private boolean transferMsgCompressEnable = false;
+    private String transferMsgCompressCodec = "deflate";
+    private int transferMsgCompressThreshold = 1024 * 64;
+
 
     public static String localHostName() {
         try {
@@ -289,4 +330,224 @@ public class BrokerConfig {
     public void setSubscriptionGroupPath(String subscriptionGroupPath) {
         this.subscriptionGroupPath = subscriptionGroupPath;
     }
+
+
+    public boolean isTransactionCheckBatchEnable() {
+        return transactionCheckBatchEnable;
+    }
+
+
+    public void setTransactionCheckBatchEnable(boolean transactionCheckBatchEnable) {
+        this.transactionCheckBatchEnable = transactionCheckBatchEnable;
+    }
+
+
+    public int getTransactionCheckBatchSize() {
+        return transactionCheckBatchSize;
+    }
+
+
+    public void setTransactionCheckBatchSize(int transactionCheckBatchSize) {
+        this.transactionCheckBatchSize = transactionCheckBatchSize;
+    }
+
+
+    public int getTransactionCheckBatchFlushInterval() {
+        return transactionCheckBatchFlushInterval;
+    }
+
+
+    public void setTransactionCheckBatchFlushInterval(int transactionCheckBatchFlushInterval) {
+        this.transactionCheckBatchFlushInterval = transactionCheckBatchFlushInterval;
+    }
+
+
+    public int getTransactionCheckMaxPerChannelPerSecond() {
+        return transactionCheckMaxPerChannelPerSecond;
+    }
+
+
+    public void setTransactionCheckMaxPerChannelPerSecond(int transactionCheckMaxPerChannelPerSecond) {
+        this.transactionCheckMaxPerChannelPerSecond = transactionCheckMaxPerChannelPerSecond;
+    }
+
+
+    public int getSendThreadPoolQueueCapacity() {
+        return sendThreadPoolQueueCapacity;
+    }
+
+
+    public void setSendThreadPoolQueueCapacity(int sendThreadPoolQueueCapacity) {
+        this.sendThreadPoolQueueCapacity = sendThreadPoolQueueCapacity;
+    }
+
+
+    public int getPullThreadPoolQueueCapacity() {
+        return pullThreadPoolQueueCapacity;
+    }
+
+
+    public void setPullThreadPoolQueueCapacity(int pullThreadPoolQueueCapacity) {
+        this.pullThreadPoolQueueCapacity = pullThreadPoolQueueCapacity;
+    }
+
+
+    public int getAdminBrokerThreadPoolQueueCapacity() {
+        return adminBrokerThreadPoolQueueCapacity;
+    }
+
+
+    public void setAdminBrokerThreadPoolQueueCapacity(int adminBrokerThreadPoolQueueCapacity) {
+        this.adminBrokerThreadPoolQueueCapacity = adminBrokerThreadPoolQueueCapacity;
+    }
+
+
+    public long getSendMessageMaxWaitTimeMillis() {
+        return sendMessageMaxWaitTimeMillis;
+    }
+
+
+    public void setSendMessageMaxWaitTimeMillis(long sendMessageMaxWaitTimeMillis) {
+        this.sendMessageMaxWaitTimeMillis = sendMessageMaxWaitTimeMillis;
+    }
+
+
+    public long getPullMessageMaxWaitTimeMillis() {
+        return pullMessageMaxWaitTimeMillis;
+    }
+
+
+    public void setPullMessageMaxWaitTimeMillis(long pullMessageMaxWaitTimeMillis) {
+        this.pullMessageMaxWaitTimeMillis = pullMessageMaxWaitTimeMillis;
+    }
+
+
+    public long getAdminBrokerMaxWaitTimeMillis() {
+        return adminBrokerMaxWaitTimeMillis;
+    }
+
+
+    public void setAdminBrokerMaxWaitTimeMillis(long adminBrokerMaxWaitTimeMillis) {
+        this.adminBrokerMaxWaitTimeMillis = adminBrokerMaxWaitTimeMillis;
+    }
+
+
+    public long getPrintThreadPoolStatsInterval() {
+        return printThreadPoolStatsInterval;
+    }
+
+
+    public void setPrintThreadPoolStatsInterval(long printThreadPoolStatsInterval) {
+        this.printThreadPoolStatsInterval = printThreadPoolStatsInterval;
+    }
+
+
+    public boolean isTransferMsgCompressEnable() {
+        return transferMsgCompressEnable;
+    }
+
+
+    public void setTransferMsgCompressEnable(boolean transferMsgCompressEnable) {
+        this.transferMsgCompressEnable = transferMsgCompressEnable;
+    }
+
+
+    public String getTransferMsgCompressCodec() {
+        return transferMsgCompressCodec;
+    }
+
+
+    public void setTransferMsgCompressCodec(String transferMsgCompressCodec) {
+        this.transferMsgCompressCodec = transferMsgCompressCodec;
+    }
+
+
+    public int getTransferMsgCompressThreshold() {
+        return transferMsgCompressThreshold;
+    }
+
+
+    public void setTransferMsgCompressThreshold(int transferMsgCompressThreshold) {
+        this.transferMsgCompressThreshold = transferMsgCompressThreshold;
+    }
+
+
+    public int getPullNotifyThreadPoolNums() {
+        return pullNotifyThreadPoolNums;
+    }
+
+
+    public void setPullNotifyThreadPoolNums(int pullNotifyThreadPoolNums) {
+        this.pullNotifyThreadPoolNums = pullNotifyThreadPoolNums;
+    }
+
+
+    public String getConsumerOffsetTableDir() {
+        return consumerOffsetTableDir;
+    }
+
+
+    public void setConsumerOffsetTableDir(String consumerOffsetTableDir) {
+        this.consumerOffsetTableDir = consumerOffsetTableDir;
+    }
+
+
+    public int getConsumerOffsetTableMaxSlots() {
+        return consumerOffsetTableMaxSlots;
+    }
+
+
+    public void setConsumerOffsetTableMaxSlots(int consumerOffsetTableMaxSlots) {
+        this.consumerOffsetTableMaxSlots = consumerOffsetTableMaxSlots;
+    }
+
+
+    public int getExportConsumerOffsetJsonInterval() {
+        return exportConsumerOffsetJsonInterval;
+    }
+
+
+    public void setExportConsumerOffsetJsonInterval(int exportConsumerOffsetJsonInterval) {
+        this.exportConsumerOffsetJsonInterval = exportConsumerOffsetJsonInterval;
+    }
+
+
+    public int getTopicConfigCompactThreshold() {
+        return topicConfigCompactThreshold;
+    }
+
+
+    public void setTopicConfigCompactThreshold(int topicConfigCompactThreshold) {
+        this.topicConfigCompactThreshold = topicConfigCompactThreshold;
+    }
+
+
+    public int getTopicConfigCompactInterval() {
+        return topicConfigCompactInterval;
+    }
+
+
+    public void setTopicConfigCompactInterval(int topicConfigCompactInterval) {
+        this.topicConfigCompactInterval = topicConfigCompactInterval;
+    }
+
+
+    public boolean isPullInlineEnable() {
+        return pullInlineEnable;
+    }
+
+
+    public void setPullInlineEnable(boolean pullInlineEnable) {
+        this.pullInlineEnable = pullInlineEnable;
+    }
+
+
+    public int getPullInlineMaxScanCount() {
+        return pullInlineMaxScanCount;
+    }
+
+
+    public void setPullInlineMaxScanCount(int pullInlineMaxScanCount) {
+        this.pullInlineMaxScanCount = pullInlineMaxScanCount;
+    }
 }
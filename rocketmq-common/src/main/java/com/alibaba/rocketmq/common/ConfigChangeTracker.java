@@ -0,0 +1,147 @@
+/**
+ * $Id: ConfigChangeTracker.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.common;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+
+/**
+ * ¼ñÿKeyһ޸ĵкţͬ<br>
+ * ÿ޸кż1ͬϴõкֻ֮޸ġɾKey<br>
+ * epoch仯ɾ¼̭СкǰƣͬҪȫͬ
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class ConfigChangeTracker {
+    private final String dataEpoch = Long.toHexString(System.currentTimeMillis()) + "-"
+            + Integer.toHexString(System.identityHashCode(this));
+    private final int maxDeletedKeys;
+
+    private long sequence = 0;
+    // Сڴкŵ޷ͬ
+    private long minSequence = 0;
+    private final Map<String, Long> keySequenceTable = new HashMap<String, Long>();
+    private final TreeMap<Long, String> sequenceKeyTable = new TreeMap<Long, String>();
+    private final Set<String> deletedKeys = new HashSet<String>();
+
+
+    public ConfigChangeTracker(final int maxDeletedKeys) {
+        this.maxDeletedKeys = maxDeletedKeys;
+    }
+
+
+    private long touch(final String key) {
+        Long old = this.keySequenceTable.put(key, ++this.sequence);
+        if (old != null) {
+            this.sequenceKeyTable.remove(old);
+        }
+        this.sequenceKeyTable.put(this.sequence, key);
+        return this.sequence;
+    }
+
+
+    public synchronized long markChanged(final String key) {
+        this.deletedKeys.remove(key);
+        return this.touch(key);
+    }
+
+
+    public synchronized long markDeleted(final String key) {
+        this.deletedKeys.add(key);
+        long result = this.touch(key);
+
+        // ̭ɾ¼ֻȫͬ
+        if (this.deletedKeys.size() > this.maxDeletedKeys) {
+            Iterator<Map.Entry<Long, String>> it = this.sequenceKeyTable.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Long, String> entry = it.next();
+                if (this.deletedKeys.remove(entry.getValue())) {
+                    // TreeMapɾڵentryָ̽ڵ㣬ȡֵ
+                    this.minSequence = entry.getKey();
+                    this.keySequenceTable.remove(entry.getValue());
+                    it.remove();
+                    break;
+                }
+            }
+        }
+
+        return result;
+    }
+
+
+    /**
+     * nullʾҪȫͬ
+     */
+    public synchronized ChangeSet changesSince(final String dataEpoch, final long sinceSequence) {
+        if (!this.dataEpoch.equals(dataEpoch) || sinceSequence < this.minSequence
+                || sinceSequence > this.sequence) {
+            return null;
+        }
+
+        ChangeSet changeSet = new ChangeSet(this.dataEpoch, this.sequence);
+        for (String key : this.sequenceKeyTable.tailMap(sinceSequence, false).values()) {
+            if (this.deletedKeys.contains(key)) {
+                changeSet.deletedKeys.add(key);
+            }
+            else {
+                changeSet.changedKeys.add(key);
+            }
+        }
+
+        return changeSet;
+    }
+
+
+    public synchronized long currentSequence() {
+        return this.sequence;
+    }
+
+
+    public String getDataEpoch() {
+        return dataEpoch;
+    }
+
+    /**
+     * һͬݣValueɵ÷Keyӵǰñжȡ
+     */
+    public static class ChangeSet {
+        private final String dataEpoch;
+        private final long sequence;
+        private final List<String> changedKeys = new ArrayList<String>();
+        private final List<String> deletedKeys = new ArrayList<String>();
+
+
+        public ChangeSet(final String dataEpoch, final long sequence) {
+            this.dataEpoch = dataEpoch;
+            this.sequence = sequence;
+        }
+
+
+        public String getDataEpoch() {
+            return dataEpoch;
+        }
+
+
+        public long getSequence() {
+            return sequence;
+        }
+
+
+        public List<String> getChangedKeys() {
+            return changedKeys;
+        }
+
+
+        public List<String> getDeletedKeys() {
+            return deletedKeys;
+        }
+    }
+}
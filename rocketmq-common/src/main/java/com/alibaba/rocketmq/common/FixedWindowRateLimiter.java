@@ -0,0 +1,62 @@
+/**
+ * $Id: FixedWindowRateLimiter.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.common;
+
+/**
+ * ̶ʱ䴰ֱһڲٻȡ
+ * 
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class FixedWindowRateLimiter {
+    private final int permitsPerWindow;
+    private final long windowMillis;
+    private long windowBeginTimestamp = 0;
+    private int usedPermits = 0;
+
+
+    public FixedWindowRateLimiter(final int permitsPerWindow, final long windowMillis) {
+        this.permitsPerWindow = permitsPerWindow;
+        this.windowMillis = windowMillis;
+    }
+
+
+    /**
+     * ɲʱȴֱӷfalse
+     */
+    public synchronized boolean tryAcquire(final int permits) {
+        long now = System.currentTimeMillis();
+        if (now - this.windowBeginTimestamp >= this.windowMillis) {
+            this.windowBeginTimestamp = now;
+            this.usedPermits = 0;
+        }
+
+        if (this.usedPermits + permits > this.permitsPerWindow) {
+            return false;
+        }
+
+        this.usedPermits += permits;
+        return true;
+    }
+
+
+    /**
+     * ȡpermitsɣʵʻȡĸɲʱȴ
+     */
+    public synchronized int tryAcquireUpTo(final int permits) {
+        long now = System.currentTimeMillis();
+        if (now - this.windowBeginTimestamp >= this.windowMillis) {
+            this.windowBeginTimestamp = now;
+            this.usedPermits = 0;
+        }
+
+        int acquired = Math.max(0, Math.min(permits, this.permitsPerWindow - this.usedPermits));
+        this.usedPermits += acquired;
+        return acquired;
+    }
+
+
+    public int getPermitsPerWindow() {
+        return permitsPerWindow;
+    }
+}
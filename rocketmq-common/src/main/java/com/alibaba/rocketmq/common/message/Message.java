@@ -46,6 +46,10 @@ public class Message {
      * ϢʱͶʱ伶0ʾʱ0ʾضʱ𣨾弶ڷ˶壩
      */
     public static final String PROPERTY_DELAY_TIME_LEVEL = "DELAY";
+    /**
+     * ϢʱͶݵľʱ㣨룩ʱ
+     */
+    public static final String PROPERTY_DELIVER_TIMESTAMP = "DELIVER_MS";
 
     /**
      * ڲʹ
@@ -163,6 +167,26 @@ public class Message {
     }
 
 
+    public long getDeliverTimestamp() {
+        String t = this.getProperty(PROPERTY_DELIVER_TIMESTAMP);
+        if (t != null) {
+            try {
+                return Long.parseLong(t);
+            }
+            catch (NumberFormatException e) {
+                // ʽǷǶʱϢ
+            }
+        }
+
+        return 0;
+    }
+
+
+    public void setDeliverTimestamp(long timestamp) {
+        this.putProperty(PROPERTY_DELIVER_TIMESTAMP, String.valueOf(timestamp));
+    }
+
+
     public boolean isWaitStoreMsgOK() {
         String result = this.getProperty(PROPERTY_WAIT_STORE_MSG_OK);
         if (null == result)
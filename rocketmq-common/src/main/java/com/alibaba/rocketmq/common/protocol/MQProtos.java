@@ -241,6 +241,46 @@ public final class MQProtos {
      * </pre>
      */
     NOTIFY_CONSUMER_IDS_CHANGED(27, 40),
+    /**
+     * <code>CHECK_TRANSACTION_STATE_BATCH = 41;</code>
+     *
+     * <pre>
+     * Broker Producerز״̬
+     * </pre>
+     */
+    CHECK_TRANSACTION_STATE_BATCH(28, 41),
+    /**
+     * <code>END_TRANSACTION_BATCH = 42;</code>
+     *
+     * <pre>
+     * Broker زӦCommitRollback
+     * </pre>
+     */
+    END_TRANSACTION_BATCH(29, 42),
+    /**
+     * <code>UPDATE_CONSUMER_OFFSET_BATCH = 43;</code>
+     *
+     * <pre>
+     * Broker ͬһGroupConsumer Offset
+     * </pre>
+     */
+    UPDATE_CONSUMER_OFFSET_BATCH(30, 43),
+    /**
+     * <code>QUERY_CONSUMER_OFFSET_BATCH = 44;</code>
+     *
+     * <pre>
+     * Broker ѯͬһGroupConsumer Offset
+     * </pre>
+     */
+    QUERY_CONSUMER_OFFSET_BATCH(31, 44),
+    /**
+     * <code>GET_TOPIC_CONFIG_DELTA = 45;</code>
+     *
+     * <pre>
+     * Broker кȡTopicãNamesrvʱͬ
+     * </pre>
+     */
+    GET_TOPIC_CONFIG_DELTA(32, 45),
     /**
      * <code>REGISTER_BROKER = 100;</code>
      *
@@ -248,7 +288,7 @@ public final class MQProtos {
      * Namesrv עһBrokerݶǳ־ûģ򸲸
      * </pre>
      */
-    REGISTER_BROKER(28, 100),
+    REGISTER_BROKER(33, 100),
     /**
      * <code>UNREGISTER_BROKER = 101;</code>
      *
@@ -256,7 +296,7 @@ public final class MQProtos {
      * Namesrv жһBrokerݶǳ־û
      * </pre>
      */
-    UNREGISTER_BROKER(29, 101),
+    UNREGISTER_BROKER(34, 101),
     /**
      * <code>GET_BROKER_LIST = 102;</code>
      *
@@ -264,7 +304,7 @@ public final class MQProtos {
      * Namesrv ȡעBrokerб
      * </pre>
      */
-    GET_BROKER_LIST(30, 102),
+    GET_BROKER_LIST(35, 102),
     /**
      * <code>REGISTER_ORDER_TOPIC = 103;</code>
      *
@@ -272,7 +312,7 @@ public final class MQProtos {
      * Namesrv עһϸ˳Topicݶǳ־ûģ򸲸
      * </pre>
      */
-    REGISTER_ORDER_TOPIC(31, 103),
+    REGISTER_ORDER_TOPIC(36, 103),
     /**
      * <code>UNREGISTER_ORDER_TOPIC = 104;</code>
      *
@@ -280,7 +320,7 @@ public final class MQProtos {
      * Namesrv жһϸ˳Topicݶǳ־û
      * </pre>
      */
-    UNREGISTER_ORDER_TOPIC(32, 104),
+    UNREGISTER_ORDER_TOPIC(37, 104),
     /**
      * <code>GET_ORDER_TOPIC_LIST = 105;</code>
      *
@@ -288,7 +328,7 @@ public final class MQProtos {
      * Namesrv ȡעϸ˳Topicб
      * </pre>
      */
-    GET_ORDER_TOPIC_LIST(33, 105),
+    GET_ORDER_TOPIC_LIST(38, 105),
     /**
      * <code>UPDATE_NAMESRV_CONFIG = 106;</code>
      *
@@ -296,7 +336,7 @@ public final class MQProtos {
      * Namesrv Namesrvϵ
      * </pre>
      */
-    UPDATE_NAMESRV_CONFIG(34, 106),
+    UPDATE_NAMESRV_CONFIG(39, 106),
     /**
      * <code>GET_NAMESRV_CONFIG = 107;</code>
      *
@@ -304,7 +344,7 @@ public final class MQProtos {
      * Namesrv ȡNamesrvϵ
      * </pre>
      */
-    GET_NAMESRV_CONFIG(35, 107),
+    GET_NAMESRV_CONFIG(40, 107),
     /**
      * <code>GET_NAMESRV_RUNTIME_INFO = 108;</code>
      *
@@ -312,7 +352,7 @@ public final class MQProtos {
      * Namesrv ȡNamesrvʱϢ
      * </pre>
      */
-    GET_NAMESRV_RUNTIME_INFO(36, 108),
+    GET_NAMESRV_RUNTIME_INFO(41, 108),
     /**
      * <code>GET_ROUTEINTO_BY_TOPIC = 109;</code>
      *
@@ -320,7 +360,7 @@ public final class MQProtos {
      * Namesrv TopicȡBroker Name(д)
      * </pre>
      */
-    GET_ROUTEINTO_BY_TOPIC(37, 109),
+    GET_ROUTEINTO_BY_TOPIC(42, 109),
     /**
      * <code>SYNC_NAMESRV_RUNTIME_CONF = 110;</code>
      *
@@ -328,7 +368,7 @@ public final class MQProtos {
      * Namesrv ͬNamesrvڵʱtopic·Ϣ
      * </pre>
      */
-    SYNC_NAMESRV_RUNTIME_CONF(38, 110),
+    SYNC_NAMESRV_RUNTIME_CONF(43, 110),
     /**
      * <code>REGISTER_BROKER_SINGLE = 111;</code>
      *
@@ -336,7 +376,7 @@ public final class MQProtos {
      * Namesrv NamesrvɢbrokerעϢ
      * </pre>
      */
-    REGISTER_BROKER_SINGLE(39, 111),
+    REGISTER_BROKER_SINGLE(44, 111),
     /**
      * <code>UNREGISTER_BROKER_SINGLE = 112;</code>
      *
@@ -344,7 +384,7 @@ public final class MQProtos {
      * Namesrv NamesrvɢbrokerעϢ
      * </pre>
      */
-    UNREGISTER_BROKER_SINGLE(40, 112),
+    UNREGISTER_BROKER_SINGLE(45, 112),
     /**
      * <code>REGISTER_ORDER_TOPIC_SINGLE = 113;</code>
      *
@@ -352,7 +392,7 @@ public final class MQProtos {
      * Namesrv Namesrvɢorder topicעϢ
      * </pre>
      */
-    REGISTER_ORDER_TOPIC_SINGLE(41, 113),
+    REGISTER_ORDER_TOPIC_SINGLE(46, 113),
     /**
      * <code>UNREGISTER_ORDER_TOPIC_SINGLE = 114;</code>
      *
@@ -360,7 +400,7 @@ public final class MQProtos {
      * Namesrv Namesrvɢorder topicעϢ
      * </pre>
      */
-    UNREGISTER_ORDER_TOPIC_SINGLE(42, 114),
+    UNREGISTER_ORDER_TOPIC_SINGLE(47, 114),
     ;
 
     /**
@@ -587,6 +627,46 @@ public final class MQProtos {
      * </pre>
      */
     public static final int NOTIFY_CONSUMER_IDS_CHANGED_VALUE = 40;
+    /**
+     * <code>CHECK_TRANSACTION_STATE_BATCH = 41;</code>
+     *
+     * <pre>
+     * Broker Producerز״̬
+     * </pre>
+     */
+    public static final int CHECK_TRANSACTION_STATE_BATCH_VALUE = 41;
+    /**
+     * <code>END_TRANSACTION_BATCH = 42;</code>
+     *
+     * <pre>
+     * Broker زӦCommitRollback
+     * </pre>
+     */
+    public static final int END_TRANSACTION_BATCH_VALUE = 42;
+    /**
+     * <code>UPDATE_CONSUMER_OFFSET_BATCH = 43;</code>
+     *
+     * <pre>
+     * Broker ͬһGroupConsumer Offset
+     * </pre>
+     */
+    public static final int UPDATE_CONSUMER_OFFSET_BATCH_VALUE = 43;
+    /**
+     * <code>QUERY_CONSUMER_OFFSET_BATCH = 44;</code>
+     *
+     * <pre>
+     * Broker ѯͬһGroupConsumer Offset
+     * </pre>
+     */
+    public static final int QUERY_CONSUMER_OFFSET_BATCH_VALUE = 44;
+    /**
+     * <code>GET_TOPIC_CONFIG_DELTA = 45;</code>
+     *
+     * <pre>
+     * Broker кȡTopicãNamesrvʱͬ
+     * </pre>
+     */
+    public static final int GET_TOPIC_CONFIG_DELTA_VALUE = 45;
     /**
      * <code>REGISTER_BROKER = 100;</code>
      *
@@ -741,6 +821,11 @@ public final class MQProtos {
         case 38: return GET_CONSUMER_LIST_BY_GROUP;
         case 39: return CHECK_TRANSACTION_STATE;
         case 40: return NOTIFY_CONSUMER_IDS_CHANGED;
+        case 41: return CHECK_TRANSACTION_STATE_BATCH;
+        case 42: return END_TRANSACTION_BATCH;
+        case 43: return UPDATE_CONSUMER_OFFSET_BATCH;
+        case 44: return QUERY_CONSUMER_OFFSET_BATCH;
+        case 45: return GET_TOPIC_CONFIG_DELTA;
         case 100: return REGISTER_BROKER;
         case 101: return UNREGISTER_BROKER;
         case 102: return GET_BROKER_LIST;
@@ -7878,7 +7963,7 @@ public final class MQProtos {
       "uePair\022-\n\017topicOrderConfs\030\002 \002(\0132\024.remoti" +
       "ng.NVPairList\022)\n\007brokers\030\003 \003(\0132\030.rocketm" +
       "q.BrokerDataPair\022(\n\nbrokerList\030\004 \002(\0132\024.r" +
-      "emoting.StringList*\352\010\n\rMQRequestCode\022\020\n\014" +
+      "emoting.StringList*\207\n\n\rMQRequestCode\022\020\n\014" +
       "SEND_MESSAGE\020\n\022\020\n\014PULL_MESSAGE\020\013\022\021\n\rQUER",
       "Y_MESSAGE\020\014\022\027\n\023QUERY_BROKER_OFFSET\020\r\022\031\n\025" +
       "QUERY_CONSUMER_OFFSET\020\016\022\032\n\026UPDATE_CONSUM" +
@@ -7896,40 +7981,43 @@ public final class MQProtos {
       "\026CONSUMER_SEND_MSG_BACK\020$\022\023\n\017END_TRANSAC" +
       "TION\020%\022\036\n\032GET_CONSUMER_LIST_BY_GROUP\020&\022\033" +
       "\n\027CHECK_TRANSACTION_STATE\020\'\022\037\n\033NOTIFY_CO" +
-      "NSUMER_IDS_CHANGED\020(\022\023\n\017REGISTER_BROKER\020" +
-      "d\022\025\n\021UNREGISTER_BROKER\020e\022\023\n\017GET_BROKER_L" +
-      "IST\020f\022\030\n\024REGISTER_ORDER_TOPIC\020g\022\032\n\026UNREG" +
-      "ISTER_ORDER_TOPIC\020h\022\030\n\024GET_ORDER_TOPIC_L",
-      "IST\020i\022\031\n\025UPDATE_NAMESRV_CONFIG\020j\022\026\n\022GET_" +
-      "NAMESRV_CONFIG\020k\022\034\n\030GET_NAMESRV_RUNTIME_" +
-      "INFO\020l\022\032\n\026GET_ROUTEINTO_BY_TOPIC\020m\022\035\n\031SY" +
-      "NC_NAMESRV_RUNTIME_CONF\020n\022\032\n\026REGISTER_BR" +
-      "OKER_SINGLE\020o\022\034\n\030UNREGISTER_BROKER_SINGL" +
-      "E\020p\022\037\n\033REGISTER_ORDER_TOPIC_SINGLE\020q\022!\n\035" +
-      "UNREGISTER_ORDER_TOPIC_SINGLE\020r*\305\006\n\016MQRe" +
-      "sponseCode\022\026\n\022FLUSH_DISK_TIMEOUT\020\n\022\027\n\023SL" +
-      "AVE_NOT_AVAILABLE\020\013\022\027\n\023FLUSH_SLAVE_TIMEO" +
-      "UT\020\014\022\023\n\017MESSAGE_ILLEGAL\020\r\022\031\n\025SERVICE_NOT",
-      "_AVAILABLE\020\016\022\031\n\025VERSION_NOT_SUPPORTED\020\017\022" +
-      "\021\n\rNO_PERMISSION\020\020\022\023\n\017TOPIC_NOT_EXIST\020\021\022" +
-      "\027\n\023TOPIC_EXIST_ALREADY\020\022\022\022\n\016PULL_NOT_FOU" +
-      "ND\020\023\022\032\n\026PULL_RETRY_IMMEDIATELY\020\024\022\025\n\021PULL" +
-      "_OFFSET_MOVED\020\025\022\023\n\017QUERY_NOT_FOUND\020\026\022\035\n\031" +
-      "SUBSCRIPTION_PARSE_FAILED\020\027\022\032\n\026SUBSCRIPT" +
-      "ION_NOT_EXIST\020\030\022\033\n\027SUBSCRIPTION_NOT_LATE" +
-      "ST\020\031\022 \n\034SUBSCRIPTION_GROUP_NOT_EXIST\020\032\022\027" +
-      "\n\023DELETE_INVALID_CONF\020d\022\022\n\016NOT_MERGE_CON" +
-      "F\020e\022\030\n\024REGISTER_BROKER_FAIL\020f\022\033\n\027REGISTE",
-      "R_BROKER_TIMEOUT\020g\022\035\n\031REGISTER_ORDER_TOP" +
-      "IC_FAIL\020h\022 \n\034REGISTER_ORDER_TOPIC_TIMEOU" +
-      "T\020i\022\032\n\026UNREGISTER_BROKER_FAIL\020j\022\035\n\031UNREG" +
-      "ISTER_BROKER_TIMEOUT\020k\022\"\n\036UNREGISTER_ORD" +
-      "ER_TOPIC_TIMEOUT\020l\022\036\n\031TRANSACTION_SHOULD" +
-      "_COMMIT\020\310\001\022 \n\033TRANSACTION_SHOULD_ROLLBAC" +
-      "K\020\311\001\022\035\n\030TRANSACTION_STATE_UNKNOW\020\312\001\022\"\n\035T" +
-      "RANSACTION_STATE_GROUP_WRONG\020\313\001B2\n$com.a" +
-      "libaba.rocketmq.common.protocolB\010MQProto" +
-      "sH\001"
+      "NSUMER_IDS_CHANGED\020(\022!\n\035CHECK_TRANSACTIO" +
+      "N_STATE_BATCH\020)\022\031\n\025END_TRANSACTION_BATCH" +
+      "\020*\022 \n\034UPDATE_CONSUMER_OFFSET_BATCH\020+\022\037\n\033" +
+      "QUERY_CONSUMER_OFFSET_BATCH\020,\022\032\n\026GET_TOP",
+      "IC_CONFIG_DELTA\020-\022\023\n\017REGISTER_BROKER\020d\022\025" +
+      "\n\021UNREGISTER_BROKER\020e\022\023\n\017GET_BROKER_LIST" +
+      "\020f\022\030\n\024REGISTER_ORDER_TOPIC\020g\022\032\n\026UNREGIST" +
+      "ER_ORDER_TOPIC\020h\022\030\n\024GET_ORDER_TOPIC_LIST" +
+      "\020i\022\031\n\025UPDATE_NAMESRV_CONFIG\020j\022\026\n\022GET_NAM" +
+      "ESRV_CONFIG\020k\022\034\n\030GET_NAMESRV_RUNTIME_INF" +
+      "O\020l\022\032\n\026GET_ROUTEINTO_BY_TOPIC\020m\022\035\n\031SYNC_" +
+      "NAMESRV_RUNTIME_CONF\020n\022\032\n\026REGISTER_BROKE" +
+      "R_SINGLE\020o\022\034\n\030UNREGISTER_BROKER_SINGLE\020p" +
+      "\022\037\n\033REGISTER_ORDER_TOPIC_SINGLE\020q\022!\n\035UNR",
+      "EGISTER_ORDER_TOPIC_SINGLE\020r*\305\006\n\016MQRespo" +
+      "nseCode\022\026\n\022FLUSH_DISK_TIMEOUT\020\n\022\027\n\023SLAVE" +
+      "_NOT_AVAILABLE\020\013\022\027\n\023FLUSH_SLAVE_TIMEOUT\020" +
+      "\014\022\023\n\017MESSAGE_ILLEGAL\020\r\022\031\n\025SERVICE_NOT_AV" +
+      "AILABLE\020\016\022\031\n\025VERSION_NOT_SUPPORTED\020\017\022\021\n\r" +
+      "NO_PERMISSION\020\020\022\023\n\017TOPIC_NOT_EXIST\020\021\022\027\n\023" +
+      "TOPIC_EXIST_ALREADY\020\022\022\022\n\016PULL_NOT_FOUND\020" +
+      "\023\022\032\n\026PULL_RETRY_IMMEDIATELY\020\024\022\025\n\021PULL_OF" +
+      "FSET_MOVED\020\025\022\023\n\017QUERY_NOT_FOUND\020\026\022\035\n\031SUB" +
+      "SCRIPTION_PARSE_FAILED\020\027\022\032\n\026SUBSCRIPTION",
+      "_NOT_EXIST\020\030\022\033\n\027SUBSCRIPTION_NOT_LATEST\020" +
+      "\031\022 \n\034SUBSCRIPTION_GROUP_NOT_EXIST\020\032\022\027\n\023D" +
+      "ELETE_INVALID_CONF\020d\022\022\n\016NOT_MERGE_CONF\020e" +
+      "\022\030\n\024REGISTER_BROKER_FAIL\020f\022\033\n\027REGISTER_B" +
+      "ROKER_TIMEOUT\020g\022\035\n\031REGISTER_ORDER_TOPIC_" +
+      "FAIL\020h\022 \n\034REGISTER_ORDER_TOPIC_TIMEOUT\020i" +
+      "\022\032\n\026UNREGISTER_BROKER_FAIL\020j\022\035\n\031UNREGIST" +
+      "ER_BROKER_TIMEOUT\020k\022\"\n\036UNREGISTER_ORDER_" +
+      "TOPIC_TIMEOUT\020l\022\036\n\031TRANSACTION_SHOULD_CO" +
+      "MMIT\020\310\001\022 \n\033TRANSACTION_SHOULD_ROLLBACK\020\311",
+      "\001\022\035\n\030TRANSACTION_STATE_UNKNOW\020\312\001\022\"\n\035TRAN" +
+      "SACTION_STATE_GROUP_WRONG\020\313\001B2\n$com.alib" +
+      "aba.rocketmq.common.protocolB\010MQProtosH\001"
     };
     com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
       new com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner() {
@@ -3,16 +3,20 @@
  */
 package com.alibaba.rocketmq.common.protocol.header;
 
-import com.alibaba.rocketmq.remoting.CommandCustomHeader;
+import java.util.List;
+
+import com.alibaba.rocketmq.remoting.FastCodecHeader;
 import com.alibaba.rocketmq.remoting.annotation.CFNotNull;
 import com.alibaba.rocketmq.remoting.exception.RemotingCommandException;
+import com.alibaba.rocketmq.remoting.protocol.CustomHeaderCodec;
+import com.alibaba.rocketmq.remoting.protocol.RemotingProtos.NVPair;
 
 
 /**
  * @author shijia.wxr<vintage.wang@gmail.com>
  * 
  */
-public class CheckTransactionStateRequestHeader implements CommandCustomHeader {
+public class CheckTransactionStateRequestHeader implements FastCodecHeader {
     @CFNotNull
     private Long tranStateTableOffset;
     @CFNotNull
@@ -24,6 +28,35 @@ public class CheckTransactionStateRequestHeader implements CommandCustomHeader {
     }
 
 
+    @Override
+    public void encodeFields(final List<NVPair> extFields) {
+        CustomHeaderCodec.addField(extFields, "tranStateTableOffset", this.tranStateTableOffset);
+        CustomHeaderCodec.addField(extFields, "commitLogOffset", this.commitLogOffset);
+    }
+
+
+    @Override
+    public void decodeFields(final List<NVPair> extFields) {
+        for (NVPair nvp : extFields) {
+            final String name = nvp.getName();
+            final String value = nvp.getValue();
+            if ("tranStateTableOffset".equals(name)) {
+                this.tranStateTableOffset = Long.parseLong(value);
+            }
+            else if ("commitLogOffset".equals(name)) {
+                this.commitLogOffset = Long.parseLong(value);
+            }
+        }
+    }
+
+
+    @Override
+    public void checkNotNullFields() throws RemotingCommandException {
+        CustomHeaderCodec.checkNotNull("tranStateTableOffset", this.tranStateTableOffset);
+        CustomHeaderCodec.checkNotNull("commitLogOffset", this.commitLogOffset);
+    }
+
+
     public Long getTranStateTableOffset() {
         return tranStateTableOffset;
     }
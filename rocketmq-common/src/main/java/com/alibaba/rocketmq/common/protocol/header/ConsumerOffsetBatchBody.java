@@ -0,0 +1,163 @@
+/**
+ * $Id: ConsumerOffsetBatchBody.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.common.protocol.header;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.alibaba.rocketmq.remoting.exception.RemotingCommandException;
+
+
+/**
+ * ¡ѯѽȵӦBodyͬһGroupͬһBrokerȫзһBody<br>
+ * ƸʽtopicCount(4) { topicLength(2) topic queueCount(4) { queueId(4) offset(8) }* }*<br>
+ * ѯoffset-1Ӧв鲻ȵĶoffsetΪ-1
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class ConsumerOffsetBatchBody {
+    private static final Charset TopicCharset = Charset.forName("UTF-8");
+
+    private final Map<String, TopicOffset> topicOffsetTable = new LinkedHashMap<String, TopicOffset>();
+
+
+    public void addOffset(final String topic, final int queueId, final long offset) {
+        TopicOffset topicOffset = this.topicOffsetTable.get(topic);
+        if (null == topicOffset) {
+            topicOffset = new TopicOffset(topic, 8);
+            this.topicOffsetTable.put(topic, topicOffset);
+        }
+
+        topicOffset.add(queueId, offset);
+    }
+
+
+    public List<TopicOffset> getTopicOffsetList() {
+        return new ArrayList<TopicOffset>(this.topicOffsetTable.values());
+    }
+
+
+    public boolean isEmpty() {
+        return this.topicOffsetTable.isEmpty();
+    }
+
+
+    public byte[] encode() {
+        List<byte[]> topicDataList = new ArrayList<byte[]>(this.topicOffsetTable.size());
+        int length = 4;
+        for (TopicOffset topicOffset : this.topicOffsetTable.values()) {
+            byte[] topicData = topicOffset.getTopic().getBytes(TopicCharset);
+            topicDataList.add(topicData);
+            length += 2 + topicData.length + 4 + topicOffset.getSize() * (4 + 8);
+        }
+
+        ByteBuffer byteBuffer = ByteBuffer.allocate(length);
+        byteBuffer.putInt(this.topicOffsetTable.size());
+        int index = 0;
+        for (TopicOffset topicOffset : this.topicOffsetTable.values()) {
+            byte[] topicData = topicDataList.get(index++);
+            byteBuffer.putShort((short) topicData.length);
+            byteBuffer.put(topicData);
+            byteBuffer.putInt(topicOffset.getSize());
+            for (int i = 0; i < topicOffset.getSize(); i++) {
+                byteBuffer.putInt(topicOffset.getQueueId(i));
+                byteBuffer.putLong(topicOffset.getOffset(i));
+            }
+        }
+
+        return byteBuffer.array();
+    }
+
+
+    public static ConsumerOffsetBatchBody decode(final byte[] data) throws RemotingCommandException {
+        if (null == data) {
+            throw new RemotingCommandException("consumer offset batch body is null");
+        }
+
+        ConsumerOffsetBatchBody body = new ConsumerOffsetBatchBody();
+        try {
+            ByteBuffer byteBuffer = ByteBuffer.wrap(data);
+            int topicCount = byteBuffer.getInt();
+            for (int t = 0; t < topicCount; t++) {
+                byte[] topicData = new byte[byteBuffer.getShort() & 0xFFFF];
+                byteBuffer.get(topicData);
+                int queueCount = byteBuffer.getInt();
+                // ʣ೤У飬ֹǷݵ·
+                if (queueCount < 0 || queueCount > byteBuffer.remaining() / (4 + 8)) {
+                    throw new RemotingCommandException("illegal consumer offset batch body, queueCount "
+                            + queueCount);
+                }
+
+                TopicOffset topicOffset = new TopicOffset(new String(topicData, TopicCharset), queueCount);
+                for (int i = 0; i < queueCount; i++) {
+                    topicOffset.add(byteBuffer.getInt(), byteBuffer.getLong());
+                }
+                body.topicOffsetTable.put(topicOffset.getTopic(), topicOffset);
+            }
+        }
+        catch (BufferUnderflowException e) {
+            throw new RemotingCommandException("consumer offset batch body truncated", e);
+        }
+
+        return body;
+    }
+
+    /**
+     * һTopicµĶнȣ鱣棬װ
+     */
+    public static class TopicOffset {
+        private final String topic;
+        private int[] queueIds;
+        private long[] offsets;
+        private int size = 0;
+
+
+        public TopicOffset(final String topic, final int initialCapacity) {
+            this.topic = topic;
+            this.queueIds = new int[Math.max(initialCapacity, 1)];
+            this.offsets = new long[this.queueIds.length];
+        }
+
+
+        public void add(final int queueId, final long offset) {
+            if (this.size == this.queueIds.length) {
+                int[] newQueueIds = new int[this.size * 2];
+                long[] newOffsets = new long[this.size * 2];
+                System.arraycopy(this.queueIds, 0, newQueueIds, 0, this.size);
+                System.arraycopy(this.offsets, 0, newOffsets, 0, this.size);
+                this.queueIds = newQueueIds;
+                this.offsets = newOffsets;
+            }
+
+            this.queueIds[this.size] = queueId;
+            this.offsets[this.size] = offset;
+            this.size++;
+        }
+
+
+        public String getTopic() {
+            return topic;
+        }
+
+
+        public int getSize() {
+            return size;
+        }
+
+
+        public int getQueueId(final int index) {
+            return this.queueIds[index];
+        }
+
+
+        public long getOffset(final int index) {
+            return this.offsets[index];
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.alibaba.rocketmq.common.protocol.header;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.alibaba.rocketmq.remoting.protocol.RemotingSerializable;
+
+
+/**
+ * زӦÿһ뵥END_TRANSACTIONͷһ
+ * 
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class EndTransactionBatchRequestBody extends RemotingSerializable {
+    private List<EndTransactionRequestHeader> endTransactionList =
+            new ArrayList<EndTransactionRequestHeader>();
+
+
+    public List<EndTransactionRequestHeader> getEndTransactionList() {
+        return endTransactionList;
+    }
+
+
+    public void setEndTransactionList(List<EndTransactionRequestHeader> endTransactionList) {
+        this.endTransactionList = endTransactionList;
+    }
+}
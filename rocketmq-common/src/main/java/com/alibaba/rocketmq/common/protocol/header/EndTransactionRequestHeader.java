@@ -3,18 +3,22 @@
  */
 package com.alibaba.rocketmq.common.protocol.header;
 
+import java.util.List;
+
 import com.alibaba.rocketmq.common.sysflag.MessageSysFlag;
-import com.alibaba.rocketmq.remoting.CommandCustomHeader;
+import com.alibaba.rocketmq.remoting.FastCodecHeader;
 import com.alibaba.rocketmq.remoting.annotation.CFNotNull;
 import com.alibaba.rocketmq.remoting.annotation.CFNullable;
 import com.alibaba.rocketmq.remoting.exception.RemotingCommandException;
+import com.alibaba.rocketmq.remoting.protocol.CustomHeaderCodec;
+import com.alibaba.rocketmq.remoting.protocol.RemotingProtos.NVPair;
 
 
 /**
  * @author shijia.wxr<vintage.wang@gmail.com>
  * 
  */
-public class EndTransactionRequestHeader implements CommandCustomHeader {
+public class EndTransactionRequestHeader implements FastCodecHeader {
     @CFNotNull
     private String producerGroup;
     @CFNotNull
@@ -51,6 +55,54 @@ public class EndTransactionRequestHeader implements CommandCustomHeader {
     }
 
 
+    @Override
+    public void encodeFields(final List<NVPair> extFields) {
+        CustomHeaderCodec.addField(extFields, "producerGroup", this.producerGroup);
+        CustomHeaderCodec.addField(extFields, "tranStateTableOffset", this.tranStateTableOffset);
+        CustomHeaderCodec.addField(extFields, "commitLogOffset", this.commitLogOffset);
+        CustomHeaderCodec.addField(extFields, "commitOrRollback", this.commitOrRollback);
+        CustomHeaderCodec.addField(extFields, "fromTransactionCheck", this.fromTransactionCheck);
+        CustomHeaderCodec.addField(extFields, "msgId", this.msgId);
+    }
+
+
+    @Override
+    public void decodeFields(final List<NVPair> extFields) {
+        for (NVPair nvp : extFields) {
+            final String name = nvp.getName();
+            final String value = nvp.getValue();
+            if ("producerGroup".equals(name)) {
+                this.producerGroup = value;
+            }
+            else if ("tranStateTableOffset".equals(name)) {
+                this.tranStateTableOffset = Long.parseLong(value);
+            }
+            else if ("commitLogOffset".equals(name)) {
+                this.commitLogOffset = Long.parseLong(value);
+            }
+            else if ("commitOrRollback".equals(name)) {
+                this.commitOrRollback = Integer.parseInt(value);
+            }
+            else if ("fromTransactionCheck".equals(name)) {
+                this.fromTransactionCheck = Boolean.parseBoolean(value);
+            }
+            else if ("msgId".equals(name)) {
+                this.msgId = value;
+            }
+        }
+    }
+
+
+    @Override
+    public void checkNotNullFields() throws RemotingCommandException {
+        CustomHeaderCodec.checkNotNull("producerGroup", this.producerGroup);
+        CustomHeaderCodec.checkNotNull("tranStateTableOffset", this.tranStateTableOffset);
+        CustomHeaderCodec.checkNotNull("commitLogOffset", this.commitLogOffset);
+        CustomHeaderCodec.checkNotNull("commitOrRollback", this.commitOrRollback);
+        CustomHeaderCodec.checkNotNull("msgId", this.msgId);
+    }
+
+
     public String getProducerGroup() {
         return producerGroup;
     }
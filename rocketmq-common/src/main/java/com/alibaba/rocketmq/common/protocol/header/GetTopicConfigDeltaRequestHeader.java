@@ -0,0 +1,46 @@
+/**
+ * $Id: GetTopicConfigDeltaRequestHeader.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.common.protocol.header;
+
+import com.alibaba.rocketmq.remoting.CommandCustomHeader;
+import com.alibaba.rocketmq.remoting.annotation.CFNullable;
+import com.alibaba.rocketmq.remoting.exception.RemotingCommandException;
+
+
+/**
+ * ȡTopicãһֶζΪգBrokerȫ
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class GetTopicConfigDeltaRequestHeader implements CommandCustomHeader {
+    @CFNullable
+    private String dataEpoch;
+    @CFNullable
+    private Long sinceSequence;
+
+
+    @Override
+    public void checkFields() throws RemotingCommandException {
+    }
+
+
+    public String getDataEpoch() {
+        return dataEpoch;
+    }
+
+
+    public void setDataEpoch(String dataEpoch) {
+        this.dataEpoch = dataEpoch;
+    }
+
+
+    public Long getSinceSequence() {
+        return sinceSequence;
+    }
+
+
+    public void setSinceSequence(Long sinceSequence) {
+        this.sinceSequence = sinceSequence;
+    }
+}
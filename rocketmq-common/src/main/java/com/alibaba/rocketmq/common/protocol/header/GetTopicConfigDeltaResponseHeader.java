@@ -0,0 +1,94 @@
+/**
+ * $Id: GetTopicConfigDeltaResponseHeader.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.common.protocol.header;
+
+import com.alibaba.rocketmq.remoting.CommandCustomHeader;
+import com.alibaba.rocketmq.remoting.annotation.CFNotNull;
+import com.alibaba.rocketmq.remoting.exception.RemotingCommandException;
+
+
+/**
+ * fullSyncΪtrueʱBodyȫTopicշҪɾBodyûеTopic
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class GetTopicConfigDeltaResponseHeader implements CommandCustomHeader {
+    @CFNotNull
+    private String brokerName;
+    @CFNotNull
+    private Long brokerId;
+    @CFNotNull
+    private String clusterName;
+    @CFNotNull
+    private String dataEpoch;
+    @CFNotNull
+    private Long sequence;
+    @CFNotNull
+    private Boolean fullSync;
+
+
+    @Override
+    public void checkFields() throws RemotingCommandException {
+    }
+
+
+    public String getBrokerName() {
+        return brokerName;
+    }
+
+
+    public void setBrokerName(String brokerName) {
+        this.brokerName = brokerName;
+    }
+
+
+    public Long getBrokerId() {
+        return brokerId;
+    }
+
+
+    public void setBrokerId(Long brokerId) {
+        this.brokerId = brokerId;
+    }
+
+
+    public String getClusterName() {
+        return clusterName;
+    }
+
+
+    public void setClusterName(String clusterName) {
+        this.clusterName = clusterName;
+    }
+
+
+    public String getDataEpoch() {
+        return dataEpoch;
+    }
+
+
+    public void setDataEpoch(String dataEpoch) {
+        this.dataEpoch = dataEpoch;
+    }
+
+
+    public Long getSequence() {
+        return sequence;
+    }
+
+
+    public void setSequence(Long sequence) {
+        this.sequence = sequence;
+    }
+
+
+    public Boolean getFullSync() {
+        return fullSync;
+    }
+
+
+    public void setFullSync(Boolean fullSync) {
+        this.fullSync = fullSync;
+    }
+}
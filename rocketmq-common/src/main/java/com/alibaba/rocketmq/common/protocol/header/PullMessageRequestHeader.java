@@ -3,16 +3,20 @@
  */
 package com.alibaba.rocketmq.common.protocol.header;
 
-import com.alibaba.rocketmq.remoting.CommandCustomHeader;
+import java.util.List;
+
+import com.alibaba.rocketmq.remoting.FastCodecHeader;
 import com.alibaba.rocketmq.remoting.annotation.CFNotNull;
 import com.alibaba.rocketmq.remoting.exception.RemotingCommandException;
+import com.alibaba.rocketmq.remoting.protocol.CustomHeaderCodec;
+import com.alibaba.rocketmq.remoting.protocol.RemotingProtos.NVPair;
 
 
 /**
  * @author shijia.wxr<vintage.wang@gmail.com>
  * 
  */
-public class PullMessageRequestHeader implements CommandCustomHeader {
+public class PullMessageRequestHeader implements FastCodecHeader {
     @CFNotNull
     private String consumerGroup;
     @CFNotNull
@@ -40,6 +44,74 @@ public class PullMessageRequestHeader implements CommandCustomHeader {
     }
 
 
+    @Override
+    public void encodeFields(final List<NVPair> extFields) {
+        CustomHeaderCodec.addField(extFields, "consumerGroup", this.consumerGroup);
+        CustomHeaderCodec.addField(extFields, "topic", this.topic);
+        CustomHeaderCodec.addField(extFields, "queueId", this.queueId);
+        CustomHeaderCodec.addField(extFields, "queueOffset", this.queueOffset);
+        CustomHeaderCodec.addField(extFields, "maxMsgNums", this.maxMsgNums);
+        CustomHeaderCodec.addField(extFields, "sysFlag", this.sysFlag);
+        CustomHeaderCodec.addField(extFields, "commitOffset", this.commitOffset);
+        CustomHeaderCodec.addField(extFields, "suspendTimeoutMillis", this.suspendTimeoutMillis);
+        CustomHeaderCodec.addField(extFields, "subscription", this.subscription);
+        CustomHeaderCodec.addField(extFields, "subVersion", this.subVersion);
+    }
+
+
+    @Override
+    public void decodeFields(final List<NVPair> extFields) {
+        for (NVPair nvp : extFields) {
+            final String name = nvp.getName();
+            final String value = nvp.getValue();
+            if ("consumerGroup".equals(name)) {
+                this.consumerGroup = value;
+            }
+            else if ("topic".equals(name)) {
+                this.topic = value;
+            }
+            else if ("queueId".equals(name)) {
+                this.queueId = Integer.parseInt(value);
+            }
+            else if ("queueOffset".equals(name)) {
+                this.queueOffset = Long.parseLong(value);
+            }
+            else if ("maxMsgNums".equals(name)) {
+                this.maxMsgNums = Integer.parseInt(value);
+            }
+            else if ("sysFlag".equals(name)) {
+                this.sysFlag = Integer.parseInt(value);
+            }
+            else if ("commitOffset".equals(name)) {
+                this.commitOffset = Long.parseLong(value);
+            }
+            else if ("suspendTimeoutMillis".equals(name)) {
+                this.suspendTimeoutMillis = Long.parseLong(value);
+            }
+            else if ("subscription".equals(name)) {
+                this.subscription = value;
+            }
+            else if ("subVersion".equals(name)) {
+                this.subVersion = Long.parseLong(value);
+            }
+        }
+    }
+
+
+    @Override
+    public void checkNotNullFields() throws RemotingCommandException {
+        CustomHeaderCodec.checkNotNull("consumerGroup", this.consumerGroup);
+        CustomHeaderCodec.checkNotNull("topic", this.topic);
+        CustomHeaderCodec.checkNotNull("queueId", this.queueId);
+        CustomHeaderCodec.checkNotNull("queueOffset", this.queueOffset);
+        CustomHeaderCodec.checkNotNull("maxMsgNums", this.maxMsgNums);
+        CustomHeaderCodec.checkNotNull("sysFlag", this.sysFlag);
+        CustomHeaderCodec.checkNotNull("commitOffset", this.commitOffset);
+        CustomHeaderCodec.checkNotNull("suspendTimeoutMillis", this.suspendTimeoutMillis);
+        CustomHeaderCodec.checkNotNull("subscription", this.subscription);
+    }
+
+
     public String getConsumerGroup() {
         return consumerGroup;
     }
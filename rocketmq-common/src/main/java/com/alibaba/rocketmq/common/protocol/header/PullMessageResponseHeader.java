@@ -3,16 +3,20 @@
  */
 package com.alibaba.rocketmq.common.protocol.header;
 
-import com.alibaba.rocketmq.remoting.CommandCustomHeader;
+import java.util.List;
+
+import com.alibaba.rocketmq.remoting.FastCodecHeader;
 import com.alibaba.rocketmq.remoting.annotation.CFNotNull;
 import com.alibaba.rocketmq.remoting.exception.RemotingCommandException;
+import com.alibaba.rocketmq.remoting.protocol.CustomHeaderCodec;
+import com.alibaba.rocketmq.remoting.protocol.RemotingProtos.NVPair;
 
 
 /**
  * @author shijia.wxr<vintage.wang@gmail.com>
  * 
  */
-public class PullMessageResponseHeader implements CommandCustomHeader {
+public class PullMessageResponseHeader implements FastCodecHeader {
     @CFNotNull
     private Boolean suggestPullingFromSlave;
     @CFNotNull
@@ -28,6 +32,45 @@ public class PullMessageResponseHeader implements CommandCustomHeader {
     }
 
 
+    @Override
+    public void encodeFields(final List<NVPair> extFields) {
+        CustomHeaderCodec.addField(extFields, "suggestPullingFromSlave", this.suggestPullingFromSlave);
+        CustomHeaderCodec.addField(extFields, "nextBeginOffset", this.nextBeginOffset);
+        CustomHeaderCodec.addField(extFields, "minOffset", this.minOffset);
+        CustomHeaderCodec.addField(extFields, "maxOffset", this.maxOffset);
+    }
+
+
+    @Override
+    public void decodeFields(final List<NVPair> extFields) {
+        for (NVPair nvp : extFields) {
+            final String name = nvp.getName();
+            final String value = nvp.getValue();
+            if ("suggestPullingFromSlave".equals(name)) {
+                this.suggestPullingFromSlave = Boolean.parseBoolean(value);
+            }
+            else if ("nextBeginOffset".equals(name)) {
+                this.nextBeginOffset = Long.parseLong(value);
+            }
+            else if ("minOffset".equals(name)) {
+                this.minOffset = Long.parseLong(value);
+            }
+            else if ("maxOffset".equals(name)) {
+                this.maxOffset = Long.parseLong(value);
+            }
+        }
+    }
+
+
+    @Override
+    public void checkNotNullFields() throws RemotingCommandException {
+        CustomHeaderCodec.checkNotNull("suggestPullingFromSlave", this.suggestPullingFromSlave);
+        CustomHeaderCodec.checkNotNull("nextBeginOffset", this.nextBeginOffset);
+        CustomHeaderCodec.checkNotNull("minOffset", this.minOffset);
+        CustomHeaderCodec.checkNotNull("maxOffset", this.maxOffset);
+    }
+
+
     public Boolean getSuggestPullingFromSlave() {
         return suggestPullingFromSlave;
     }
@@ -3,16 +3,20 @@
  */
 package com.alibaba.rocketmq.common.protocol.header;
 
-import com.alibaba.rocketmq.remoting.CommandCustomHeader;
+import java.util.List;
+
+import com.alibaba.rocketmq.remoting.FastCodecHeader;
 import com.alibaba.rocketmq.remoting.annotation.CFNotNull;
 import com.alibaba.rocketmq.remoting.exception.RemotingCommandException;
+import com.alibaba.rocketmq.remoting.protocol.CustomHeaderCodec;
+import com.alibaba.rocketmq.remoting.protocol.RemotingProtos.NVPair;
 
 
 /**
  * @author shijia.wxr<vintage.wang@gmail.com>
  * 
  */
-public class QueryConsumerOffsetResponseHeader implements CommandCustomHeader {
+public class QueryConsumerOffsetResponseHeader implements FastCodecHeader {
     @CFNotNull
     private Long offset;
 
@@ -24,6 +28,30 @@ public class QueryConsumerOffsetResponseHeader implements CommandCustomHeader {
     }
 
 
+    @Override
+    public void encodeFields(final List<NVPair> extFields) {
+        CustomHeaderCodec.addField(extFields, "offset", this.offset);
+    }
+
+
+    @Override
+    public void decodeFields(final List<NVPair> extFields) {
+        for (NVPair nvp : extFields) {
+            final String name = nvp.getName();
+            final String value = nvp.getValue();
+            if ("offset".equals(name)) {
+                this.offset = Long.parseLong(value);
+            }
+        }
+    }
+
+
+    @Override
+    public void checkNotNullFields() throws RemotingCommandException {
+        CustomHeaderCodec.checkNotNull("offset", this.offset);
+    }
+
+
     public Long getOffset() {
         return offset;
     }
@@ -5,6 +5,7 @@ package com.alibaba.rocketmq.common.protocol.header;
 
 import com.alibaba.rocketmq.remoting.CommandCustomHeader;
 import com.alibaba.rocketmq.remoting.annotation.CFNotNull;
+import com.alibaba.rocketmq.remoting.annotation.CFNullable;
 import com.alibaba.rocketmq.remoting.exception.RemotingCommandException;
 
 
@@ -23,6 +24,12 @@ public class QueryMessageRequestHeader implements CommandCustomHeader {
     private Long beginTimestamp;
     @CFNotNull
     private Long endTimestamp;
+    // Ϊtrueʱҳأϰ汾ͻ˲ֶΣһηȫ
+    @CFNullable
+    private Boolean pagination;
+    // һҳӦеnextCursorһҳΪ
+    @CFNullable
+    private String cursor;
 
 
     @Override
@@ -79,4 +86,24 @@ public class QueryMessageRequestHeader implements CommandCustomHeader {
     public void setEndTimestamp(Long endTimestamp) {
         this.endTimestamp = endTimestamp;
     }
+
+
+    public Boolean getPagination() {
+        return pagination;
+    }
+
+
+    public void setPagination(Boolean pagination) {
+        this.pagination = pagination;
+    }
+
+
+    public String getCursor() {
+        return cursor;
+    }
+
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
 }
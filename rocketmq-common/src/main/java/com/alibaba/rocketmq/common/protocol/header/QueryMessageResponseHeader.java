@@ -5,6 +5,7 @@ package com.alibaba.rocketmq.common.protocol.header;
 
 import com.alibaba.rocketmq.remoting.CommandCustomHeader;
 import com.alibaba.rocketmq.remoting.annotation.CFNotNull;
+import com.alibaba.rocketmq.remoting.annotation.CFNullable;
 import com.alibaba.rocketmq.remoting.exception.RemotingCommandException;
 
 
@@ -17,6 +18,9 @@ public class QueryMessageResponseHeader implements CommandCustomHeader {
     private Long indexLastUpdateTimestamp;
     @CFNotNull
     private Long indexLastUpdatePhyoffset;
+    // ҳѯʱһҳα꣬Ϊձʾѯ
+    @CFNullable
+    private String nextCursor;
 
 
     @Override
@@ -42,4 +46,14 @@ public class QueryMessageResponseHeader implements CommandCustomHeader {
     public void setIndexLastUpdatePhyoffset(Long indexLastUpdatePhyoffset) {
         this.indexLastUpdatePhyoffset = indexLastUpdatePhyoffset;
     }
+
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
 }
@@ -3,17 +3,21 @@
  */
 package com.alibaba.rocketmq.common.protocol.header;
 
-import com.alibaba.rocketmq.remoting.CommandCustomHeader;
+import java.util.List;
+
+import com.alibaba.rocketmq.remoting.FastCodecHeader;
 import com.alibaba.rocketmq.remoting.annotation.CFNotNull;
 import com.alibaba.rocketmq.remoting.annotation.CFNullable;
 import com.alibaba.rocketmq.remoting.exception.RemotingCommandException;
+import com.alibaba.rocketmq.remoting.protocol.CustomHeaderCodec;
+import com.alibaba.rocketmq.remoting.protocol.RemotingProtos.NVPair;
 
 
 /**
  * @author shijia.wxr<vintage.wang@gmail.com>
  * 
  */
-public class SendMessageRequestHeader implements CommandCustomHeader {
+public class SendMessageRequestHeader implements FastCodecHeader {
     @CFNotNull
     private String producerGroup;
     @CFNotNull
@@ -41,6 +45,73 @@ public class SendMessageRequestHeader implements CommandCustomHeader {
     }
 
 
+    @Override
+    public void encodeFields(final List<NVPair> extFields) {
+        CustomHeaderCodec.addField(extFields, "producerGroup", this.producerGroup);
+        CustomHeaderCodec.addField(extFields, "topic", this.topic);
+        CustomHeaderCodec.addField(extFields, "defaultTopic", this.defaultTopic);
+        CustomHeaderCodec.addField(extFields, "defaultTopicQueueNums", this.defaultTopicQueueNums);
+        CustomHeaderCodec.addField(extFields, "queueId", this.queueId);
+        CustomHeaderCodec.addField(extFields, "sysFlag", this.sysFlag);
+        CustomHeaderCodec.addField(extFields, "bornTimestamp", this.bornTimestamp);
+        CustomHeaderCodec.addField(extFields, "flag", this.flag);
+        CustomHeaderCodec.addField(extFields, "properties", this.properties);
+        CustomHeaderCodec.addField(extFields, "reconsumeTimes", this.reconsumeTimes);
+    }
+
+
+    @Override
+    public void decodeFields(final List<NVPair> extFields) {
+        for (NVPair nvp : extFields) {
+            final String name = nvp.getName();
+            final String value = nvp.getValue();
+            if ("producerGroup".equals(name)) {
+                this.producerGroup = value;
+            }
+            else if ("topic".equals(name)) {
+                this.topic = value;
+            }
+            else if ("defaultTopic".equals(name)) {
+                this.defaultTopic = value;
+            }
+            else if ("defaultTopicQueueNums".equals(name)) {
+                this.defaultTopicQueueNums = Integer.parseInt(value);
+            }
+            else if ("queueId".equals(name)) {
+                this.queueId = Integer.parseInt(value);
+            }
+            else if ("sysFlag".equals(name)) {
+                this.sysFlag = Integer.parseInt(value);
+            }
+            else if ("bornTimestamp".equals(name)) {
+                this.bornTimestamp = Long.parseLong(value);
+            }
+            else if ("flag".equals(name)) {
+                this.flag = Integer.parseInt(value);
+            }
+            else if ("properties".equals(name)) {
+                this.properties = value;
+            }
+            else if ("reconsumeTimes".equals(name)) {
+                this.reconsumeTimes = Integer.parseInt(value);
+            }
+        }
+    }
+
+
+    @Override
+    public void checkNotNullFields() throws RemotingCommandException {
+        CustomHeaderCodec.checkNotNull("producerGroup", this.producerGroup);
+        CustomHeaderCodec.checkNotNull("topic", this.topic);
+        CustomHeaderCodec.checkNotNull("defaultTopic", this.defaultTopic);
+        CustomHeaderCodec.checkNotNull("defaultTopicQueueNums", this.defaultTopicQueueNums);
+        CustomHeaderCodec.checkNotNull("queueId", this.queueId);
+        CustomHeaderCodec.checkNotNull("sysFlag", this.sysFlag);
+        CustomHeaderCodec.checkNotNull("bornTimestamp", this.bornTimestamp);
+        CustomHeaderCodec.checkNotNull("flag", this.flag);
+    }
+
+
     public String getProducerGroup() {
         return producerGroup;
     }
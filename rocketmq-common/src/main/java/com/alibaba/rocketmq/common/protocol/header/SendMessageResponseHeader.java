@@ -3,16 +3,20 @@
  */
 package com.alibaba.rocketmq.common.protocol.header;
 
-import com.alibaba.rocketmq.remoting.CommandCustomHeader;
+import java.util.List;
+
+import com.alibaba.rocketmq.remoting.FastCodecHeader;
 import com.alibaba.rocketmq.remoting.annotation.CFNotNull;
 import com.alibaba.rocketmq.remoting.exception.RemotingCommandException;
+import com.alibaba.rocketmq.remoting.protocol.CustomHeaderCodec;
+import com.alibaba.rocketmq.remoting.protocol.RemotingProtos.NVPair;
 
 
 /**
  * @author shijia.wxr<vintage.wang@gmail.com>
  * 
  */
-public class SendMessageResponseHeader implements CommandCustomHeader {
+public class SendMessageResponseHeader implements FastCodecHeader {
     @CFNotNull
     private String msgId;
     @CFNotNull
@@ -26,6 +30,40 @@ public class SendMessageResponseHeader implements CommandCustomHeader {
     }
 
 
+    @Override
+    public void encodeFields(final List<NVPair> extFields) {
+        CustomHeaderCodec.addField(extFields, "msgId", this.msgId);
+        CustomHeaderCodec.addField(extFields, "queueId", this.queueId);
+        CustomHeaderCodec.addField(extFields, "queueOffset", this.queueOffset);
+    }
+
+
+    @Override
+    public void decodeFields(final List<NVPair> extFields) {
+        for (NVPair nvp : extFields) {
+            final String name = nvp.getName();
+            final String value = nvp.getValue();
+            if ("msgId".equals(name)) {
+                this.msgId = value;
+            }
+            else if ("queueId".equals(name)) {
+                this.queueId = Integer.parseInt(value);
+            }
+            else if ("queueOffset".equals(name)) {
+                this.queueOffset = Long.parseLong(value);
+            }
+        }
+    }
+
+
+    @Override
+    public void checkNotNullFields() throws RemotingCommandException {
+        CustomHeaderCodec.checkNotNull("msgId", this.msgId);
+        CustomHeaderCodec.checkNotNull("queueId", this.queueId);
+        CustomHeaderCodec.checkNotNull("queueOffset", this.queueOffset);
+    }
+
+
     public String getMsgId() {
         return msgId;
     }
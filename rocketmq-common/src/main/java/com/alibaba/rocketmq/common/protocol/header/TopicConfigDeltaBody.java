@@ -0,0 +1,43 @@
+/**
+ * $Id: TopicConfigDeltaBody.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.common.protocol.header;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.alibaba.rocketmq.common.TopicConfig;
+import com.alibaba.rocketmq.remoting.protocol.RemotingSerializable;
+
+
+/**
+ * ȡTopicõӦBodyȫͬʱdeletedTopicListΪ
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class TopicConfigDeltaBody extends RemotingSerializable {
+    private Map<String, TopicConfig> topicConfigTable = new HashMap<String, TopicConfig>();
+    private List<String> deletedTopicList = new ArrayList<String>();
+
+
+    public Map<String, TopicConfig> getTopicConfigTable() {
+        return topicConfigTable;
+    }
+
+
+    public void setTopicConfigTable(Map<String, TopicConfig> topicConfigTable) {
+        this.topicConfigTable = topicConfigTable;
+    }
+
+
+    public List<String> getDeletedTopicList() {
+        return deletedTopicList;
+    }
+
+
+    public void setDeletedTopicList(List<String> deletedTopicList) {
+        this.deletedTopicList = deletedTopicList;
+    }
+}
@@ -3,16 +3,20 @@
  */
 package com.alibaba.rocketmq.common.protocol.header;
 
-import com.alibaba.rocketmq.remoting.CommandCustomHeader;
+import java.util.List;
+
+import com.alibaba.rocketmq.remoting.FastCodecHeader;
 import com.alibaba.rocketmq.remoting.annotation.CFNotNull;
 import com.alibaba.rocketmq.remoting.exception.RemotingCommandException;
+import com.alibaba.rocketmq.remoting.protocol.CustomHeaderCodec;
+import com.alibaba.rocketmq.remoting.protocol.RemotingProtos.NVPair;
 
 
 /**
  * @author shijia.wxr<vintage.wang@gmail.com>
  * 
  */
-public class UpdateConsumerOffsetRequestHeader implements CommandCustomHeader {
+public class UpdateConsumerOffsetRequestHeader implements FastCodecHeader {
     @CFNotNull
     private String consumerGroup;
     @CFNotNull
@@ -28,6 +32,45 @@ public class UpdateConsumerOffsetRequestHeader implements CommandCustomHeader {
     }
 
 
+    @Override
+    public void encodeFields(final List<NVPair> extFields) {
+        CustomHeaderCodec.addField(extFields, "consumerGroup", this.consumerGroup);
+        CustomHeaderCodec.addField(extFields, "topic", this.topic);
+        CustomHeaderCodec.addField(extFields, "queueId", this.queueId);
+        CustomHeaderCodec.addField(extFields, "commitOffset", this.commitOffset);
+    }
+
+
+    @Override
+    public void decodeFields(final List<NVPair> extFields) {
+        for (NVPair nvp : extFields) {
+            final String name = nvp.getName();
+            final String value = nvp.getValue();
+            if ("consumerGroup".equals(name)) {
+                this.consumerGroup = value;
+            }
+            else if ("topic".equals(name)) {
+                this.topic = value;
+            }
+            else if ("queueId".equals(name)) {
+                this.queueId = Integer.parseInt(value);
+            }
+            else if ("commitOffset".equals(name)) {
+                this.commitOffset = Long.parseLong(value);
+            }
+        }
+    }
+
+
+    @Override
+    public void checkNotNullFields() throws RemotingCommandException {
+        CustomHeaderCodec.checkNotNull("consumerGroup", this.consumerGroup);
+        CustomHeaderCodec.checkNotNull("topic", this.topic);
+        CustomHeaderCodec.checkNotNull("queueId", this.queueId);
+        CustomHeaderCodec.checkNotNull("commitOffset", this.commitOffset);
+    }
+
+
     public String getConsumerGroup() {
         return consumerGroup;
     }
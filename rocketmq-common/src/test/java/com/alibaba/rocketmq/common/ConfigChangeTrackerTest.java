@@ -0,0 +1,64 @@
+/**
+ * $Id: ConfigChangeTrackerTest.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.alibaba.rocketmq.common.ConfigChangeTracker.ChangeSet;
+
+
+/**
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class ConfigChangeTrackerTest {
+    @Test
+    public void test_changesSince() {
+        ConfigChangeTracker tracker = new ConfigChangeTracker(100);
+        tracker.markChanged("TopicA");
+        tracker.markChanged("TopicB");
+        long since = tracker.currentSequence();
+
+        tracker.markChanged("TopicA");
+        tracker.markDeleted("TopicB");
+        tracker.markChanged("TopicC");
+
+        ChangeSet changeSet = tracker.changesSince(tracker.getDataEpoch(), since);
+        assertEquals(5, changeSet.getSequence());
+        assertEquals(2, changeSet.getChangedKeys().size());
+        assertTrue(changeSet.getChangedKeys().contains("TopicA"));
+        assertTrue(changeSet.getChangedKeys().contains("TopicC"));
+        assertEquals(1, changeSet.getDeletedKeys().size());
+        assertEquals("TopicB", changeSet.getDeletedKeys().get(0));
+
+        changeSet = tracker.changesSince(tracker.getDataEpoch(), tracker.currentSequence());
+        assertTrue(changeSet.getChangedKeys().isEmpty());
+        assertTrue(changeSet.getDeletedKeys().isEmpty());
+    }
+
+
+    @Test
+    public void test_fullSync() {
+        ConfigChangeTracker tracker = new ConfigChangeTracker(2);
+        tracker.markChanged("TopicA");
+        long since = tracker.currentSequence();
+
+        // epochһ¡кųǰ
+        assertNull(tracker.changesSince("unknown", since));
+        assertNull(tracker.changesSince(tracker.getDataEpoch(), since + 1));
+
+        // ɾ¼һ֮ǰкŲͬ
+        tracker.markDeleted("TopicX");
+        tracker.markDeleted("TopicY");
+        assertTrue(tracker.changesSince(tracker.getDataEpoch(), since) != null);
+        tracker.markDeleted("TopicZ");
+        assertNull(tracker.changesSince(tracker.getDataEpoch(), since));
+
+        ChangeSet changeSet = tracker.changesSince(tracker.getDataEpoch(), since + 1);
+        assertEquals(2, changeSet.getDeletedKeys().size());
+    }
+}
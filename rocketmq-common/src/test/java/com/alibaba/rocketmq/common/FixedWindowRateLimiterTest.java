@@ -0,0 +1,47 @@
+/**
+ * $Id: FixedWindowRateLimiterTest.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+
+/**
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class FixedWindowRateLimiterTest {
+    @Test
+    public void test_try_acquire() {
+        FixedWindowRateLimiter rateLimiter = new FixedWindowRateLimiter(10, 1000 * 60);
+        assertTrue(rateLimiter.tryAcquire(6));
+        // ʣɲ㣬ռ
+        assertFalse(rateLimiter.tryAcquire(5));
+        assertTrue(rateLimiter.tryAcquire(4));
+        assertFalse(rateLimiter.tryAcquire(1));
+    }
+
+
+    @Test
+    public void test_try_acquire_up_to() {
+        FixedWindowRateLimiter rateLimiter = new FixedWindowRateLimiter(10, 1000 * 60);
+        assertEquals(6, rateLimiter.tryAcquireUpTo(6));
+        // ֻõʣĲ
+        assertEquals(4, rateLimiter.tryAcquireUpTo(32));
+        assertEquals(0, rateLimiter.tryAcquireUpTo(1));
+    }
+
+
+    @Test
+    public void test_next_window() throws Exception {
+        FixedWindowRateLimiter rateLimiter = new FixedWindowRateLimiter(2, 100);
+        assertEquals(2, rateLimiter.tryAcquireUpTo(3));
+        assertFalse(rateLimiter.tryAcquire(1));
+
+        Thread.sleep(150);
+        assertTrue(rateLimiter.tryAcquire(2));
+    }
+}
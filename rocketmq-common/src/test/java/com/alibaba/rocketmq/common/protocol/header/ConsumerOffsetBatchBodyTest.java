@@ -0,0 +1,61 @@
+/**
+ * $Id: ConsumerOffsetBatchBodyTest.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.common.protocol.header;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.alibaba.rocketmq.common.protocol.header.ConsumerOffsetBatchBody.TopicOffset;
+import com.alibaba.rocketmq.remoting.exception.RemotingCommandException;
+
+
+/**
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class ConsumerOffsetBatchBodyTest {
+    @Test
+    public void test_encode_decode() throws Exception {
+        ConsumerOffsetBatchBody body = new ConsumerOffsetBatchBody();
+        for (int queueId = 0; queueId < 100; queueId++) {
+            body.addOffset("TopicTest", queueId, queueId * 1000L);
+        }
+        body.addOffset("", 3, -1);
+
+        ConsumerOffsetBatchBody decoded = ConsumerOffsetBatchBody.decode(body.encode());
+        List<TopicOffset> topicOffsetList = decoded.getTopicOffsetList();
+        assertEquals(2, topicOffsetList.size());
+
+        TopicOffset topicOffset = topicOffsetList.get(0);
+        assertEquals("TopicTest", topicOffset.getTopic());
+        assertEquals(100, topicOffset.getSize());
+        for (int i = 0; i < topicOffset.getSize(); i++) {
+            assertEquals(i, topicOffset.getQueueId(i));
+            assertEquals(i * 1000L, topicOffset.getOffset(i));
+        }
+
+        topicOffset = topicOffsetList.get(1);
+        assertEquals("", topicOffset.getTopic());
+        assertEquals(3, topicOffset.getQueueId(0));
+        assertEquals(-1, topicOffset.getOffset(0));
+    }
+
+
+    @Test
+    public void test_decode_truncated() throws Exception {
+        ConsumerOffsetBatchBody body = new ConsumerOffsetBatchBody();
+        body.addOffset("TopicTest", 0, 100);
+        byte[] data = body.encode();
+        try {
+            ConsumerOffsetBatchBody.decode(Arrays.copyOf(data, data.length - 1));
+            fail("truncated body must be rejected");
+        }
+        catch (RemotingCommandException e) {
+        }
+    }
+}
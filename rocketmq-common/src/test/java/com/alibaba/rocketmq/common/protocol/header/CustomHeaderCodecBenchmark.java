@@ -0,0 +1,137 @@
+/**
+ * $Id: CustomHeaderCodecBenchmark.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.common.protocol.header;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.alibaba.rocketmq.remoting.CommandCustomHeader;
+import com.alibaba.rocketmq.remoting.protocol.CustomHeaderCodec;
+import com.alibaba.rocketmq.remoting.protocol.RemotingProtos.NVPair;
+
+
+/**
+ * ԱÿHeaderٱĺʱֹУ뵥Ԫ
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class CustomHeaderCodecBenchmark {
+    private static final int WarmupTimes = 200000;
+    private static final int MeasureTimes = 1000000;
+    // ֹJITü
+    private static long blackhole = 0;
+
+
+    /**
+     * ǰÿ·ı뷽ʽΪԱȻ
+     */
+    private static List<NVPair> legacyEncode(final CommandCustomHeader header) throws Exception {
+        Field[] fields = header.getClass().getDeclaredFields();
+        List<NVPair> extFields = new ArrayList<NVPair>(fields.length);
+        for (Field field : fields) {
+            if (!Modifier.isStatic(field.getModifiers()) && !field.getName().startsWith("this")) {
+                field.setAccessible(true);
+                CustomHeaderCodec.addField(extFields, field.getName(), field.get(header));
+            }
+        }
+
+        return extFields;
+    }
+
+
+    private static CommandCustomHeader legacyDecode(final Class<? extends CommandCustomHeader> clazz,
+            final List<NVPair> extFields) throws Exception {
+        CommandCustomHeader header = clazz.newInstance();
+        for (NVPair nvp : extFields) {
+            Field field = clazz.getDeclaredField(nvp.getName());
+            field.setAccessible(true);
+            String type = field.getType().getSimpleName();
+            String value = nvp.getValue();
+            if (type.equals("String")) {
+                field.set(header, value);
+            }
+            else if (type.equals("Integer") || type.equals("int")) {
+                field.set(header, Integer.parseInt(value));
+            }
+            else if (type.equals("Long") || type.equals("long")) {
+                field.set(header, Long.parseLong(value));
+            }
+            else if (type.equals("Boolean") || type.equals("boolean")) {
+                field.set(header, Boolean.parseBoolean(value));
+            }
+            else if (type.equals("Double") || type.equals("double")) {
+                field.set(header, Double.parseDouble(value));
+            }
+        }
+
+        // ǰҪٷһֵ
+        for (Field field : clazz.getDeclaredFields()) {
+            field.setAccessible(true);
+            if (null == field.get(header)) {
+                field.getAnnotations();
+            }
+        }
+
+        header.checkFields();
+        return header;
+    }
+
+
+    private static long runLegacy(final CommandCustomHeader header, final int times) throws Exception {
+        final Class<? extends CommandCustomHeader> clazz = header.getClass();
+        long beginTime = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            List<NVPair> fields = legacyEncode(header);
+            blackhole += fields.size() + legacyDecode(clazz, fields).hashCode();
+        }
+
+        return System.nanoTime() - beginTime;
+    }
+
+
+    private static long runCached(final CommandCustomHeader header, final int times) throws Exception {
+        final Class<? extends CommandCustomHeader> clazz = header.getClass();
+        long beginTime = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            List<NVPair> fields = CustomHeaderCodec.encodeByReflect(header);
+            blackhole += fields.size() + CustomHeaderCodec.decodeByReflect(clazz, fields).hashCode();
+        }
+
+        return System.nanoTime() - beginTime;
+    }
+
+
+    private static long runCodec(final CommandCustomHeader header, final int times) throws Exception {
+        final Class<? extends CommandCustomHeader> clazz = header.getClass();
+        long beginTime = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            List<NVPair> fields = CustomHeaderCodec.encode(header);
+            blackhole += fields.size() + CustomHeaderCodec.decode(clazz, fields).hashCode();
+        }
+
+        return System.nanoTime() - beginTime;
+    }
+
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%-40s %14s %14s %14s%n", "Header", "legacy ns/op", "cached ns/op", "codec ns/op");
+        for (Class<? extends CommandCustomHeader> clazz : CustomHeaderCodecTest.HeaderClasses) {
+            CommandCustomHeader header = CustomHeaderCodecTest.newFilledHeader(clazz);
+            long[] costs = new long[3];
+            runLegacy(header, WarmupTimes);
+            costs[0] = runLegacy(header, MeasureTimes);
+            runCached(header, WarmupTimes);
+            costs[1] = runCached(header, MeasureTimes);
+            runCodec(header, WarmupTimes);
+            costs[2] = runCodec(header, MeasureTimes);
+
+            System.out.printf("%-40s %14.1f %14.1f %14.1f%n", clazz.getSimpleName(), (double) costs[0]
+                    / MeasureTimes, (double) costs[1] / MeasureTimes, (double) costs[2] / MeasureTimes);
+        }
+
+        System.out.println(blackhole);
+    }
+}
@@ -0,0 +1,214 @@
+/**
+ * $Id: CustomHeaderCodecTest.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.common.protocol.header;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.alibaba.rocketmq.common.TopicFilterType;
+import com.alibaba.rocketmq.common.protocol.header.namesrv.GetRouteInfoRequestHeader;
+import com.alibaba.rocketmq.common.protocol.header.namesrv.GetRouteInfoResponseHeader;
+import com.alibaba.rocketmq.common.protocol.header.namesrv.GetTopicResponseHeader;
+import com.alibaba.rocketmq.common.protocol.header.namesrv.RegisterBrokerRequestHeader;
+import com.alibaba.rocketmq.common.protocol.header.namesrv.RegisterOrderTopicRequestHeader;
+import com.alibaba.rocketmq.common.protocol.header.namesrv.UnRegisterBrokerRequestHeader;
+import com.alibaba.rocketmq.common.sysflag.MessageSysFlag;
+import com.alibaba.rocketmq.remoting.CommandCustomHeader;
+import com.alibaba.rocketmq.remoting.FastCodecHeader;
+import com.alibaba.rocketmq.remoting.exception.RemotingCommandException;
+import com.alibaba.rocketmq.remoting.protocol.CustomHeaderCodec;
+import com.alibaba.rocketmq.remoting.protocol.CustomHeaderCodec.FieldMetadata;
+import com.alibaba.rocketmq.remoting.protocol.RemotingProtos.NVPair;
+
+
+/**
+ * ٱ뷴Ľȫһ
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class CustomHeaderCodecTest {
+    @SuppressWarnings("unchecked")
+    public static final Class<? extends CommandCustomHeader>[] HeaderClasses = new Class[] {//
+        CheckTransactionStateRequestHeader.class,//
+            CheckTransactionStateResponseHeader.class,//
+            ConsumerOffsetBatchRequestHeader.class,//
+            ConsumerSendMsgBackRequestHeader.class,//
+            CreateTopicRequestHeader.class,//
+            DeleteTopicRequestHeader.class,//
+            EndTransactionRequestHeader.class,//
+            EndTransactionResponseHeader.class,//
+            GetAllTopicConfigResponseHeader.class,//
+            GetBrokerConfigResponseHeader.class,//
+            GetConsumerListByGroupRequestHeader.class,//
+            GetConsumerListByGroupResponseHeader.class,//
+            GetEarliestMsgStoretimeRequestHeader.class,//
+            GetEarliestMsgStoretimeResponseHeader.class,//
+            GetMaxOffsetRequestHeader.class,//
+            GetMaxOffsetResponseHeader.class,//
+            GetMinOffsetRequestHeader.class,//
+            GetMinOffsetResponseHeader.class,//
+            GetTopicConfigDeltaRequestHeader.class,//
+            GetTopicConfigDeltaResponseHeader.class,//
+            NotifyConsumerIdsChangedRequestHeader.class,//
+            PullMessageRequestHeader.class,//
+            PullMessageResponseHeader.class,//
+            QueryConsumerOffsetRequestHeader.class,//
+            QueryConsumerOffsetResponseHeader.class,//
+            QueryMessageRequestHeader.class,//
+            QueryMessageResponseHeader.class,//
+            SearchOffsetRequestHeader.class,//
+            SearchOffsetResponseHeader.class,//
+            SendMessageRequestHeader.class,//
+            SendMessageResponseHeader.class,//
+            UnregisterClientRequestHeader.class,//
+            UnregisterClientResponseHeader.class,//
+            UpdateConsumerOffsetRequestHeader.class,//
+            UpdateConsumerOffsetResponseHeader.class,//
+            ViewMessageRequestHeader.class,//
+            ViewMessageResponseHeader.class,//
+            GetRouteInfoRequestHeader.class,//
+            GetRouteInfoResponseHeader.class,//
+            GetTopicResponseHeader.class,//
+            RegisterBrokerRequestHeader.class,//
+            RegisterOrderTopicRequestHeader.class,//
+            UnRegisterBrokerRequestHeader.class //
+        };
+
+
+    /**
+     * ֶһͨcheckFieldsHeader
+     */
+    public static CommandCustomHeader newFilledHeader(final Class<? extends CommandCustomHeader> clazz)
+            throws Exception {
+        CommandCustomHeader header = clazz.newInstance();
+        int i = 0;
+        for (FieldMetadata fm : CustomHeaderCodec.findHeaderMetadata(clazz).getFields()) {
+            Object value = null;
+            switch (fm.getType()) {
+            case CustomHeaderCodec.TypeString:
+                value =
+                        fm.getName().equals("topicFilterType") ? TopicFilterType.SINGLE_TAG.name() : fm
+                            .getName() + "Value";
+                break;
+            case CustomHeaderCodec.TypeInteger:
+                value = MessageSysFlag.TransactionCommitType;
+                break;
+            case CustomHeaderCodec.TypeLong:
+                value = 1000L + i;
+                break;
+            case CustomHeaderCodec.TypeBoolean:
+                value = Boolean.TRUE;
+                break;
+            case CustomHeaderCodec.TypeDouble:
+                value = 1.5 + i;
+                break;
+            default:
+                break;
+            }
+
+            fm.getField().set(header, value);
+            i++;
+        }
+
+        return header;
+    }
+
+
+    private static void assertNVPairsEquals(final List<NVPair> expected, final List<NVPair> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getName(), actual.get(i).getName());
+            assertEquals(expected.get(i).getValue(), actual.get(i).getValue());
+        }
+    }
+
+
+    @Test
+    public void test_encode_decode() throws Exception {
+        for (Class<? extends CommandCustomHeader> clazz : HeaderClasses) {
+            CommandCustomHeader header = newFilledHeader(clazz);
+            List<NVPair> reflectFields = CustomHeaderCodec.encodeByReflect(header);
+            List<NVPair> fields = CustomHeaderCodec.encode(header);
+            assertNVPairsEquals(reflectFields, fields);
+
+            // ٱ룬ֶβ
+            CommandCustomHeader decoded = CustomHeaderCodec.decode(clazz, reflectFields);
+            assertNVPairsEquals(reflectFields, CustomHeaderCodec.encodeByReflect(decoded));
+
+            CommandCustomHeader reflectDecoded = CustomHeaderCodec.decodeByReflect(clazz, fields);
+            assertNVPairsEquals(reflectFields, CustomHeaderCodec.encodeByReflect(reflectDecoded));
+        }
+    }
+
+
+    @Test
+    public void test_hot_headers_fast() {
+        assertTrue(new SendMessageRequestHeader() instanceof FastCodecHeader);
+        assertTrue(new SendMessageResponseHeader() instanceof FastCodecHeader);
+        assertTrue(new PullMessageRequestHeader() instanceof FastCodecHeader);
+        assertTrue(new PullMessageResponseHeader() instanceof FastCodecHeader);
+    }
+
+
+    @Test
+    public void test_null_fields_skipped() throws Exception {
+        SendMessageRequestHeader header = new SendMessageRequestHeader();
+        header.setTopic("TopicTest");
+        header.setQueueId(3);
+
+        List<NVPair> fields = CustomHeaderCodec.encode(header);
+        assertNVPairsEquals(CustomHeaderCodec.encodeByReflect(header), fields);
+        assertEquals(2, fields.size());
+
+        SendMessageRequestHeader decoded =
+                (SendMessageRequestHeader) CustomHeaderCodec.decode(SendMessageRequestHeader.class, fields);
+        assertEquals("TopicTest", decoded.getTopic());
+        assertEquals(Integer.valueOf(3), decoded.getQueueId());
+        assertEquals(null, decoded.getProducerGroup());
+    }
+
+
+    @Test
+    public void test_decode_illegal_number() throws Exception {
+        SendMessageRequestHeader header = new SendMessageRequestHeader();
+        header.setTopic("TopicTest");
+        List<NVPair> fields = CustomHeaderCodec.encode(header);
+        fields.add(NVPair.newBuilder().setName("queueId").setValue("abc").build());
+
+        try {
+            CustomHeaderCodec.decode(SendMessageRequestHeader.class, fields);
+            fail("decode illegal number should throw RemotingCommandException");
+        }
+        catch (RemotingCommandException e) {
+            assertTrue(e.getMessage().contains("SendMessageRequestHeader"));
+        }
+    }
+
+
+    @Test
+    public void test_check_not_null_fields() throws Exception {
+        for (Class<? extends CommandCustomHeader> clazz : HeaderClasses) {
+            CommandCustomHeader header = newFilledHeader(clazz);
+            if (header instanceof FastCodecHeader) {
+                ((FastCodecHeader) header).checkNotNullFields();
+            }
+        }
+
+        PullMessageRequestHeader header =
+                (PullMessageRequestHeader) newFilledHeader(PullMessageRequestHeader.class);
+        header.setSubscription(null);
+        try {
+            header.checkNotNullFields();
+            fail("null subscription should throw RemotingCommandException");
+        }
+        catch (RemotingCommandException e) {
+            assertEquals("subscription is null", e.getMessage());
+        }
+    }
+}
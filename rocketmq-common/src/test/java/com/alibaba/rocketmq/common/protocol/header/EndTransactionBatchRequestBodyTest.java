@@ -0,0 +1,56 @@
+/**
+ * $Id: EndTransactionBatchRequestBodyTest.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.common.protocol.header;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.alibaba.rocketmq.common.sysflag.MessageSysFlag;
+
+
+/**
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class EndTransactionBatchRequestBodyTest {
+    @Test
+    public void test_encode_decode() throws Exception {
+        List<EndTransactionRequestHeader> endTransactionList = new ArrayList<EndTransactionRequestHeader>();
+        for (int i = 0; i < 32; i++) {
+            EndTransactionRequestHeader requestHeader = new EndTransactionRequestHeader();
+            requestHeader.setProducerGroup("ProducerGroup_" + i % 2);
+            requestHeader.setTranStateTableOffset((long) i);
+            requestHeader.setCommitLogOffset(1024L * i);
+            requestHeader.setCommitOrRollback(i % 2 == 0 ? MessageSysFlag.TransactionCommitType
+                    : MessageSysFlag.TransactionRollbackType);
+            requestHeader.setFromTransactionCheck(true);
+            requestHeader.setMsgId("0A0A0A0A00002A9F00000000000" + i);
+            endTransactionList.add(requestHeader);
+        }
+
+        EndTransactionBatchRequestBody requestBody = new EndTransactionBatchRequestBody();
+        requestBody.setEndTransactionList(endTransactionList);
+
+        EndTransactionBatchRequestBody decoded =
+                EndTransactionBatchRequestBody.decode(requestBody.encode(),
+                    EndTransactionBatchRequestBody.class);
+        assertEquals(32, decoded.getEndTransactionList().size());
+        for (int i = 0; i < 32; i++) {
+            EndTransactionRequestHeader requestHeader = decoded.getEndTransactionList().get(i);
+            // BrokerֶͨУ
+            requestHeader.checkFields();
+            assertEquals("ProducerGroup_" + i % 2, requestHeader.getProducerGroup());
+            assertEquals(i, requestHeader.getTranStateTableOffset().longValue());
+            assertEquals(1024L * i, requestHeader.getCommitLogOffset().longValue());
+            assertEquals(endTransactionList.get(i).getCommitOrRollback(),
+                requestHeader.getCommitOrRollback());
+            assertTrue(requestHeader.getFromTransactionCheck());
+            assertEquals(endTransactionList.get(i).getMsgId(), requestHeader.getMsgId());
+        }
+    }
+}
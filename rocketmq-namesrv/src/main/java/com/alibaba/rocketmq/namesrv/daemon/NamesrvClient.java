@@ -2,7 +2,9 @@ package com.alibaba.rocketmq.namesrv.daemon;
 
 import static com.alibaba.rocketmq.common.MixAll.Localhost;
 import static com.alibaba.rocketmq.common.protocol.MQProtos.MQRequestCode.GET_ALL_TOPIC_CONFIG_VALUE;
+import static com.alibaba.rocketmq.common.protocol.MQProtos.MQRequestCode.GET_TOPIC_CONFIG_DELTA_VALUE;
 import static com.alibaba.rocketmq.common.protocol.route.ObjectConverter.props2TopicConfigTable;
+import static com.alibaba.rocketmq.remoting.protocol.RemotingProtos.ResponseCode.REQUEST_CODE_NOT_SUPPORTED_VALUE;
 import static com.alibaba.rocketmq.remoting.protocol.RemotingProtos.ResponseCode.SUCCESS_VALUE;
 import io.netty.channel.Channel;
 
@@ -13,6 +15,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -24,6 +27,9 @@ import com.alibaba.rocketmq.common.ServiceThread;
 import com.alibaba.rocketmq.common.TopicConfig;
 import com.alibaba.rocketmq.common.constant.LoggerName;
 import com.alibaba.rocketmq.common.namesrv.NamesrvConfig;
+import com.alibaba.rocketmq.common.protocol.header.GetTopicConfigDeltaRequestHeader;
+import com.alibaba.rocketmq.common.protocol.header.GetTopicConfigDeltaResponseHeader;
+import com.alibaba.rocketmq.common.protocol.header.TopicConfigDeltaBody;
 import com.alibaba.rocketmq.common.protocol.header.namesrv.GetTopicResponseHeader;
 import com.alibaba.rocketmq.common.protocol.route.QueueData;
 import com.alibaba.rocketmq.namesrv.common.Result;
@@ -54,6 +60,9 @@ public class NamesrvClient extends ServiceThread {
     private RemotingClient remotingClient;
     private NettyClientConfig nettyClientConfig;
     private NamesrvConfig namesrvConf;
+    // brokerַ -> ϴͬλãӶϿʱ´ȫͬ
+    private final ConcurrentHashMap<String, TopicSyncOffset> syncOffsetTable =
+            new ConcurrentHashMap<String, TopicSyncOffset>();
 
 
     public NamesrvClient(NamesrvConfig nameConf, NettyClientConfig nettyConfig,
@@ -72,6 +81,7 @@ public class NamesrvClient extends ServiceThread {
             @Override
             public void onChannelClose(String remoteAddr, Channel channel) {
                 // unregister broker topic info when channel close
+                syncOffsetTable.remove(remoteAddr);
                 unRegisterBrokerTopic(remoteAddr);
             }
 
@@ -79,6 +89,7 @@ public class NamesrvClient extends ServiceThread {
             @Override
             public void onChannelException(String remoteAddr, Channel channel) {
                 // unregister broker topic info when channel exception
+                syncOffsetTable.remove(remoteAddr);
                 unRegisterBrokerTopic(remoteAddr);
             }
 
@@ -134,6 +145,9 @@ public class NamesrvClient extends ServiceThread {
     }
 
 
+    /**
+     * кȡbrokertopicãbroker֧ʱ˻ȫȡ
+     */
     public boolean requestBrokerTopicConf(String address) throws Exception {
         boolean success = false;
         int reties = 0;
@@ -142,6 +156,75 @@ public class NamesrvClient extends ServiceThread {
             return success;
         }
 
+        while (!success && reties++ <= MAX_RETRIES) {
+            GetTopicConfigDeltaRequestHeader requestHeader = new GetTopicConfigDeltaRequestHeader();
+            TopicSyncOffset syncOffset = syncOffsetTable.get(address);
+            if (syncOffset != null) {
+                requestHeader.setDataEpoch(syncOffset.dataEpoch);
+                requestHeader.setSinceSequence(syncOffset.sequence);
+            }
+            RemotingCommand request =
+                    RemotingCommand.createRequestCommand(GET_TOPIC_CONFIG_DELTA_VALUE, requestHeader);
+
+            try {
+                RemotingCommand response =
+                        remotingClient.invokeSync(address, request, namesrvConf.getPullFormBrokerTimeout());
+                if (SUCCESS_VALUE == response.getCode()) {
+                    GetTopicConfigDeltaResponseHeader responseHeader =
+                            (GetTopicConfigDeltaResponseHeader) response
+                                .decodeCommandCustomHeader(GetTopicConfigDeltaResponseHeader.class);
+                    TopicConfigDeltaBody body =
+                            TopicConfigDeltaBody.decode(response.getBody(), TopicConfigDeltaBody.class);
+                    String brokerName = responseHeader.getBrokerName();
+
+                    topicRuntimeDataManager.mergeQueueData(topicConfigMap2QueueDataMap(
+                        body.getTopicConfigTable(), brokerName));
+                    if (responseHeader.getFullSync()) {
+                        // ȫͬʱɾbrokerѾڵtopic
+                        topicRuntimeDataManager.retainQueueData(brokerName, body.getTopicConfigTable()
+                            .keySet());
+                    }
+                    else if (!body.getDeletedTopicList().isEmpty()) {
+                        topicRuntimeDataManager.removeQueueData(brokerName, body.getDeletedTopicList());
+                    }
+                    topicRuntimeDataManager.mergeBrokerData(brokerName, responseHeader.getBrokerId(),
+                        address);
+
+                    syncOffsetTable.put(address,
+                        new TopicSyncOffset(responseHeader.getDataEpoch(), responseHeader.getSequence()));
+                    success = true;
+                }
+                else if (REQUEST_CODE_NOT_SUPPORTED_VALUE == response.getCode()) {
+                    return requestBrokerTopicConfAll(address);
+                }
+                else {
+                    log.error("get topic config delta from broker(" + address + ") fail, code:"
+                            + response.getCode() + ", remark:" + response.getRemark());
+                    success = false;
+                }
+            }
+            catch (Exception e) {
+                if (MAX_RETRIES == reties) {
+                    log.error("request broker(" + address + ") topic fail finally");
+                    break;
+                }
+
+                log.error("request broker(" + address + ") topic fail, retry " + reties, e);
+                Thread.sleep(500);
+            }
+        }
+        return success;
+    }
+
+
+    private boolean requestBrokerTopicConfAll(String address) throws Exception {
+        boolean success = false;
+        int reties = 0;
+        if (null == address || "".equals(address)) {
+            log.error("request broker topic error because addr is blank, check broker addr retrieve");
+            return success;
+        }
+
         RemotingCommand request = RemotingCommand.createRequestCommand(GET_ALL_TOPIC_CONFIG_VALUE, null);
 
         while (!success && reties++ <= MAX_RETRIES) {
@@ -310,4 +393,15 @@ public class NamesrvClient extends ServiceThread {
         return "namesrv-polling-broker";
     }
 
+    private static class TopicSyncOffset {
+        private final String dataEpoch;
+        private final long sequence;
+
+
+        public TopicSyncOffset(String dataEpoch, long sequence) {
+            this.dataEpoch = dataEpoch;
+            this.sequence = sequence;
+        }
+    }
+
 }
@@ -21,12 +21,14 @@ import java.beans.PropertyChangeListener;
 import java.io.File;
 import java.io.FileInputStream;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.Future;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
@@ -601,6 +603,61 @@ public class DefaultTopicRuntimeDataManager implements TopicRuntimeDataManager {
     }
 
 
+    @Override
+    public boolean removeQueueData(String brokerName, Collection<String> topics) {
+        writeLock.lock();
+        try {
+            Map<String, List<QueueData>> queueMap = topicData.getTopicBrokers();
+            for (String topic : topics) {
+                List<QueueData> queues = queueMap.get(topic);
+                if (queues != null) {
+                    this.removeBrokerQueue(queues, brokerName);
+                    if (queues.isEmpty())
+                        queueMap.remove(topic);
+                }
+            }
+        }
+        finally {
+            writeLock.unlock();
+        }
+
+        return true;
+    }
+
+
+    @Override
+    public boolean retainQueueData(String brokerName, Set<String> topics) {
+        writeLock.lock();
+        try {
+            Iterator<Entry<String, List<QueueData>>> iterator =
+                    topicData.getTopicBrokers().entrySet().iterator();
+            while (iterator.hasNext()) {
+                Entry<String, List<QueueData>> entry = iterator.next();
+                if (!topics.contains(entry.getKey())) {
+                    this.removeBrokerQueue(entry.getValue(), brokerName);
+                    if (entry.getValue().isEmpty())
+                        iterator.remove();
+                }
+            }
+        }
+        finally {
+            writeLock.unlock();
+        }
+
+        return true;
+    }
+
+
+    private void removeBrokerQueue(List<QueueData> queues, String brokerName) {
+        Iterator<QueueData> iterQueueData = queues.iterator();
+        while (iterQueueData.hasNext()) {
+            if (iterQueueData.next().getBrokerName().equals(brokerName)) {
+                iterQueueData.remove();
+            }
+        }
+    }
+
+
     @Override
     public boolean mergeBrokerData(String brokerName, long brokerId, String address) {
         writeLock.lock();
@@ -2,7 +2,9 @@ package com.alibaba.rocketmq.namesrv.topic;
 
 import java.beans.PropertyChangeListener;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Map;
+import java.util.Set;
 
 import com.alibaba.rocketmq.common.namesrv.TopicRuntimeData;
 import com.alibaba.rocketmq.common.protocol.route.QueueData;
@@ -114,6 +116,26 @@ public interface TopicRuntimeDataManager {
     public boolean mergeQueueData(Map<String, QueueData> queueDataMap);
 
 
+    /**
+     * ɾbrokerNametopicsеQueueDataͬ
+     * 
+     * @param brokerName
+     * @param topics
+     * @return
+     */
+    public boolean removeQueueData(String brokerName, Collection<String> topics);
+
+
+    /**
+     * ɾbrokerNametopicsеQueueDataȫͬ
+     * 
+     * @param brokerName
+     * @param topics
+     * @return
+     */
+    public boolean retainQueueData(String brokerName, Set<String> topics);
+
+
     /**
      * ϲBrokerData
      * 
@@ -0,0 +1,47 @@
+/**
+ * Copyright (C) 2010-2013 Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.rocketmq.remoting;
+
+import java.util.List;
+
+import com.alibaba.rocketmq.remoting.exception.RemotingCommandException;
+import com.alibaba.rocketmq.remoting.protocol.RemotingProtos.NVPair;
+
+
+/**
+ * ƵԶֱֶӶд߷<br>
+ * ֶơ˳򡢿ֵ뷴䷽ʽȫһ£֤ϰ汾ͨ
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public interface FastCodecHeader extends CommandCustomHeader {
+    /**
+     * ֶ˳дǿֶ
+     */
+    public void encodeFields(final List<NVPair> extFields);
+
+
+    /**
+     * ʶֱֶӺ
+     */
+    public void decodeFields(final List<NVPair> extFields);
+
+
+    /**
+     * CFNotNullֶΣdecodeFields֮ã淴䷽ʽĿֵ
+     */
+    public void checkNotNullFields() throws RemotingCommandException;
+}
@@ -0,0 +1,73 @@
+/**
+ * $Id: CompressPolicy.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.remoting.netty;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.alibaba.rocketmq.remoting.protocol.CompressCodec;
+import com.alibaba.rocketmq.remoting.protocol.CompressCodecs;
+
+
+/**
+ * ͨŲѹԣѡѹ㷨bodyСֵʱѹ<br>
+ * øʽΪ code  code:codecŷָΪձʾ붼ʹĬ㷨
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class CompressPolicy {
+    private final CompressCodec defaultCodec;
+    private final int threshold;
+    private final Map<Integer, CompressCodec> codecTable = new HashMap<Integer, CompressCodec>();
+
+
+    public CompressPolicy(final String codecName, final int threshold, final String requestCodes) {
+        this.defaultCodec = findCodec(codecName);
+        this.threshold = threshold;
+        if (requestCodes != null) {
+            for (String item : requestCodes.split(",")) {
+                item = item.trim();
+                if (item.length() == 0) {
+                    continue;
+                }
+
+                int index = item.indexOf(':');
+                if (index > 0) {
+                    this.codecTable.put(Integer.parseInt(item.substring(0, index).trim()),
+                        findCodec(item.substring(index + 1).trim()));
+                }
+                else {
+                    this.codecTable.put(Integer.parseInt(item), this.defaultCodec);
+                }
+            }
+        }
+    }
+
+
+    private static CompressCodec findCodec(final String name) {
+        CompressCodec codec = CompressCodecs.findCodec(name);
+        if (null == codec) {
+            throw new IllegalArgumentException("compress codec not registered, " + name);
+        }
+
+        return codec;
+    }
+
+
+    /**
+     * ظ뼰Ӧʹõѹ㷨벻ʱnull
+     */
+    public CompressCodec selectCodec(final int requestCode) {
+        if (this.codecTable.isEmpty()) {
+            return this.defaultCodec;
+        }
+
+        return this.codecTable.get(requestCode);
+    }
+
+
+    public int getThreshold() {
+        return threshold;
+    }
+}
@@ -0,0 +1,282 @@
+/**
+ * $Id: FairRequestExecutor.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.remoting.netty;
+
+import io.netty.channel.Channel;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.rocketmq.remoting.common.RemotingHelper;
+
+
+/**
+ * н硢ӹƽȵ̳߳<br>
+ * 1ÿһӶУ߳Ӹȡ󣬵ͻ˷͹첻ͻ<br>
+ * 2ܳޣʱܾͨŲֱӦϵͳæ<br>
+ * 3Ŷʱ䳬maxWaitTimeMillisʱͻѾʱӺٴֱӦϵͳæ<br>
+ * 4гȳ3/4ʱͣύӵĶ1/2ʱָ
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class FairRequestExecutor implements Executor {
+    private static final Logger log = LoggerFactory.getLogger(RemotingHelper.RemotingLogName);
+    // RequestTask͵һӶ
+    private static final Object SharedQueueKey = new Object();
+
+    private final String name;
+    private final int queueCapacity;
+    private final long maxWaitTimeMillis;
+    private final int pauseReadThreshold;
+    private final int resumeReadThreshold;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = this.lock.newCondition();
+    // ֶξlock
+    private final HashMap<Object, LinkedList<Runnable>> channelQueueTable =
+            new HashMap<Object, LinkedList<Runnable>>();
+    // дӣת˳
+    private final LinkedList<Object> readyQueueKeys = new LinkedList<Object>();
+    // ͣӣsetAutoReadҲlockڵãָ֤ͣ˳뼯һ
+    private final HashSet<Channel> pausedChannels = new HashSet<Channel>();
+    private int queueSize = 0;
+    private volatile boolean stopped = false;
+
+    private final Thread[] workers;
+
+    // ͳϢÿδӡ
+    private final AtomicLong executedCount = new AtomicLong(0);
+    private final AtomicLong expiredCount = new AtomicLong(0);
+    private final AtomicLong rejectedCount = new AtomicLong(0);
+    private final AtomicLong totalWaitTime = new AtomicLong(0);
+    private final AtomicLong maxWaitTime = new AtomicLong(0);
+
+
+    public FairRequestExecutor(final String name, final int threads, final int queueCapacity,
+            final long maxWaitTimeMillis) {
+        this.name = name;
+        this.queueCapacity = queueCapacity;
+        this.maxWaitTimeMillis = maxWaitTimeMillis;
+        this.pauseReadThreshold = queueCapacity / 4 * 3;
+        this.resumeReadThreshold = queueCapacity / 2;
+
+        this.workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            this.workers[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    FairRequestExecutor.this.runWorker();
+                }
+            }, name + "_" + (i + 1));
+            this.workers[i].start();
+        }
+    }
+
+
+    @Override
+    public void execute(final Runnable command) {
+        Object key = SharedQueueKey;
+        if (command instanceof RequestTask) {
+            key = ((RequestTask) command).getChannel();
+        }
+
+        this.lock.lock();
+        try {
+            if (this.stopped || this.queueSize >= this.queueCapacity) {
+                this.rejectedCount.incrementAndGet();
+                throw new RejectedExecutionException(this.name + " queue full, size " + this.queueSize);
+            }
+
+            LinkedList<Runnable> queue = this.channelQueueTable.get(key);
+            if (null == queue) {
+                queue = new LinkedList<Runnable>();
+                this.channelQueueTable.put(key, queue);
+                this.readyQueueKeys.addLast(key);
+            }
+
+            queue.addLast(command);
+            this.queueSize++;
+
+            if (this.queueSize >= this.pauseReadThreshold && key instanceof Channel
+                    && this.pausedChannels.add((Channel) key)) {
+                log.warn(this.name + " queue size over " + this.pauseReadThreshold + ", pause reading from "
+                        + RemotingHelper.parseChannelRemoteAddr((Channel) key));
+                ((Channel) key).config().setAutoRead(false);
+            }
+
+            this.notEmpty.signal();
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+
+    private void resumeReadLocked() {
+        for (Channel channel : this.pausedChannels) {
+            channel.config().setAutoRead(true);
+        }
+        this.pausedChannels.clear();
+    }
+
+
+    /**
+     * ӸӵӶȡһֹ̳߳ͣʱnull
+     */
+    private Runnable take() throws InterruptedException {
+        Runnable task = null;
+        this.lock.lock();
+        try {
+            while (0 == this.queueSize && !this.stopped) {
+                this.notEmpty.await();
+            }
+
+            if (this.stopped) {
+                return null;
+            }
+
+            Object key = this.readyQueueKeys.removeFirst();
+            LinkedList<Runnable> queue = this.channelQueueTable.get(key);
+            task = queue.removeFirst();
+            if (queue.isEmpty()) {
+                this.channelQueueTable.remove(key);
+            }
+            else {
+                this.readyQueueKeys.addLast(key);
+            }
+
+            this.queueSize--;
+
+            if (this.queueSize <= this.resumeReadThreshold && !this.pausedChannels.isEmpty()) {
+                this.resumeReadLocked();
+            }
+        }
+        finally {
+            this.lock.unlock();
+        }
+
+        return task;
+    }
+
+
+    private void runWorker() {
+        while (!this.stopped) {
+            try {
+                Runnable task = this.take();
+                if (null == task) {
+                    break;
+                }
+
+                if (task instanceof RequestTask) {
+                    RequestTask requestTask = (RequestTask) task;
+                    long waitTime = System.currentTimeMillis() - requestTask.getCreateTimestamp();
+                    this.recordWaitTime(waitTime);
+                    // ͻѾʱû
+                    if (waitTime > this.maxWaitTimeMillis) {
+                        this.expiredCount.incrementAndGet();
+                        requestTask.returnBusy("[" + this.name + "] request waited " + waitTime
+                                + "ms in queue, exceeds " + this.maxWaitTimeMillis + "ms, broker busy");
+                        continue;
+                    }
+                }
+
+                this.executedCount.incrementAndGet();
+                task.run();
+            }
+            catch (InterruptedException e) {
+                break;
+            }
+            catch (Throwable e) {
+                log.error(this.name + " run task exception", e);
+            }
+        }
+    }
+
+
+    private void recordWaitTime(final long waitTime) {
+        this.totalWaitTime.addAndGet(waitTime);
+        long max = this.maxWaitTime.get();
+        while (waitTime > max && !this.maxWaitTime.compareAndSet(max, waitTime)) {
+            max = this.maxWaitTime.get();
+        }
+    }
+
+
+    public void shutdown() {
+        this.lock.lock();
+        try {
+            this.stopped = true;
+            this.notEmpty.signalAll();
+            this.resumeReadLocked();
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+
+    /**
+     * ȴ̴߳굱ǰ˳Ƿȫ˳
+     */
+    public boolean awaitTermination(final long timeoutMillis) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + timeoutMillis;
+        for (Thread worker : this.workers) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                break;
+            }
+            worker.join(remaining);
+        }
+
+        for (Thread worker : this.workers) {
+            if (worker.isAlive()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+    public int getQueueSize() {
+        this.lock.lock();
+        try {
+            return this.queueSize;
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+
+    /**
+     * ϴεŶͳƣ
+     */
+    public String statsAndReset() {
+        long executed = this.executedCount.getAndSet(0);
+        long expired = this.expiredCount.getAndSet(0);
+        long rejected = this.rejectedCount.getAndSet(0);
+        long waitTime = this.totalWaitTime.getAndSet(0);
+        long maxWait = this.maxWaitTime.getAndSet(0);
+        long dequeued = executed + expired;
+
+        return String.format("%s queueSize=%d executed=%d expired=%d rejected=%d avgWaitTime=%dms "
+                + "maxWaitTime=%dms", this.name, this.getQueueSize(), executed, expired, rejected,
+            dequeued > 0 ? waitTime / dequeued : 0, maxWait);
+    }
+
+
+    public String getName() {
+        return name;
+    }
+}
@@ -8,17 +8,43 @@ package com.alibaba.rocketmq.remoting.netty;
  * 
  */
 public class NettyClientConfig {
-    // Server Response/Request
+    // Server Response/Request0ʾֱIO߳ϱ
     private int clientWorkerThreads = 4;
     private int clientCallbackExecutorThreads = 4;
     private int clientSelectorThreads = 1;
     private int clientOnewaySemaphoreValue = 64;
     private int clientAsyncSemaphoreValue = 32;
     private long connectTimeoutMillis = 3000;
+    // ʧܺ˱ʱ䣬ʧʱֱ
+    private long connectRetryBackoffMillis = 1000;
+    private long connectRetryBackoffMaxMillis = 1000 * 30;
     // channel1Ӳ ͹ر
     private long channelNotActiveInterval = 1000 * 60;
 
     private int clientChannelMaxIdleTimeSeconds = 120;
+    // ЭʹöHeaderرպʼʹprotobuf
+    private boolean clientBinaryHeaderEnable = true;
+    // ʹóػByteBufٴϢķGC
+    private boolean clientPooledByteBufAllocatorEnable = true;
+    // socketջС0ʾʹϵͳĬֵ
+    private int clientSocketSndBufSize = 0;
+    private int clientSocketRcvBufSize = 0;
+    // дߵˮλ0ʾʹNettyĬֵ
+    private int clientWriteBufferHighWaterMark = 0;
+    private int clientWriteBufferLowWaterMark = 0;
+    // ÿַѡ;ٵ
+    private int clientChannelPoolSize = 1;
+    // ʹöӵ룬ŷָӦ
+    private String clientIsolatedRequestCodes = "";
+    // ЭbodyѹԶ˲֧ʱѹĬϹر
+    private boolean clientCompressEnable = false;
+    // Ĭѹ㷨LZ4zstd㷨ҪעᵽCompressCodecs
+    private String clientCompressCodec = "deflate";
+    // bodyﵽֵѹ
+    private int clientCompressThreshold = 1024 * 16;
+    // ѹ룬ʽΪ code  code:codecŷָΪձʾȫ
+    // ĬֻѹGET_ALL_TOPIC_CONFIG(21)GET_ROUTEINTO_BY_TOPIC(109)Ϣbodyͨɿͻѹ
+    private String clientCompressRequestCodes = "21,109";
 
 
     public int getClientWorkerThreads() {
@@ -99,4 +125,144 @@ public class NettyClientConfig {
     public void setClientChannelMaxIdleTimeSeconds(int clientChannelMaxIdleTimeSeconds) {
         this.clientChannelMaxIdleTimeSeconds = clientChannelMaxIdleTimeSeconds;
     }
+
+
+    public boolean isClientBinaryHeaderEnable() {
+        return clientBinaryHeaderEnable;
+    }
+
+
+    public void setClientBinaryHeaderEnable(boolean clientBinaryHeaderEnable) {
+        this.clientBinaryHeaderEnable = clientBinaryHeaderEnable;
+    }
+
+
+    public boolean isClientPooledByteBufAllocatorEnable() {
+        return clientPooledByteBufAllocatorEnable;
+    }
+
+
+    public void setClientPooledByteBufAllocatorEnable(boolean clientPooledByteBufAllocatorEnable) {
+        this.clientPooledByteBufAllocatorEnable = clientPooledByteBufAllocatorEnable;
+    }
+
+
+    public int getClientSocketSndBufSize() {
+        return clientSocketSndBufSize;
+    }
+
+
+    public void setClientSocketSndBufSize(int clientSocketSndBufSize) {
+        this.clientSocketSndBufSize = clientSocketSndBufSize;
+    }
+
+
+    public int getClientSocketRcvBufSize() {
+        return clientSocketRcvBufSize;
+    }
+
+
+    public void setClientSocketRcvBufSize(int clientSocketRcvBufSize) {
+        this.clientSocketRcvBufSize = clientSocketRcvBufSize;
+    }
+
+
+    public int getClientWriteBufferHighWaterMark() {
+        return clientWriteBufferHighWaterMark;
+    }
+
+
+    public void setClientWriteBufferHighWaterMark(int clientWriteBufferHighWaterMark) {
+        this.clientWriteBufferHighWaterMark = clientWriteBufferHighWaterMark;
+    }
+
+
+    public int getClientWriteBufferLowWaterMark() {
+        return clientWriteBufferLowWaterMark;
+    }
+
+
+    public void setClientWriteBufferLowWaterMark(int clientWriteBufferLowWaterMark) {
+        this.clientWriteBufferLowWaterMark = clientWriteBufferLowWaterMark;
+    }
+
+
+    public int getClientChannelPoolSize() {
+        return clientChannelPoolSize;
+    }
+
+
+    public void setClientChannelPoolSize(int clientChannelPoolSize) {
+        this.clientChannelPoolSize = clientChannelPoolSize;
+    }
+
+
+    public String getClientIsolatedRequestCodes() {
+        return clientIsolatedRequestCodes;
+    }
+
+
+    public void setClientIsolatedRequestCodes(String clientIsolatedRequestCodes) {
+        this.clientIsolatedRequestCodes = clientIsolatedRequestCodes;
+    }
+
+
+    public long getConnectRetryBackoffMillis() {
+        return connectRetryBackoffMillis;
+    }
+
+
+    public void setConnectRetryBackoffMillis(long connectRetryBackoffMillis) {
+        this.connectRetryBackoffMillis = connectRetryBackoffMillis;
+    }
+
+
+    public long getConnectRetryBackoffMaxMillis() {
+        return connectRetryBackoffMaxMillis;
+    }
+
+
+    public void setConnectRetryBackoffMaxMillis(long connectRetryBackoffMaxMillis) {
+        this.connectRetryBackoffMaxMillis = connectRetryBackoffMaxMillis;
+    }
+
+
+    public boolean isClientCompressEnable() {
+        return clientCompressEnable;
+    }
+
+
+    public void setClientCompressEnable(boolean clientCompressEnable) {
+        this.clientCompressEnable = clientCompressEnable;
+    }
+
+
+    public String getClientCompressCodec() {
+        return clientCompressCodec;
+    }
+
+
+    public void setClientCompressCodec(String clientCompressCodec) {
+        this.clientCompressCodec = clientCompressCodec;
+    }
+
+
+    public int getClientCompressThreshold() {
+        return clientCompressThreshold;
+    }
+
+
+    public void setClientCompressThreshold(int clientCompressThreshold) {
+        this.clientCompressThreshold = clientCompressThreshold;
+    }
+
+
+    public String getClientCompressRequestCodes() {
+        return clientCompressRequestCodes;
+    }
+
+
+    public void setClientCompressRequestCodes(String clientCompressRequestCodes) {
+        this.clientCompressRequestCodes = clientCompressRequestCodes;
+    }
 }
@@ -11,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.alibaba.rocketmq.remoting.common.RemotingHelper;
+import com.alibaba.rocketmq.remoting.protocol.CompressCodecs;
 import com.alibaba.rocketmq.remoting.protocol.RemotingCommand;
 
 
@@ -21,27 +22,64 @@ import com.alibaba.rocketmq.remoting.protocol.RemotingCommand;
 public class NettyDecoder extends LengthFieldBasedFrameDecoder {
     private static final Logger log = LoggerFactory.getLogger(RemotingHelper.RemotingLogName);
     private static final int FRAME_MAX_LENGTH = 1024 * 1024 * 8;
+    private final boolean binaryHeaderEnable;
+    private final boolean compressEnable;
 
 
-    public NettyDecoder() {
+    public NettyDecoder(final boolean binaryHeaderEnable) {
+        this(binaryHeaderEnable, false);
+    }
+
+
+    public NettyDecoder(final boolean binaryHeaderEnable, final boolean compressEnable) {
         super(FRAME_MAX_LENGTH, 0, 4, 0, 4);
+        this.binaryHeaderEnable = binaryHeaderEnable;
+        this.compressEnable = compressEnable;
     }
 
 
     @Override
     public Object decode(ChannelHandlerContext ctx, ByteBuf in) throws Exception {
+        ByteBuf frame = null;
         try {
-            ByteBuf frame = (ByteBuf) super.decode(ctx, in);
+            frame = (ByteBuf) super.decode(ctx, in);
             if (frame == null) {
                 return null;
             }
 
-            return RemotingCommand.decode(frame.array());
+            // ֱframeϽ룬ͨarray()ڴػڴͬ
+            RemotingCommand cmd = RemotingCommand.decode(frame.nioBuffer());
+            // Զֶ֧HeaderϸöƸʽ
+            if (this.binaryHeaderEnable && cmd.isBinaryHeaderSupported()
+                    && NettyEncoder.getSerializeType(ctx.channel()) != RemotingCommand.SerializeTypeBinary) {
+                NettyEncoder.markBinaryHeader(ctx.channel());
+            }
+
+            // Զ֧bodyѹϰѹ
+            if (this.compressEnable && cmd.isCompressSupported()
+                    && !NettyEncoder.isCompressSupported(ctx.channel())) {
+                NettyEncoder.markCompressSupported(ctx.channel());
+            }
+
+            // δѹʱ֧֣Զ˲ᷢѹbodyǰ־λѹ
+            // ѹĴС֡ͬޣʱ쳣ر
+            if (cmd.isBodyCompressed()) {
+                cmd.setBody(CompressCodecs.decompress(cmd.getBody(), FRAME_MAX_LENGTH));
+                cmd.clearBodyCompressed();
+            }
+
+            return cmd;
         }
         catch (Exception e) {
             log.error("decode exception, " + RemotingHelper.parseChannelRemoteAddr(ctx.channel()), e);
             ctx.channel().close();
         }
+        finally {
+            // frameɱϣػڴҪ黹
+            if (frame != null) {
+                frame.release();
+            }
+        }
 
         return null;
     }
@@ -4,15 +4,19 @@
 package com.alibaba.rocketmq.remoting.netty;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.util.AttributeKey;
 
-import java.nio.ByteBuffer;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.alibaba.rocketmq.remoting.common.RemotingHelper;
+import com.alibaba.rocketmq.remoting.protocol.CompressCodec;
+import com.alibaba.rocketmq.remoting.protocol.CompressCodecs;
 import com.alibaba.rocketmq.remoting.protocol.RemotingCommand;
 
 
@@ -22,6 +26,97 @@ import com.alibaba.rocketmq.remoting.protocol.RemotingCommand;
  */
 public class NettyEncoder extends MessageToByteEncoder<Object> {
     private static final Logger log = LoggerFactory.getLogger(RemotingHelper.RemotingLogName);
+    // Զֶ֧Headerʱϴ
+    private static final AttributeKey<Boolean> BinaryHeaderKey = new AttributeKey<Boolean>("BinaryHeader");
+    // Զ֧bodyѹʱϴ
+    private static final AttributeKey<Boolean> CompressSupportedKey = new AttributeKey<Boolean>(
+        "CompressSupported");
+    private final boolean binaryHeaderEnable;
+    // Ϊnullʾѹ
+    private final CompressPolicy compressPolicy;
+
+
+    public NettyEncoder(final boolean binaryHeaderEnable) {
+        this(binaryHeaderEnable, null);
+    }
+
+
+    public NettyEncoder(final boolean binaryHeaderEnable, final CompressPolicy compressPolicy) {
+        this.binaryHeaderEnable = binaryHeaderEnable;
+        this.compressPolicy = compressPolicy;
+    }
+
+
+    /**
+     * Э̳Headerлʽ
+     */
+    public static int getSerializeType(final Channel channel) {
+        if (Boolean.TRUE.equals(channel.attr(BinaryHeaderKey).get())) {
+            return RemotingCommand.SerializeTypeBinary;
+        }
+
+        return RemotingCommand.SerializeTypeProtobuf;
+    }
+
+
+    public static void markBinaryHeader(final Channel channel) {
+        channel.attr(BinaryHeaderKey).set(Boolean.TRUE);
+    }
+
+
+    public static boolean isCompressSupported(final Channel channel) {
+        return Boolean.TRUE.equals(channel.attr(CompressSupportedKey).get());
+    }
+
+
+    public static void markCompressSupported(final Channel channel) {
+        channel.attr(CompressSupportedKey).set(Boolean.TRUE);
+    }
+
+
+    /**
+     * Զȷ֧ѹbodyﵽֵʱѹѡ㷨Ӧʹʱָ㷨<br>
+     * ѹûбСnullԭʼbody
+     */
+    private byte[] tryToCompressBody(final ChannelHandlerContext ctx, final RemotingCommand cmd)
+            throws Exception {
+        if (null == cmd.getBody() || cmd.getBody().length < this.compressPolicy.getThreshold()
+                || !isCompressSupported(ctx.channel())) {
+            return null;
+        }
+
+        CompressCodec codec =
+                cmd.isResponseType() ? cmd.getBodyCompressCodec() : this.compressPolicy.selectCodec(cmd
+                    .getCode());
+        if (null == codec) {
+            return null;
+        }
+
+        return CompressCodecs.compress(codec, cmd.getBody());
+    }
+
+
+    private void encodeCommand(final ChannelHandlerContext ctx, final RemotingCommand cmd,
+            final ByteBuf out) throws Exception {
+        int serializeType = RemotingCommand.SerializeTypeProtobuf;
+        if (this.binaryHeaderEnable) {
+            // ֪Զ˱ֶ֧HeaderԶȷǰȻʹprotobuf
+            cmd.markBinaryHeaderSupported();
+            serializeType = getSerializeType(ctx.channel());
+        }
+
+        if (this.compressPolicy != null) {
+            // ֪Զ˱֧bodyѹ
+            cmd.markCompressSupported();
+            byte[] compressedBody = this.tryToCompressBody(ctx, cmd);
+            if (compressedBody != null) {
+                cmd.encode(out, serializeType, compressedBody);
+                return;
+            }
+        }
+
+        cmd.encode(out, serializeType);
+    }
 
 
     @Override
@@ -30,11 +125,13 @@ public class NettyEncoder extends MessageToByteEncoder<Object> {
         try {
             if (msg instanceof RemotingCommand) {
                 cmd = (RemotingCommand) msg;
-                ByteBuffer header = cmd.encodeHeader();
-                out.writeBytes(header);
-                byte[] body = cmd.getBody();
-                if (body != null) {
-                    out.writeBytes(body);
+                this.encodeCommand(ctx, cmd, out);
+            }
+            // дϲһӦ𣬱뵽ͬһByteBufһд
+            else if (msg instanceof List) {
+                for (Object o : (List<?>) msg) {
+                    cmd = (RemotingCommand) o;
+                    this.encodeCommand(ctx, cmd, out);
                 }
             }
         }
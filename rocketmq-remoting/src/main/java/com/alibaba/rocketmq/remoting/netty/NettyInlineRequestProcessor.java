@@ -0,0 +1,23 @@
+/**
+ * $Id: NettyInlineRequestProcessor.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.remoting.netty;
+
+import io.netty.channel.ChannelHandlerContext;
+
+import com.alibaba.rocketmq.remoting.protocol.RemotingCommand;
+
+
+/**
+ * IOֱ߳ӴĴ<br>
+ * ͨŲȵcanProcessInlinetrueʱIO߳ϴʡȥһ߳лύע̳߳
+ * 
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ * 
+ */
+public interface NettyInlineRequestProcessor extends NettyRequestProcessor {
+    /**
+     * IO߳ϵãֻڴежϣ
+     */
+    public boolean canProcessInline(ChannelHandlerContext ctx, RemotingCommand request);
+}
@@ -7,15 +7,18 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
 
 import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
@@ -51,6 +54,16 @@ public abstract class NettyRemotingAbstract {
     protected final ConcurrentHashMap<Integer /* opaque */, ResponseFuture> responseTable =
             new ConcurrentHashMap<Integer, ResponseFuture>(256);
 
+    // 첽óʱʱ֣󷢳ʱǼǣյӦʱȡ10ms
+    protected final HashedWheelTimer timeoutTimer = new HashedWheelTimer(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "NettyResponseTimeoutTimer");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }, 10, TimeUnit.MILLISECONDS, 512);
+
     // Ĭ봦
     protected Pair<NettyRequestProcessor, Executor> defaultRequestProcessor;
 
@@ -60,6 +73,9 @@ public abstract class NettyRemotingAbstract {
 
     protected final NettyEventExecuter nettyEventExecuter = new NettyEventExecuter();
 
+    // ͨŲѹԣΪnullʾѹ
+    protected CompressPolicy compressPolicy;
+
 
     public abstract ChannelEventListener getChannelEventListener();
 
@@ -132,6 +148,19 @@ public abstract class NettyRemotingAbstract {
     }
 
 
+    private boolean hasPendingRequest(final Executor executor) {
+        if (executor instanceof FairRequestExecutor) {
+            return ((FairRequestExecutor) executor).getQueueSize() > 0;
+        }
+
+        if (executor instanceof ThreadPoolExecutor) {
+            return !((ThreadPoolExecutor) executor).getQueue().isEmpty();
+        }
+
+        return false;
+    }
+
+
     public void processRequestCommand(final ChannelHandlerContext ctx, final RemotingCommand cmd) {
         final Pair<NettyRequestProcessor, Executor> matched = this.processorTable.get(cmd.getCode());
         final Pair<NettyRequestProcessor, Executor> pair =
@@ -148,8 +177,16 @@ public abstract class NettyRemotingAbstract {
                             if (response != null) {
                                 response.setOpaque(cmd.getOpaque());
                                 response.markResponseType();
+                                // ӦʹӦѹ㷨Ѿָʱ
+                                if (compressPolicy != null && null == response.getBodyCompressCodec()) {
+                                    response.setBodyCompressCodec(compressPolicy.selectCodec(cmd.getCode()));
+                                }
                                 try {
-                                    ctx.write(response).addListener(new ChannelFutureListener() {
+                                    // ӦȽӵдϲУͬһIOеĶӦһд
+                                    ChannelFuture writeFuture =
+                                            NettyWriteCoalescer.writeResponse(ctx.channel(), cmd.getCode(),
+                                                response);
+                                    writeFuture.addListener(new ChannelFutureListener() {
                                         @Override
                                         public void operationComplete(ChannelFuture future) throws Exception {
                                             if (!future.isSuccess()) {
@@ -189,29 +226,23 @@ public abstract class NettyRemotingAbstract {
                 }
             };
 
-            boolean executed = false;
-            for (int retry = 0; retry < 3 && !executed; retry++) {
-                try {
-                    pair.getObject2().execute(run);
-                    executed = true;
-                    break;
-                }
-                catch (RejectedExecutionException e) {
-                    plog.warn(RemotingHelper.parseChannelRemoteAddr(ctx.channel())
-                            + ", system thread pool busy, RejectedExecutionException "
-                            + pair.getObject2().toString());
-                    if (!cmd.isOnewayRPC()) {
-                        try {
-                            Thread.sleep(2);
-                        }
-                        catch (InterruptedException e1) {
-                            plog.error("", e1);
-                        }
-                    }
-                }
+            // жԺܿɵֱIO߳ϴ
+            // ̳߳ŶʱȻύӵӵ֮ǰҲƹ̳߳ص׼
+            if (pair.getObject1() instanceof NettyInlineRequestProcessor
+                    && !this.hasPendingRequest(pair.getObject2())
+                    && ((NettyInlineRequestProcessor) pair.getObject1()).canProcessInline(ctx, cmd)) {
+                run.run();
+                return;
             }
 
-            if (!executed) {
+            // IO߳Եȴ̳߳ضʱֱӦϵͳæɿͻ˻ڵ
+            try {
+                pair.getObject2().execute(new RequestTask(run, ctx.channel(), cmd));
+            }
+            catch (RejectedExecutionException e) {
+                plog.warn(RemotingHelper.parseChannelRemoteAddr(ctx.channel())
+                        + ", system thread pool busy, RejectedExecutionException "
+                        + pair.getObject2().toString());
                 if (!cmd.isOnewayRPC()) {
                     final RemotingCommand response =
                             RemotingCommand.createResponseCommand(ResponseCode.SYSTEM_BUSY_VALUE,
@@ -233,48 +264,20 @@ public abstract class NettyRemotingAbstract {
     }
 
 
+    /**
+     * ȴժٴ볬ʱʱͬһremoveֻһִлص
+     */
     public void processResponseCommand(ChannelHandlerContext ctx, RemotingCommand cmd) {
-        final ResponseFuture responseFuture = responseTable.get(cmd.getOpaque());
+        final ResponseFuture responseFuture = responseTable.remove(cmd.getOpaque());
         if (responseFuture != null) {
+            responseFuture.cancelTimeout();
             responseFuture.setResponseCommand(cmd);
 
             responseFuture.release();
 
             // 첽
             if (responseFuture.getInvokeCallback() != null) {
-                boolean runInThisThread = false;
-                Executor executor = this.getCallbackExecutor();
-                if (executor != null) {
-                    try {
-                        executor.execute(new Runnable() {
-                            @Override
-                            public void run() {
-                                try {
-                                    responseFuture.executeInvokeCallback();
-                                }
-                                catch (Throwable e) {
-                                    plog.warn("excute callback in executor exception, and callback throw", e);
-                                }
-                            }
-                        });
-                    }
-                    catch (Exception e) {
-                        runInThisThread = true;
-                        plog.warn("excute callback in executor exception, maybe executor busy", e);
-                    }
-                }
-                else {
-                    runInThisThread = true;
-                }
-
-                if (runInThisThread) {
-                    try {
-                        responseFuture.executeInvokeCallback();
-                    }
-                    catch (Throwable e) {
-                        plog.warn("", e);
-                    }
-                }
+                this.executeInvokeCallback(responseFuture);
             }
             // ͬ
             else {
@@ -286,8 +289,46 @@ public abstract class NettyRemotingAbstract {
                     + RemotingHelper.parseChannelRemoteAddr(ctx.channel()));
             plog.warn(cmd.toString());
         }
+    }
 
-        responseTable.remove(cmd.getOpaque());
+
+    /**
+     * ڻصִ̳߳лص̳߳طæʱڵǰִ߳
+     */
+    private void executeInvokeCallback(final ResponseFuture responseFuture) {
+        boolean runInThisThread = false;
+        Executor executor = this.getCallbackExecutor();
+        if (executor != null) {
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            responseFuture.executeInvokeCallback();
+                        }
+                        catch (Throwable e) {
+                            plog.warn("excute callback in executor exception, and callback throw", e);
+                        }
+                    }
+                });
+            }
+            catch (Exception e) {
+                runInThisThread = true;
+                plog.warn("excute callback in executor exception, maybe executor busy", e);
+            }
+        }
+        else {
+            runInThisThread = true;
+        }
+
+        if (runInThisThread) {
+            try {
+                responseFuture.executeInvokeCallback();
+            }
+            catch (Throwable e) {
+                plog.warn("", e);
+            }
+        }
     }
 
 
@@ -311,28 +352,21 @@ public abstract class NettyRemotingAbstract {
     abstract public Executor getCallbackExecutor();
 
 
-    public void scanResponseTable() {
-        List<Integer> todoList = new LinkedList<Integer>();
-
-        for (ResponseFuture rep : this.responseTable.values()) {
-            if ((rep.getBeginTimestamp() + rep.getTimeoutMillis() + 1000) <= System.currentTimeMillis()) {
-                todoList.add(rep.getOpaque());
-                try {
-                    rep.executeInvokeCallback();
-                }
-                catch (Throwable e) {
-                    plog.error("scanResponseTable, operationComplete exception", e);
+    /**
+     * 첽óʱժִлصӦȵʱѾȡִ
+     */
+    private void registerTimeout(final ResponseFuture responseFuture) {
+        Timeout timeout = this.timeoutTimer.newTimeout(new TimerTask() {
+            @Override
+            public void run(Timeout timeout) throws Exception {
+                if (responseTable.remove(responseFuture.getOpaque(), responseFuture)) {
+                    responseFuture.release();
+                    plog.warn("remove timeout request, " + responseFuture);
+                    executeInvokeCallback(responseFuture);
                 }
             }
-        }
-
-        for (Integer opaque : todoList) {
-            ResponseFuture responseFuture = this.responseTable.remove(opaque);
-            if (responseFuture != null) {
-                responseFuture.release();
-                plog.warn("remove timeout request, " + responseFuture);
-            }
-        }
+        }, responseFuture.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+        responseFuture.setTimeout(timeout);
     }
 
 
@@ -394,6 +428,7 @@ public abstract class NettyRemotingAbstract {
             final ResponseFuture responseFuture =
                     new ResponseFuture(request.getOpaque(), timeoutMillis, invokeCallback, once);
             this.responseTable.put(request.getOpaque(), responseFuture);
+            this.registerTimeout(responseFuture);
             try {
                 channel.write(request).addListener(new ChannelFutureListener() {
                     @Override
@@ -408,8 +443,14 @@ public abstract class NettyRemotingAbstract {
 
                         once.release();
 
-                        responseTable.remove(request.getOpaque());
+                        // ʧصٵȴʱѱʱʱժʱظص
+                        if (!responseTable.remove(request.getOpaque(), responseFuture)) {
+                            return;
+                        }
+                        responseFuture.cancelTimeout();
+                        responseFuture.setCause(f.cause());
                         responseFuture.putResponse(null);
+                        executeInvokeCallback(responseFuture);
                         plog.warn("send a request command to channel <" + channel.remoteAddress()
                                 + "> failed.");
                         plog.warn(request.toString());
@@ -418,6 +459,8 @@ public abstract class NettyRemotingAbstract {
             }
             catch (Exception e) {
                 once.release();
+                this.responseTable.remove(request.getOpaque(), responseFuture);
+                responseFuture.cancelTimeout();
                 plog.warn("write send a request command to channel <" + channel.remoteAddress() + "> failed.");
                 throw new RemotingSendRequestException(RemotingHelper.parseChannelRemoteAddr(channel), e);
             }
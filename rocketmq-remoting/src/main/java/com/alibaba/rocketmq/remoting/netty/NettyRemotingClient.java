@@ -4,10 +4,12 @@
 package com.alibaba.rocketmq.remoting.netty;
 
 import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundMessageHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
@@ -20,8 +22,11 @@ import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.util.concurrent.DefaultEventExecutorGroup;
 
 import java.net.SocketAddress;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
@@ -62,10 +67,18 @@ public class NettyRemotingClient extends NettyRemotingAbstract implements Remoti
     private final NettyClientConfig nettyClientConfig;
     private final Bootstrap bootstrap = new Bootstrap();
     private final EventLoopGroup eventLoopGroup;
+    // ̳߳أӹãΪnullʱֱIO߳ϱ
+    private DefaultEventExecutorGroup defaultEventExecutorGroup;
 
     private final Lock lockChannelTables = new ReentrantLock();
+    // һԵַΪkeyӳ ַ@ Ϊkey ַ@isolated Ϊkey
     private final ConcurrentHashMap<String /* addr */, ChannelWrapper> channelTables =
             new ConcurrentHashMap<String, ChannelWrapper>();
+    // ʹöӵ
+    private final Set<Integer> isolatedRequestCodes = new HashSet<Integer>();
+    // ʧܵĵַ˱ʱڲٳӣ÷ʧ
+    private final ConcurrentHashMap<String /* addr */, ConnectBackoff> connectBackoffTable =
+            new ConcurrentHashMap<String, ConnectBackoff>();
 
     // ʱ
     private final Timer timer = new Timer("ClientHouseKeepingService", true);
@@ -82,12 +95,25 @@ public class NettyRemotingClient extends NettyRemotingAbstract implements Remoti
     private final ChannelEventListener channelEventListener;
 
     class ChannelWrapper {
-        private final Channel channel;
+        // ӽмӱĵ÷ȴͬһӽ
+        private final ChannelFuture channelFuture;
         private volatile long lastActiveTimestamp = System.currentTimeMillis();
+        // ;ͬ첽ӳѡ͵
+        private final AtomicInteger inflightRequests = new AtomicInteger(0);
 
 
-        public ChannelWrapper(Channel channel) {
-            this.channel = channel;
+        public ChannelWrapper(ChannelFuture channelFuture) {
+            this.channelFuture = channelFuture;
+        }
+
+
+        public boolean isOK() {
+            return this.channelFuture.isDone() && this.channelFuture.channel().isActive();
+        }
+
+
+        public ChannelFuture getChannelFuture() {
+            return channelFuture;
         }
 
 
@@ -102,7 +128,33 @@ public class NettyRemotingClient extends NettyRemotingAbstract implements Remoti
 
 
         public Channel getChannel() {
-            return channel;
+            return this.channelFuture.channel();
+        }
+
+
+        public AtomicInteger getInflightRequests() {
+            return inflightRequests;
+        }
+    }
+
+    static class ConnectBackoff {
+        private final int failedTimes;
+        private final long nextConnectTimestamp;
+
+
+        public ConnectBackoff(int failedTimes, long nextConnectTimestamp) {
+            this.failedTimes = failedTimes;
+            this.nextConnectTimestamp = nextConnectTimestamp;
+        }
+
+
+        public int getFailedTimes() {
+            return failedTimes;
+        }
+
+
+        public long getNextConnectTimestamp() {
+            return nextConnectTimestamp;
         }
     }
 
@@ -218,6 +270,21 @@ public class NettyRemotingClient extends NettyRemotingAbstract implements Remoti
         });
 
         this.eventLoopGroup = new NioEventLoopGroup(nettyClientConfig.getClientSelectorThreads());
+
+        if (nettyClientConfig.getClientIsolatedRequestCodes() != null) {
+            for (String code : nettyClientConfig.getClientIsolatedRequestCodes().split(",")) {
+                if (code.trim().length() > 0) {
+                    this.isolatedRequestCodes.add(Integer.parseInt(code.trim()));
+                }
+            }
+        }
+
+        if (nettyClientConfig.isClientCompressEnable()) {
+            this.compressPolicy =
+                    new CompressPolicy(nettyClientConfig.getClientCompressCodec(),
+                        nettyClientConfig.getClientCompressThreshold(),
+                        nettyClientConfig.getClientCompressRequestCodes());
+        }
     }
 
 
@@ -251,31 +318,64 @@ public class NettyRemotingClient extends NettyRemotingAbstract implements Remoti
 
     @Override
     public void start() {
+        if (this.nettyClientConfig.getClientWorkerThreads() > 0) {
+            ThreadFactory threadFactory = new ThreadFactory() {
+                private AtomicInteger threadIndex = new AtomicInteger(0);
+
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    return new Thread(r, "NettyClientWorkerThread_" + this.threadIndex.incrementAndGet());
+                }
+            };
+
+            this.defaultEventExecutorGroup =
+                    new DefaultEventExecutorGroup(nettyClientConfig.getClientWorkerThreads(), threadFactory);
+        }
+
         this.bootstrap.group(this.eventLoopGroup).channel(NioSocketChannel.class)
             .option(ChannelOption.TCP_NODELAY, true).handler(new ChannelInitializer<SocketChannel>() {
                 @Override
                 public void initChannel(SocketChannel ch) throws Exception {
-                    ch.pipeline().addLast(//
-                        new DefaultEventExecutorGroup(nettyClientConfig.getClientWorkerThreads()), //
-                        new NettyEncoder(), //
-                        new NettyDecoder(), //
-                        new NettyConnetManageHandler(), new NettyClientHandler());
+                    ChannelHandler[] handlers = new ChannelHandler[] {
+                        //
+                        new NettyEncoder(nettyClientConfig.isClientBinaryHeaderEnable(), compressPolicy), //
+                        new NettyDecoder(nettyClientConfig.isClientBinaryHeaderEnable(),
+                            compressPolicy != null), //
+                        new NettyConnetManageHandler(), new NettyClientHandler() };
+
+                    if (defaultEventExecutorGroup != null) {
+                        ch.pipeline().addLast(defaultEventExecutorGroup, handlers);
+                    }
+                    else {
+                        ch.pipeline().addLast(handlers);
+                    }
                 }
             });
 
-        // ÿ1ɨ첽óʱ
-        this.timer.scheduleAtFixedRate(new TimerTask() {
+        if (this.nettyClientConfig.isClientPooledByteBufAllocatorEnable()) {
+            this.bootstrap.option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
+        }
 
-            @Override
-            public void run() {
-                try {
-                    NettyRemotingClient.this.scanResponseTable();
-                }
-                catch (Exception e) {
-                    log.error("scanResponseTable exception", e);
-                }
-            }
-        }, 1000 * 3, 1000);
+        if (this.nettyClientConfig.getClientSocketSndBufSize() > 0) {
+            this.bootstrap.option(ChannelOption.SO_SNDBUF,
+                this.nettyClientConfig.getClientSocketSndBufSize());
+        }
+
+        if (this.nettyClientConfig.getClientSocketRcvBufSize() > 0) {
+            this.bootstrap.option(ChannelOption.SO_RCVBUF,
+                this.nettyClientConfig.getClientSocketRcvBufSize());
+        }
+
+        if (this.nettyClientConfig.getClientWriteBufferHighWaterMark() > 0) {
+            this.bootstrap.option(ChannelOption.WRITE_BUFFER_HIGH_WATER_MARK,
+                this.nettyClientConfig.getClientWriteBufferHighWaterMark());
+        }
+
+        if (this.nettyClientConfig.getClientWriteBufferLowWaterMark() > 0) {
+            this.bootstrap.option(ChannelOption.WRITE_BUFFER_LOW_WATER_MARK,
+                this.nettyClientConfig.getClientWriteBufferLowWaterMark());
+        }
 
         // ÿ10ɨ²
         this.timer.scheduleAtFixedRate(new TimerTask() {
@@ -302,6 +402,8 @@ public class NettyRemotingClient extends NettyRemotingAbstract implements Remoti
         try {
             this.timer.cancel();
 
+            this.timeoutTimer.stop();
+
             for (ChannelWrapper cw : this.channelTables.values()) {
                 this.closeChannel(null, cw.getChannel());
             }
@@ -310,6 +412,10 @@ public class NettyRemotingClient extends NettyRemotingAbstract implements Remoti
 
             this.eventLoopGroup.shutdownGracefully();
 
+            if (this.defaultEventExecutorGroup != null) {
+                this.defaultEventExecutorGroup.shutdownGracefully();
+            }
+
             if (this.nettyEventExecuter != null) {
                 this.nettyEventExecuter.shutdown();
             }
@@ -329,17 +435,58 @@ public class NettyRemotingClient extends NettyRemotingAbstract implements Remoti
     }
 
 
-    private Channel getAndCreateChannel(final String addr) throws InterruptedException {
-        if (null == addr)
-            return getAndCreateNameserverChannel();
+    private static String parseAddr(final String channelKey) {
+        int index = channelKey.indexOf('@');
+        return index < 0 ? channelKey : channelKey.substring(0, index);
+    }
+
+
+    /**
+     * ڵַӦѡ;ٵһӳδʱ½
+     */
+    private ChannelWrapper getAndCreateChannel(final String addr, final int requestCode)
+            throws InterruptedException {
+        if (this.isolatedRequestCodes.contains(requestCode)) {
+            return this.getAndCreateChannelWrapper(addr + "@isolated");
+        }
 
         ChannelWrapper cw = this.channelTables.get(addr);
-        if (cw != null) {
+        int poolSize = this.nettyClientConfig.getClientChannelPoolSize();
+        if (poolSize <= 1 || null == cw || !cw.isOK()) {
+            return this.getAndCreateChannelWrapper(addr);
+        }
+
+        ChannelWrapper choosed = cw;
+        for (int i = 1; i < poolSize; i++) {
+            ChannelWrapper next = this.channelTables.get(addr + "@" + i);
+            if (null == next) {
+                ChannelWrapper created = this.getAndCreateChannelWrapper(addr + "@" + i);
+                return created != null ? created : choosed;
+            }
+
+            // ڽӲѡ
+            if (next.isOK() && next.getInflightRequests().get() < choosed.getInflightRequests().get()) {
+                choosed = next;
+            }
+        }
+
+        choosed.setLastActiveTimestamp(System.currentTimeMillis());
+        return choosed;
+    }
+
+
+    private ChannelWrapper getAndCreateChannelWrapper(final String channelKey) throws InterruptedException {
+        ChannelWrapper cw = this.channelTables.get(channelKey);
+        if (cw != null && cw.isOK()) {
             cw.setLastActiveTimestamp(System.currentTimeMillis());
-            return cw.getChannel();
+            return cw;
+        }
+
+        if (null == this.createChannel(channelKey)) {
+            return null;
         }
 
-        return this.createChannel(addr);
+        return this.channelTables.get(channelKey);
     }
 
 
@@ -347,7 +494,7 @@ public class NettyRemotingClient extends NettyRemotingAbstract implements Remoti
         String addr = this.namesrvAddrChoosed.get();
         if (addr != null) {
             ChannelWrapper cw = this.channelTables.get(addr);
-            if (cw != null) {
+            if (cw != null && cw.isOK()) {
                 cw.setLastActiveTimestamp(System.currentTimeMillis());
                 return cw.getChannel();
             }
@@ -360,7 +507,7 @@ public class NettyRemotingClient extends NettyRemotingAbstract implements Remoti
                 addr = this.namesrvAddrChoosed.get();
                 if (addr != null) {
                     ChannelWrapper cw = this.channelTables.get(addr);
-                    if (cw != null) {
+                    if (cw != null && cw.isOK()) {
                         cw.setLastActiveTimestamp(System.currentTimeMillis());
                         return cw.getChannel();
                     }
@@ -396,52 +543,89 @@ public class NettyRemotingClient extends NettyRemotingAbstract implements Remoti
     }
 
 
-    private Channel createChannel(final String addr) throws InterruptedException {
-        // Դ
-        if (this.lockChannelTables.tryLock(LockTimeoutMillis, TimeUnit.MILLISECONDS)) {
-            try {
-                ChannelWrapper cw = this.channelTables.get(addr);
-                if (cw != null) {
-                    cw.setLastActiveTimestamp(System.currentTimeMillis());
-                    return cw.getChannel();
-                }
+    /**
+     * ӱֻڷʱУӽ첽Уɴĵַַ
+     */
+    private Channel createChannel(final String channelKey) throws InterruptedException {
+        final String addr = parseAddr(channelKey);
+        ChannelWrapper cw = this.channelTables.get(channelKey);
+        if (null == cw) {
+            ConnectBackoff backoff = this.connectBackoffTable.get(addr);
+            if (backoff != null && System.currentTimeMillis() < backoff.getNextConnectTimestamp()) {
+                log.warn("createChannel: connect {} failed {} times, retry after {}", addr,
+                    backoff.getFailedTimes(), backoff.getNextConnectTimestamp());
+                return null;
+            }
 
-                ChannelFuture channelFuture = this.bootstrap.connect(RemotingHelper.string2SocketAddress(addr));
-                Channel channel = null;
-                if (channelFuture.awaitUninterruptibly(this.nettyClientConfig.getConnectTimeoutMillis())) {
-                    channel = channelFuture.channel();
-                    if (!channel.isActive()) {
-                        log.warn("connect {} in {}ms ok, but channel not active", addr,
-                            this.nettyClientConfig.getConnectTimeoutMillis());
-                        channel.close().sync();
-                        return null;
+            // ڽ
+            if (this.lockChannelTables.tryLock(LockTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                try {
+                    cw = this.channelTables.get(channelKey);
+                    if (null == cw) {
+                        ChannelFuture channelFuture =
+                                this.bootstrap.connect(RemotingHelper.string2SocketAddress(addr));
+                        cw = new ChannelWrapper(channelFuture);
+                        this.channelTables.put(channelKey, cw);
                     }
                 }
-                else {
-                    log.error("connect {} in {}ms timeout", addr, this.nettyClientConfig.getConnectTimeoutMillis());
-                    channelFuture.channel().close().sync();
-                    return null;
+                catch (Exception e) {
+                    log.error("createChannel: create channel exception", e);
+                }
+                finally {
+                    this.lockChannelTables.unlock();
                 }
-
-                log.info("connect {} success, and add to the channel table", addr);
-                this.channelTables.put(addr, new ChannelWrapper(channel));
-                return channel;
             }
-            catch (Exception e) {
-                log.error("createChannel: create channel exception", e);
+            else {
+                log.warn("createChannel: try to lock channel table, but timeout, {}ms", LockTimeoutMillis);
             }
-            finally {
-                this.lockChannelTables.unlock();
+        }
+
+        if (null == cw) {
+            return null;
+        }
+
+        // ȴӽ
+        ChannelFuture channelFuture = cw.getChannelFuture();
+        if (channelFuture.awaitUninterruptibly(this.nettyClientConfig.getConnectTimeoutMillis())) {
+            if (cw.isOK()) {
+                if (this.connectBackoffTable.remove(addr) != null) {
+                    log.info("connect {} success, clear the connect backoff", addr);
+                }
+
+                cw.setLastActiveTimestamp(System.currentTimeMillis());
+                log.info("connect {} success, and add to the channel table", channelKey);
+                return cw.getChannel();
             }
+
+            log.warn("connect {} in {}ms failed, channel not active", channelKey,
+                this.nettyClientConfig.getConnectTimeoutMillis());
         }
         else {
-            log.warn("createChannel: try to lock channel table, but timeout, {}ms", LockTimeoutMillis);
+            log.error("connect {} in {}ms timeout", channelKey,
+                this.nettyClientConfig.getConnectTimeoutMillis());
+        }
+
+        // ֻһȴƳӲ¼˱
+        if (this.channelTables.remove(channelKey, cw)) {
+            this.recordConnectFailed(addr);
+            channelFuture.channel().close();
         }
 
         return null;
     }
 
 
+    private void recordConnectFailed(final String addr) {
+        ConnectBackoff prev = this.connectBackoffTable.get(addr);
+        int failedTimes = null == prev ? 1 : prev.getFailedTimes() + 1;
+        long backoffMillis =
+                this.nettyClientConfig.getConnectRetryBackoffMillis() << Math.min(failedTimes - 1, 16);
+        backoffMillis = Math.min(backoffMillis, this.nettyClientConfig.getConnectRetryBackoffMaxMillis());
+        this.connectBackoffTable.put(addr, new ConnectBackoff(failedTimes, System.currentTimeMillis()
+                + backoffMillis));
+    }
+
+
     public void closeChannel(final String addr, final Channel channel) {
         if (null == channel)
             return;
@@ -451,26 +635,20 @@ public class NettyRemotingClient extends NettyRemotingAbstract implements Remoti
         try {
             if (this.lockChannelTables.tryLock(LockTimeoutMillis, TimeUnit.MILLISECONDS)) {
                 try {
-                    boolean removeItemFromTable = true;
-                    final ChannelWrapper prevCW = this.channelTables.get(addrRemote);
+                    // ͬһַжӣӲ
+                    final String channelKey = this.findChannelKey(channel);
 
-                    log.info("closeChannel: begin close the channel[{}] Found: {}", addrRemote, (prevCW != null));
+                    log.info("closeChannel: begin close the channel[{}] Found: {}", addrRemote,
+                        (channelKey != null));
 
-                    if (null == prevCW) {
-                        log.info("closeChannel: the channel[{}] has been removed from the channel table before",
-                            addrRemote);
-                        removeItemFromTable = false;
-                    }
-                    else if (prevCW.getChannel() != channel) {
+                    if (null == channelKey) {
                         log.info(
-                            "closeChannel: the channel[{}] has been closed before, and has been created again, nothing to do.",
+                            "closeChannel: the channel[{}] has been removed from the channel table before, or has been created again, nothing to do.",
                             addrRemote);
-                        removeItemFromTable = false;
                     }
-
-                    if (removeItemFromTable) {
-                        this.channelTables.remove(addrRemote);
-                        log.info("closeChannel: the channel[{}] was removed from channel table", addrRemote);
+                    else {
+                        this.channelTables.remove(channelKey);
+                        log.info("closeChannel: the channel[{}] was removed from channel table", channelKey);
                     }
 
                     channel.close().addListener(new ChannelFutureListener() {
@@ -498,6 +676,17 @@ public class NettyRemotingClient extends NettyRemotingAbstract implements Remoti
     }
 
 
+    private String findChannelKey(final Channel channel) {
+        for (Map.Entry<String, ChannelWrapper> entry : this.channelTables.entrySet()) {
+            if (entry.getValue().getChannel() == channel) {
+                return entry.getKey();
+            }
+        }
+
+        return null;
+    }
+
+
     public void closeChannel(final Channel channel) {
         if (null == channel)
             return;
@@ -564,7 +753,28 @@ public class NettyRemotingClient extends NettyRemotingAbstract implements Remoti
     public RemotingCommand invokeSync(String addr, final RemotingCommand request, long timeoutMillis)
             throws InterruptedException, RemotingConnectException, RemotingSendRequestException,
             RemotingTimeoutException {
-        final Channel channel = this.getAndCreateChannel(addr);
+        if (null == addr) {
+            return this.invokeSync(addr, this.getAndCreateNameserverChannel(), request, timeoutMillis);
+        }
+
+        final ChannelWrapper cw = this.getAndCreateChannel(addr, request.getCode());
+        if (null == cw) {
+            throw new RemotingConnectException(addr);
+        }
+
+        cw.getInflightRequests().incrementAndGet();
+        try {
+            return this.invokeSync(addr, cw.getChannel(), request, timeoutMillis);
+        }
+        finally {
+            cw.getInflightRequests().decrementAndGet();
+        }
+    }
+
+
+    private RemotingCommand invokeSync(String addr, final Channel channel, final RemotingCommand request,
+            long timeoutMillis) throws InterruptedException, RemotingConnectException,
+            RemotingSendRequestException, RemotingTimeoutException {
         if (channel != null && channel.isActive()) {
             try {
                 return this.invokeSyncImpl(channel, request, timeoutMillis);
@@ -588,10 +798,44 @@ public class NettyRemotingClient extends NettyRemotingAbstract implements Remoti
 
 
     @Override
-    public void invokeAsync(String addr, RemotingCommand request, long timeoutMillis, InvokeCallback invokeCallback)
-            throws InterruptedException, RemotingConnectException, RemotingTooMuchRequestException,
-            RemotingTimeoutException, RemotingSendRequestException {
-        final Channel channel = this.getAndCreateChannel(addr);
+    public void invokeAsync(String addr, RemotingCommand request, long timeoutMillis,
+            final InvokeCallback invokeCallback) throws InterruptedException, RemotingConnectException,
+            RemotingTooMuchRequestException, RemotingTimeoutException, RemotingSendRequestException {
+        if (null == addr) {
+            this.invokeAsync(addr, this.getAndCreateNameserverChannel(), request, timeoutMillis,
+                invokeCallback);
+            return;
+        }
+
+        final ChannelWrapper cw = this.getAndCreateChannel(addr, request.getCode());
+        if (null == cw) {
+            throw new RemotingConnectException(addr);
+        }
+
+        // Ӧ𵽴ʱ߷ʧʱִлصͬʱ;
+        cw.getInflightRequests().incrementAndGet();
+        boolean sent = false;
+        try {
+            this.invokeAsync(addr, cw.getChannel(), request, timeoutMillis, new InvokeCallback() {
+                @Override
+                public void operationComplete(ResponseFuture responseFuture) {
+                    cw.getInflightRequests().decrementAndGet();
+                    invokeCallback.operationComplete(responseFuture);
+                }
+            });
+            sent = true;
+        }
+        finally {
+            if (!sent) {
+                cw.getInflightRequests().decrementAndGet();
+            }
+        }
+    }
+
+
+    private void invokeAsync(String addr, final Channel channel, RemotingCommand request, long timeoutMillis,
+            InvokeCallback invokeCallback) throws InterruptedException, RemotingConnectException,
+            RemotingTooMuchRequestException, RemotingTimeoutException, RemotingSendRequestException {
         if (channel != null && channel.isActive()) {
             try {
                 this.invokeAsyncImpl(channel, request, timeoutMillis, invokeCallback);
@@ -613,7 +857,15 @@ public class NettyRemotingClient extends NettyRemotingAbstract implements Remoti
     public void invokeOneway(String addr, RemotingCommand request, long timeoutMillis)
             throws InterruptedException, RemotingConnectException, RemotingTooMuchRequestException,
             RemotingTimeoutException, RemotingSendRequestException {
-        final Channel channel = this.getAndCreateChannel(addr);
+        final Channel channel;
+        if (null == addr) {
+            channel = this.getAndCreateNameserverChannel();
+        }
+        else {
+            ChannelWrapper cw = this.getAndCreateChannel(addr, request.getCode());
+            channel = cw != null ? cw.getChannel() : null;
+        }
+
         if (channel != null && channel.isActive()) {
             try {
                 this.invokeOnewayImpl(channel, request, timeoutMillis);
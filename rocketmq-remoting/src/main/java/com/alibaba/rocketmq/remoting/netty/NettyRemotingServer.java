@@ -4,8 +4,10 @@
 package com.alibaba.rocketmq.remoting.netty;
 
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundMessageHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
@@ -21,8 +23,6 @@ import io.netty.handler.timeout.IdleStateHandler;
 import io.netty.util.concurrent.DefaultEventExecutorGroup;
 
 import java.net.InetSocketAddress;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -51,16 +51,21 @@ public class NettyRemotingServer extends NettyRemotingAbstract implements Remoti
     private static final Logger log = LoggerFactory.getLogger(RemotingHelper.RemotingLogName);
 
     private final ServerBootstrap serverBootstrap;
-    private final EventLoopGroup eventLoopGroup;
+    // ֻAccept
+    private final EventLoopGroup eventLoopGroupBoss;
+    // ϵIO
+    private final EventLoopGroup eventLoopGroupSelector;
+    // ̳߳أӹãΪnullʱֱIO߳ϱ
+    private DefaultEventExecutorGroup defaultEventExecutorGroup;
     private final NettyServerConfig nettyServerConfig;
+    // ӦдϲΪnullʱֱд
+    private final NettyWriteCoalescer writeCoalescer;
 
     // CallbackӦ
     private final ExecutorService publicExecutor;
 
     private final ChannelEventListener channelEventListener;
 
-    // ʱ
-    private final Timer timer = new Timer("ServerHouseKeepingService", true);
 
     class NettyServerHandler extends ChannelInboundMessageHandlerAdapter<Object> {
 
@@ -166,6 +171,23 @@ public class NettyRemotingServer extends NettyRemotingAbstract implements Remoti
         this.nettyServerConfig = nettyServerConfig;
         this.channelEventListener = channelEventListener;
 
+        if (nettyServerConfig.isServerWriteCoalescingEnable()) {
+            this.writeCoalescer =
+                    new NettyWriteCoalescer(nettyServerConfig.getServerWriteCoalescingMaxMessages(),
+                        nettyServerConfig.getServerWriteCoalescingMaxBytes(),
+                        nettyServerConfig.getServerWriteCoalescingBypassCodes());
+        }
+        else {
+            this.writeCoalescer = null;
+        }
+
+        if (nettyServerConfig.isServerCompressEnable()) {
+            this.compressPolicy =
+                    new CompressPolicy(nettyServerConfig.getServerCompressCodec(),
+                        nettyServerConfig.getServerCompressThreshold(),
+                        nettyServerConfig.getServerCompressRequestCodes());
+        }
+
         int publicThreadNums = nettyServerConfig.getServerCallbackExecutorThreads();
         if (publicThreadNums <= 0) {
             publicThreadNums = 4;
@@ -181,59 +203,120 @@ public class NettyRemotingServer extends NettyRemotingAbstract implements Remoti
             }
         });
 
-        this.eventLoopGroup = new NioEventLoopGroup(nettyServerConfig.getServerSelectorThreads());
+        this.eventLoopGroupBoss = new NioEventLoopGroup(1, new ThreadFactory() {
+            private AtomicInteger threadIndex = new AtomicInteger(0);
+
+
+            @Override
+            public Thread newThread(Runnable r) {
+                return new Thread(r, "NettyServerBoss_" + this.threadIndex.incrementAndGet());
+            }
+        });
+
+        this.eventLoopGroupSelector =
+                new NioEventLoopGroup(nettyServerConfig.getServerSelectorThreads(), new ThreadFactory() {
+                    private AtomicInteger threadIndex = new AtomicInteger(0);
+
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        return new Thread(r, "NettyServerSelector_" + this.threadIndex.incrementAndGet());
+                    }
+                });
     }
 
 
     @Override
     public void start() throws InterruptedException {
-        this.serverBootstrap.group(this.eventLoopGroup, new NioEventLoopGroup())
+        // ǰÿӶ½һ̳߳أʱ߳ʧأӹ
+        if (this.nettyServerConfig.getServerWorkerThreads() > 0) {
+            ThreadFactory threadFactory = new ThreadFactory() {
+                private AtomicInteger threadIndex = new AtomicInteger(0);
+
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    return new Thread(r, "NettyServerWorkerThread_" + this.threadIndex.incrementAndGet());
+                }
+            };
+
+            this.defaultEventExecutorGroup =
+                    new DefaultEventExecutorGroup(nettyServerConfig.getServerWorkerThreads(), threadFactory);
+        }
+
+        this.serverBootstrap.group(this.eventLoopGroupBoss, this.eventLoopGroupSelector)
             .channel(NioServerSocketChannel.class).option(ChannelOption.SO_BACKLOG, 65536)
+            .option(ChannelOption.SO_REUSEADDR, true)
             .childOption(ChannelOption.TCP_NODELAY, true)
             .localAddress(new InetSocketAddress(this.nettyServerConfig.getListenPort()))
             .childHandler(new ChannelInitializer<SocketChannel>() {
                 @Override
                 public void initChannel(SocketChannel ch) throws Exception {
-                    ch.pipeline().addLast(
+                    if (writeCoalescer != null) {
+                        writeCoalescer.register(ch);
+                    }
+
+                    ChannelHandler[] handlers = new ChannelHandler[] {
                         //
-                        new DefaultEventExecutorGroup(nettyServerConfig.getServerWorkerThreads()), //
-                        new NettyEncoder(), //
-                        new NettyDecoder(), //
+                        new NettyEncoder(nettyServerConfig.isServerBinaryHeaderEnable(), compressPolicy), //
+                        new NettyDecoder(nettyServerConfig.isServerBinaryHeaderEnable(),
+                            compressPolicy != null), //
                         new IdleStateHandler(0, 0, nettyServerConfig.getServerChannelMaxIdleTimeSeconds()),
-                        new NettyConnetManageHandler(), new NettyServerHandler());
+                        new NettyConnetManageHandler(), new NettyServerHandler() };
+
+                    if (defaultEventExecutorGroup != null) {
+                        ch.pipeline().addLast(defaultEventExecutorGroup, handlers);
+                    }
+                    else {
+                        ch.pipeline().addLast(handlers);
+                    }
                 }
             });
 
+        if (this.nettyServerConfig.isServerPooledByteBufAllocatorEnable()) {
+            this.serverBootstrap.childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
+        }
+
+        if (this.nettyServerConfig.getServerSocketSndBufSize() > 0) {
+            this.serverBootstrap.childOption(ChannelOption.SO_SNDBUF,
+                this.nettyServerConfig.getServerSocketSndBufSize());
+        }
+
+        if (this.nettyServerConfig.getServerSocketRcvBufSize() > 0) {
+            this.serverBootstrap.childOption(ChannelOption.SO_RCVBUF,
+                this.nettyServerConfig.getServerSocketRcvBufSize());
+        }
+
+        if (this.nettyServerConfig.getServerWriteBufferHighWaterMark() > 0) {
+            this.serverBootstrap.childOption(ChannelOption.WRITE_BUFFER_HIGH_WATER_MARK,
+                this.nettyServerConfig.getServerWriteBufferHighWaterMark());
+        }
+
+        if (this.nettyServerConfig.getServerWriteBufferLowWaterMark() > 0) {
+            this.serverBootstrap.childOption(ChannelOption.WRITE_BUFFER_LOW_WATER_MARK,
+                this.nettyServerConfig.getServerWriteBufferLowWaterMark());
+        }
+
         this.serverBootstrap.bind().sync();
 
         if (this.channelEventListener != null) {
             this.nettyEventExecuter.start();
         }
-
-        // ÿ1ɨ첽óʱ
-        this.timer.scheduleAtFixedRate(new TimerTask() {
-
-            @Override
-            public void run() {
-                try {
-                    NettyRemotingServer.this.scanResponseTable();
-                }
-                catch (Exception e) {
-                    log.error("scanResponseTable exception", e);
-                }
-            }
-        }, 1000 * 3, 1000);
     }
 
 
     @Override
     public void shutdown() {
         try {
-            if (this.timer != null) {
-                this.timer.cancel();
-            }
+            this.timeoutTimer.stop();
+
+            this.eventLoopGroupBoss.shutdownGracefully();
 
-            this.eventLoopGroup.shutdownGracefully();
+            this.eventLoopGroupSelector.shutdownGracefully();
+
+            if (this.defaultEventExecutorGroup != null) {
+                this.defaultEventExecutorGroup.shutdownGracefully();
+            }
 
             if (this.nettyEventExecuter != null) {
                 this.nettyEventExecuter.shutdown();
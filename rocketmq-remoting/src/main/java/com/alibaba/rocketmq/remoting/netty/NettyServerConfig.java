@@ -9,12 +9,40 @@ package com.alibaba.rocketmq.remoting.netty;
  */
 public class NettyServerConfig {
     private int listenPort = 8888;
+    // ڵ̳߳أ0ʾֱIO߳ϱ룬ʡȥһ߳л
     private int serverWorkerThreads = 32;
     private int serverCallbackExecutorThreads = 0;
+    // IO߳Acceptʹõ߳
     private int serverSelectorThreads = 8;
     private int serverOnewaySemaphoreValue = 32;
     private int serverAsyncSemaphoreValue = 64;
     private int serverChannelMaxIdleTimeSeconds = 120;
+    // ЭʹöHeaderرպʼʹprotobuf
+    private boolean serverBinaryHeaderEnable = true;
+    // ʹóػByteBufٴϢķGC
+    private boolean serverPooledByteBufAllocatorEnable = true;
+    // socketջС0ʾʹϵͳĬֵ
+    private int serverSocketSndBufSize = 0;
+    private int serverSocketRcvBufSize = 0;
+    // дߵˮλ0ʾʹNettyĬֵ
+    private int serverWriteBufferHighWaterMark = 0;
+    private int serverWriteBufferLowWaterMark = 0;
+    // ӦдϲͬһϵĶӦϲһдĬϹر
+    private boolean serverWriteCoalescingEnable = false;
+    // ϲӦbodyֽﵽֵʱд
+    private int serverWriteCoalescingMaxMessages = 64;
+    private int serverWriteCoalescingMaxBytes = 1024 * 64;
+    // ϲ룬ŷָ
+    private String serverWriteCoalescingBypassCodes = "";
+    // ЭbodyѹԶ˲֧ʱѹĬϹر
+    private boolean serverCompressEnable = false;
+    // Ĭѹ㷨LZ4zstd㷨ҪעᵽCompressCodecs
+    private String serverCompressCodec = "deflate";
+    // bodyﵽֵѹ
+    private int serverCompressThreshold = 1024 * 16;
+    // ѹ룬ʽΪ code  code:codecŷָΪձʾȫ
+    // ĬֻѹGET_ALL_TOPIC_CONFIG(21)GET_ROUTEINTO_BY_TOPIC(109)Ϣbodyͨɿͻѹ
+    private String serverCompressRequestCodes = "21,109";
 
 
     public int getListenPort() {
@@ -85,4 +113,144 @@ public class NettyServerConfig {
     public void setServerChannelMaxIdleTimeSeconds(int serverChannelMaxIdleTimeSeconds) {
         this.serverChannelMaxIdleTimeSeconds = serverChannelMaxIdleTimeSeconds;
     }
+
+
+    public boolean isServerBinaryHeaderEnable() {
+        return serverBinaryHeaderEnable;
+    }
+
+
+    public void setServerBinaryHeaderEnable(boolean serverBinaryHeaderEnable) {
+        this.serverBinaryHeaderEnable = serverBinaryHeaderEnable;
+    }
+
+
+    public boolean isServerPooledByteBufAllocatorEnable() {
+        return serverPooledByteBufAllocatorEnable;
+    }
+
+
+    public void setServerPooledByteBufAllocatorEnable(boolean serverPooledByteBufAllocatorEnable) {
+        this.serverPooledByteBufAllocatorEnable = serverPooledByteBufAllocatorEnable;
+    }
+
+
+    public int getServerSocketSndBufSize() {
+        return serverSocketSndBufSize;
+    }
+
+
+    public void setServerSocketSndBufSize(int serverSocketSndBufSize) {
+        this.serverSocketSndBufSize = serverSocketSndBufSize;
+    }
+
+
+    public int getServerSocketRcvBufSize() {
+        return serverSocketRcvBufSize;
+    }
+
+
+    public void setServerSocketRcvBufSize(int serverSocketRcvBufSize) {
+        this.serverSocketRcvBufSize = serverSocketRcvBufSize;
+    }
+
+
+    public int getServerWriteBufferHighWaterMark() {
+        return serverWriteBufferHighWaterMark;
+    }
+
+
+    public void setServerWriteBufferHighWaterMark(int serverWriteBufferHighWaterMark) {
+        this.serverWriteBufferHighWaterMark = serverWriteBufferHighWaterMark;
+    }
+
+
+    public int getServerWriteBufferLowWaterMark() {
+        return serverWriteBufferLowWaterMark;
+    }
+
+
+    public void setServerWriteBufferLowWaterMark(int serverWriteBufferLowWaterMark) {
+        this.serverWriteBufferLowWaterMark = serverWriteBufferLowWaterMark;
+    }
+
+
+    public boolean isServerWriteCoalescingEnable() {
+        return serverWriteCoalescingEnable;
+    }
+
+
+    public void setServerWriteCoalescingEnable(boolean serverWriteCoalescingEnable) {
+        this.serverWriteCoalescingEnable = serverWriteCoalescingEnable;
+    }
+
+
+    public int getServerWriteCoalescingMaxMessages() {
+        return serverWriteCoalescingMaxMessages;
+    }
+
+
+    public void setServerWriteCoalescingMaxMessages(int serverWriteCoalescingMaxMessages) {
+        this.serverWriteCoalescingMaxMessages = serverWriteCoalescingMaxMessages;
+    }
+
+
+    public int getServerWriteCoalescingMaxBytes() {
+        return serverWriteCoalescingMaxBytes;
+    }
+
+
+    public void setServerWriteCoalescingMaxBytes(int serverWriteCoalescingMaxBytes) {
+        this.serverWriteCoalescingMaxBytes = serverWriteCoalescingMaxBytes;
+    }
+
+
+    public String getServerWriteCoalescingBypassCodes() {
+        return serverWriteCoalescingBypassCodes;
+    }
+
+
+    public void setServerWriteCoalescingBypassCodes(String serverWriteCoalescingBypassCodes) {
+        this.serverWriteCoalescingBypassCodes = serverWriteCoalescingBypassCodes;
+    }
+
+
+    public boolean isServerCompressEnable() {
+        return serverCompressEnable;
+    }
+
+
+    public void setServerCompressEnable(boolean serverCompressEnable) {
+        this.serverCompressEnable = serverCompressEnable;
+    }
+
+
+    public String getServerCompressCodec() {
+        return serverCompressCodec;
+    }
+
+
+    public void setServerCompressCodec(String serverCompressCodec) {
+        this.serverCompressCodec = serverCompressCodec;
+    }
+
+
+    public int getServerCompressThreshold() {
+        return serverCompressThreshold;
+    }
+
+
+    public void setServerCompressThreshold(int serverCompressThreshold) {
+        this.serverCompressThreshold = serverCompressThreshold;
+    }
+
+
+    public String getServerCompressRequestCodes() {
+        return serverCompressRequestCodes;
+    }
+
+
+    public void setServerCompressRequestCodes(String serverCompressRequestCodes) {
+        this.serverCompressRequestCodes = serverCompressRequestCodes;
+    }
 }
@@ -0,0 +1,166 @@
+/**
+ * $Id: NettyWriteCoalescer.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.remoting.netty;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.AttributeKey;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.alibaba.rocketmq.remoting.common.Pair;
+import com.alibaba.rocketmq.remoting.protocol.RemotingCommand;
+
+
+/**
+ * Ӧдϲÿһ<br>
+ * ӦӣڵIO߳һдÿдflushϲһӦֻһϵͳ<br>
+ * еӦbodyֽﵽֵʱдָ벻ϲ
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class NettyWriteCoalescer {
+    private static final AttributeKey<ChannelWriteQueue> WriteQueueKey = new AttributeKey<ChannelWriteQueue>(
+        "WriteQueue");
+    private final int maxMessages;
+    private final int maxBytes;
+    // ӳе룬Ӧֱд
+    private final Set<Integer> bypassCodes = new HashSet<Integer>();
+
+    class ChannelWriteQueue implements Runnable {
+        private final Channel channel;
+        private final ConcurrentLinkedQueue<Pair<RemotingCommand, ChannelPromise>> queue =
+                new ConcurrentLinkedQueue<Pair<RemotingCommand, ChannelPromise>>();
+        private final AtomicInteger pendingMessages = new AtomicInteger(0);
+        private final AtomicInteger pendingBytes = new AtomicInteger(0);
+        private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+        // ﵽֵʱύIO̵߳д񣬲ȱֺϲ
+        private final Runnable thresholdFlushTask = new Runnable() {
+            @Override
+            public void run() {
+                ChannelWriteQueue.this.flush();
+            }
+        };
+
+
+        public ChannelWriteQueue(final Channel channel) {
+            this.channel = channel;
+        }
+
+
+        public ChannelFuture write(final RemotingCommand response) {
+            ChannelPromise promise = this.channel.newPromise();
+            this.queue.add(new Pair<RemotingCommand, ChannelPromise>(response, promise));
+            int length = bodyLength(response);
+            int messages = this.pendingMessages.incrementAndGet();
+            int bytes = this.pendingBytes.addAndGet(length);
+
+            // ֻԽֵʱύһΣдIOִ߳Уռҵ߳
+            if (messages == NettyWriteCoalescer.this.maxMessages
+                    || (bytes >= NettyWriteCoalescer.this.maxBytes
+                            && bytes - length < NettyWriteCoalescer.this.maxBytes)) {
+                this.channel.eventLoop().execute(this.thresholdFlushTask);
+            }
+            // ¼ѭǰд
+            else if (this.flushScheduled.compareAndSet(false, true)) {
+                this.channel.eventLoop().execute(this);
+            }
+
+            return promise;
+        }
+
+
+        public boolean isBypass(final int requestCode) {
+            return NettyWriteCoalescer.this.bypassCodes.contains(requestCode);
+        }
+
+
+        @Override
+        public void run() {
+            this.flushScheduled.set(false);
+            this.flush();
+        }
+
+
+        public void flush() {
+            final List<RemotingCommand> batch = new ArrayList<RemotingCommand>();
+            final List<ChannelPromise> promises = new ArrayList<ChannelPromise>();
+            Pair<RemotingCommand, ChannelPromise> pair = this.queue.poll();
+            while (pair != null) {
+                batch.add(pair.getObject1());
+                promises.add(pair.getObject2());
+                this.pendingMessages.decrementAndGet();
+                this.pendingBytes.addAndGet(-bodyLength(pair.getObject1()));
+                pair = this.queue.poll();
+            }
+
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            ChannelFuture future = this.channel.write(1 == batch.size() ? batch.get(0) : batch);
+            future.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture f) throws Exception {
+                    for (ChannelPromise promise : promises) {
+                        if (f.isSuccess()) {
+                            promise.setSuccess();
+                        }
+                        else {
+                            promise.setFailure(f.cause());
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+
+    public NettyWriteCoalescer(final int maxMessages, final int maxBytes, final String bypassCodes) {
+        this.maxMessages = maxMessages;
+        this.maxBytes = maxBytes;
+        if (bypassCodes != null) {
+            for (String code : bypassCodes.split(",")) {
+                if (code.trim().length() > 0) {
+                    this.bypassCodes.add(Integer.parseInt(code.trim()));
+                }
+            }
+        }
+    }
+
+
+    private static int bodyLength(final RemotingCommand cmd) {
+        return cmd.getBody() != null ? cmd.getBody().length : 0;
+    }
+
+
+    /**
+     * ӽʱעд
+     */
+    public void register(final Channel channel) {
+        channel.attr(WriteQueueKey).set(new ChannelWriteQueue(channel));
+    }
+
+
+    /**
+     * дӦδעдл벻ϲʱֱд
+     */
+    public static ChannelFuture writeResponse(final Channel channel, final int requestCode,
+            final RemotingCommand response) {
+        ChannelWriteQueue writeQueue = channel.attr(WriteQueueKey).get();
+        if (writeQueue != null && !writeQueue.isBypass(requestCode)) {
+            return writeQueue.write(response);
+        }
+
+        return channel.write(response);
+    }
+}
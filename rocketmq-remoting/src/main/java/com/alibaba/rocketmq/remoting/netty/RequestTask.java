@@ -0,0 +1,63 @@
+/**
+ * $Id: RequestTask.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.remoting.netty;
+
+import io.netty.channel.Channel;
+
+import com.alibaba.rocketmq.remoting.protocol.RemotingCommand;
+import com.alibaba.rocketmq.remoting.protocol.RemotingProtos.ResponseCode;
+
+
+/**
+ * ύҵ̳߳ص󣬼¼ʱ䣬ڹƽŶӳʱ
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class RequestTask implements Runnable {
+    private final Runnable runnable;
+    private final Channel channel;
+    private final RemotingCommand request;
+    private final long createTimestamp = System.currentTimeMillis();
+
+
+    public RequestTask(final Runnable runnable, final Channel channel, final RemotingCommand request) {
+        this.runnable = runnable;
+        this.channel = channel;
+        this.request = request;
+    }
+
+
+    @Override
+    public void run() {
+        this.runnable.run();
+    }
+
+
+    /**
+     * ٴֱӦϵͳæOnewayֱӶ
+     */
+    public void returnBusy(final String remark) {
+        if (!this.request.isOnewayRPC()) {
+            final RemotingCommand response =
+                    RemotingCommand.createResponseCommand(ResponseCode.SYSTEM_BUSY_VALUE, remark);
+            response.setOpaque(this.request.getOpaque());
+            this.channel.write(response);
+        }
+    }
+
+
+    public Channel getChannel() {
+        return channel;
+    }
+
+
+    public RemotingCommand getRequest() {
+        return request;
+    }
+
+
+    public long getCreateTimestamp() {
+        return createTimestamp;
+    }
+}
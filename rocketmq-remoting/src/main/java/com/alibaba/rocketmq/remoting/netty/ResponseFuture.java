@@ -3,6 +3,8 @@
  */
 package com.alibaba.rocketmq.remoting.netty;
 
+import io.netty.util.Timeout;
+
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -28,6 +30,8 @@ public class ResponseFuture {
     private final CountDownLatch countDownLatch = new CountDownLatch(1);
     private final SemaphoreReleaseOnlyOnce once;
     private final AtomicBoolean executeCallbackOnlyOnce = new AtomicBoolean(false);
+    // 첽ʱеǼǵĳʱ
+    private volatile Timeout timeout;
 
 
     public ResponseFuture(int opaque, long timeoutMillis, InvokeCallback invokeCallback,
@@ -55,6 +59,14 @@ public class ResponseFuture {
     }
 
 
+    public void cancelTimeout() {
+        Timeout t = this.timeout;
+        if (t != null) {
+            t.cancel();
+        }
+    }
+
+
     public boolean isTimeout() {
         long diff = System.currentTimeMillis() - this.beginTimestamp;
         return diff > this.timeoutMillis;
@@ -123,6 +135,16 @@ public class ResponseFuture {
     }
 
 
+    public Timeout getTimeout() {
+        return timeout;
+    }
+
+
+    public void setTimeout(Timeout timeout) {
+        this.timeout = timeout;
+    }
+
+
     @Override
     public String toString() {
         return "ResponseFuture [responseCommand=" + responseCommand + ", sendRequestOK=" + sendRequestOK
@@ -0,0 +1,301 @@
+/**
+ * $Id: BinaryHeaderCodec.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.remoting.protocol;
+
+import io.netty.buffer.ByteBuf;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.List;
+
+import com.alibaba.rocketmq.remoting.CommandCustomHeader;
+import com.alibaba.rocketmq.remoting.protocol.CustomHeaderCodec.FieldMetadata;
+import com.alibaba.rocketmq.remoting.protocol.CustomHeaderCodec.HeaderMetadata;
+import com.alibaba.rocketmq.remoting.protocol.RemotingProtos.LanguageCode;
+import com.alibaba.rocketmq.remoting.protocol.RemotingProtos.NVPair;
+import com.google.protobuf.InvalidProtocolBufferException;
+
+
+/**
+ * Ƹʽͷ룬Э̳ɹprotobufCommandHeader<br>
+ * ̶ֶʹñ䳤ԶֶʹֶαͻֱֵдByteBuf<br>
+ * ʽversion code language version opaque flag remark {key [name] value}* 0<br>
+ * key = (ֶα << 3) | ֵֶͣαΪ0ʱֶ
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class BinaryHeaderCodec {
+    public static final byte BinaryHeaderVersion = 1;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int TypeBits = 3;
+    private static final int TypeMask = (1 << TypeBits) - 1;
+
+    /**
+     * ֶΪ±+1ֻĩβ׷ӣϰ汾޷ͨ
+     */
+    private static final String[] WellKnownFieldNames = {
+        "topic", "queueId", "consumerGroup", "producerGroup", "queueOffset", "commitOffset", "sysFlag",
+        "maxMsgNums", "suspendTimeoutMillis", "subscription", "subVersion", "nextBeginOffset", "minOffset",
+        "maxOffset", "suggestPullingFromSlave", "msgId", "defaultTopic", "defaultTopicQueueNums",
+        "bornTimestamp", "flag", "properties", "reconsumeTimes", "offset", "tranStateTableOffset",
+        "commitLogOffset", "commitOrRollback", "fromTransactionCheck", "clientID", "timestamp", "key",
+        "maxNum", "beginTimestamp", "endTimestamp", "indexLastUpdateTimestamp", "indexLastUpdatePhyoffset",
+        "group", "delayLevel", "prevTopic", "readQueueNums", "writeQueueNums", "perm", "topicFilterType",
+        "version", "brokerName", "brokerId", "clusterName", "cluster", "brokerAddr", "orderTopicString" };
+
+    private static final HashMap<String, Integer> FieldIdTable = new HashMap<String, Integer>(
+        WellKnownFieldNames.length * 2);
+
+    static {
+        for (int i = 0; i < WellKnownFieldNames.length; i++) {
+            FieldIdTable.put(WellKnownFieldNames[i], i + 1);
+        }
+    }
+
+
+    /**
+     * ֶαţڳֶαз0
+     */
+    public static int findFieldId(final String name) {
+        Integer id = FieldIdTable.get(name);
+        return id != null ? id : 0;
+    }
+
+
+    public static void encodeHeader(final RemotingCommand cmd, final ByteBuf out) {
+        out.writeByte(BinaryHeaderVersion);
+        writeVarInt(out, zigzag(cmd.getCode()));
+        out.writeByte(cmd.getLanguage().getNumber());
+        writeVarInt(out, zigzag(cmd.getVersion()));
+        writeVarInt(out, zigzag(cmd.getOpaque()));
+        writeVarInt(out, cmd.getFlag());
+        if (cmd.getRemark() != null) {
+            out.writeByte(1);
+            writeString(out, cmd.getRemark());
+        }
+        else {
+            out.writeByte(0);
+        }
+
+        CommandCustomHeader customHeader = cmd.getCustomHeader();
+        if (customHeader != null) {
+            HeaderMetadata metadata = CustomHeaderCodec.findHeaderMetadata(customHeader.getClass());
+            for (FieldMetadata fm : metadata.getFields()) {
+                Object value = null;
+                try {
+                    value = fm.getField().get(customHeader);
+                }
+                catch (IllegalArgumentException e) {
+                }
+                catch (IllegalAccessException e) {
+                }
+
+                if (value != null) {
+                    writeField(out, fm.getId(), fm.getName(), fm.getType(), value);
+                }
+            }
+        }
+        else {
+            List<NVPair> extFields = cmd.getExtFields();
+            if (extFields != null) {
+                for (NVPair nvp : extFields) {
+                    writeField(out, findFieldId(nvp.getName()), nvp.getName(), CustomHeaderCodec.TypeString,
+                        nvp.getValue());
+                }
+            }
+        }
+
+        // ֶν
+        out.writeByte(0);
+    }
+
+
+    /**
+     * byteBufferǰλýͷԶֶͻֵ棬ҵʱٸֵ
+     */
+    public static void decodeHeader(final RemotingCommand cmd, final ByteBuffer byteBuffer)
+            throws InvalidProtocolBufferException {
+        byte version = byteBuffer.get();
+        if (version != BinaryHeaderVersion) {
+            throw new InvalidProtocolBufferException("unsupported binary header version " + version);
+        }
+
+        cmd.setCode(unzigzag(readVarInt(byteBuffer)));
+        LanguageCode language = LanguageCode.valueOf(byteBuffer.get());
+        cmd.setLanguage(language != null ? language : LanguageCode.OTHER);
+        cmd.setVersion(unzigzag(readVarInt(byteBuffer)));
+        cmd.setOpaque(unzigzag(readVarInt(byteBuffer)));
+        cmd.setFlag(readVarInt(byteBuffer));
+        if (byteBuffer.get() != 0) {
+            cmd.setRemark(readString(byteBuffer));
+        }
+
+        HashMap<String, Object> extFieldValues = new HashMap<String, Object>();
+        int key = readVarInt(byteBuffer);
+        while (key != 0) {
+            int id = key >>> TypeBits;
+            String name = null;
+            if (0 == id) {
+                name = readString(byteBuffer);
+            }
+            else if (id <= WellKnownFieldNames.length) {
+                name = WellKnownFieldNames[id - 1];
+            }
+
+            Object value = readValue(byteBuffer, key & TypeMask);
+            // °汾׷ӵֶαţ޷ʶֱӶ
+            if (name != null) {
+                extFieldValues.put(name, value);
+            }
+
+            key = readVarInt(byteBuffer);
+        }
+
+        cmd.setExtFieldValues(extFieldValues);
+    }
+
+
+    private static void writeField(final ByteBuf out, final int id, final String name, final int type,
+            final Object value) {
+        int valueType = CustomHeaderCodec.TypeUnknown == type ? CustomHeaderCodec.TypeString : type;
+        writeVarInt(out, (id << TypeBits) | valueType);
+        if (0 == id) {
+            writeString(out, name);
+        }
+
+        switch (valueType) {
+        case CustomHeaderCodec.TypeInteger:
+            writeVarInt(out, zigzag(((Number) value).intValue()));
+            break;
+        case CustomHeaderCodec.TypeLong:
+            writeVarLong(out, zigzag(((Number) value).longValue()));
+            break;
+        case CustomHeaderCodec.TypeBoolean:
+            out.writeByte(((Boolean) value).booleanValue() ? 1 : 0);
+            break;
+        case CustomHeaderCodec.TypeDouble:
+            out.writeLong(Double.doubleToLongBits(((Number) value).doubleValue()));
+            break;
+        default:
+            writeString(out, value.toString());
+            break;
+        }
+    }
+
+
+    private static Object readValue(final ByteBuffer byteBuffer, final int type)
+            throws InvalidProtocolBufferException {
+        switch (type) {
+        case CustomHeaderCodec.TypeString:
+            return readString(byteBuffer);
+        case CustomHeaderCodec.TypeInteger:
+            return unzigzag(readVarInt(byteBuffer));
+        case CustomHeaderCodec.TypeLong:
+            return unzigzag(readVarLong(byteBuffer));
+        case CustomHeaderCodec.TypeBoolean:
+            return byteBuffer.get() != 0;
+        case CustomHeaderCodec.TypeDouble:
+            return Double.longBitsToDouble(byteBuffer.getLong());
+        default:
+            throw new InvalidProtocolBufferException("unknown binary header field type " + type);
+        }
+    }
+
+
+    private static int zigzag(final int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+
+    private static long zigzag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+
+    private static int unzigzag(final int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+
+    private static long unzigzag(final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+
+    private static void writeVarInt(final ByteBuf out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        out.writeByte(value);
+    }
+
+
+    private static void writeVarLong(final ByteBuf out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+
+        out.writeByte((int) value);
+    }
+
+
+    private static int readVarInt(final ByteBuffer byteBuffer) throws InvalidProtocolBufferException {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = byteBuffer.get();
+            result |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+
+        throw new InvalidProtocolBufferException("malformed varint in binary header");
+    }
+
+
+    private static long readVarLong(final ByteBuffer byteBuffer) throws InvalidProtocolBufferException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = byteBuffer.get();
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+
+        throw new InvalidProtocolBufferException("malformed varint in binary header");
+    }
+
+
+    private static void writeString(final ByteBuf out, final String value) {
+        byte[] data = value.getBytes(UTF8);
+        writeVarInt(out, data.length);
+        out.writeBytes(data);
+    }
+
+
+    private static String readString(final ByteBuffer byteBuffer) throws InvalidProtocolBufferException {
+        int length = readVarInt(byteBuffer);
+        if (length < 0 || length > byteBuffer.remaining()) {
+            throw new InvalidProtocolBufferException("malformed string length " + length
+                    + " in binary header");
+        }
+
+        if (byteBuffer.hasArray()) {
+            String value =
+                    new String(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(), length,
+                        UTF8);
+            byteBuffer.position(byteBuffer.position() + length);
+            return value;
+        }
+
+        byte[] data = new byte[length];
+        byteBuffer.get(data);
+        return new String(data, UTF8);
+    }
+}
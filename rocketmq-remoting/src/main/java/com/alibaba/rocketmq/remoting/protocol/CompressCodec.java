@@ -0,0 +1,32 @@
+/**
+ * $Id: CompressCodec.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.remoting.protocol;
+
+import java.io.IOException;
+
+
+/**
+ * ͨŲbodyѹ㷨ѹbodyֽΪ㷨ͣCompressCodecsͲҽѹ㷨
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public interface CompressCodec {
+    /**
+     * 㷨ͣдѹbodyֽڣע޸
+     */
+    public byte getType();
+
+
+    public String getName();
+
+
+    public byte[] compress(final byte[] src) throws IOException;
+
+
+    /**
+     * ѹ󳬹maxLengthʱ׳IOExceptionֹԶúСѹݺľڴ
+     */
+    public byte[] decompress(final byte[] src, final int offset, final int length, final int maxLength)
+            throws IOException;
+}
@@ -0,0 +1,67 @@
+/**
+ * $Id: CompressCodecs.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.remoting.protocol;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * ѹ㷨עĬֻdeflateLZ4zstd㷨ͨregisterע
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class CompressCodecs {
+    private static final CompressCodec[] CodecTypeTable = new CompressCodec[256];
+    private static final ConcurrentHashMap<String, CompressCodec> CodecNameTable =
+            new ConcurrentHashMap<String, CompressCodec>();
+
+    static {
+        register(new DeflateCompressCodec());
+    }
+
+
+    public static synchronized void register(final CompressCodec codec) {
+        CodecTypeTable[codec.getType() & 0xFF] = codec;
+        CodecNameTable.put(codec.getName(), codec);
+    }
+
+
+    public static CompressCodec findCodec(final String name) {
+        return CodecNameTable.get(name);
+    }
+
+
+    /**
+     * ѹֽд㷨ͣѹûбСʱnull
+     */
+    public static byte[] compress(final CompressCodec codec, final byte[] src) throws IOException {
+        byte[] data = codec.compress(src);
+        if (data.length + 1 >= src.length) {
+            return null;
+        }
+
+        byte[] result = new byte[data.length + 1];
+        result[0] = codec.getType();
+        System.arraycopy(data, 0, result, 1, data.length);
+        return result;
+    }
+
+
+    /**
+     * ѹ󳬹maxLengthʱ׳IOException
+     */
+    public static byte[] decompress(final byte[] src, final int maxLength) throws IOException {
+        if (null == src || src.length < 1) {
+            throw new IOException("compressed body is empty");
+        }
+
+        CompressCodec codec = CodecTypeTable[src[0] & 0xFF];
+        if (null == codec) {
+            throw new IOException("unknown compress codec type " + src[0]);
+        }
+
+        return codec.decompress(src, 1, src.length - 1, maxLength);
+    }
+}
@@ -0,0 +1,409 @@
+/**
+ * $Id: CustomHeaderCodec.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.remoting.protocol;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.alibaba.rocketmq.remoting.CommandCustomHeader;
+import com.alibaba.rocketmq.remoting.FastCodecHeader;
+import com.alibaba.rocketmq.remoting.annotation.CFNotNull;
+import com.alibaba.rocketmq.remoting.exception.RemotingCommandException;
+import com.alibaba.rocketmq.remoting.protocol.RemotingProtos.NVPair;
+
+
+/**
+ * Զֶչֶ֮ı<br>
+ * ʵFastCodecHeaderHeaderֱӶдֶΣHeaderֶֻһΣ໺
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class CustomHeaderCodec {
+    public static final int TypeUnknown = 0;
+    public static final int TypeString = 1;
+    public static final int TypeInteger = 2;
+    public static final int TypeLong = 3;
+    public static final int TypeBoolean = 4;
+    public static final int TypeDouble = 5;
+
+    private static final ConcurrentHashMap<Class<?>, HeaderMetadata> HeaderMetadataTable =
+            new ConcurrentHashMap<Class<?>, HeaderMetadata>(64);
+
+    /**
+     * һֶεķϢ
+     */
+    public static class FieldMetadata {
+        private final Field field;
+        private final String name;
+        private final int type;
+        private final boolean notNull;
+        // Headerеֶα
+        private final int id;
+
+
+        public FieldMetadata(Field field, String name, int type, boolean notNull) {
+            this.field = field;
+            this.name = name;
+            this.type = type;
+            this.notNull = notNull;
+            this.id = BinaryHeaderCodec.findFieldId(name);
+        }
+
+
+        public Object parseValue(final String value) {
+            switch (this.type) {
+            case TypeString:
+                return value;
+            case TypeInteger:
+                return Integer.parseInt(value);
+            case TypeLong:
+                return Long.parseLong(value);
+            case TypeBoolean:
+                return Boolean.parseBoolean(value);
+            case TypeDouble:
+                return Double.parseDouble(value);
+            default:
+                return null;
+            }
+        }
+
+
+        /**
+         * HeaderֵѾͻģһʱֱʹ
+         */
+        public Object convertValue(final Object value) {
+            switch (this.type) {
+            case TypeString:
+                return value.toString();
+            case TypeInteger:
+                if (value instanceof Integer) {
+                    return value;
+                }
+                break;
+            case TypeLong:
+                if (value instanceof Long) {
+                    return value;
+                }
+                break;
+            case TypeBoolean:
+                if (value instanceof Boolean) {
+                    return value;
+                }
+                break;
+            case TypeDouble:
+                if (value instanceof Double) {
+                    return value;
+                }
+                break;
+            default:
+                break;
+            }
+
+            return this.parseValue(value.toString());
+        }
+
+
+        public Field getField() {
+            return field;
+        }
+
+
+        public String getName() {
+            return name;
+        }
+
+
+        public int getType() {
+            return type;
+        }
+
+
+        public boolean isNotNull() {
+            return notNull;
+        }
+
+
+        public int getId() {
+            return id;
+        }
+    }
+
+    /**
+     * һHeaderķϢֶΰ˳
+     */
+    public static class HeaderMetadata {
+        private final FieldMetadata[] fields;
+        private final HashMap<String, FieldMetadata> fieldTable;
+        private final boolean hasNotNullField;
+
+
+        public HeaderMetadata(FieldMetadata[] fields) {
+            this.fields = fields;
+            this.fieldTable = new HashMap<String, FieldMetadata>(fields.length * 2);
+            boolean notNull = false;
+            for (FieldMetadata fm : fields) {
+                this.fieldTable.put(fm.getName(), fm);
+                notNull = notNull || fm.isNotNull();
+            }
+            this.hasNotNullField = notNull;
+        }
+
+
+        public FieldMetadata[] getFields() {
+            return fields;
+        }
+
+
+        public FieldMetadata findField(final String name) {
+            return this.fieldTable.get(name);
+        }
+
+
+        public boolean isHasNotNullField() {
+            return hasNotNullField;
+        }
+    }
+
+
+    private static int parseType(final Class<?> clazz) {
+        if (clazz == String.class) {
+            return TypeString;
+        }
+        else if (clazz == Integer.class || clazz == int.class) {
+            return TypeInteger;
+        }
+        else if (clazz == Long.class || clazz == long.class) {
+            return TypeLong;
+        }
+        else if (clazz == Boolean.class || clazz == boolean.class) {
+            return TypeBoolean;
+        }
+        else if (clazz == Double.class || clazz == double.class) {
+            return TypeDouble;
+        }
+
+        return TypeUnknown;
+    }
+
+
+    private static boolean isNotNullField(final Field field) {
+        Annotation[] ann = field.getAnnotations();
+        if (ann != null && ann.length > 0) {
+            return ann[0].annotationType().getSimpleName().equalsIgnoreCase(CFNotNull.class.getSimpleName());
+        }
+
+        return false;
+    }
+
+
+    public static HeaderMetadata findHeaderMetadata(final Class<?> classHeader) {
+        HeaderMetadata metadata = HeaderMetadataTable.get(classHeader);
+        if (null == metadata) {
+            Field[] fields = classHeader.getDeclaredFields();
+            List<FieldMetadata> list = new ArrayList<FieldMetadata>(fields.length);
+            for (Field field : fields) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    String name = field.getName();
+                    if (!name.startsWith("this")) {
+                        field.setAccessible(true);
+                        list.add(new FieldMetadata(field, name, parseType(field.getType()),
+                            isNotNullField(field)));
+                    }
+                }
+            }
+
+            metadata = new HeaderMetadata(list.toArray(new FieldMetadata[list.size()]));
+            HeaderMetadata prev = HeaderMetadataTable.putIfAbsent(classHeader, metadata);
+            if (prev != null) {
+                metadata = prev;
+            }
+        }
+
+        return metadata;
+    }
+
+
+    public static void addField(final List<NVPair> extFields, final String name, final Object value) {
+        if (value != null) {
+            NVPair.Builder nvb = NVPair.newBuilder();
+            nvb.setName(name);
+            nvb.setValue(value.toString());
+            extFields.add(nvb.build());
+        }
+    }
+
+
+    /**
+     * FastCodecHeaderCFNotNullֶʹã쳣Ϣ뷴䷽ʽһ
+     */
+    public static void checkNotNull(final String name, final Object value) throws RemotingCommandException {
+        if (null == value) {
+            throw new RemotingCommandException(name + " is null");
+        }
+    }
+
+
+    public static List<NVPair> encode(final CommandCustomHeader header) {
+        if (header instanceof FastCodecHeader) {
+            List<NVPair> extFields = new ArrayList<NVPair>(16);
+            ((FastCodecHeader) header).encodeFields(extFields);
+            return extFields;
+        }
+
+        return encodeByReflect(header);
+    }
+
+
+    public static List<NVPair> encodeByReflect(final CommandCustomHeader header) {
+        FieldMetadata[] fields = findHeaderMetadata(header.getClass()).getFields();
+        List<NVPair> extFields = new ArrayList<NVPair>(fields.length);
+        for (FieldMetadata fm : fields) {
+            Object value = null;
+            try {
+                value = fm.getField().get(header);
+            }
+            catch (IllegalArgumentException e) {
+            }
+            catch (IllegalAccessException e) {
+            }
+
+            addField(extFields, fm.getName(), value);
+        }
+
+        return extFields;
+    }
+
+
+    public static CommandCustomHeader decode(final Class<? extends CommandCustomHeader> classHeader,
+            final List<NVPair> extFields) throws RemotingCommandException {
+        return decode(classHeader, extFields, false);
+    }
+
+
+    public static CommandCustomHeader decodeByReflect(final Class<? extends CommandCustomHeader> classHeader,
+            final List<NVPair> extFields) throws RemotingCommandException {
+        return decode(classHeader, extFields, true);
+    }
+
+
+    /**
+     * HeaderԶֶ
+     */
+    public static CommandCustomHeader decode(final Class<? extends CommandCustomHeader> classHeader,
+            final Map<String, Object> extFieldValues) throws RemotingCommandException {
+        CommandCustomHeader objectHeader = newHeader(classHeader);
+        if (null == objectHeader) {
+            return null;
+        }
+
+        HeaderMetadata metadata = findHeaderMetadata(classHeader);
+        for (FieldMetadata fm : metadata.getFields()) {
+            Object value = extFieldValues.get(fm.getName());
+            if (value != null) {
+                try {
+                    fm.getField().set(objectHeader, fm.convertValue(value));
+                }
+                catch (IllegalArgumentException e) {
+                }
+                catch (IllegalAccessException e) {
+                }
+            }
+        }
+
+        checkHeader(metadata, objectHeader);
+
+        return objectHeader;
+    }
+
+
+    private static CommandCustomHeader newHeader(final Class<? extends CommandCustomHeader> classHeader) {
+        try {
+            return classHeader.newInstance();
+        }
+        catch (InstantiationException e) {
+            return null;
+        }
+        catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+
+    private static CommandCustomHeader decode(final Class<? extends CommandCustomHeader> classHeader,
+            final List<NVPair> extFields, final boolean forceReflect) throws RemotingCommandException {
+        CommandCustomHeader objectHeader = newHeader(classHeader);
+        if (null == objectHeader) {
+            return null;
+        }
+
+        HeaderMetadata metadata = findHeaderMetadata(classHeader);
+        if (!forceReflect && objectHeader instanceof FastCodecHeader) {
+            FastCodecHeader fastCodecHeader = (FastCodecHeader) objectHeader;
+            try {
+                fastCodecHeader.decodeFields(extFields);
+            }
+            catch (NumberFormatException e) {
+                throw new RemotingCommandException("decode " + classHeader.getSimpleName() + " failed, "
+                        + e.getMessage(), e);
+            }
+
+            // 뷴䷽ʽʹͬһأֵ֤һ
+            if (metadata.isHasNotNullField()) {
+                fastCodecHeader.checkNotNullFields();
+            }
+            objectHeader.checkFields();
+        }
+        else {
+            for (NVPair nvp : extFields) {
+                FieldMetadata fm = metadata.findField(nvp.getName());
+                if (fm != null) {
+                    try {
+                        fm.getField().set(objectHeader, fm.parseValue(nvp.getValue()));
+                    }
+                    catch (IllegalArgumentException e) {
+                    }
+                    catch (IllegalAccessException e) {
+                    }
+                }
+            }
+
+            checkHeader(metadata, objectHeader);
+        }
+
+        return objectHeader;
+    }
+
+
+    private static void checkHeader(final HeaderMetadata metadata, final CommandCustomHeader objectHeader)
+            throws RemotingCommandException {
+        // 鷵ضǷЧ
+        if (metadata.isHasNotNullField()) {
+            for (FieldMetadata fm : metadata.getFields()) {
+                if (fm.isNotNull()) {
+                    Object value = null;
+                    try {
+                        value = fm.getField().get(objectHeader);
+                    }
+                    catch (IllegalArgumentException e) {
+                    }
+                    catch (IllegalAccessException e) {
+                    }
+
+                    // ֵ
+                    if (null == value) {
+                        throw new RemotingCommandException(fm.getName() + " is null");
+                    }
+                }
+            }
+        }
+
+        objectHeader.checkFields();
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * $Id: DeflateCompressCodec.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.remoting.protocol;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+
+/**
+ * JDKԴdeflateѹĬʹļ19ѹֻ߳ٶȴ
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class DeflateCompressCodec implements CompressCodec {
+    public static final byte TypeDeflate = 1;
+    private final int level;
+
+
+    public DeflateCompressCodec() {
+        this(Deflater.BEST_SPEED);
+    }
+
+
+    public DeflateCompressCodec(final int level) {
+        this.level = level;
+    }
+
+
+    @Override
+    public byte getType() {
+        return TypeDeflate;
+    }
+
+
+    @Override
+    public String getName() {
+        return "deflate";
+    }
+
+
+    @Override
+    public byte[] compress(final byte[] src) throws IOException {
+        Deflater deflater = new Deflater(this.level);
+        try {
+            deflater.setInput(src);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(src.length / 2 + 64);
+            byte[] buffer = new byte[1024 * 8];
+            while (!deflater.finished()) {
+                int len = deflater.deflate(buffer);
+                out.write(buffer, 0, len);
+            }
+
+            return out.toByteArray();
+        }
+        finally {
+            deflater.end();
+        }
+    }
+
+
+    @Override
+    public byte[] decompress(final byte[] src, final int offset, final int length, final int maxLength)
+            throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(src, offset, length);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.min(length * 4, maxLength));
+            byte[] buffer = new byte[1024 * 8];
+            while (!inflater.finished()) {
+                int len = inflater.inflate(buffer);
+                if (0 == len && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("truncated deflate data");
+                }
+                if (out.size() + len > maxLength) {
+                    throw new IOException("decompressed body exceeds " + maxLength + " bytes");
+                }
+                out.write(buffer, 0, len);
+            }
+
+            return out.toByteArray();
+        }
+        catch (DataFormatException e) {
+            throw new IOException(e.getMessage());
+        }
+        finally {
+            inflater.end();
+        }
+    }
+}
@@ -3,16 +3,16 @@
  */
 package com.alibaba.rocketmq.remoting.protocol;
 
-import java.lang.annotation.Annotation;
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import com.alibaba.rocketmq.remoting.CommandCustomHeader;
-import com.alibaba.rocketmq.remoting.annotation.CFNotNull;
 import com.alibaba.rocketmq.remoting.exception.RemotingCommandException;
 import com.alibaba.rocketmq.remoting.protocol.RemotingProtos.CommandHeader;
 import com.alibaba.rocketmq.remoting.protocol.RemotingProtos.FlagBit;
@@ -32,6 +32,18 @@ public class RemotingCommand {
     private static volatile int ConfigVersion = -1;
     private static AtomicInteger RequestId = new AtomicInteger(0);
 
+    /**
+     * HeaderлʽHeaderֶεֽ
+     */
+    public static final int SerializeTypeProtobuf = 0;
+    public static final int SerializeTypeBinary = 1;
+    // ֶ֧Headerı־λϵĸʽЭ̣FlagBitеλͻ
+    private static final int BinaryHeaderFlagBit = 2;
+    // ֧bodyѹı־λϵѹЭ
+    private static final int CompressSupportedFlagBit = 3;
+    // bodyѾѹbodyֽΪѹ㷨
+    private static final int BodyCompressedFlagBit = 4;
+
     /**
      * Header 
      */
@@ -42,12 +54,16 @@ public class RemotingCommand {
     private int flag = 0;
     private String remark;
     private List<NVPair> extFields;
+    // HeaderԶֶΣֵѾͻ
+    private Map<String, Object> extFieldValues;
     private CommandCustomHeader customHeader;
 
     /**
      * Body 
      */
     private byte[] body;
+    // Ӧbodyʹõѹ㷨л
+    private transient CompressCodec bodyCompressCodec;
 
 
     protected RemotingCommand() {
@@ -121,31 +137,7 @@ public class RemotingCommand {
 
     private void makeCustomHeaderToNet() {
         if (this.customHeader != null) {
-            Field[] fields = this.customHeader.getClass().getDeclaredFields();
-            this.extFields = new ArrayList<NVPair>(fields.length);
-            for (Field field : fields) {
-                if (!Modifier.isStatic(field.getModifiers())) {
-                    String name = field.getName();
-                    if (!name.startsWith("this")) {
-                        Object value = null;
-                        try {
-                            field.setAccessible(true);
-                            value = field.get(this.customHeader);
-                        }
-                        catch (IllegalArgumentException e) {
-                        }
-                        catch (IllegalAccessException e) {
-                        }
-
-                        if (value != null) {
-                            NVPair.Builder nvb = NVPair.newBuilder();
-                            nvb.setName(name);
-                            nvb.setValue(value.toString());
-                            this.extFields.add(nvb.build());
-                        }
-                    }
-                }
-            }
+            this.extFields = CustomHeaderCodec.encode(this.customHeader);
         }
     }
 
@@ -157,101 +149,12 @@ public class RemotingCommand {
 
     public CommandCustomHeader decodeCommandCustomHeader(Class<? extends CommandCustomHeader> classHeader)
             throws RemotingCommandException {
-        if (this.extFields != null) {
-            CommandCustomHeader objectHeader;
-            try {
-                objectHeader = classHeader.newInstance();
-            }
-            catch (InstantiationException e) {
-                return null;
-            }
-            catch (IllegalAccessException e) {
-                return null;
-            }
-
-            for (NVPair nvp : this.extFields) {
-                String name = nvp.getName();
-                String value = nvp.getValue();
-
-                try {
-                    Field field = objectHeader.getClass().getDeclaredField(name);
-                    field.setAccessible(true);
-                    String type = field.getType().getSimpleName();
-                    Object valueParsed = null;
-
-                    if (type.equals("String")) {
-                        valueParsed = value;
-                    }
-                    else if (type.equals("Integer")) {
-                        valueParsed = Integer.parseInt(value);
-                    }
-                    else if (type.equals("Long")) {
-                        valueParsed = Long.parseLong(value);
-                    }
-                    else if (type.equals("Boolean")) {
-                        valueParsed = Boolean.parseBoolean(value);
-                    }
-                    else if (type.equals("Double")) {
-                        valueParsed = Double.parseDouble(value);
-                    }
-                    else if (type.equals("int")) {
-                        valueParsed = Integer.parseInt(value);
-                    }
-                    else if (type.equals("long")) {
-                        valueParsed = Long.parseLong(value);
-                    }
-                    else if (type.equals("boolean")) {
-                        valueParsed = Boolean.parseBoolean(value);
-                    }
-                    else if (type.equals("double")) {
-                        valueParsed = Double.parseDouble(value);
-                    }
-
-                    field.set(objectHeader, valueParsed);
-                }
-                catch (SecurityException e) {
-                }
-                catch (NoSuchFieldException e) {
-                }
-                catch (IllegalArgumentException e) {
-                }
-                catch (IllegalAccessException e) {
-                }
-            }
-
-            // 鷵ضǷЧ
-            Field[] fields = objectHeader.getClass().getDeclaredFields();
-            for (Field field : fields) {
-                if (!Modifier.isStatic(field.getModifiers())) {
-                    String name = field.getName();
-                    if (!name.startsWith("this")) {
-                        Object value = null;
-                        try {
-                            field.setAccessible(true);
-                            value = field.get(objectHeader);
-                        }
-                        catch (IllegalArgumentException e) {
-                        }
-                        catch (IllegalAccessException e) {
-                        }
-
-                        // ֵ
-                        if (null == value) {
-                            Annotation[] ann = field.getAnnotations();
-                            if (ann != null && ann.length > 0) {
-                                if (ann[0].annotationType().getSimpleName()
-                                    .equalsIgnoreCase(CFNotNull.class.getSimpleName())) {
-                                    throw new RemotingCommandException(name + " is null");
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-
-            objectHeader.checkFields();
+        if (this.extFieldValues != null) {
+            return CustomHeaderCodec.decode(classHeader, this.extFieldValues);
+        }
 
-            return objectHeader;
+        if (this.extFields != null) {
+            return CustomHeaderCodec.decode(classHeader, this.extFields);
         }
 
         return null;
@@ -359,6 +262,78 @@ public class RemotingCommand {
     }
 
 
+    /**
+     * ָлʽֻHeaderbodyֶ
+     */
+    public ByteBuffer encodeHeader(final int bodyLength, final int serializeType) {
+        if (SerializeTypeBinary == serializeType) {
+            ByteBuf out = Unpooled.buffer(128);
+            this.encodeBinaryHeader(bodyLength, out);
+            return out.nioBuffer();
+        }
+
+        return this.encodeHeader(bodyLength);
+    }
+
+
+    /**
+     * ֱӱ뵽ByteBufУپмByteBufferbodyֻһ
+     */
+    public void encode(final ByteBuf out, final int serializeType) {
+        int bodyLength = this.body != null ? this.body.length : 0;
+        if (SerializeTypeBinary == serializeType) {
+            this.encodeBinaryHeader(bodyLength, out);
+        }
+        else {
+            byte[] headerData = this.buildHeader().toByteArray();
+            out.writeInt(4 + headerData.length + bodyLength);
+            out.writeInt(headerData.length);
+            out.writeBytes(headerData);
+        }
+
+        if (this.body != null) {
+            out.writeBytes(this.body);
+        }
+    }
+
+
+    /**
+     * ʹѹbody룬ԭʼbody־λڱɺָԱظ
+     */
+    public void encode(final ByteBuf out, final int serializeType, final byte[] compressedBody) {
+        final byte[] originBody = this.body;
+        final int originFlag = this.flag;
+        try {
+            this.body = compressedBody;
+            this.markBodyCompressed();
+            this.encode(out, serializeType);
+        }
+        finally {
+            this.body = originBody;
+            this.flag = originFlag;
+        }
+    }
+
+
+    private void encodeBinaryHeader(final int bodyLength, final ByteBuf out) {
+        int beginIndex = out.writerIndex();
+        // lengthheader lengthԺ
+        out.writeInt(0);
+        out.writeInt(0);
+
+        BinaryHeaderCodec.encodeHeader(this, out);
+
+        int headerLength = out.writerIndex() - beginIndex - 8;
+        out.setInt(beginIndex, 4 + headerLength + bodyLength);
+        out.setInt(beginIndex + 4, markSerializeType(headerLength, SerializeTypeBinary));
+    }
+
+
+    private static int markSerializeType(final int headerLength, final int serializeType) {
+        return (serializeType << 24) | (headerLength & 0xFFFFFF);
+    }
+
+
     public static RemotingCommand decode(final byte[] array) throws InvalidProtocolBufferException {
         ByteBuffer byteBuffer = ByteBuffer.wrap(array);
         return decode(byteBuffer);
@@ -367,10 +342,34 @@ public class RemotingCommand {
 
     public static RemotingCommand decode(final ByteBuffer byteBuffer) throws InvalidProtocolBufferException {
         int length = byteBuffer.limit();
-        int headerLength = byteBuffer.getInt();
+        int oriHeaderLength = byteBuffer.getInt();
+        int headerLength = oriHeaderLength & 0xFFFFFF;
+        int serializeType = (oriHeaderLength >> 24) & 0xFF;
 
-        byte[] headerData = new byte[headerLength];
-        byteBuffer.get(headerData);
+        RemotingCommand cmd = new RemotingCommand();
+        if (SerializeTypeBinary == serializeType) {
+            int headerEnd = byteBuffer.position() + headerLength;
+            BinaryHeaderCodec.decodeHeader(cmd, byteBuffer);
+            byteBuffer.position(headerEnd);
+        }
+        else if (SerializeTypeProtobuf == serializeType) {
+            byte[] headerData = new byte[headerLength];
+            byteBuffer.get(headerData);
+            CommandHeader header = CommandHeader.parseFrom(headerData);
+
+            cmd.code = header.getCode();
+            cmd.language = header.getLanguage();
+            cmd.version = header.getVersion();
+            cmd.opaque = header.getOpaque();
+            cmd.flag = header.getFlag();
+            if (header.hasRemark())
+                cmd.remark = header.getRemark();
+
+            cmd.extFields = header.getExtFieldsList();
+        }
+        else {
+            throw new InvalidProtocolBufferException("unknown header serialize type " + serializeType);
+        }
 
         int bodyLength = length - 4 - headerLength;
         byte[] bodyData = null;
@@ -379,19 +378,6 @@ public class RemotingCommand {
             byteBuffer.get(bodyData);
         }
 
-        RemotingCommand cmd = new RemotingCommand();
-        CommandHeader header = CommandHeader.parseFrom(headerData);
-
-        cmd.code = header.getCode();
-        cmd.language = header.getLanguage();
-        cmd.version = header.getVersion();
-        cmd.opaque = header.getOpaque();
-        cmd.flag = header.getFlag();
-        if (header.hasRemark())
-            cmd.remark = header.getRemark();
-
-        cmd.extFields = header.getExtFieldsList();
-
         cmd.body = bodyData;
 
         return cmd;
@@ -422,6 +408,48 @@ public class RemotingCommand {
     }
 
 
+    public void markBinaryHeaderSupported() {
+        int bits = 1 << BinaryHeaderFlagBit;
+        this.flag |= bits;
+    }
+
+
+    public boolean isBinaryHeaderSupported() {
+        int bits = 1 << BinaryHeaderFlagBit;
+        return (this.flag & bits) == bits;
+    }
+
+
+    public void markCompressSupported() {
+        int bits = 1 << CompressSupportedFlagBit;
+        this.flag |= bits;
+    }
+
+
+    public boolean isCompressSupported() {
+        int bits = 1 << CompressSupportedFlagBit;
+        return (this.flag & bits) == bits;
+    }
+
+
+    public void markBodyCompressed() {
+        int bits = 1 << BodyCompressedFlagBit;
+        this.flag |= bits;
+    }
+
+
+    public void clearBodyCompressed() {
+        int bits = 1 << BodyCompressedFlagBit;
+        this.flag &= ~bits;
+    }
+
+
+    public boolean isBodyCompressed() {
+        int bits = 1 << BodyCompressedFlagBit;
+        return (this.flag & bits) == bits;
+    }
+
+
     public int getCode() {
         return code;
     }
@@ -501,7 +529,26 @@ public class RemotingCommand {
     }
 
 
+    public CompressCodec getBodyCompressCodec() {
+        return bodyCompressCodec;
+    }
+
+
+    public void setBodyCompressCodec(CompressCodec bodyCompressCodec) {
+        this.bodyCompressCodec = bodyCompressCodec;
+    }
+
+
     public List<NVPair> getExtFields() {
+        // Headerֶΰת
+        if (null == this.extFields && this.extFieldValues != null) {
+            List<NVPair> fields = new ArrayList<NVPair>(this.extFieldValues.size());
+            for (Map.Entry<String, Object> entry : this.extFieldValues.entrySet()) {
+                CustomHeaderCodec.addField(fields, entry.getKey(), entry.getValue());
+            }
+            this.extFields = fields;
+        }
+
         return extFields;
     }
 
@@ -511,11 +558,21 @@ public class RemotingCommand {
     }
 
 
+    public Map<String, Object> getExtFieldValues() {
+        return extFieldValues;
+    }
+
+
+    public void setExtFieldValues(Map<String, Object> extFieldValues) {
+        this.extFieldValues = extFieldValues;
+    }
+
+
     @Override
     public String toString() {
         return "RemotingCommand [code=" + code + ", language=" + language + ", version=" + version + ", opaque="
                 + opaque + ", flag(B)=" + Integer.toBinaryString(flag) + ", remark=" + remark + ", extFields="
-                + extFields + "]";
+                + (extFieldValues != null ? extFieldValues : extFields) + "]";
     }
 
     // public CommandCustomHeader getCustomHeader() {
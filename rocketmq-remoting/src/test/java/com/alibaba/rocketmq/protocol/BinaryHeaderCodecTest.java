@@ -0,0 +1,124 @@
+/**
+ * $Id: BinaryHeaderCodecTest.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.protocol;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import com.alibaba.rocketmq.remoting.CommandCustomHeader;
+import com.alibaba.rocketmq.remoting.exception.RemotingCommandException;
+import com.alibaba.rocketmq.remoting.protocol.RemotingCommand;
+
+
+/**
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class BinaryHeaderCodecTest {
+    public static class TestHeader implements CommandCustomHeader {
+        private String topic;
+        private Integer queueId;
+        private Long queueOffset;
+        private Boolean suggestPullingFromSlave;
+        private Double ratio;
+        private String unknownName;
+        private long subVersion;
+
+
+        @Override
+        public void checkFields() throws RemotingCommandException {
+        }
+    }
+
+
+    private static RemotingCommand encodeAndDecode(final RemotingCommand cmd, final int serializeType)
+            throws Exception {
+        int bodyLength = cmd.getBody() != null ? cmd.getBody().length : 0;
+        ByteBuffer header = cmd.encodeHeader(bodyLength, serializeType);
+        // ȥֶܳΣNettyDecoderһ
+        header.getInt();
+        ByteBuffer frame = ByteBuffer.allocate(header.remaining() + bodyLength);
+        frame.put(header);
+        if (cmd.getBody() != null) {
+            frame.put(cmd.getBody());
+        }
+        frame.flip();
+        return RemotingCommand.decode(frame);
+    }
+
+
+    private static RemotingCommand newCommand() {
+        TestHeader header = new TestHeader();
+        header.topic = "TopicTest";
+        header.queueId = 3;
+        header.queueOffset = -1L;
+        header.suggestPullingFromSlave = true;
+        header.ratio = 0.75;
+        header.unknownName = "";
+        header.subVersion = System.currentTimeMillis();
+
+        RemotingCommand cmd = RemotingCommand.createRequestCommand(11, header);
+        cmd.setRemark("hello");
+        cmd.setOpaque(Integer.MIN_VALUE);
+        cmd.setBody(new byte[] { 1, 2, 3 });
+        return cmd;
+    }
+
+
+    @Test
+    public void test_encode_decode() throws Exception {
+        RemotingCommand cmd = newCommand();
+        cmd.markBinaryHeaderSupported();
+        RemotingCommand decoded = encodeAndDecode(cmd, RemotingCommand.SerializeTypeBinary);
+
+        assertEquals(cmd.getCode(), decoded.getCode());
+        assertEquals(cmd.getLanguage(), decoded.getLanguage());
+        assertEquals(cmd.getVersion(), decoded.getVersion());
+        assertEquals(cmd.getOpaque(), decoded.getOpaque());
+        assertEquals(cmd.getFlag(), decoded.getFlag());
+        assertEquals(cmd.getRemark(), decoded.getRemark());
+        assertEquals(3, decoded.getBody().length);
+        assertTrue(decoded.isBinaryHeaderSupported());
+
+        TestHeader expected = (TestHeader) cmd.getCustomHeader();
+        TestHeader header = (TestHeader) decoded.decodeCommandCustomHeader(TestHeader.class);
+        assertEquals(expected.topic, header.topic);
+        assertEquals(expected.queueId, header.queueId);
+        assertEquals(expected.queueOffset, header.queueOffset);
+        assertEquals(expected.suggestPullingFromSlave, header.suggestPullingFromSlave);
+        assertEquals(expected.ratio, header.ratio);
+        assertEquals(expected.unknownName, header.unknownName);
+        assertEquals(expected.subVersion, header.subVersion);
+
+        // HeaderֶҲ԰ֶȡ
+        assertEquals(7, decoded.getExtFields().size());
+    }
+
+
+    @Test
+    public void test_binary_smaller_than_protobuf() throws Exception {
+        RemotingCommand cmd = newCommand();
+        int protobufSize = cmd.encodeHeader(0, RemotingCommand.SerializeTypeProtobuf).remaining();
+        int binarySize = cmd.encodeHeader(0, RemotingCommand.SerializeTypeBinary).remaining();
+        System.out.println("protobuf header " + protobufSize + " bytes, binary header " + binarySize
+                + " bytes");
+        assertTrue(binarySize < protobufSize);
+    }
+
+
+    @Test
+    public void test_protobuf_fallback() throws Exception {
+        RemotingCommand cmd = newCommand();
+        RemotingCommand decoded = encodeAndDecode(cmd, RemotingCommand.SerializeTypeProtobuf);
+        assertNull(decoded.getExtFieldValues());
+
+        TestHeader header = (TestHeader) decoded.decodeCommandCustomHeader(TestHeader.class);
+        assertEquals("TopicTest", header.topic);
+        assertEquals(Long.valueOf(-1L), header.queueOffset);
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * $Id: CompressCodecBenchmark.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.remoting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import com.alibaba.rocketmq.remoting.protocol.CompressCodec;
+import com.alibaba.rocketmq.remoting.protocol.CompressCodecs;
+import com.alibaba.rocketmq.remoting.protocol.DeflateCompressCodec;
+
+
+/**
+ * ѹ㷨Աȣֱͳѹѹѹ<br>
+ * ݰTopicõJSONıһıϢݣLZ4zstd㷨עᵽCompressCodecsһԱ<br>
+ * ÷CompressCodecBenchmark [payloadSize] [rounds] [codecName...]
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class CompressCodecBenchmark {
+    private static byte[] buildTopicConfigPayload(final int size) {
+        StringBuilder sb = new StringBuilder(size + 256);
+        sb.append("{\"topicConfigTable\":{");
+        for (int i = 0; sb.length() < size; i++) {
+            sb.append("\"TopicTest_").append(i).append("\":{\"topicName\":\"TopicTest_").append(i)
+                .append("\",\"readQueueNums\":8,\"writeQueueNums\":8,\"perm\":6,")
+                .append("\"topicFilterType\":\"SINGLE_TAG\",\"order\":false},");
+        }
+        sb.append("}}");
+        return Arrays.copyOf(sb.toString().getBytes(), size);
+    }
+
+
+    private static byte[] buildMessagePayload(final int size) {
+        Random random = new Random(0);
+        String[] words = { "order", "pay", "user", "item", "status", "create", "success", "amount", "shop" };
+        StringBuilder sb = new StringBuilder(size + 256);
+        for (int i = 0; sb.length() < size; i++) {
+            sb.append("msgId=").append(Long.toHexString(random.nextLong())).append("&seq=").append(i);
+            for (int k = 0; k < 8; k++) {
+                sb.append('&').append(words[random.nextInt(words.length)]).append('=')
+                    .append(random.nextInt(100000));
+            }
+            sb.append('\n');
+        }
+        return Arrays.copyOf(sb.toString().getBytes(), size);
+    }
+
+
+    private static byte[] buildRandomPayload(final int size) {
+        byte[] data = new byte[size];
+        new Random(0).nextBytes(data);
+        return data;
+    }
+
+
+    private static void bench(final String payloadName, final byte[] payload, final String codecName,
+            final CompressCodec codec, final int rounds) throws Exception {
+        byte[] compressed = null;
+        // Ԥ
+        for (int i = 0; i < rounds / 10 + 1; i++) {
+            compressed = codec.compress(payload);
+            codec.decompress(compressed, 0, compressed.length, Integer.MAX_VALUE);
+        }
+
+        long beginTime = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            compressed = codec.compress(payload);
+        }
+        long compressNanos = System.nanoTime() - beginTime;
+
+        beginTime = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            codec.decompress(compressed, 0, compressed.length, Integer.MAX_VALUE);
+        }
+        long decompressNanos = System.nanoTime() - beginTime;
+
+        double totalMB = (double) payload.length * rounds / 1024 / 1024;
+        System.out.printf("%-12s %-12s ratio %6.3f compress %8.1f MB/s decompress %8.1f MB/s%n",
+            payloadName, codecName, (double) compressed.length / payload.length, totalMB * 1e9
+                    / compressNanos, totalMB * 1e9 / decompressNanos);
+    }
+
+
+    public static void main(String[] args) throws Exception {
+        int payloadSize = args.length > 0 ? Integer.parseInt(args[0]) : 1024 * 64;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        List<String> names = new ArrayList<String>();
+        List<CompressCodec> codecs = new ArrayList<CompressCodec>();
+        for (int level : new int[] { 1, 5, 9 }) {
+            names.add("deflate-" + level);
+            codecs.add(new DeflateCompressCodec(level));
+        }
+        for (int i = 2; i < args.length; i++) {
+            CompressCodec codec = CompressCodecs.findCodec(args[i]);
+            if (null == codec) {
+                System.out.println("codec not registered, " + args[i]);
+                continue;
+            }
+            names.add(args[i]);
+            codecs.add(codec);
+        }
+
+        String[] payloadNames = { "topicConfig", "message", "random" };
+        byte[][] payloads =
+                { buildTopicConfigPayload(payloadSize), buildMessagePayload(payloadSize),
+                 buildRandomPayload(payloadSize) };
+        for (int p = 0; p < payloads.length; p++) {
+            for (int c = 0; c < codecs.size(); c++) {
+                bench(payloadNames[p], payloads[p], names.get(c), codecs.get(c), rounds);
+            }
+        }
+    }
+}
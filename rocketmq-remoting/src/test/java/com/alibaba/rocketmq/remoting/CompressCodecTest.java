@@ -0,0 +1,49 @@
+/**
+ * $Id: CompressCodecTest.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.remoting;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.alibaba.rocketmq.remoting.protocol.CompressCodecs;
+import com.alibaba.rocketmq.remoting.protocol.DeflateCompressCodec;
+
+
+/**
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class CompressCodecTest {
+    @Test
+    public void test_decompress_within_limit() throws Exception {
+        byte[] payload = new byte[1024 * 64];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) (i % 31);
+        }
+
+        byte[] compressed = CompressCodecs.compress(new DeflateCompressCodec(), payload);
+        assertTrue(Arrays.equals(payload, CompressCodecs.decompress(compressed, payload.length)));
+    }
+
+
+    @Test
+    public void test_decompress_exceed_limit() throws Exception {
+        // ȫѹʼߣʮKBѹݿԽѹ32M
+        byte[] payload = new byte[1024 * 1024 * 32];
+        byte[] compressed = CompressCodecs.compress(new DeflateCompressCodec(), payload);
+        assertTrue(compressed.length < 1024 * 1024);
+
+        boolean rejected = false;
+        try {
+            CompressCodecs.decompress(compressed, 1024 * 1024 * 8);
+        }
+        catch (IOException e) {
+            rejected = true;
+        }
+        assertTrue(rejected);
+    }
+}
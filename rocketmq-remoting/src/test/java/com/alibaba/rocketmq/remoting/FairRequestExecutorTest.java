@@ -0,0 +1,272 @@
+/**
+ * $Id: FairRequestExecutorTest.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.remoting;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelConfig;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.alibaba.rocketmq.remoting.netty.FairRequestExecutor;
+import com.alibaba.rocketmq.remoting.netty.RequestTask;
+import com.alibaba.rocketmq.remoting.protocol.RemotingCommand;
+import com.alibaba.rocketmq.remoting.protocol.RemotingProtos.RequestCode;
+
+
+/**
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class FairRequestExecutorTest {
+    /**
+     * ֻ¼autoRead״̬write
+     */
+    static class MockChannel implements InvocationHandler {
+        private volatile boolean autoRead = true;
+        private final AtomicInteger writeTimes = new AtomicInteger(0);
+        private final Channel channel;
+        private final ChannelConfig config;
+
+
+        public MockChannel() {
+            this.channel =
+                    (Channel) Proxy.newProxyInstance(Channel.class.getClassLoader(),
+                        new Class<?>[] { Channel.class }, this);
+            this.config =
+                    (ChannelConfig) Proxy.newProxyInstance(ChannelConfig.class.getClassLoader(),
+                        new Class<?>[] { ChannelConfig.class }, this);
+        }
+
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            }
+            else if ("equals".equals(name)) {
+                return proxy == args[0];
+            }
+            else if ("toString".equals(name)) {
+                return "MockChannel";
+            }
+            else if ("config".equals(name)) {
+                return this.config;
+            }
+            else if ("setAutoRead".equals(name)) {
+                this.autoRead = (Boolean) args[0];
+                return this.config;
+            }
+            else if ("isAutoRead".equals(name)) {
+                return this.autoRead;
+            }
+            else if ("write".equals(name)) {
+                this.writeTimes.incrementAndGet();
+                return null;
+            }
+            else if (method.getReturnType() == boolean.class) {
+                return false;
+            }
+
+            return null;
+        }
+
+
+        public Channel getChannel() {
+            return channel;
+        }
+
+
+        public boolean isAutoRead() {
+            return autoRead;
+        }
+
+
+        public int getWriteTimes() {
+            return writeTimes.get();
+        }
+    }
+
+
+    private static RequestTask buildRequestTask(final MockChannel channel, final Runnable runnable) {
+        return new RequestTask(runnable, channel.getChannel(), RemotingCommand.createRequestCommand(
+            RequestCode.DEMO_REQUEST_VALUE, null));
+    }
+
+
+    /**
+     * ύһռסΨһḶ́߳񶼻Ŷ
+     */
+    private static CountDownLatch blockWorker(final FairRequestExecutor executor, final long blockMillis)
+            throws InterruptedException {
+        final CountDownLatch blocker = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    blocker.await(blockMillis, TimeUnit.MILLISECONDS);
+                }
+                catch (InterruptedException e) {
+                }
+            }
+        });
+        while (executor.getQueueSize() > 0) {
+            Thread.sleep(1);
+        }
+        return blocker;
+    }
+
+
+    @Test
+    public void test_reject_when_queue_full() throws Exception {
+        FairRequestExecutor executor = new FairRequestExecutor("FairRequestExecutorTest", 1, 2, 1000 * 3);
+        final CountDownLatch blocker = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(3);
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    blocker.await();
+                }
+                catch (InterruptedException e) {
+                }
+                done.countDown();
+            }
+        };
+
+        // һռסΨһḶ́߳Ŷ
+        executor.execute(task);
+        while (executor.getQueueSize() > 0) {
+            Thread.sleep(1);
+        }
+        executor.execute(task);
+        executor.execute(task);
+        assertEquals(2, executor.getQueueSize());
+
+        boolean rejected = false;
+        try {
+            executor.execute(task);
+        }
+        catch (RejectedExecutionException e) {
+            rejected = true;
+        }
+        assertTrue(rejected);
+
+        blocker.countDown();
+        assertTrue(done.await(3, TimeUnit.SECONDS));
+        String stats = executor.statsAndReset();
+        assertTrue(stats, stats.contains("executed=3"));
+        assertTrue(stats, stats.contains("rejected=1"));
+        executor.shutdown();
+    }
+
+
+    @Test
+    public void test_pause_and_resume_read() throws Exception {
+        // гȵ6ʱͣ4ʱָ
+        FairRequestExecutor executor = new FairRequestExecutor("FairRequestExecutorTest", 1, 8, 1000 * 3);
+        MockChannel channel = new MockChannel();
+        CountDownLatch blocker = blockWorker(executor, 1000 * 3);
+
+        final CountDownLatch done = new CountDownLatch(6);
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                done.countDown();
+            }
+        };
+
+        for (int i = 0; i < 5; i++) {
+            executor.execute(buildRequestTask(channel, task));
+        }
+        assertTrue(channel.isAutoRead());
+
+        executor.execute(buildRequestTask(channel, task));
+        assertFalse(channel.isAutoRead());
+
+        blocker.countDown();
+        assertTrue(done.await(3, TimeUnit.SECONDS));
+        assertTrue(channel.isAutoRead());
+        executor.shutdown();
+    }
+
+
+    @Test
+    public void test_round_robin_across_channels() throws Exception {
+        FairRequestExecutor executor = new FairRequestExecutor("FairRequestExecutorTest", 1, 100, 1000 * 3);
+        MockChannel channelA = new MockChannel();
+        MockChannel channelB = new MockChannel();
+        CountDownLatch blocker = blockWorker(executor, 1000 * 3);
+
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch done = new CountDownLatch(5);
+        String[] namesA = { "a1", "a2", "a3" };
+        String[] namesB = { "b1", "b2" };
+        for (final String name : namesA) {
+            executor.execute(buildRequestTask(channelA, new Runnable() {
+                @Override
+                public void run() {
+                    order.add(name);
+                    done.countDown();
+                }
+            }));
+        }
+        for (final String name : namesB) {
+            executor.execute(buildRequestTask(channelB, new Runnable() {
+                @Override
+                public void run() {
+                    order.add(name);
+                    done.countDown();
+                }
+            }));
+        }
+
+        // Aύ3Bύ2
+        blocker.countDown();
+        assertTrue(done.await(3, TimeUnit.SECONDS));
+        assertEquals("[a1, b1, a2, b2, a3]", order.toString());
+        executor.shutdown();
+    }
+
+
+    @Test
+    public void test_expire_at_dequeue() throws Exception {
+        FairRequestExecutor executor = new FairRequestExecutor("FairRequestExecutorTest", 1, 8, 50);
+        MockChannel channel = new MockChannel();
+        CountDownLatch blocker = blockWorker(executor, 200);
+
+        final AtomicInteger runTimes = new AtomicInteger(0);
+        executor.execute(buildRequestTask(channel, new Runnable() {
+            @Override
+            public void run() {
+                runTimes.incrementAndGet();
+            }
+        }));
+
+        // ̱߳ռס200msʱѳ50msֱӦϵͳæ
+        for (int i = 0; i < 300 && channel.getWriteTimes() == 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, channel.getWriteTimes());
+        assertEquals(0, runTimes.get());
+
+        String stats = executor.statsAndReset();
+        assertTrue(stats, stats.contains("expired=1"));
+        blocker.countDown();
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * $Id: RemotingThroughputBenchmark.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.remoting;
+
+import io.netty.channel.ChannelHandlerContext;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.rocketmq.remoting.netty.NettyClientConfig;
+import com.alibaba.rocketmq.remoting.netty.NettyRemotingClient;
+import com.alibaba.rocketmq.remoting.netty.NettyRemotingServer;
+import com.alibaba.rocketmq.remoting.netty.NettyRequestProcessor;
+import com.alibaba.rocketmq.remoting.netty.NettyServerConfig;
+import com.alibaba.rocketmq.remoting.protocol.RemotingCommand;
+import com.alibaba.rocketmq.remoting.protocol.RemotingProtos.RequestCode;
+
+
+/**
+ * ͨŲGCԱȣֱڳػǳػByteBufͬãbodyԭ<br>
+ * ÷RemotingThroughputBenchmark [bodySize] [threads] [seconds]
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class RemotingThroughputBenchmark {
+    private static final int ListenPort = 10925;
+
+
+    private static long[] gcSnapshot() {
+        long[] result = new long[2];
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            result[0] += Math.max(gc.getCollectionCount(), 0);
+            result[1] += Math.max(gc.getCollectionTime(), 0);
+        }
+
+        return result;
+    }
+
+
+    private static void run(final boolean pooled, final int bodySize, final int threads, final int seconds)
+            throws Exception {
+        NettyServerConfig serverConfig = new NettyServerConfig();
+        serverConfig.setListenPort(ListenPort);
+        serverConfig.setServerPooledByteBufAllocatorEnable(pooled);
+        RemotingServer server = new NettyRemotingServer(serverConfig);
+        server.registerProcessor(RequestCode.DEMO_REQUEST_VALUE, new NettyRequestProcessor() {
+            @Override
+            public RemotingCommand processRequest(ChannelHandlerContext ctx, RemotingCommand request) {
+                RemotingCommand response = RemotingCommand.createResponseCommand(0, null);
+                response.setBody(request.getBody());
+                return response;
+            }
+        }, Executors.newFixedThreadPool(threads));
+        server.start();
+
+        NettyClientConfig clientConfig = new NettyClientConfig();
+        clientConfig.setClientPooledByteBufAllocatorEnable(pooled);
+        final RemotingClient client = new NettyRemotingClient(clientConfig);
+        client.start();
+
+        final byte[] body = new byte[bodySize];
+        final AtomicLong requests = new AtomicLong(0);
+        final long endTimestamp = System.currentTimeMillis() + seconds * 1000L;
+        final CountDownLatch latch = new CountDownLatch(threads);
+
+        System.gc();
+        long[] gcBegin = gcSnapshot();
+        long beginTime = System.currentTimeMillis();
+        for (int i = 0; i < threads; i++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        while (System.currentTimeMillis() < endTimestamp) {
+                            RemotingCommand request =
+                                    RemotingCommand.createRequestCommand(RequestCode.DEMO_REQUEST_VALUE, null);
+                            request.setBody(body);
+                            client.invokeSync("127.0.0.1:" + ListenPort, request, 1000 * 3);
+                            requests.incrementAndGet();
+                        }
+                    }
+                    catch (Exception e) {
+                        e.printStackTrace();
+                    }
+                    finally {
+                        latch.countDown();
+                    }
+                }
+            }.start();
+        }
+
+        latch.await();
+        long costTime = System.currentTimeMillis() - beginTime;
+        long[] gcEnd = gcSnapshot();
+
+        System.out.printf("%-10s body=%d threads=%d TPS=%d GC count=%d GC time=%dms%n",
+            pooled ? "pooled" : "unpooled", bodySize, threads, requests.get() * 1000 / costTime,
+            gcEnd[0] - gcBegin[0], gcEnd[1] - gcBegin[1]);
+
+        client.shutdown();
+        server.shutdown();
+        Thread.sleep(1000);
+    }
+
+
+    public static void main(String[] args) throws Exception {
+        int bodySize = args.length > 0 ? Integer.parseInt(args[0]) : 1024 * 4;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+
+        // Ԥһ֣ƽ
+        run(false, bodySize, threads, 5);
+
+        run(false, bodySize, threads, seconds);
+        run(true, bodySize, threads, seconds);
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * $Id: WriteCoalescingBenchmark.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.remoting;
+
+import io.netty.channel.ChannelHandlerContext;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.rocketmq.remoting.netty.NettyClientConfig;
+import com.alibaba.rocketmq.remoting.netty.NettyRemotingClient;
+import com.alibaba.rocketmq.remoting.netty.NettyRemotingServer;
+import com.alibaba.rocketmq.remoting.netty.NettyRequestProcessor;
+import com.alibaba.rocketmq.remoting.netty.NettyServerConfig;
+import com.alibaba.rocketmq.remoting.netty.ResponseFuture;
+import com.alibaba.rocketmq.remoting.protocol.RemotingCommand;
+import com.alibaba.rocketmq.remoting.protocol.RemotingProtos.RequestCode;
+
+
+/**
+ * Ӧдϲѹ⣬ˮ߷С󣬷ֱڿرдϲʱͳTPS<br>
+ * ϵͳô strace -f -c -e trace=write,writev ۲<br>
+ * ÷WriteCoalescingBenchmark [bodySize] [pipeline] [seconds]
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class WriteCoalescingBenchmark {
+    private static final int ListenPort = 10926;
+
+
+    private static void run(final boolean coalescing, final int bodySize, final int pipeline,
+            final int seconds) throws Exception {
+        NettyServerConfig serverConfig = new NettyServerConfig();
+        serverConfig.setListenPort(ListenPort);
+        serverConfig.setServerWriteCoalescingEnable(coalescing);
+        RemotingServer server = new NettyRemotingServer(serverConfig);
+        server.registerProcessor(RequestCode.DEMO_REQUEST_VALUE, new NettyRequestProcessor() {
+            @Override
+            public RemotingCommand processRequest(ChannelHandlerContext ctx, RemotingCommand request) {
+                RemotingCommand response = RemotingCommand.createResponseCommand(0, null);
+                response.setBody(request.getBody());
+                return response;
+            }
+        }, Executors.newFixedThreadPool(16));
+        server.start();
+
+        NettyClientConfig clientConfig = new NettyClientConfig();
+        clientConfig.setClientAsyncSemaphoreValue(pipeline * 2);
+        RemotingClient client = new NettyRemotingClient(clientConfig);
+        client.start();
+
+        final byte[] body = new byte[bodySize];
+        final AtomicLong responses = new AtomicLong(0);
+        // ;ˮ
+        final Semaphore inflight = new Semaphore(pipeline);
+        final long endTimestamp = System.currentTimeMillis() + seconds * 1000L;
+
+        long beginTime = System.currentTimeMillis();
+        while (System.currentTimeMillis() < endTimestamp) {
+            inflight.acquire();
+            RemotingCommand request =
+                    RemotingCommand.createRequestCommand(RequestCode.DEMO_REQUEST_VALUE, null);
+            request.setBody(body);
+            try {
+                client.invokeAsync("127.0.0.1:" + ListenPort, request, 1000 * 3, new InvokeCallback() {
+                    @Override
+                    public void operationComplete(ResponseFuture responseFuture) {
+                        if (responseFuture.getResponseCommand() != null) {
+                            responses.incrementAndGet();
+                        }
+                        inflight.release();
+                    }
+                });
+            }
+            catch (Exception e) {
+                inflight.release();
+                e.printStackTrace();
+            }
+        }
+
+        inflight.acquire(pipeline);
+        long costTime = System.currentTimeMillis() - beginTime;
+
+        System.out.printf("coalescing=%-5b body=%d pipeline=%d TPS=%d%n", coalescing, bodySize, pipeline,
+            responses.get() * 1000 / costTime);
+
+        client.shutdown();
+        server.shutdown();
+        Thread.sleep(1000);
+    }
+
+
+    public static void main(String[] args) throws Exception {
+        int bodySize = args.length > 0 ? Integer.parseInt(args[0]) : 128;
+        int pipeline = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+
+        // Ԥһ֣
+        run(true, bodySize, pipeline, 5);
+
+        run(false, bodySize, pipeline, seconds);
+        run(true, bodySize, pipeline, seconds);
+    }
+}
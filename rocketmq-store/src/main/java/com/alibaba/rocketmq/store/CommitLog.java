@@ -26,6 +26,7 @@ import com.alibaba.rocketmq.store.config.BrokerRole;
 import com.alibaba.rocketmq.store.config.FlushDiskType;
 import com.alibaba.rocketmq.store.ha.HAService;
 import com.alibaba.rocketmq.store.schedule.ScheduleMessageService;
+import com.alibaba.rocketmq.store.timer.TimerMessageService;
 
 
 /**
@@ -486,6 +487,12 @@ public class CommitLog {
                     defaultMessageStore.getAllocateMapedFileService());
         this.defaultMessageStore = defaultMessageStore;
 
+        // ļɾǰת浽ֲ洢
+        if (defaultMessageStore.getTieredStoreService() != null) {
+            this.mapedFileQueue.setMapedFileOffloader(defaultMessageStore.getTieredStoreService()
+                .getCommitLogFileQueue());
+        }
+
         if (FlushDiskType.SYNC_FLUSH == defaultMessageStore.getMessageStoreConfig().getFlushDiskType()) {
             this.flushCommitLogService = new GroupCommitService();
         }
@@ -544,6 +551,15 @@ public class CommitLog {
      * ȡϢ
      */
     public SelectMapedBufferResult getMessage(final long offset, final int size) {
+        // ȴ洢ѾɾϢӷֲ洢ȡ
+        if (this.defaultMessageStore.getTieredStoreService() != null) {
+            long minOffset = this.mapedFileQueue.getMinOffset();
+            if (minOffset < 0 || offset < minOffset) {
+                return this.defaultMessageStore.getTieredStoreService().getCommitLogFileQueue()
+                    .getData(offset, size);
+            }
+        }
+
         int mapedFileSize = this.defaultMessageStore.getMessageStoreConfig().getMapedFileSizeCommitLog();
         MapedFile mapedFile = this.mapedFileQueue.findMapedFileByOffset(offset, (0 == offset ? true : false));
         if (mapedFile != null) {
@@ -571,6 +587,19 @@ public class CommitLog {
 
 
     public SelectMapedBufferResult getData(final long offset, final boolean returnFirstOnNotFound) {
+        // ȴ洢Ѿɾݴӷֲ洢ȡÿȡһHA
+        if (this.defaultMessageStore.getTieredStoreService() != null) {
+            long minOffset = this.mapedFileQueue.getMinOffset();
+            if (minOffset >= 0 && offset < minOffset) {
+                SelectMapedBufferResult result =
+                        this.defaultMessageStore.getTieredStoreService().getCommitLogFileQueue().getData(offset,
+                            this.defaultMessageStore.getMessageStoreConfig().getHaTransferBatchSize(), 1);
+                if (result != null) {
+                    return result;
+                }
+            }
+        }
+
         int mapedFileSize = this.defaultMessageStore.getMessageStoreConfig().getMapedFileSizeCommitLog();
         MapedFile mapedFile = this.mapedFileQueue.findMapedFileByOffset(offset, returnFirstOnNotFound);
         if (mapedFile != null) {
@@ -695,6 +724,11 @@ public class CommitLog {
                             MessageExtBrokerInner.tagsString2tagsCode(MessageExt.parseTopicFilterType(sysFlag),
                                 tags);
                 }
+
+                // ʱϢtagsCodeͶʱ䣬쳣ָ뱸ؽ߼ʱҪԭ
+                if (TimerMessageService.TIMER_TOPIC.equals(topic)) {
+                    tagsCode = UtilALl.asLong(propertiesMap.get(Message.PROPERTY_DELIVER_TIMESTAMP), 0);
+                }
             }
 
             return new DispatchRequest(//
@@ -913,6 +947,24 @@ public class CommitLog {
                 msg.putProperty(Message.PROPERTY_REAL_QUEUE_ID, String.valueOf(msg.getQueueId()));
                 msg.setPropertiesString(MessageDecoder.messageProperties2String(msg.getProperties()));
 
+                msg.setTopic(topic);
+                msg.setQueueId(queueId);
+            }
+            // ⾫ȶʱͶ
+            else if (msg.getDeliverTimestamp() > msg.getStoreTimestamp()
+                    && this.defaultMessageStore.getTimerMessageService() != null) {
+                topic = TimerMessageService.TIMER_TOPIC;
+                queueId = TimerMessageService.TIMER_QUEUE_ID;
+                // 洢tagsCodeʵͶʱ
+                tagsCode = msg.getDeliverTimestamp();
+
+                /**
+                 * ʵtopicqueueId
+                 */
+                msg.putProperty(Message.PROPERTY_REAL_TOPIC, msg.getTopic());
+                msg.putProperty(Message.PROPERTY_REAL_QUEUE_ID, String.valueOf(msg.getQueueId()));
+                msg.setPropertiesString(MessageDecoder.messageProperties2String(msg.getProperties()));
+
                 msg.setTopic(topic);
                 msg.setQueueId(queueId);
             }
@@ -11,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.alibaba.rocketmq.common.constant.LoggerName;
+import com.alibaba.rocketmq.store.tiered.TieredFileQueue;
 
 
 /**
@@ -37,6 +38,8 @@ public class ConsumeQueue {
     private volatile long minLogicOffset = 0;
     // дʱõByteBuffer
     private final ByteBuffer byteBufferIndex;
+    // ֲ洢Ϊnullʾδ
+    private volatile TieredFileQueue tieredFileQueue;
 
     // 
     private final String storePath;
@@ -66,8 +69,20 @@ public class ConsumeQueue {
     }
 
 
+    /**
+     * ֲ洢ļɾǰת棬load֮ǰ
+     */
+    public void enableTieredStore(final TieredFileQueue tieredFileQueue) {
+        this.tieredFileQueue = tieredFileQueue;
+        this.mapedFileQueue.setMapedFileOffloader(tieredFileQueue);
+    }
+
+
     public boolean load() {
         boolean result = this.mapedFileQueue.load();
+        if (this.tieredFileQueue != null) {
+            result = result && this.tieredFileQueue.load();
+        }
         log.info("load consume queue " + this.topic + "-" + this.queueId + " " + (result ? "OK" : "Failed"));
         return result;
     }
@@ -141,6 +156,14 @@ public class ConsumeQueue {
 
 
     public long getMinOffsetInQuque() {
+        // ȴ洢ѾɾϢԴӷֲ洢ȡ
+        if (this.tieredFileQueue != null) {
+            long tieredMinOffset = this.tieredFileQueue.getMinOffset();
+            if (tieredMinOffset >= 0 && tieredMinOffset < this.minLogicOffset) {
+                return tieredMinOffset / CQStoreUnitSize;
+            }
+        }
+
         return this.minLogicOffset / CQStoreUnitSize;
     }
 
@@ -355,6 +378,18 @@ public class ConsumeQueue {
     }
 
 
+    /**
+     * ݷֲ洢CommitLogСOffsetɾֲ洢е߼ļ
+     */
+    public int deleteExpiredTieredFile(long offset) {
+        if (this.tieredFileQueue != null) {
+            return this.tieredFileQueue.deleteExpiredFileByOffset(offset, CQStoreUnitSize);
+        }
+
+        return 0;
+    }
+
+
     /**
      * ߼еСOffsetҪȴСphyMinOffset
      */
@@ -482,6 +517,19 @@ public class ConsumeQueue {
     }
 
 
+    /**
+     * ǷѾȴ洢ɾֻܴӷֲ洢ȡ
+     */
+    public boolean isInTieredStore(final long startIndex) {
+        if (null == this.tieredFileQueue) {
+            return false;
+        }
+
+        long minOffset = this.mapedFileQueue.getMinOffset();
+        return minOffset < 0 || startIndex * CQStoreUnitSize < minOffset;
+    }
+
+
     /**
      * Index Buffer
      * 
@@ -491,6 +539,11 @@ public class ConsumeQueue {
     public SelectMapedBufferResult getIndexBuffer(final long startIndex) {
         int mapedFileSize = this.mapedFileSize;
         long offset = startIndex * CQStoreUnitSize;
+        // ȴ洢Ѿɾӷֲ洢ȡ
+        if (this.isInTieredStore(startIndex)) {
+            return this.tieredFileQueue.getData(offset, mapedFileSize, CQStoreUnitSize);
+        }
+
         MapedFile mapedFile = this.mapedFileQueue.findMapedFileByOffset(offset);
         if (mapedFile != null) {
             SelectMapedBufferResult result = mapedFile.selectMapedBuffer((int) (offset % mapedFileSize));
@@ -532,6 +585,9 @@ public class ConsumeQueue {
         this.maxPhysicOffset = -1;
         this.minLogicOffset = 0;
         this.mapedFileQueue.destroy();
+        if (this.tieredFileQueue != null) {
+            this.tieredFileQueue.destroy();
+        }
     }
 
 
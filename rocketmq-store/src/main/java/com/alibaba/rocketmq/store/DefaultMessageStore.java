@@ -29,6 +29,8 @@ import com.alibaba.rocketmq.store.ha.HAService;
 import com.alibaba.rocketmq.store.index.IndexService;
 import com.alibaba.rocketmq.store.index.QueryOffsetResult;
 import com.alibaba.rocketmq.store.schedule.ScheduleMessageService;
+import com.alibaba.rocketmq.store.tiered.TieredStoreService;
+import com.alibaba.rocketmq.store.timer.TimerMessageService;
 import com.alibaba.rocketmq.store.transaction.TransactionCheckExecuter;
 import com.alibaba.rocketmq.store.transaction.TransactionStateService;
 
@@ -68,6 +70,10 @@ public class DefaultMessageStore implements MessageStore {
     private final HAService haService;
     // ʱ
     private final ScheduleMessageService scheduleMessageService;
+    // ⾫ȶʱ
+    private final TimerMessageService timerMessageService;
+    // ֲ洢
+    private final TieredStoreService tieredStoreService;
     // ֲʽ
     private final TransactionStateService transactionStateService;
     // ʱͳ
@@ -82,6 +88,10 @@ public class DefaultMessageStore implements MessageStore {
     private final SystemClock systemClock = new SystemClock(1);
     // زӿ
     private final TransactionCheckExecuter transactionCheckExecuter;
+    // ϢдConsumeQueue֪ͨڻѳѯ
+    private volatile MessageArrivingListener messageArrivingListener;
+    // Ϣ棬鹲
+    private final PullIndexCache pullIndexCache;
 
 
     public DefaultMessageStore(final MessageStoreConfig messageStoreConfig) throws IOException {
@@ -94,6 +104,9 @@ public class DefaultMessageStore implements MessageStore {
         this.messageStoreConfig = messageStoreConfig;
         this.transactionCheckExecuter = transactionCheckExecuter;
         this.allocateMapedFileService = new AllocateMapedFileService();
+        // CommitLogʱ˷
+        this.tieredStoreService =
+                messageStoreConfig.isTieredStoreEnable() ? new TieredStoreService(messageStoreConfig) : null;
         this.commitLog = new CommitLog(this);
         this.consumeQueueTable =
                 new ConcurrentHashMap<String/* topic */, ConcurrentHashMap<Integer/* queueId */, ConsumeQueue>>(
@@ -108,20 +121,28 @@ public class DefaultMessageStore implements MessageStore {
         this.indexService = new IndexService(this);
         this.haService = new HAService(this);
         this.transactionStateService = new TransactionStateService(this);
+        this.pullIndexCache =
+                this.messageStoreConfig.isPullIndexCacheEnable() ? new PullIndexCache(
+                    this.messageStoreConfig.getPullIndexCacheExpireMillis(),
+                    this.messageStoreConfig.getPullIndexCacheMaxEntries()) : null;
 
         switch (this.messageStoreConfig.getBrokerRole()) {
         case SLAVE:
             this.reputMessageService = new ReputMessageService();
             this.scheduleMessageService = null;
+            this.timerMessageService = null;
             break;
         case ASYNC_MASTER:
         case SYNC_MASTER:
             this.reputMessageService = null;
             this.scheduleMessageService = new ScheduleMessageService(this);
+            this.timerMessageService =
+                    this.messageStoreConfig.isTimerMessageEnable() ? new TimerMessageService(this) : null;
             break;
         default:
             this.reputMessageService = null;
             this.scheduleMessageService = null;
+            this.timerMessageService = null;
         }
 
         // load˷ǰ
@@ -286,6 +307,18 @@ public class DefaultMessageStore implements MessageStore {
         }
 
 
+        /**
+         * ֲ洢ϵļıʱɾ
+         */
+        private void deleteExpiredTieredFiles() {
+            if (DefaultMessageStore.this.tieredStoreService != null) {
+                if (DefaultMessageStore.this.tieredStoreService.deleteExpiredFiles() > 0) {
+                    DefaultMessageStore.this.cleanConsumeQueueService.wakeup();
+                }
+            }
+        }
+
+
         public void run() {
             DefaultMessageStore.log.info(this.getServiceName() + " service started");
             int cleanResourceInterval =
@@ -297,6 +330,8 @@ public class DefaultMessageStore implements MessageStore {
                     this.deleteExpiredFiles();
 
                     this.redeleteHangedFile();
+
+                    this.deleteExpiredTieredFiles();
                 }
                 catch (Exception e) {
                     DefaultMessageStore.log.warn(this.getServiceName() + " service has exception. ", e);
@@ -328,6 +363,7 @@ public class DefaultMessageStore implements MessageStore {
      */
     class CleanConsumeQueueService extends ServiceThread {
         private long lastPhysicalMinOffset = 0;
+        private long lastTieredPhysicalMinOffset = 0;
 
 
         private void deleteExpiredFiles() {
@@ -365,6 +401,37 @@ public class DefaultMessageStore implements MessageStore {
                 // ɾ
                 DefaultMessageStore.this.indexService.deleteExpiredFile(minOffset);
             }
+
+            this.deleteExpiredTieredFiles(minOffset);
+        }
+
+
+        /**
+         * ֲ洢е߼ļݷֲ洢CommitLogСOffsetɾ
+         */
+        private void deleteExpiredTieredFiles(final long physicalMinOffset) {
+            if (null == DefaultMessageStore.this.tieredStoreService) {
+                return;
+            }
+
+            long minOffset =
+                    DefaultMessageStore.this.tieredStoreService.getCommitLogFileQueue().getMinOffset();
+            if (minOffset < 0) {
+                minOffset = physicalMinOffset;
+            }
+
+            if (minOffset > this.lastTieredPhysicalMinOffset) {
+                this.lastTieredPhysicalMinOffset = minOffset;
+
+                ConcurrentHashMap<String, ConcurrentHashMap<Integer, ConsumeQueue>> tables =
+                        DefaultMessageStore.this.consumeQueueTable;
+
+                for (ConcurrentHashMap<Integer, ConsumeQueue> maps : tables.values()) {
+                    for (ConsumeQueue logic : maps.values()) {
+                        logic.deleteExpiredTieredFile(minOffset);
+                    }
+                }
+            }
         }
 
 
@@ -561,6 +628,7 @@ public class DefaultMessageStore implements MessageStore {
                         DefaultMessageStore.this.putMessagePostionInfo(req.getTopic(), req.getQueueId(),
                             req.getCommitLogOffset(), req.getMsgSize(), req.getTagsCode(),
                             req.getStoreTimestamp(), req.getConsumeQueueOffset());
+                        DefaultMessageStore.this.notifyMessageArriving(req);
                         break;
                     case MessageSysFlag.TransactionPreparedType:
                     case MessageSysFlag.TransactionRollbackType:
@@ -822,6 +890,11 @@ public class DefaultMessageStore implements MessageStore {
             // load Commit Log
             result = this.commitLog.load();
 
+            // load ֲ洢
+            if (null != this.tieredStoreService) {
+                result = result && this.tieredStoreService.load();
+            }
+
             // load Consume Queue
             result = result && this.loadConsumeQueue();
 
@@ -833,6 +906,11 @@ public class DefaultMessageStore implements MessageStore {
                 result = result && this.scheduleMessageService.load();
             }
 
+            // load ʱϢʱ
+            if (null != timerMessageService) {
+                result = result && this.timerMessageService.load();
+            }
+
             if (result) {
                 this.storeCheckpoint = new StoreCheckpoint(this.messageStoreConfig.getStoreCheckpoint());
 
@@ -857,6 +935,22 @@ public class DefaultMessageStore implements MessageStore {
     }
 
 
+    private ConsumeQueue createConsumeQueue(final String topic, final int queueId) {
+        ConsumeQueue logic = new ConsumeQueue(//
+            topic,//
+            queueId,//
+            this.getMessageStoreConfig().getStorePathConsumeQueue(),//
+            this.getMessageStoreConfig().getMapedFileSizeConsumeQueue(),//
+            this);
+
+        if (this.tieredStoreService != null) {
+            logic.enableTieredStore(this.tieredStoreService.createConsumeQueueFileQueue(topic, queueId));
+        }
+
+        return logic;
+    }
+
+
     private boolean loadConsumeQueue() {
         File dirLogic = new File(this.messageStoreConfig.getStorePathConsumeQueue());
         File[] fileTopicList = dirLogic.listFiles();
@@ -869,12 +963,7 @@ public class DefaultMessageStore implements MessageStore {
                 if (fileQueueIdList != null) {
                     for (File fileQueueId : fileQueueIdList) {
                         int queueId = Integer.parseInt(fileQueueId.getName());
-                        ConsumeQueue logic = new ConsumeQueue(//
-                            topic,//
-                            queueId,//
-                            this.getMessageStoreConfig().getStorePathConsumeQueue(),//
-                            this.getMessageStoreConfig().getMapedFileSizeConsumeQueue(),//
-                            this);
+                        ConsumeQueue logic = this.createConsumeQueue(topic, queueId);
                         this.putConsumeQueue(topic, queueId, logic);
                         if (!logic.load()) {
                             return false;
@@ -950,6 +1039,10 @@ public class DefaultMessageStore implements MessageStore {
             this.scheduleMessageService.start();
         }
 
+        if (this.timerMessageService != null) {
+            this.timerMessageService.start();
+        }
+
         if (this.reputMessageService != null) {
             this.reputMessageService.setReputFromOffset(this.commitLog.getMaxOffset());
             this.reputMessageService.start();
@@ -958,6 +1051,10 @@ public class DefaultMessageStore implements MessageStore {
         this.transactionStateService.start();
         this.haService.start();
 
+        if (this.tieredStoreService != null) {
+            this.tieredStoreService.start();
+        }
+
         this.createTempFile();
         this.shutdown = false;
     }
@@ -984,11 +1081,18 @@ public class DefaultMessageStore implements MessageStore {
                 this.scheduleMessageService.shutdown();
             }
 
+            if (this.timerMessageService != null) {
+                this.timerMessageService.shutdown();
+            }
+
             this.haService.shutdown();
 
             this.storeStatsService.shutdown();
             this.cleanCommitLogService.shutdown();
             this.cleanConsumeQueueService.shutdown();
+            if (this.tieredStoreService != null) {
+                this.tieredStoreService.shutdown();
+            }
             this.dispatchMessageService.shutdown();
             this.indexService.shutdown();
             this.flushConsumeQueueService.shutdown();
@@ -1044,6 +1148,11 @@ public class DefaultMessageStore implements MessageStore {
             return new PutMessageResult(PutMessageStatus.MESSAGE_ILLEGAL, null);
         }
 
+        // ʱϢͶʱУ
+        if (this.timerMessageService != null && !this.timerMessageService.checkDeliverTimestamp(msg)) {
+            return new PutMessageResult(PutMessageStatus.MESSAGE_ILLEGAL, null);
+        }
+
         long beginTime = this.getSystemClock().now();
         PutMessageResult result = this.commitLog.putMessage(msg);
         // ͳ
@@ -1103,6 +1212,55 @@ public class DefaultMessageStore implements MessageStore {
     }
 
 
+    /**
+     * λȡϢϢѱɾʱfalse
+     */
+    private boolean getMessageFromPullIndexCache(final String topic, final int queueId, final long offset,
+            final int maxMsgNums, final SubscriptionData subscriptionData, final long maxOffset,
+            final GetMessageResult getResult) {
+        if (null == this.pullIndexCache) {
+            return false;
+        }
+
+        PullIndexCache.CacheEntry entry =
+                this.pullIndexCache.get(topic, queueId, offset, maxMsgNums, subscriptionData, maxOffset,
+                    this.getSystemClock().now());
+        if (null == entry) {
+            return false;
+        }
+
+        List<SelectMapedBufferResult> selectResults =
+                new ArrayList<SelectMapedBufferResult>(entry.getMessageCount());
+        for (int i = 0; i < entry.getMessageCount(); i++) {
+            SelectMapedBufferResult selectResult =
+                    this.commitLog.getMessage(entry.getPhyOffset(i), entry.getSize(i));
+            if (null == selectResult) {
+                for (SelectMapedBufferResult result : selectResults) {
+                    result.release();
+                }
+                return false;
+            }
+            selectResults.add(selectResult);
+        }
+
+        for (SelectMapedBufferResult selectResult : selectResults) {
+            this.storeStatsService.getGetMessageTransferedMsgCount().incrementAndGet();
+            getResult.addMessage(selectResult);
+        }
+
+        getResult.setStatus(selectResults.isEmpty() ? GetMessageStatus.NO_MATCHED_MESSAGE
+                : GetMessageStatus.FOUND);
+        getResult.setNextBeginOffset(offset + entry.getScannedCount());
+
+        long diff = this.getMaxPhyOffset() - entry.getMaxPhyOffsetPulling();
+        long memory =
+                (long) (MixAll.TotalPhysicalMemorySize * (this.messageStoreConfig
+                    .getAccessMessageInMemoryMaxRatio() / 100.0));
+        getResult.setSuggestPullingFromSlave(diff > memory);
+        return true;
+    }
+
+
     public GetMessageResult getMessage(final String topic, final int queueId, final long offset,
             final int maxMsgNums, final SubscriptionData subscriptionData) {
         if (this.shutdown) {
@@ -1150,6 +1308,11 @@ public class DefaultMessageStore implements MessageStore {
                 status = GetMessageStatus.OFFSET_OVERFLOW_BADLY;
                 nextBeginOffset = maxOffset;
             }
+            else if (this.getMessageFromPullIndexCache(topic, queueId, offset, maxMsgNums, subscriptionData,
+                maxOffset, getResult)) {
+                status = getResult.getStatus();
+                nextBeginOffset = getResult.getNextBeginOffset();
+            }
             else {
                 SelectMapedBufferResult bufferConsumeQueue = consumeQueue.getIndexBuffer(offset);
                 if (bufferConsumeQueue != null) {
@@ -1158,6 +1321,10 @@ public class DefaultMessageStore implements MessageStore {
 
                         long nextPhyFileStartOffset = Long.MIN_VALUE;
                         long maxPhyOffsetPulling = 0;
+                        // ɨļɾ򲻻
+                        PullIndexCache.CacheEntry cacheEntry =
+                                this.pullIndexCache != null ? new PullIndexCache.CacheEntry(maxOffset,
+                                    beginTime) : null;
 
                         int i = 0;
                         final int MaxFilterMessageCount = 16000;
@@ -1191,11 +1358,15 @@ public class DefaultMessageStore implements MessageStore {
                                     getResult.addMessage(selectResult);
                                     status = GetMessageStatus.FOUND;
                                     nextPhyFileStartOffset = Long.MIN_VALUE;
+                                    if (cacheEntry != null) {
+                                        cacheEntry.addMessage(offsetPy, sizePy);
+                                    }
                                 }
                                 else {
                                     if (getResult.getBufferTotalSize() == 0) {
                                         status = GetMessageStatus.MESSAGE_WAS_REMOVING;
                                     }
+                                    cacheEntry = null;
 
                                     // ļڱɾ
                                     nextPhyFileStartOffset = this.commitLog.rollNextFile(offsetPy);
@@ -1215,6 +1386,13 @@ public class DefaultMessageStore implements MessageStore {
 
                         nextBeginOffset = offset + (i / ConsumeQueue.CQStoreUnitSize);
 
+                        if (cacheEntry != null) {
+                            cacheEntry.setScannedCount(i / ConsumeQueue.CQStoreUnitSize);
+                            cacheEntry.setMaxPhyOffsetPulling(maxPhyOffsetPulling);
+                            this.pullIndexCache.put(topic, queueId, offset, maxMsgNums, subscriptionData,
+                                cacheEntry);
+                        }
+
                         long diff = this.getMaxPhyOffset() - maxPhyOffsetPulling;
                         long memory =
                                 (long) (MixAll.TotalPhysicalMemorySize * (this.messageStoreConfig
@@ -1257,6 +1435,50 @@ public class DefaultMessageStore implements MessageStore {
     }
 
 
+    @Override
+    public boolean checkInMemByConsumeOffset(final String topic, final int queueId,
+            final long consumeOffset, final int maxScanCount) {
+        ConcurrentHashMap<Integer, ConsumeQueue> map = this.consumeQueueTable.get(topic);
+        ConsumeQueue consumeQueue = map != null ? map.get(queueId) : null;
+        if (null == consumeQueue) {
+            return false;
+        }
+
+        // ûϢܱ𣬲ڴ
+        final long maxOffset = consumeQueue.getMaxOffsetInQuque();
+        if (consumeOffset < consumeQueue.getMinOffsetInQuque() || consumeOffset >= maxOffset) {
+            return false;
+        }
+
+        // ѹ϶ʱϢ˿ɨĿ
+        if (maxOffset - consumeOffset > maxScanCount) {
+            return false;
+        }
+
+        // ֲ洢еҪѹIO߳ϴ
+        if (consumeQueue.isInTieredStore(consumeOffset)) {
+            return false;
+        }
+
+        SelectMapedBufferResult bufferConsumeQueue = consumeQueue.getIndexBuffer(consumeOffset);
+        if (null == bufferConsumeQueue) {
+            return false;
+        }
+
+        try {
+            long offsetPy = bufferConsumeQueue.getByteBuffer().getLong();
+            long memory =
+                    (long) (MixAll.TotalPhysicalMemorySize * (this.messageStoreConfig
+                        .getAccessMessageInMemoryMaxRatio() / 100.0));
+            // isTheBatchFullжһ£CommitLogĩβڴΪPageCache
+            return (this.commitLog.getMaxOffset() - offsetPy) <= memory;
+        }
+        finally {
+            bufferConsumeQueue.release();
+        }
+    }
+
+
     public ConsumeQueue findConsumeQueue(String topic, int queueId) {
         ConcurrentHashMap<Integer, ConsumeQueue> map = consumeQueueTable.get(topic);
         if (null == map) {
@@ -1273,12 +1495,7 @@ public class DefaultMessageStore implements MessageStore {
 
         ConsumeQueue logic = map.get(queueId);
         if (null == logic) {
-            ConsumeQueue newLogic = new ConsumeQueue(//
-                topic,//
-                queueId,//
-                this.getMessageStoreConfig().getStorePathConsumeQueue(),//
-                this.getMessageStoreConfig().getMapedFileSizeConsumeQueue(),//
-                this);
+            ConsumeQueue newLogic = this.createConsumeQueue(topic, queueId);
             ConsumeQueue oldLogic = map.putIfAbsent(queueId, newLogic);
             if (oldLogic != null) {
                 logic = oldLogic;
@@ -1456,6 +1673,9 @@ public class DefaultMessageStore implements MessageStore {
     public void destroy() {
         this.destroyLogics();
         this.commitLog.destroy();
+        if (this.tieredStoreService != null) {
+            this.tieredStoreService.destroy();
+        }
         this.indexService.destroy();
         this.deleteFile(this.messageStoreConfig.getAbortFile());
         this.deleteFile(this.messageStoreConfig.getStoreCheckpoint());
@@ -1574,6 +1794,41 @@ public class DefaultMessageStore implements MessageStore {
     }
 
 
+    @Override
+    public QueryMessageResult queryMessageByCursor(String topic, String key, int maxNum, long begin, long end,
+            String cursor) {
+        QueryOffsetResult queryOffsetResult =
+                this.indexService.queryOffset(topic, key, maxNum, begin, end, cursor);
+        QueryMessageResult queryMessageResult = new QueryMessageResult();
+
+        queryMessageResult.setIndexLastUpdatePhyoffset(queryOffsetResult.getIndexLastUpdatePhyoffset());
+        queryMessageResult.setIndexLastUpdateTimestamp(queryOffsetResult.getIndexLastUpdateTimestamp());
+        queryMessageResult.setNextCursor(queryOffsetResult.getNextCursor());
+
+        List<Long> phyOffsets = queryOffsetResult.getPhyOffsets();
+        for (int i = 0; i < phyOffsets.size(); i++) {
+            SelectMapedBufferResult result = this.commitLog.getData(phyOffsets.get(i), false);
+            if (result != null) {
+                int size = result.getByteBuffer().getInt(0);
+                // ÿҳٷһϢֽʱһҳһ֮ʼ
+                if (queryMessageResult.getBufferTotalSize() > 0
+                        && queryMessageResult.getBufferTotalSize() + size > this.messageStoreConfig
+                            .getMaxTransferBytesOnQueryPage()) {
+                    result.release();
+                    queryMessageResult.setNextCursor(queryOffsetResult.getCursors().get(i - 1));
+                    break;
+                }
+
+                result.getByteBuffer().limit(size);
+                result.setSize(size);
+                queryMessageResult.addMessage(result);
+            }
+        }
+
+        return queryMessageResult;
+    }
+
+
     @Override
     public void updateMasterAddress(String newAddr) {
         this.haService.updateMasterAddress(newAddr);
@@ -1586,6 +1841,14 @@ public class DefaultMessageStore implements MessageStore {
     }
 
 
+    @Override
+    public UpdateTransactionStateStatus updateTransactionState(final long tranStateTableOffset,
+            final long commitLogOffset, final int producerGroupHashCode, final int expectState, final int state) {
+        return this.transactionStateService.compareAndSetTransactionState(tranStateTableOffset,
+            commitLogOffset, producerGroupHashCode, expectState, state);
+    }
+
+
     @Override
     public HashMap<String, String> getRuntimeInfo() {
         // TODO Auto-generated method stub
@@ -1622,6 +1885,16 @@ public class DefaultMessageStore implements MessageStore {
     }
 
 
+    public TimerMessageService getTimerMessageService() {
+        return timerMessageService;
+    }
+
+
+    public TieredStoreService getTieredStoreService() {
+        return tieredStoreService;
+    }
+
+
     public TransactionStateService getTransactionStateService() {
         return transactionStateService;
     }
@@ -1636,4 +1909,23 @@ public class DefaultMessageStore implements MessageStore {
         return transactionCheckExecuter;
     }
 
+
+    private void notifyMessageArriving(final DispatchRequest req) {
+        final MessageArrivingListener listener = this.messageArrivingListener;
+        if (listener != null) {
+            try {
+                listener.arriving(req.getTopic(), req.getQueueId(), req.getConsumeQueueOffset());
+            }
+            catch (Throwable e) {
+                log.warn("notify message arriving exception", e);
+            }
+        }
+    }
+
+
+    @Override
+    public void setMessageArrivingListener(final MessageArrivingListener messageArrivingListener) {
+        this.messageArrivingListener = messageArrivingListener;
+    }
+
 }
@@ -49,6 +49,8 @@ public class MapedFile extends ReferenceResource {
     private final FileChannel fileChannel;
     // ӳڴpositionԶ
     private final MappedByteBuffer mappedByteBuffer;
+    // лcompareAndSwapInt
+    private final Object casLock = new Object();
     // ǰдʲôλ
     private final AtomicInteger wrotePostion = new AtomicInteger(0);
     // Flushʲôλ
@@ -416,6 +418,26 @@ public class MapedFile extends ReferenceResource {
     }
 
 
+    /**
+     * ӳڴеintȽϲ£ͬһļϵĵļл<br>
+     * ÷holdļpos4ֽڶ룬µintֻͨ޸
+     */
+    public boolean compareAndSwapInt(final int pos, final int expect, final int update) {
+        if (pos < 0 || pos + 4 > this.fileSize || (pos & 3) != 0) {
+            throw new IllegalArgumentException("compareAndSwapInt pos invalid, " + pos);
+        }
+
+        synchronized (this.casLock) {
+            if (this.mappedByteBuffer.getInt(pos) != expect) {
+                return false;
+            }
+
+            this.mappedByteBuffer.putInt(pos, update);
+            return true;
+        }
+    }
+
+
     /**
      * ʱãȫֻʱreloadʱ
      */
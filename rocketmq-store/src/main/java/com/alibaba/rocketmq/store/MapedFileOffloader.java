@@ -0,0 +1,17 @@
+/**
+ * $Id: MapedFileOffloader.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.store;
+
+/**
+ * ļɾǰתӿڣתʧܻתδ򱾴βɾļ
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public interface MapedFileOffloader {
+    /**
+     * ͬһļܱεãʵҪ֤ݵ<br>
+     * ߳еãʵֲʱתӦ첽Уǰfalse
+     */
+    public boolean offload(final MapedFile mapedFile);
+}
@@ -42,6 +42,8 @@ public class MapedFileQueue {
     private final AllocateMapedFileService allocateMapedFileService;
     // һϢ洢ʱ
     private volatile long storeTimestamp = 0;
+    // ɾļǰת棬Ϊnullʾֱɾ
+    private volatile MapedFileOffloader mapedFileOffloader;
 
 
     public MapedFileQueue(final String storePath, int mapedFileSize,
@@ -202,6 +204,16 @@ public class MapedFileQueue {
     }
 
 
+    private boolean offloadBeforeDestroy(final MapedFile mapedFile) {
+        MapedFileOffloader offloader = this.mapedFileOffloader;
+        if (offloader != null) {
+            return offloader.offload(mapedFile);
+        }
+
+        return true;
+    }
+
+
     /**
      * ɾļֻܴͷʼɾ
      */
@@ -245,6 +257,11 @@ public class MapedFileQueue {
                 MapedFile mapedFile = (MapedFile) mfs[i];
                 long liveMaxTimestamp = mapedFile.getLastModifiedTimestamp() + expiredTime;
                 if (System.currentTimeMillis() >= liveMaxTimestamp) {
+                    // תδɾ´
+                    if (!this.offloadBeforeDestroy(mapedFile)) {
+                        break;
+                    }
+
                     if (mapedFile.destroy(intervalForcibly)) {
                         files.add(mapedFile);
                         deleteCount++;
@@ -310,7 +327,7 @@ public class MapedFileQueue {
                     break;
                 }
 
-                if (destroy && mapedFile.destroy(1000 * 60)) {
+                if (destroy && this.offloadBeforeDestroy(mapedFile) && mapedFile.destroy(1000 * 60)) {
                     files.add(mapedFile);
                     deleteCount++;
                 }
@@ -593,4 +610,14 @@ public class MapedFileQueue {
     public int getMapedFileSize() {
         return mapedFileSize;
     }
+
+
+    public MapedFileOffloader getMapedFileOffloader() {
+        return mapedFileOffloader;
+    }
+
+
+    public void setMapedFileOffloader(MapedFileOffloader mapedFileOffloader) {
+        this.mapedFileOffloader = mapedFileOffloader;
+    }
 }
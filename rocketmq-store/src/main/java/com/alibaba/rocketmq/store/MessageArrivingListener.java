@@ -0,0 +1,13 @@
+/**
+ * $Id: MessageArrivingListener.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.store;
+
+/**
+ * ϢдConsumeQueue֪ͨɷַ̻߳صʵַ
+ * 
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public interface MessageArrivingListener {
+    public void arriving(final String topic, final int queueId, final long logicOffset);
+}
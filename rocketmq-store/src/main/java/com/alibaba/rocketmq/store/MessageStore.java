@@ -142,8 +142,37 @@ public interface MessageStore {
             final long begin, final long end);
 
 
+    /**
+     * ϢKeyҳѯϢcursorΪnullʱѯһҳ<br>
+     * ÿҳֽޣеnextCursorΪnullʾѯ
+     */
+    public QueryMessageResult queryMessageByCursor(final String topic, final String key, final int maxNum,
+            final long begin, final long end, final String cursor);
+
+
     public void updateMasterAddress(final String newAddr);
 
 
+    /**
+     * ֱӶ״̬CAṢַ߳CommitRollback
+     */
+    public UpdateTransactionStateStatus updateTransactionState(final long tranStateTableOffset,
+            final long commitLogOffset, final int producerGroupHashCode, final int expectState, final int state);
+
+
     public long now();
+
+
+    /**
+     * עϢַ֪ͨ߳дConsumeQueueص
+     */
+    public void setMessageArrivingListener(final MessageArrivingListener messageArrivingListener);
+
+
+    /**
+     * жϴconsumeOffsetʼϢǷѾڲڴУڵĶвᴴ<br>
+     * ȡĿmaxScanCountڷֲ洢ʱfalse
+     */
+    public boolean checkInMemByConsumeOffset(final String topic, final int queueId, final long consumeOffset,
+            final int maxScanCount);
 }
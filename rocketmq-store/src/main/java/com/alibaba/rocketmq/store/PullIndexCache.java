@@ -0,0 +1,224 @@
+/**
+ * $Id: PullIndexCache.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.store;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.alibaba.rocketmq.common.protocol.heartbeat.SubscriptionData;
+
+
+/**
+ * Ϣ棬ڶͷͬһϢʱֻ롢һѶ<br>
+ * ֻOffsetʹСϢÿԴCommitLogӳ䣻Offset仯߳ʱʧЧ<br>
+ * DefaultMessageFilterһΪtag hash
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class PullIndexCache {
+    private final long expireMillis;
+    private final int maxEntries;
+    private final ConcurrentHashMap<CacheKey, CacheEntry> cacheTable =
+            new ConcurrentHashMap<CacheKey, CacheEntry>(1024);
+
+
+    public PullIndexCache(final long expireMillis, final int maxEntries) {
+        this.expireMillis = expireMillis;
+        this.maxEntries = maxEntries;
+    }
+
+
+    /**
+     * nullʾȫϢ
+     */
+    private static Set<Integer> filterCodes(final SubscriptionData subscriptionData) {
+        if (null == subscriptionData || SubscriptionData.SUB_ALL.equals(subscriptionData.getSubString())) {
+            return null;
+        }
+
+        return subscriptionData.getCodeSet();
+    }
+
+
+    public CacheEntry get(final String topic, final int queueId, final long offset, final int maxMsgNums,
+            final SubscriptionData subscriptionData, final long queueMaxOffset, final long now) {
+        CacheKey key = new CacheKey(topic, queueId, offset, maxMsgNums, filterCodes(subscriptionData));
+        CacheEntry entry = this.cacheTable.get(key);
+        if (entry != null) {
+            if (entry.getQueueMaxOffset() == queueMaxOffset
+                    && now - entry.getTimestamp() < this.expireMillis) {
+                return entry;
+            }
+
+            this.cacheTable.remove(key, entry);
+        }
+
+        return null;
+    }
+
+
+    public void put(final String topic, final int queueId, final long offset, final int maxMsgNums,
+            final SubscriptionData subscriptionData, final CacheEntry entry) {
+        if (this.cacheTable.size() >= this.maxEntries) {
+            this.cleanExpired(entry.getTimestamp());
+            // Ȼ˵ȡĶ̫ɢʺֱܵͣ
+            if (this.cacheTable.size() >= this.maxEntries) {
+                this.cacheTable.clear();
+            }
+        }
+
+        // Ĺϵܱ޸ģһΪKey
+        Set<Integer> codes = filterCodes(subscriptionData);
+        if (codes != null) {
+            codes = new HashSet<Integer>(codes);
+        }
+
+        this.cacheTable.put(new CacheKey(topic, queueId, offset, maxMsgNums, codes), entry);
+    }
+
+
+    private void cleanExpired(final long now) {
+        Iterator<CacheEntry> it = this.cacheTable.values().iterator();
+        while (it.hasNext()) {
+            if (now - it.next().getTimestamp() >= this.expireMillis) {
+                it.remove();
+            }
+        }
+    }
+
+
+    public int size() {
+        return this.cacheTable.size();
+    }
+
+    /**
+     * һȡѶɨĽ
+     */
+    public static class CacheEntry {
+        private final long queueMaxOffset;
+        private final long timestamp;
+        private int scannedCount;
+        private long maxPhyOffsetPulling;
+        private long[] phyOffsets = new long[32];
+        private int[] sizes = new int[32];
+        private int messageCount = 0;
+
+
+        public CacheEntry(final long queueMaxOffset, final long timestamp) {
+            this.queueMaxOffset = queueMaxOffset;
+            this.timestamp = timestamp;
+        }
+
+
+        public void addMessage(final long phyOffset, final int size) {
+            if (this.messageCount == this.phyOffsets.length) {
+                long[] newPhyOffsets = new long[this.messageCount * 2];
+                int[] newSizes = new int[this.messageCount * 2];
+                System.arraycopy(this.phyOffsets, 0, newPhyOffsets, 0, this.messageCount);
+                System.arraycopy(this.sizes, 0, newSizes, 0, this.messageCount);
+                this.phyOffsets = newPhyOffsets;
+                this.sizes = newSizes;
+            }
+
+            this.phyOffsets[this.messageCount] = phyOffset;
+            this.sizes[this.messageCount] = size;
+            this.messageCount++;
+        }
+
+
+        public long getQueueMaxOffset() {
+            return queueMaxOffset;
+        }
+
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+
+        public int getScannedCount() {
+            return scannedCount;
+        }
+
+
+        public void setScannedCount(int scannedCount) {
+            this.scannedCount = scannedCount;
+        }
+
+
+        public long getMaxPhyOffsetPulling() {
+            return maxPhyOffsetPulling;
+        }
+
+
+        public void setMaxPhyOffsetPulling(long maxPhyOffsetPulling) {
+            this.maxPhyOffsetPulling = maxPhyOffsetPulling;
+        }
+
+
+        public int getMessageCount() {
+            return messageCount;
+        }
+
+
+        public long getPhyOffset(final int index) {
+            return this.phyOffsets[index];
+        }
+
+
+        public int getSize(final int index) {
+            return this.sizes[index];
+        }
+    }
+
+    private static final class CacheKey {
+        private final String topic;
+        private final int queueId;
+        private final long offset;
+        private final int maxMsgNums;
+        private final Set<Integer> filterCodes;
+        private final int hash;
+
+
+        public CacheKey(final String topic, final int queueId, final long offset, final int maxMsgNums,
+                final Set<Integer> filterCodes) {
+            this.topic = topic;
+            this.queueId = queueId;
+            this.offset = offset;
+            this.maxMsgNums = maxMsgNums;
+            this.filterCodes = filterCodes;
+
+            int result = topic.hashCode();
+            result = 31 * result + queueId;
+            result = 31 * result + (int) (offset ^ (offset >>> 32));
+            result = 31 * result + maxMsgNums;
+            result = 31 * result + (filterCodes == null ? 0 : filterCodes.hashCode());
+            this.hash = result;
+        }
+
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof CacheKey))
+                return false;
+            CacheKey other = (CacheKey) obj;
+            if (this.hash != other.hash || this.queueId != other.queueId || this.offset != other.offset
+                    || this.maxMsgNums != other.maxMsgNums || !this.topic.equals(other.topic))
+                return false;
+            if (null == this.filterCodes)
+                return null == other.filterCodes;
+            return this.filterCodes.equals(other.filterCodes);
+        }
+    }
+}
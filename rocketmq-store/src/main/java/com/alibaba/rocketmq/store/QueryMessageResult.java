@@ -21,6 +21,8 @@ public class QueryMessageResult {
     private final List<ByteBuffer> messageBufferList = new ArrayList<ByteBuffer>(100);
     // ByteBuffer ֽ
     private int bufferTotalSize = 0;
+    // ҳѯʱһҳα꣬nullʾѯ
+    private String nextCursor;
 
 
     public void addMessage(final SelectMapedBufferResult mapedBuffer) {
@@ -65,4 +67,14 @@ public class QueryMessageResult {
     public int getBufferTotalSize() {
         return bufferTotalSize;
     }
+
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
 }
@@ -0,0 +1,19 @@
+/**
+ * $Id: UpdateTransactionStateStatus.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.store;
+
+/**
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ * 
+ */
+public enum UpdateTransactionStateStatus {
+    // ״̬³ɹ
+    UPDATE_OK,
+    // ״̬Ѿ³ͬĿ״̬ظ
+    UPDATED_BEFORE,
+    // ״̬Ѿ³״̬ύع
+    UPDATE_CONFLICT,
+    // ״̬лû¼߼¼ƥ
+    NOT_FOUND,
+}
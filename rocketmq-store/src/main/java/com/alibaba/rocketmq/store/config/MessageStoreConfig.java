@@ -85,6 +85,8 @@ public class MessageStoreConfig {
     private int maxHashSlotNum = 5000000;
     private int maxIndexNum = 5000000 * 4;
     private int maxMsgsNumBatch = 32;
+    // KeyҳѯϢÿҳֽ
+    private int maxTransferBytesOnQueryPage = 1024 * 256;
 
     // HA
     private int haListenPort = 10912;
@@ -109,6 +111,37 @@ public class MessageStoreConfig {
     private String delayOffsetStorePath = System.getProperty("user.home") + File.separator + "store"
             + File.separator + "delayOffset.properties";
 
+    // ⾫ȶʱϢ
+    private boolean timerMessageEnable = true;
+    private String storePathTimerLog = System.getProperty("user.home") + File.separator + "store"
+            + File.separator + "timerlog";
+    private String timerCheckpointPath = System.getProperty("user.home") + File.separator + "store"
+            + File.separator + "timerCheckpoint.properties";
+    // ÿʱļһСʱ洢ĶʱϢ򴴽ļ
+    private int timerLogMaxEntryNum = 1000000;
+    // ÿСʱһʱļĿļηֱtimerLogMaxEntryNum
+    private int timerLogInitEntryNum = 1024 * 4;
+    // ǰصڴʱֵʱ䴰ڣλ룩
+    private int timerPrefetchSeconds = 60;
+    // ʱϢͶݾȣλ룩
+    private int timerPrecisionMs = 10;
+    private long flushTimerInterval = 1000 * 5;
+
+    // ֲ洢أڵCommitLog߼ļɾǰת浽۴洢
+    private boolean tieredStoreEnable = false;
+    private String storePathTieredCommitLog = System.getProperty("user.home") + File.separator + "store"
+            + File.separator + "tiered" + File.separator + "commitlog";
+    private String storePathTieredConsumeQueue = System.getProperty("user.home") + File.separator + "store"
+            + File.separator + "tiered" + File.separator + "consumequeue";
+    // תļǷ񰴿ѹ
+    private boolean tieredFileCompress = true;
+    // תļĿСȡʱԿΪλѹ뻺
+    private int tieredBlockSize = 1024 * 64;
+    // ໺ٸ
+    private int tieredReadCacheBlocks = 1024;
+    // תļʱ䣨λСʱ
+    private int tieredFileReservedTime = 24 * 7;
+
     // ֲʽ
     private String tranStateTableStorePath = System.getProperty("user.home") + File.separator + "store"
             + File.separator + "transaction" + File.separator + "statetable";
@@ -122,6 +155,12 @@ public class MessageStoreConfig {
     private long checkTransactionMessageAtleastInterval = 1000 * 40;
     // ز鶨ʱʱ
     private long checkTransactionMessageTimerInterval = 1000 * 20;
+    // ͬһʱѶн롢˺λ
+    private boolean pullIndexCacheEnable = true;
+    // Ϣʱ䣬Offset仯ʱҲʧЧ
+    private long pullIndexCacheExpireMillis = 1000 * 3;
+    // Ϣ
+    private int pullIndexCacheMaxEntries = 10000;
 
 
     public int getMapedFileSizeCommitLog() {
@@ -655,4 +694,194 @@ public class MessageStoreConfig {
     public void setCheckTransactionMessageTimerInterval(long checkTransactionMessageTimerInterval) {
         this.checkTransactionMessageTimerInterval = checkTransactionMessageTimerInterval;
     }
+
+
+    public boolean isTimerMessageEnable() {
+        return timerMessageEnable;
+    }
+
+
+    public void setTimerMessageEnable(boolean timerMessageEnable) {
+        this.timerMessageEnable = timerMessageEnable;
+    }
+
+
+    public String getStorePathTimerLog() {
+        return storePathTimerLog;
+    }
+
+
+    public void setStorePathTimerLog(String storePathTimerLog) {
+        this.storePathTimerLog = storePathTimerLog;
+    }
+
+
+    public String getTimerCheckpointPath() {
+        return timerCheckpointPath;
+    }
+
+
+    public void setTimerCheckpointPath(String timerCheckpointPath) {
+        this.timerCheckpointPath = timerCheckpointPath;
+    }
+
+
+    public int getTimerLogMaxEntryNum() {
+        return timerLogMaxEntryNum;
+    }
+
+
+    public void setTimerLogMaxEntryNum(int timerLogMaxEntryNum) {
+        this.timerLogMaxEntryNum = timerLogMaxEntryNum;
+    }
+
+
+    public int getTimerPrefetchSeconds() {
+        return timerPrefetchSeconds;
+    }
+
+
+    public void setTimerPrefetchSeconds(int timerPrefetchSeconds) {
+        this.timerPrefetchSeconds = timerPrefetchSeconds;
+    }
+
+
+    public int getTimerPrecisionMs() {
+        return timerPrecisionMs;
+    }
+
+
+    public void setTimerPrecisionMs(int timerPrecisionMs) {
+        this.timerPrecisionMs = timerPrecisionMs;
+    }
+
+
+    public long getFlushTimerInterval() {
+        return flushTimerInterval;
+    }
+
+
+    public void setFlushTimerInterval(long flushTimerInterval) {
+        this.flushTimerInterval = flushTimerInterval;
+    }
+
+
+    public boolean isTieredStoreEnable() {
+        return tieredStoreEnable;
+    }
+
+
+    public void setTieredStoreEnable(boolean tieredStoreEnable) {
+        this.tieredStoreEnable = tieredStoreEnable;
+    }
+
+
+    public String getStorePathTieredCommitLog() {
+        return storePathTieredCommitLog;
+    }
+
+
+    public void setStorePathTieredCommitLog(String storePathTieredCommitLog) {
+        this.storePathTieredCommitLog = storePathTieredCommitLog;
+    }
+
+
+    public String getStorePathTieredConsumeQueue() {
+        return storePathTieredConsumeQueue;
+    }
+
+
+    public void setStorePathTieredConsumeQueue(String storePathTieredConsumeQueue) {
+        this.storePathTieredConsumeQueue = storePathTieredConsumeQueue;
+    }
+
+
+    public boolean isTieredFileCompress() {
+        return tieredFileCompress;
+    }
+
+
+    public void setTieredFileCompress(boolean tieredFileCompress) {
+        this.tieredFileCompress = tieredFileCompress;
+    }
+
+
+    public int getTieredBlockSize() {
+        return tieredBlockSize;
+    }
+
+
+    public void setTieredBlockSize(int tieredBlockSize) {
+        this.tieredBlockSize = tieredBlockSize;
+    }
+
+
+    public int getTieredReadCacheBlocks() {
+        return tieredReadCacheBlocks;
+    }
+
+
+    public void setTieredReadCacheBlocks(int tieredReadCacheBlocks) {
+        this.tieredReadCacheBlocks = tieredReadCacheBlocks;
+    }
+
+
+    public int getTieredFileReservedTime() {
+        return tieredFileReservedTime;
+    }
+
+
+    public void setTieredFileReservedTime(int tieredFileReservedTime) {
+        this.tieredFileReservedTime = tieredFileReservedTime;
+    }
+
+
+    public boolean isPullIndexCacheEnable() {
+        return pullIndexCacheEnable;
+    }
+
+
+    public void setPullIndexCacheEnable(boolean pullIndexCacheEnable) {
+        this.pullIndexCacheEnable = pullIndexCacheEnable;
+    }
+
+
+    public long getPullIndexCacheExpireMillis() {
+        return pullIndexCacheExpireMillis;
+    }
+
+
+    public void setPullIndexCacheExpireMillis(long pullIndexCacheExpireMillis) {
+        this.pullIndexCacheExpireMillis = pullIndexCacheExpireMillis;
+    }
+
+
+    public int getPullIndexCacheMaxEntries() {
+        return pullIndexCacheMaxEntries;
+    }
+
+
+    public void setPullIndexCacheMaxEntries(int pullIndexCacheMaxEntries) {
+        this.pullIndexCacheMaxEntries = pullIndexCacheMaxEntries;
+    }
+
+
+    public int getMaxTransferBytesOnQueryPage() {
+        return maxTransferBytesOnQueryPage;
+    }
+
+
+    public void setMaxTransferBytesOnQueryPage(int maxTransferBytesOnQueryPage) {
+        this.maxTransferBytesOnQueryPage = maxTransferBytesOnQueryPage;
+    }
+
+
+    public int getTimerLogInitEntryNum() {
+        return timerLogInitEntryNum;
+    }
+
+
+    public void setTimerLogInitEntryNum(int timerLogInitEntryNum) {
+        this.timerLogInitEntryNum = timerLogInitEntryNum;
+    }
 }
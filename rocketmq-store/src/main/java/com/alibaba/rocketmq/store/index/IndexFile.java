@@ -213,6 +213,16 @@ public class IndexFile {
      */
     public void selectPhyOffset(final List<Long> phyOffsets, final String key, final int maxNum, final long begin,
             final long end, boolean lock) {
+        this.selectPhyOffset(phyOffsets, null, key, maxNum, begin, end, lock, INVALID_INDEX);
+    }
+
+
+    /**
+     * afterIndexǰһңafterIndexΪ0ʱӹϣۿʼ<br>
+     * indexesΪnullʱ¼ÿڵλãΪҳѯα
+     */
+    public void selectPhyOffset(final List<Long> phyOffsets, final List<Integer> indexes, final String key,
+            final int maxNum, final long begin, final long end, boolean lock, final int afterIndex) {
         if (this.mapedFile.hold()) {
             int keyHash = key.hashCode();
             int slotPos = Math.abs(keyHash) % this.hashSlotNum;
@@ -220,14 +230,17 @@ public class IndexFile {
 
             FileLock fileLock = null;
             try {
-                if (lock) {
-                    fileLock = this.fileChannel.lock(absSlotPos, HASH_SLOT_SIZE, true);
-                }
+                int slotValue = afterIndex;
+                if (INVALID_INDEX == afterIndex) {
+                    if (lock) {
+                        fileLock = this.fileChannel.lock(absSlotPos, HASH_SLOT_SIZE, true);
+                    }
 
-                int slotValue = this.mappedByteBuffer.getInt(absSlotPos);
-                if (fileLock != null) {
-                    fileLock.release();
-                    fileLock = null;
+                    slotValue = this.mappedByteBuffer.getInt(absSlotPos);
+                    if (fileLock != null) {
+                        fileLock.release();
+                        fileLock = null;
+                    }
                 }
 
                 if (slotValue <= INVALID_INDEX || slotValue > this.indexHeader.getIndexCount()
@@ -235,6 +248,8 @@ public class IndexFile {
                     // TODO NOTFOUND
                 }
                 else {
+                    // αָѾعֻǰһ
+                    boolean skip = afterIndex != INVALID_INDEX;
                     for (int nextIndexToRead = slotValue;;) {
                         if (phyOffsets.size() >= maxNum) {
                             break;
@@ -257,8 +272,18 @@ public class IndexFile {
                         long timeRead = this.indexHeader.getBeginTimestamp() + timeDiff;
                         boolean timeMatched = (timeRead >= begin) && (timeRead <= end);
 
-                        if (keyHash == keyHashRead && timeMatched) {
+                        if (skip) {
+                            // α겻KeyĹϣ
+                            if (keyHash != keyHashRead) {
+                                break;
+                            }
+                            skip = false;
+                        }
+                        else if (keyHash == keyHashRead && timeMatched) {
                             phyOffsets.add(phyOffsetRead);
+                            if (indexes != null) {
+                                indexes.add(nextIndexToRead);
+                            }
                         }
 
                         if (prevIndexRead <= INVALID_INDEX || prevIndexRead > this.indexHeader.getIndexCount()
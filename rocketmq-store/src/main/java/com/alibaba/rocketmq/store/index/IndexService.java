@@ -33,6 +33,8 @@ import com.alibaba.rocketmq.store.DispatchRequest;
  */
 public class IndexService extends ServiceThread {
     private static final Logger log = LoggerFactory.getLogger(LoggerName.StoreLoggerName);
+    // αʽļ@λ
+    private static final char CursorSeparator = '@';
 
     private LinkedBlockingQueue<Object[]> requestQueue = new LinkedBlockingQueue<Object[]>();
     private AtomicInteger requestCount = new AtomicInteger(0);
@@ -327,6 +329,89 @@ public class IndexService extends ServiceThread {
     }
 
 
+    /**
+     * ҳѯcursor֮ңcursorΪnullʱµļʼ<br>
+     * α¼ļ͹ϣϵλãļֻ׷ӣԷҳڼα֮ǰĹϣ<br>
+     * αڵļѾɾʱļҲѾɾѯ
+     */
+    public QueryOffsetResult queryOffset(String topic, String key, int maxNum, long begin, long end,
+            String cursor) {
+        maxNum = Math.min(maxNum, this.defaultMessageStore.getMessageStoreConfig().getMaxMsgsNumBatch());
+        List<Long> phyOffsets = new ArrayList<Long>(maxNum);
+        List<String> cursors = new ArrayList<String>(maxNum);
+        List<Integer> indexes = new ArrayList<Integer>(maxNum);
+        long indexLastUpdateTimestamp = 0;
+        long indexLastUpdatePhyoffset = 0;
+
+        String cursorFileName = null;
+        int cursorIndex = 0;
+        if (cursor != null) {
+            int pos = cursor.lastIndexOf(CursorSeparator);
+            try {
+                cursorFileName = cursor.substring(0, pos);
+                cursorIndex = Integer.parseInt(cursor.substring(pos + 1));
+            }
+            catch (Exception e) {
+                log.warn("queryMsg illegal cursor " + cursor);
+                return new QueryOffsetResult(phyOffsets, indexLastUpdateTimestamp, indexLastUpdatePhyoffset);
+            }
+        }
+
+        final String buildKey = this.buildKey(topic, key);
+        try {
+            this.readWriteLock.readLock().lock();
+            for (int i = this.indexFileList.size(); i > 0; i--) {
+                IndexFile f = this.indexFileList.get(i - 1);
+                boolean lastFile = i == this.indexFileList.size();
+                if (lastFile) {
+                    indexLastUpdateTimestamp = f.getEndTimestamp();
+                    indexLastUpdatePhyoffset = f.getEndPhyOffset();
+                }
+
+                String fileName = new File(f.getFileName()).getName();
+                // α֮½ļ
+                if (cursorFileName != null && !cursorFileName.equals(fileName)) {
+                    continue;
+                }
+
+                if (f.isTimeMatched(begin, end)) {
+                    int size = phyOffsets.size();
+                    f.selectPhyOffset(phyOffsets, indexes, buildKey, maxNum, begin, end, lastFile,
+                        cursorFileName != null ? cursorIndex : 0);
+                    for (int k = size; k < phyOffsets.size(); k++) {
+                        cursors.add(fileName + CursorSeparator + indexes.get(k));
+                    }
+                }
+                cursorFileName = null;
+
+                // ǰʱ
+                if (f.getBeginTimestamp() > end) {
+                    break;
+                }
+
+                if (phyOffsets.size() >= maxNum) {
+                    break;
+                }
+            }
+        }
+        catch (Exception e) {
+            log.error("queryMsg exception", e);
+        }
+        finally {
+            this.readWriteLock.readLock().unlock();
+        }
+
+        QueryOffsetResult result =
+                new QueryOffsetResult(phyOffsets, indexLastUpdateTimestamp, indexLastUpdatePhyoffset);
+        result.setCursors(cursors);
+        // ȡһҳʱܻн˵Ѿ
+        if (!cursors.isEmpty() && phyOffsets.size() >= maxNum) {
+            result.setNextCursor(cursors.get(cursors.size() - 1));
+        }
+        return result;
+    }
+
+
     /**
      * ׷󣬷ضжѻ
      */
@@ -15,6 +15,10 @@ public class QueryOffsetResult {
     private final List<Long> phyOffsets;
     private final long indexLastUpdateTimestamp;
     private final long indexLastUpdatePhyoffset;
+    // ҳѯʱÿӦα꣬αѯ֮ǰĽ
+    private List<String> cursors;
+    // ҳѯʱһҳα꣬nullʾѯ
+    private String nextCursor;
 
 
     public QueryOffsetResult(List<Long> phyOffsets, long indexLastUpdateTimestamp, long indexLastUpdatePhyoffset) {
@@ -37,4 +41,24 @@ public class QueryOffsetResult {
     public long getIndexLastUpdatePhyoffset() {
         return indexLastUpdatePhyoffset;
     }
+
+
+    public List<String> getCursors() {
+        return cursors;
+    }
+
+
+    public void setCursors(List<String> cursors) {
+        this.cursors = cursors;
+    }
+
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
 }
@@ -0,0 +1,293 @@
+/**
+ * $Id: TieredFile.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.store.tiered;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.rocketmq.common.constant.LoggerName;
+
+
+/**
+ * ת浽ֲ洢һļݰ̶Сֿ洢ÿɶѹȡ<br>
+ * ļ[0] [1] ... [N]<br>
+ * ļ[ݴС 4] [С 4] [Ƿѹ 4] [ 4] [ʼλ (N + 1) * 8]
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class TieredFile {
+    private static final Logger log = LoggerFactory.getLogger(LoggerName.StoreLoggerName);
+    public static final String IndexFileSuffix = ".idx";
+    public static final String TempFileSuffix = ".tmp";
+
+    private final File file;
+    private final long fileFromOffset;
+    // ԭʼݴС
+    private final int fileSize;
+    private final int blockSize;
+    private final boolean compressed;
+    // ÿļеʼλãһԪΪļβ
+    private final long[] blockPositions;
+    private final TieredReadCache readCache;
+    private final RandomAccessFile randomAccessFile;
+    private final FileChannel fileChannel;
+
+
+    private TieredFile(final File file, final int fileSize, final int blockSize, final boolean compressed,
+            final long[] blockPositions, final TieredReadCache readCache) throws IOException {
+        this.file = file;
+        this.fileFromOffset = Long.parseLong(file.getName());
+        this.fileSize = fileSize;
+        this.blockSize = blockSize;
+        this.compressed = compressed;
+        this.blockPositions = blockPositions;
+        this.readCache = readCache;
+        this.randomAccessFile = new RandomAccessFile(file, "r");
+        this.fileChannel = this.randomAccessFile.getChannel();
+    }
+
+
+    private static File indexFileOf(final File file) {
+        return new File(file.getPath() + IndexFileSuffix);
+    }
+
+
+    /**
+     * ݰдֲ洢дʱļдٸ֤ʱĶļ
+     */
+    public static TieredFile create(final File file, final ByteBuffer data, final int blockSize,
+            final boolean compress, final long lastModifiedTimestamp, final TieredReadCache readCache)
+            throws IOException {
+        final int fileSize = data.remaining();
+        final int blockCount = (fileSize + blockSize - 1) / blockSize;
+        final long[] blockPositions = new long[blockCount + 1];
+
+        File tmpFile = new File(file.getPath() + TempFileSuffix);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+        Deflater deflater = compress ? new Deflater(Deflater.BEST_SPEED) : null;
+        try {
+            byte[] block = new byte[blockSize];
+            byte[] deflated = new byte[blockSize];
+            long position = 0;
+            for (int i = 0; i < blockCount; i++) {
+                blockPositions[i] = position;
+                int length = Math.min(blockSize, data.remaining());
+                data.get(block, 0, length);
+
+                if (compress) {
+                    deflater.reset();
+                    deflater.setInput(block, 0, length);
+                    deflater.finish();
+                    while (!deflater.finished()) {
+                        int n = deflater.deflate(deflated);
+                        out.write(deflated, 0, n);
+                        position += n;
+                    }
+                }
+                else {
+                    out.write(block, 0, length);
+                    position += length;
+                }
+            }
+            blockPositions[blockCount] = position;
+        }
+        finally {
+            out.close();
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFileOf(file))));
+        try {
+            out.writeInt(fileSize);
+            out.writeInt(blockSize);
+            out.writeInt(compress ? 1 : 0);
+            out.writeInt(blockCount);
+            for (long blockPosition : blockPositions) {
+                out.writeLong(blockPosition);
+            }
+        }
+        finally {
+            out.close();
+        }
+
+        if (!tmpFile.renameTo(file)) {
+            throw new IOException("rename " + tmpFile + " to " + file + " failed");
+        }
+
+        // ԭļ޸ʱ䣬ɾʱϢдʱ
+        file.setLastModified(lastModifiedTimestamp);
+
+        return new TieredFile(file, fileSize, blockSize, compress, blockPositions, readCache);
+    }
+
+
+    /**
+     * Ѿתļķnull
+     */
+    public static TieredFile load(final File file, final TieredReadCache readCache) throws IOException {
+        File indexFile = indexFileOf(file);
+        if (!indexFile.exists()) {
+            return null;
+        }
+
+        DataInputStream in = new DataInputStream(new FileInputStream(indexFile));
+        try {
+            int fileSize = in.readInt();
+            int blockSize = in.readInt();
+            boolean compressed = in.readInt() == 1;
+            int blockCount = in.readInt();
+            long[] blockPositions = new long[blockCount + 1];
+            for (int i = 0; i <= blockCount; i++) {
+                blockPositions[i] = in.readLong();
+            }
+
+            if (blockPositions[blockCount] != file.length()) {
+                log.warn("tiered file " + file + " length not matched index, ignore it");
+                return null;
+            }
+
+            return new TieredFile(file, fileSize, blockSize, compressed, blockPositions, readCache);
+        }
+        finally {
+            in.close();
+        }
+    }
+
+
+    private byte[] readBlock(final int blockIndex) throws IOException, DataFormatException {
+        byte[] block = this.readCache.getBlock(this.file.getPath(), blockIndex);
+        if (block != null) {
+            return block;
+        }
+
+        long position = this.blockPositions[blockIndex];
+        ByteBuffer stored = ByteBuffer.allocate((int) (this.blockPositions[blockIndex + 1] - position));
+        while (stored.hasRemaining()) {
+            if (this.fileChannel.read(stored, position + stored.position()) < 0) {
+                throw new IOException("read tiered file " + this.file + " reach end of file");
+            }
+        }
+
+        if (this.compressed) {
+            block = new byte[Math.min(this.blockSize, this.fileSize - blockIndex * this.blockSize)];
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(stored.array());
+                int n = 0;
+                while (n < block.length && !inflater.finished()) {
+                    int inflated = inflater.inflate(block, n, block.length - n);
+                    if (0 == inflated && inflater.needsInput()) {
+                        throw new DataFormatException("tiered file " + this.file + " block " + blockIndex
+                                + " truncated");
+                    }
+                    n += inflated;
+                }
+            }
+            finally {
+                inflater.end();
+            }
+        }
+        else {
+            block = stored.array();
+        }
+
+        this.readCache.putBlock(this.file.getPath(), blockIndex, block);
+        return block;
+    }
+
+
+    /**
+     * ȡļһݣԿ飬ȡʧܷnull
+     */
+    public ByteBuffer read(final int pos, final int size) {
+        if (pos < 0 || size <= 0 || pos + size > this.fileSize) {
+            return null;
+        }
+
+        ByteBuffer result = ByteBuffer.allocate(size);
+        int readPos = pos;
+        try {
+            while (result.hasRemaining()) {
+                byte[] block = this.readBlock(readPos / this.blockSize);
+                int blockOffset = readPos % this.blockSize;
+                int length = Math.min(result.remaining(), block.length - blockOffset);
+                result.put(block, blockOffset, length);
+                readPos += length;
+            }
+        }
+        catch (Exception e) {
+            log.error("read tiered file " + this.file + " exception, pos: " + pos + " size: " + size, e);
+            return null;
+        }
+
+        result.flip();
+        return result;
+    }
+
+
+    public boolean destroy() {
+        try {
+            this.fileChannel.close();
+            this.randomAccessFile.close();
+        }
+        catch (IOException e) {
+            log.warn("close tiered file " + this.file + " exception", e);
+        }
+
+        this.readCache.removeFile(this.file.getPath(), this.blockPositions.length - 1);
+        boolean result = this.file.delete();
+        indexFileOf(this.file).delete();
+        log.info("delete tiered file " + this.file + (result ? " OK" : " Failed"));
+        return result;
+    }
+
+
+    public String getFileName() {
+        return this.file.getPath();
+    }
+
+
+    public long getFileFromOffset() {
+        return fileFromOffset;
+    }
+
+
+    public int getFileSize() {
+        return fileSize;
+    }
+
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+
+    public long getLastModifiedTimestamp() {
+        return this.file.lastModified();
+    }
+
+
+    /**
+     * ֲ洢ʵռõĴС
+     */
+    public long getStoredSize() {
+        return this.blockPositions[this.blockPositions.length - 1];
+    }
+}
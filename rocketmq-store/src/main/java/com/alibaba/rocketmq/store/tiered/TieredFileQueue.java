@@ -0,0 +1,334 @@
+/**
+ * $Id: TieredFileQueue.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.store.tiered;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.rocketmq.common.UtilALl;
+import com.alibaba.rocketmq.common.constant.LoggerName;
+import com.alibaba.rocketmq.store.MapedFile;
+import com.alibaba.rocketmq.store.MapedFileOffloader;
+import com.alibaba.rocketmq.store.SelectMapedBufferResult;
+
+
+/**
+ * ֲ洢ϵļУMapedFileQueueһһӦļͬʼOffset<br>
+ * ȴ洢ɾļǰת浽ȡȴ洢ѾڵOffsetʱȡ
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class TieredFileQueue implements MapedFileOffloader {
+    private static final Logger log = LoggerFactory.getLogger(LoggerName.StoreLoggerName);
+    private final String storePath;
+    private final int blockSize;
+    private final boolean compress;
+    private final TieredReadCache readCache;
+    private final TieredOffloadService offloadService;
+    // תļʼOffset -> ļ
+    private final ConcurrentHashMap<Long, MapedFile> offloadingFiles =
+            new ConcurrentHashMap<Long, MapedFile>();
+    // ʼOffset -> ļ
+    private final TreeMap<Long, TieredFile> tieredFiles = new TreeMap<Long, TieredFile>();
+    // дtieredFiles
+    private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+
+
+    public TieredFileQueue(final String storePath, final int blockSize, final boolean compress,
+            final TieredReadCache readCache, final TieredOffloadService offloadService) {
+        this.storePath = storePath;
+        this.blockSize = blockSize;
+        this.compress = compress;
+        this.readCache = readCache;
+        this.offloadService = offloadService;
+    }
+
+
+    public boolean load() {
+        File dir = new File(this.storePath);
+        File[] files = dir.listFiles();
+        if (null == files) {
+            return true;
+        }
+
+        for (File file : files) {
+            String name = file.getName();
+            if (name.endsWith(TieredFile.TempFileSuffix)) {
+                // ϴתδ
+                file.delete();
+                continue;
+            }
+
+            if (name.endsWith(TieredFile.IndexFileSuffix)) {
+                continue;
+            }
+
+            try {
+                TieredFile tieredFile = TieredFile.load(file, this.readCache);
+                if (tieredFile != null) {
+                    this.tieredFiles.put(tieredFile.getFileFromOffset(), tieredFile);
+                    log.info("load tiered file " + file.getPath() + " OK");
+                }
+            }
+            catch (IOException e) {
+                log.error("load tiered file " + file + " error", e);
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+    private boolean isOffloaded(final long fileFromOffset) {
+        this.readWriteLock.readLock().lock();
+        try {
+            return this.tieredFiles.containsKey(fileFromOffset);
+        }
+        finally {
+            this.readWriteLock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * Ѿת򷵻trueύת߳첽ת沢falseȴ洢ļתɺɾ
+     */
+    @Override
+    public boolean offload(final MapedFile mapedFile) {
+        final long fileFromOffset = mapedFile.getFileFromOffset();
+        if (this.isOffloaded(fileFromOffset)) {
+            return true;
+        }
+
+        if (null == this.offloadingFiles.putIfAbsent(fileFromOffset, mapedFile)) {
+            this.offloadService.putRequest(this, mapedFile);
+        }
+
+        return false;
+    }
+
+
+    /**
+     * תִ߳Уѹдļ
+     */
+    public boolean doOffload(final MapedFile mapedFile) {
+        final long fileFromOffset = mapedFile.getFileFromOffset();
+        try {
+            if (this.isOffloaded(fileFromOffset)) {
+                return true;
+            }
+
+            return this.offloadMapedFile(mapedFile);
+        }
+        finally {
+            this.offloadingFiles.remove(fileFromOffset);
+        }
+    }
+
+
+    private boolean offloadMapedFile(final MapedFile mapedFile) {
+        final long fileFromOffset = mapedFile.getFileFromOffset();
+        SelectMapedBufferResult result = mapedFile.selectMapedBuffer(0);
+        if (null == result) {
+            log.warn("offload " + mapedFile.getFileName() + " failed, the file is not available");
+            return false;
+        }
+
+        try {
+            File dir = new File(this.storePath);
+            if (!dir.exists() && !dir.mkdirs()) {
+                log.error("offload " + mapedFile.getFileName() + " failed, mkdirs " + dir + " failed");
+                return false;
+            }
+
+            long beginTime = System.currentTimeMillis();
+            TieredFile tieredFile =
+                    TieredFile.create(new File(dir, UtilALl.offset2FileName(fileFromOffset)),
+                        result.getByteBuffer(), this.blockSize, this.compress,
+                        mapedFile.getLastModifiedTimestamp(), this.readCache);
+
+            this.readWriteLock.writeLock().lock();
+            try {
+                this.tieredFiles.put(fileFromOffset, tieredFile);
+            }
+            finally {
+                this.readWriteLock.writeLock().unlock();
+            }
+
+            log.info("offload " + mapedFile.getFileName() + " to " + tieredFile.getFileName() + " OK, "
+                    + result.getSize() + " -> " + tieredFile.getStoredSize() + " bytes, cost "
+                    + (System.currentTimeMillis() - beginTime) + "ms");
+            return true;
+        }
+        catch (IOException e) {
+            log.error("offload " + mapedFile.getFileName() + " exception", e);
+            return false;
+        }
+        finally {
+            result.release();
+        }
+    }
+
+
+    /**
+     * ȡеСOffsetΪգ򷵻-1
+     */
+    public long getMinOffset() {
+        this.readWriteLock.readLock().lock();
+        try {
+            if (!this.tieredFiles.isEmpty()) {
+                return this.tieredFiles.firstKey();
+            }
+        }
+        finally {
+            this.readWriteLock.readLock().unlock();
+        }
+
+        return -1;
+    }
+
+
+    public TieredFile findTieredFileByOffset(final long offset) {
+        this.readWriteLock.readLock().lock();
+        try {
+            Map.Entry<Long, TieredFile> entry = this.tieredFiles.floorEntry(offset);
+            if (entry != null && offset < entry.getKey() + entry.getValue().getFileSize()) {
+                return entry.getValue();
+            }
+        }
+        finally {
+            this.readWriteLock.readLock().unlock();
+        }
+
+        return null;
+    }
+
+
+    /**
+     * ȡһݣؽռļãrelease޸
+     */
+    public SelectMapedBufferResult getData(final long offset, final int size) {
+        TieredFile tieredFile = this.findTieredFileByOffset(offset);
+        if (tieredFile != null) {
+            ByteBuffer byteBuffer = tieredFile.read((int) (offset - tieredFile.getFileFromOffset()), size);
+            if (byteBuffer != null) {
+                return new SelectMapedBufferResult(offset, byteBuffer, size, null);
+            }
+        }
+
+        return null;
+    }
+
+
+    /**
+     * ȡoffsetʼڿβݣmaxSizeֽڣÿζȡѹļ<br>
+     * Խ߽һԪҲһأ÷ݷصĴСȡ
+     */
+    public SelectMapedBufferResult getData(final long offset, final int maxSize, final int unitSize) {
+        TieredFile tieredFile = this.findTieredFileByOffset(offset);
+        if (tieredFile != null) {
+            int pos = (int) (offset - tieredFile.getFileFromOffset());
+            int blockSize = tieredFile.getBlockSize();
+            int blockEnd = (pos / blockSize + 1) * blockSize;
+            int size = (blockEnd - pos + unitSize - 1) / unitSize * unitSize;
+            size = Math.min(size, Math.min(tieredFile.getFileSize() - pos, maxSize));
+            size -= size % unitSize;
+            if (size > 0) {
+                return this.getData(offset, size);
+            }
+        }
+
+        return null;
+    }
+
+
+    private int deleteTieredFiles(final List<TieredFile> files) {
+        if (!files.isEmpty()) {
+            this.readWriteLock.writeLock().lock();
+            try {
+                for (TieredFile file : files) {
+                    this.tieredFiles.remove(file.getFileFromOffset());
+                }
+            }
+            finally {
+                this.readWriteLock.writeLock().unlock();
+            }
+
+            for (TieredFile file : files) {
+                file.destroy();
+            }
+        }
+
+        return files.size();
+    }
+
+
+    private List<TieredFile> copyTieredFiles() {
+        this.readWriteLock.readLock().lock();
+        try {
+            return new ArrayList<TieredFile>(this.tieredFiles.values());
+        }
+        finally {
+            this.readWriteLock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * ļʱɾļֻͷʼɾ
+     */
+    public int deleteExpiredFileByTime(final long expiredTime) {
+        List<TieredFile> files = new ArrayList<TieredFile>();
+        for (TieredFile file : this.copyTieredFiles()) {
+            if (System.currentTimeMillis() >= file.getLastModifiedTimestamp() + expiredTime) {
+                files.add(file);
+            }
+            else {
+                break;
+            }
+        }
+
+        return this.deleteTieredFiles(files);
+    }
+
+
+    /**
+     * СOffsetɾ߼ļ
+     */
+    public int deleteExpiredFileByOffset(final long offset, final int unitSize) {
+        List<TieredFile> files = new ArrayList<TieredFile>();
+        for (TieredFile file : this.copyTieredFiles()) {
+            ByteBuffer byteBuffer = file.read(file.getFileSize() - unitSize, unitSize);
+            if (byteBuffer != null && byteBuffer.getLong() < offset) {
+                files.add(file);
+            }
+            else {
+                break;
+            }
+        }
+
+        return this.deleteTieredFiles(files);
+    }
+
+
+    public void destroy() {
+        this.deleteTieredFiles(this.copyTieredFiles());
+        File dir = new File(this.storePath);
+        if (dir.isDirectory()) {
+            dir.delete();
+        }
+    }
+}
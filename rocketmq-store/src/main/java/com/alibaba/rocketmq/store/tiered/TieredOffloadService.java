@@ -0,0 +1,69 @@
+/**
+ * $Id: TieredOffloadService.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.store.tiered;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.rocketmq.common.ServiceThread;
+import com.alibaba.rocketmq.common.constant.LoggerName;
+import com.alibaba.rocketmq.store.MapedFile;
+
+
+/**
+ * תֻ߳ύתѹдֲ洢תɺ߳ɾȴ洢ļ
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class TieredOffloadService extends ServiceThread {
+    private static final Logger log = LoggerFactory.getLogger(LoggerName.StoreLoggerName);
+
+    class OffloadRequest {
+        private final TieredFileQueue fileQueue;
+        private final MapedFile mapedFile;
+
+
+        public OffloadRequest(final TieredFileQueue fileQueue, final MapedFile mapedFile) {
+            this.fileQueue = fileQueue;
+            this.mapedFile = mapedFile;
+        }
+    }
+
+    private final LinkedBlockingQueue<OffloadRequest> requestQueue =
+            new LinkedBlockingQueue<OffloadRequest>();
+
+
+    public void putRequest(final TieredFileQueue fileQueue, final MapedFile mapedFile) {
+        this.requestQueue.offer(new OffloadRequest(fileQueue, mapedFile));
+    }
+
+
+    @Override
+    public void run() {
+        log.info(this.getServiceName() + " service started");
+
+        while (!this.isStoped()) {
+            try {
+                OffloadRequest request = this.requestQueue.poll(3000, TimeUnit.MILLISECONDS);
+                if (request != null) {
+                    request.fileQueue.doOffload(request.mapedFile);
+                }
+            }
+            catch (Exception e) {
+                log.warn(this.getServiceName() + " service has exception. ", e);
+            }
+        }
+
+        log.info(this.getServiceName() + " service end");
+    }
+
+
+    @Override
+    public String getServiceName() {
+        return TieredOffloadService.class.getSimpleName();
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * $Id: TieredReadCache.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.store.tiered;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * תļĿ棬LRṶǽѹĿ
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class TieredReadCache {
+    private final int maxBlocks;
+    private final LinkedHashMap<String, byte[]> blockTable;
+
+
+    public TieredReadCache(final int maxBlocks) {
+        this.maxBlocks = maxBlocks;
+        this.blockTable = new LinkedHashMap<String, byte[]>(16, 0.75f, true) {
+            private static final long serialVersionUID = -2245467062012394417L;
+
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return this.size() > TieredReadCache.this.maxBlocks;
+            }
+        };
+    }
+
+
+    private static String buildKey(final String fileName, final int blockIndex) {
+        return fileName + "@" + blockIndex;
+    }
+
+
+    public synchronized byte[] getBlock(final String fileName, final int blockIndex) {
+        return this.blockTable.get(buildKey(fileName, blockIndex));
+    }
+
+
+    public synchronized void putBlock(final String fileName, final int blockIndex, final byte[] block) {
+        if (this.maxBlocks > 0) {
+            this.blockTable.put(buildKey(fileName, blockIndex), block);
+        }
+    }
+
+
+    /**
+     * ļɾʱȫ
+     */
+    public synchronized void removeFile(final String fileName, final int blockCount) {
+        for (int i = 0; i < blockCount; i++) {
+            this.blockTable.remove(buildKey(fileName, i));
+        }
+    }
+
+
+    public synchronized int size() {
+        return this.blockTable.size();
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * $Id: TieredStoreService.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.store.tiered;
+
+import java.io.File;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.rocketmq.common.constant.LoggerName;
+import com.alibaba.rocketmq.store.config.MessageStoreConfig;
+
+
+/**
+ * ֲ洢ȴ洢йڵCommitLog߼ļɾǰת浽۴洢<br>
+ * ȡϢʱ͸شӷֲ洢ȡֲ洢ϵļıʱɾ
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class TieredStoreService {
+    private static final Logger log = LoggerFactory.getLogger(LoggerName.StoreLoggerName);
+    private final MessageStoreConfig messageStoreConfig;
+    // תļĿ
+    private final TieredReadCache readCache;
+    // ת̣߳߳ѹļ
+    private final TieredOffloadService offloadService = new TieredOffloadService();
+    private final TieredFileQueue commitLogFileQueue;
+
+
+    public TieredStoreService(final MessageStoreConfig messageStoreConfig) {
+        this.messageStoreConfig = messageStoreConfig;
+        this.readCache = new TieredReadCache(messageStoreConfig.getTieredReadCacheBlocks());
+        this.commitLogFileQueue = this.createFileQueue(messageStoreConfig.getStorePathTieredCommitLog());
+    }
+
+
+    private TieredFileQueue createFileQueue(final String storePath) {
+        return new TieredFileQueue(storePath, this.messageStoreConfig.getTieredBlockSize(),
+            this.messageStoreConfig.isTieredFileCompress(), this.readCache, this.offloadService);
+    }
+
+
+    /**
+     * ߼жӦķֲ洢У߼Լ
+     */
+    public TieredFileQueue createConsumeQueueFileQueue(final String topic, final int queueId) {
+        String queueDir = this.messageStoreConfig.getStorePathTieredConsumeQueue()//
+                + File.separator + topic//
+                + File.separator + queueId;//
+        return this.createFileQueue(queueDir);
+    }
+
+
+    public boolean load() {
+        boolean result = this.commitLogFileQueue.load();
+        log.info("load tiered commit log " + (result ? "OK" : "Failed"));
+        return result;
+    }
+
+
+    public void start() {
+        this.offloadService.start();
+    }
+
+
+    public void shutdown() {
+        this.offloadService.shutdown();
+    }
+
+
+    /**
+     * ɾֲ洢ϹڵCommitLogļ߼ļCommitLogСOffsetɾ
+     */
+    public int deleteExpiredFiles() {
+        long fileReservedTime = this.messageStoreConfig.getTieredFileReservedTime();
+        // Сʱתɺ
+        fileReservedTime *= 60 * 60 * 1000;
+        return this.commitLogFileQueue.deleteExpiredFileByTime(fileReservedTime);
+    }
+
+
+    public void destroy() {
+        this.commitLogFileQueue.destroy();
+    }
+
+
+    public TieredFileQueue getCommitLogFileQueue() {
+        return commitLogFileQueue;
+    }
+
+
+    public TieredReadCache getReadCache() {
+        return readCache;
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * $Id: TimerEntry.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.store.timer;
+
+/**
+ * һͶݵĶʱϢ
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class TimerEntry {
+    private final long offsetPy;
+    private final int sizePy;
+    private final long deliverTimestamp;
+    // ĿڵʱļţͶɺ
+    private final TimerLogFile timerLogFile;
+    private final int entryIndex;
+
+
+    public TimerEntry(long offsetPy, int sizePy, long deliverTimestamp) {
+        this(offsetPy, sizePy, deliverTimestamp, null, 0);
+    }
+
+
+    public TimerEntry(long offsetPy, int sizePy, long deliverTimestamp, TimerLogFile timerLogFile,
+            int entryIndex) {
+        this.offsetPy = offsetPy;
+        this.sizePy = sizePy;
+        this.deliverTimestamp = deliverTimestamp;
+        this.timerLogFile = timerLogFile;
+        this.entryIndex = entryIndex;
+    }
+
+
+    public long getOffsetPy() {
+        return offsetPy;
+    }
+
+
+    public int getSizePy() {
+        return sizePy;
+    }
+
+
+    public long getDeliverTimestamp() {
+        return deliverTimestamp;
+    }
+
+
+    public TimerLogFile getTimerLogFile() {
+        return timerLogFile;
+    }
+
+
+    public int getEntryIndex() {
+        return entryIndex;
+    }
+
+
+    @Override
+    public String toString() {
+        return "TimerEntry [offsetPy=" + offsetPy + ", sizePy=" + sizePy + ", deliverTimestamp="
+                + deliverTimestamp + "]";
+    }
+}
@@ -0,0 +1,235 @@
+/**
+ * $Id: TimerLogFile.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.store.timer;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.rocketmq.common.constant.LoggerName;
+import com.alibaba.rocketmq.store.MapedFile;
+
+
+/**
+ * ʱϢʱļÿļӦһСʱÿһλ<br>
+ * ļṹ[Ŀ 4] [λ 3600 * 4] [Ŀ N * 24]<br>
+ * Ŀṹ[CommitLog Offset 8] [Size 4] [Ͷʱ 8] [ͬһλһĿ 4]<br>
+ * ĿͶɺSizeΪ-1ظͶ
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class TimerLogFile {
+    private static final Logger log = LoggerFactory.getLogger(LoggerName.StoreLoggerName);
+
+    public static final long BUCKET_MILLIS = 1000L * 60 * 60;
+    public static final int SLOT_NUM = 3600;
+    private static int HEADER_SIZE = 4;
+    private static int SLOT_SIZE = 4;
+    private static int ENTRY_SIZE = 8 + 4 + 8 + 4;
+    private static int INVALID_INDEX = 0;
+    private static int DELIVERED_SIZE = -1;
+
+    private final int entryNum;
+    private final MapedFile mapedFile;
+    private final MappedByteBuffer mappedByteBuffer;
+    // Ŀ1ʼ0ʾЧ
+    private int entryCount = 1;
+
+
+    public TimerLogFile(final String fileName, final int entryNum) throws IOException {
+        int fileTotalSize = HEADER_SIZE + (SLOT_NUM * SLOT_SIZE) + ((entryNum + 1) * ENTRY_SIZE);
+        this.mapedFile = new MapedFile(fileName, fileTotalSize);
+        this.mappedByteBuffer = this.mapedFile.getMappedByteBuffer();
+        this.entryNum = entryNum;
+    }
+
+
+    /**
+     * ļĴСĿʱʹ
+     */
+    public static int entryNumOf(final long fileTotalSize) {
+        return (int) ((fileTotalSize - HEADER_SIZE - SLOT_NUM * SLOT_SIZE) / ENTRY_SIZE) - 1;
+    }
+
+
+    /**
+     * ļСʱʼʱ䣬ļСʱʼʱ
+     */
+    public static long bucketOf(final long timestamp) {
+        return timestamp - timestamp % BUCKET_MILLIS;
+    }
+
+
+    public long getBucket() {
+        return bucketOf(this.mapedFile.getFileFromOffset());
+    }
+
+
+    public String getFileName() {
+        return this.mapedFile.getFileName();
+    }
+
+
+    public void load() {
+        int count = this.mappedByteBuffer.getInt(0);
+        if (count > INVALID_INDEX && count <= this.entryNum + 1) {
+            this.entryCount = count;
+        }
+    }
+
+
+    public void flush() {
+        if (this.mapedFile.hold()) {
+            this.mappedByteBuffer.putInt(0, this.entryCount);
+            this.mappedByteBuffer.force();
+            this.mapedFile.release();
+        }
+    }
+
+
+    /**
+     * ԤļõļǰصPageCache
+     */
+    public void warm() {
+        if (this.mapedFile.hold()) {
+            try {
+                this.mappedByteBuffer.load();
+            }
+            finally {
+                this.mapedFile.release();
+            }
+        }
+    }
+
+
+    public boolean isWriteFull() {
+        return this.entryCount > this.entryNum;
+    }
+
+
+    public boolean destroy(final long intervalForcibly) {
+        return this.mapedFile.destroy(intervalForcibly);
+    }
+
+
+    /**
+     * falseʾҪµļ
+     */
+    public boolean putEntry(final long offsetPy, final int sizePy, final long deliverTimestamp) {
+        return this.appendEntry(offsetPy, sizePy, deliverTimestamp) > INVALID_INDEX;
+    }
+
+
+    /**
+     * Ŀţдʧܷ0
+     */
+    public int appendEntry(final long offsetPy, final int sizePy, final long deliverTimestamp) {
+        if (this.isWriteFull()) {
+            log.warn("putEntry timer entry count " + this.entryCount + " entry max num " + this.entryNum);
+            return INVALID_INDEX;
+        }
+
+        int slotPos = (int) ((deliverTimestamp - this.getBucket()) / 1000);
+        if (slotPos < 0 || slotPos >= SLOT_NUM) {
+            log.warn("putEntry deliver timestamp " + deliverTimestamp + " not in file " + this.getFileName());
+            return INVALID_INDEX;
+        }
+
+        int absSlotPos = HEADER_SIZE + slotPos * SLOT_SIZE;
+        int slotValue = this.mappedByteBuffer.getInt(absSlotPos);
+        if (slotValue <= INVALID_INDEX || slotValue >= this.entryCount) {
+            slotValue = INVALID_INDEX;
+        }
+
+        int absEntryPos = HEADER_SIZE + SLOT_NUM * SLOT_SIZE + this.entryCount * ENTRY_SIZE;
+        this.mappedByteBuffer.putLong(absEntryPos, offsetPy);
+        this.mappedByteBuffer.putInt(absEntryPos + 8, sizePy);
+        this.mappedByteBuffer.putLong(absEntryPos + 8 + 4, deliverTimestamp);
+        this.mappedByteBuffer.putInt(absEntryPos + 8 + 4 + 8, slotValue);
+
+        // ²λ
+        int index = this.entryCount;
+        this.mappedByteBuffer.putInt(absSlotPos, index);
+        this.entryCount++;
+        this.mappedByteBuffer.putInt(0, this.entryCount);
+        return index;
+    }
+
+
+    /**
+     * ĿѾͶݣдӳڴ棬ȻЧ
+     */
+    public void markDelivered(final int index) {
+        if (index <= INVALID_INDEX || index >= this.entryCount) {
+            return;
+        }
+
+        if (this.mapedFile.hold()) {
+            try {
+                int absEntryPos = HEADER_SIZE + SLOT_NUM * SLOT_SIZE + index * ENTRY_SIZE;
+                this.mappedByteBuffer.putInt(absEntryPos + 8, DELIVERED_SIZE);
+            }
+            finally {
+                this.mapedFile.release();
+            }
+        }
+    }
+
+
+    /**
+     * ļCommitLog OffsetĿд˳ԾһĿļΪշ-1
+     */
+    public long getMaxOffsetPy() {
+        if (this.entryCount <= INVALID_INDEX + 1) {
+            return -1;
+        }
+
+        int absEntryPos = HEADER_SIZE + SLOT_NUM * SLOT_SIZE + (this.entryCount - 1) * ENTRY_SIZE;
+        return this.mappedByteBuffer.getLong(absEntryPos);
+    }
+
+
+    /**
+     * ȡĳһӦλȫδͶݵĿ
+     */
+    public void selectSlot(final List<TimerEntry> entries, final long second) {
+        int slotPos = (int) ((second * 1000 - this.getBucket()) / 1000);
+        if (slotPos < 0 || slotPos >= SLOT_NUM) {
+            return;
+        }
+
+        if (this.mapedFile.hold()) {
+            try {
+                int absSlotPos = HEADER_SIZE + slotPos * SLOT_SIZE;
+                int slotValue = this.mappedByteBuffer.getInt(absSlotPos);
+                for (int nextIndexToRead = slotValue; nextIndexToRead > INVALID_INDEX
+                        && nextIndexToRead < this.entryCount;) {
+                    int absEntryPos = HEADER_SIZE + SLOT_NUM * SLOT_SIZE + nextIndexToRead * ENTRY_SIZE;
+                    long offsetPy = this.mappedByteBuffer.getLong(absEntryPos);
+                    int sizePy = this.mappedByteBuffer.getInt(absEntryPos + 8);
+                    long deliverTimestamp = this.mappedByteBuffer.getLong(absEntryPos + 8 + 4);
+                    int prevIndexRead = this.mappedByteBuffer.getInt(absEntryPos + 8 + 4 + 8);
+
+                    if (sizePy != DELIVERED_SIZE) {
+                        entries.add(new TimerEntry(offsetPy, sizePy, deliverTimestamp, this,
+                            nextIndexToRead));
+                    }
+
+                    // ֻǰ
+                    if (prevIndexRead >= nextIndexToRead) {
+                        break;
+                    }
+
+                    nextIndexToRead = prevIndexRead;
+                }
+            }
+            finally {
+                this.mapedFile.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,607 @@
+/**
+ * $Id: TimerMessageService.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.store.timer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.TreeMap;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.rocketmq.common.MixAll;
+import com.alibaba.rocketmq.common.ServiceThread;
+import com.alibaba.rocketmq.common.TopicFilterType;
+import com.alibaba.rocketmq.common.UtilALl;
+import com.alibaba.rocketmq.common.constant.LoggerName;
+import com.alibaba.rocketmq.common.message.Message;
+import com.alibaba.rocketmq.common.message.MessageDecoder;
+import com.alibaba.rocketmq.common.message.MessageExt;
+import com.alibaba.rocketmq.store.ConsumeQueue;
+import com.alibaba.rocketmq.store.DefaultMessageStore;
+import com.alibaba.rocketmq.store.MessageExtBrokerInner;
+import com.alibaba.rocketmq.store.PutMessageResult;
+import com.alibaba.rocketmq.store.PutMessageStatus;
+import com.alibaba.rocketmq.store.SelectMapedBufferResult;
+import com.alibaba.rocketmq.store.config.MessageStoreConfig;
+
+
+/**
+ * ⾫ȶʱϢ<br>
+ * 1ϢдTIMER_TOPICEnqueueServiceͶʱд밴СʱͰʱļ<br>
+ * 2DeliverServiceֻѼڵʱ䴰ڼصڴʱ֣ںָʵTopicд<br>
+ * 3ԭаʱϢScheduleMessageService
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class TimerMessageService {
+    private static final Logger log = LoggerFactory.getLogger(LoggerName.StoreLoggerName);
+    public static final String TIMER_TOPIC = "TIMER_TOPIC_XXXX";
+    public static final int TIMER_QUEUE_ID = 0;
+    // һСʱʱ䣬ԤһСʱļ
+    private static final long PREFETCH_FILE_AHEAD = 1000L * 60 * 10;
+    private static final String KEY_ENQUEUE_OFFSET = "enqueueOffset";
+    private static final String KEY_DELIVER_SECOND = "deliverSecond";
+
+    // 洢
+    private final DefaultMessageStore defaultMessageStore;
+    // СʱͰʱļ
+    private final TreeMap<Long/* bucket */, List<TimerLogFile>> timerLogTable =
+            new TreeMap<Long, List<TimerLogFile>>();
+    // ڴʱ
+    private final TimerWheel timerWheel;
+    // TIMER_TOPICд
+    private volatile long enqueueOffset = 0;
+    // ǰͶݵ룬֮ǰĶͶ
+    private volatile long deliverSecond = 0;
+    // Ѿصڴʱֵ루
+    private long loadedUpToSecond = 0;
+    // ѾдʱļCommitLog Offset֮ѾдϢظͶ
+    private long maxEnqueuedOffsetPy = -1;
+
+    private final EnqueueService enqueueService = new EnqueueService();
+    private final DeliverService deliverService = new DeliverService();
+    // ʱ
+    private final Timer timer = new Timer("TimerMessageTimerThread", true);
+
+
+    public TimerMessageService(final DefaultMessageStore defaultMessageStore) {
+        this.defaultMessageStore = defaultMessageStore;
+        this.timerWheel =
+                new TimerWheel(defaultMessageStore.getMessageStoreConfig().getTimerPrefetchSeconds() * 2);
+    }
+
+    /**
+     * TIMER_TOPICеϢдʱļ
+     */
+    class EnqueueService extends ServiceThread {
+        private void doEnqueue() {
+            ConsumeQueue cq =
+                    TimerMessageService.this.defaultMessageStore
+                        .findConsumeQueue(TIMER_TOPIC, TIMER_QUEUE_ID);
+            if (cq == null) {
+                return;
+            }
+
+            if (TimerMessageService.this.enqueueOffset < cq.getMinOffsetInQuque()) {
+                log.warn("timer enqueue offset " + TimerMessageService.this.enqueueOffset
+                        + " is removed, correct to " + cq.getMinOffsetInQuque());
+                TimerMessageService.this.enqueueOffset = cq.getMinOffsetInQuque();
+            }
+
+            for (boolean doNext = true; doNext && !this.isStoped();) {
+                SelectMapedBufferResult bufferCQ = cq.getIndexBuffer(TimerMessageService.this.enqueueOffset);
+                if (null == bufferCQ) {
+                    break;
+                }
+
+                try {
+                    int i = 0;
+                    for (; i < bufferCQ.getSize(); i += ConsumeQueue.CQStoreUnitSize) {
+                        long offsetPy = bufferCQ.getByteBuffer().getLong();
+                        int sizePy = bufferCQ.getByteBuffer().getInt();
+                        // 洢tagsCodeʵͶʱ
+                        long deliverTimestamp = bufferCQ.getByteBuffer().getLong();
+
+                        // Ŀհ
+                        if (sizePy == Integer.MAX_VALUE) {
+                            continue;
+                        }
+
+                        TimerEntry entry = new TimerEntry(offsetPy, sizePy, deliverTimestamp);
+                        if (!TimerMessageService.this.enqueue(entry)) {
+                            doNext = false;
+                            break;
+                        }
+                    }
+
+                    TimerMessageService.this.enqueueOffset += i / ConsumeQueue.CQStoreUnitSize;
+                    if (0 == i) {
+                        doNext = false;
+                    }
+                }
+                finally {
+                    // ͷԴ
+                    bufferCQ.release();
+                }
+            }
+        }
+
+
+        public void run() {
+            log.info(this.getServiceName() + " service started");
+
+            while (!this.isStoped()) {
+                try {
+                    this.waitForRunning(TimerMessageService.this.defaultMessageStore.getMessageStoreConfig()
+                        .getTimerPrecisionMs());
+                    this.doEnqueue();
+                }
+                catch (Exception e) {
+                    log.warn(this.getServiceName() + " service has exception. ", e);
+                }
+            }
+
+            log.info(this.getServiceName() + " service end");
+        }
+
+
+        @Override
+        public String getServiceName() {
+            return EnqueueService.class.getSimpleName();
+        }
+    }
+
+    /**
+     * ڴʱȡϢͶ
+     */
+    class DeliverService extends ServiceThread {
+        private void doDeliver() {
+            final long now = System.currentTimeMillis();
+            final long nowSecond = now / 1000;
+
+            TimerMessageService.this.prefetchWindow(nowSecond);
+
+            while (!this.isStoped() && TimerMessageService.this.deliverSecond <= nowSecond) {
+                final long second = TimerMessageService.this.deliverSecond;
+                // ׷Ͻʱʱ䴰Ҫǰ
+                if (!TimerMessageService.this.isSecondLoaded(second)) {
+                    TimerMessageService.this.prefetchWindow(nowSecond);
+                }
+
+                List<TimerEntry> dueList = TimerMessageService.this.timerWheel.pollDue(second, now);
+                for (int i = 0; i < dueList.size(); i++) {
+                    TimerEntry entry = dueList.get(i);
+                    if (!TimerMessageService.this.deliver(entry)) {
+                        // ʧܣʣµķŻʱ֣Ժ
+                        TimerMessageService.this.timerWheel.addEntries(second,
+                            dueList.subList(i, dueList.size()));
+                        return;
+                    }
+                }
+
+                // һѾȫȥȫͶ
+                if (second < nowSecond && TimerMessageService.this.timerWheel.isSlotEmpty(second)) {
+                    TimerMessageService.this.advanceDeliverSecond(second + 1);
+                }
+                else {
+                    break;
+                }
+            }
+        }
+
+
+        public void run() {
+            log.info(this.getServiceName() + " service started");
+
+            while (!this.isStoped()) {
+                try {
+                    this.waitForRunning(TimerMessageService.this.defaultMessageStore.getMessageStoreConfig()
+                        .getTimerPrecisionMs());
+                    this.doDeliver();
+                }
+                catch (Exception e) {
+                    log.warn(this.getServiceName() + " service has exception. ", e);
+                }
+            }
+
+            log.info(this.getServiceName() + " service end");
+        }
+
+
+        @Override
+        public String getServiceName() {
+            return DeliverService.class.getSimpleName();
+        }
+    }
+
+
+    private synchronized void advanceDeliverSecond(final long second) {
+        this.deliverSecond = second;
+    }
+
+
+    private synchronized boolean isSecondLoaded(final long second) {
+        return second < this.loadedUpToSecond;
+    }
+
+
+    /**
+     * δһʱ䴰ڵϢļصڴʱ
+     */
+    private synchronized void prefetchWindow(final long nowSecond) {
+        long upTo = nowSecond + this.defaultMessageStore.getMessageStoreConfig().getTimerPrefetchSeconds();
+        long limit = this.deliverSecond + this.timerWheel.getSlotNum() - 1;
+        if (upTo > limit) {
+            upTo = limit;
+        }
+
+        List<TimerEntry> entries = new ArrayList<TimerEntry>();
+        for (; this.loadedUpToSecond < upTo; this.loadedUpToSecond++) {
+            long bucket = TimerLogFile.bucketOf(this.loadedUpToSecond * 1000);
+            List<TimerLogFile> files = this.timerLogTable.get(bucket);
+            if (files != null) {
+                for (TimerLogFile file : files) {
+                    file.selectSlot(entries, this.loadedUpToSecond);
+                }
+
+                if (!entries.isEmpty()) {
+                    this.timerWheel.addEntries(this.loadedUpToSecond, entries);
+                    entries = new ArrayList<TimerEntry>();
+                }
+            }
+        }
+    }
+
+
+    /**
+     * дʱļѾڴʱ䴰ڣͬʱڴʱ
+     */
+    private synchronized boolean enqueue(final TimerEntry entry) {
+        // ֮ǰѾдʱļ
+        if (entry.getOffsetPy() <= this.maxEnqueuedOffsetPy) {
+            return true;
+        }
+
+        long deliverTimestamp = entry.getDeliverTimestamp();
+        long second = deliverTimestamp / 1000;
+        // ѾڵϢŵǰͶݵ룬Ͷ
+        if (second < this.deliverSecond) {
+            second = this.deliverSecond;
+            deliverTimestamp = second * 1000;
+        }
+
+        long bucket = TimerLogFile.bucketOf(second * 1000);
+        TimerLogFile file = this.getOrCreateTimerLogFile(bucket);
+        if (null == file) {
+            return false;
+        }
+
+        int index = file.appendEntry(entry.getOffsetPy(), entry.getSizePy(), deliverTimestamp);
+        if (index <= 0) {
+            return false;
+        }
+
+        this.maxEnqueuedOffsetPy = entry.getOffsetPy();
+        if (second < this.loadedUpToSecond) {
+            this.timerWheel.addEntry(second,
+                new TimerEntry(entry.getOffsetPy(), entry.getSizePy(), deliverTimestamp, file, index));
+        }
+
+        return true;
+    }
+
+
+    private TimerLogFile getOrCreateTimerLogFile(final long bucket) {
+        List<TimerLogFile> files = this.timerLogTable.get(bucket);
+        if (null == files) {
+            files = new ArrayList<TimerLogFile>();
+            this.timerLogTable.put(bucket, files);
+        }
+
+        if (!files.isEmpty()) {
+            TimerLogFile last = files.get(files.size() - 1);
+            if (!last.isWriteFull()) {
+                return last;
+            }
+        }
+
+        // ǰСʱļдļļΪСʱʼʱ
+        MessageStoreConfig config = this.defaultMessageStore.getMessageStoreConfig();
+        String fileName =
+                config.getStorePathTimerLog() + File.separator
+                        + UtilALl.offset2FileName(bucket + files.size());
+        // 䣬һļСļη
+        long entryNum = (long) config.getTimerLogInitEntryNum() << Math.min(files.size(), 30);
+        try {
+            TimerLogFile file =
+                    new TimerLogFile(fileName, (int) Math.min(entryNum, config.getTimerLogMaxEntryNum()));
+            files.add(file);
+            log.info("create timer log file " + fileName);
+            return file;
+        }
+        catch (IOException e) {
+            log.error("create timer log file exception, " + fileName, e);
+        }
+
+        return null;
+    }
+
+
+    private MessageExtBrokerInner messageTimeup(MessageExt msgExt) {
+        MessageExtBrokerInner msgInner = new MessageExtBrokerInner();
+        msgInner.setBody(msgExt.getBody());
+        msgInner.setFlag(msgExt.getFlag());
+        msgInner.setProperties(msgExt.getProperties());
+
+        TopicFilterType topicFilterType = MessageExt.parseTopicFilterType(msgInner.getSysFlag());
+        long tagsCodeValue = MessageExtBrokerInner.tagsString2tagsCode(topicFilterType, msgInner.getTags());
+        msgInner.setTagsCode(tagsCodeValue);
+
+        msgInner.setSysFlag(msgExt.getSysFlag());
+        msgInner.setBornTimestamp(msgExt.getBornTimestamp());
+        msgInner.setBornHost(msgExt.getBornHost());
+        msgInner.setStoreHost(msgExt.getStoreHost());
+        msgInner.setReconsumeTimes(msgExt.getReconsumeTimes());
+
+        msgInner.setWaitStoreMsgOK(false);
+        msgInner.clearProperty(Message.PROPERTY_DELIVER_TIMESTAMP);
+
+        // ָTopic
+        msgInner.setTopic(msgInner.getProperty(Message.PROPERTY_REAL_TOPIC));
+
+        // ָQueueId
+        String queueIdStr = msgInner.getProperty(Message.PROPERTY_REAL_QUEUE_ID);
+        int queueId = Integer.parseInt(queueIdStr);
+        msgInner.setQueueId(queueId);
+
+        msgInner.setPropertiesString(MessageDecoder.messageProperties2String(msgInner.getProperties()));
+        return msgInner;
+    }
+
+
+    private void markDelivered(final TimerEntry entry) {
+        if (entry.getTimerLogFile() != null) {
+            entry.getTimerLogFile().markDelivered(entry.getEntryIndex());
+        }
+    }
+
+
+    private boolean deliver(final TimerEntry entry) {
+        MessageExt msgExt =
+                this.defaultMessageStore.lookMessageByOffset(entry.getOffsetPy(), entry.getSizePy());
+        if (null == msgExt) {
+            log.warn("timer message time up, but the message was removed, " + entry);
+            this.markDelivered(entry);
+            return true;
+        }
+
+        PutMessageResult putMessageResult = this.defaultMessageStore.putMessage(this.messageTimeup(msgExt));
+        if (putMessageResult != null && putMessageResult.getPutMessageStatus() == PutMessageStatus.PUT_OK) {
+            this.markDelivered(entry);
+            return true;
+        }
+
+        log.error("a timer message time up, but reput it failed, topic: {} msgId {}", msgExt.getTopic(),
+            msgExt.getMsgId());
+        return false;
+    }
+
+
+    /**
+     * ԤһСʱļɾѾͶɵļ
+     */
+    private synchronized void prefetchAndCleanFiles() {
+        final long deliverTimestamp = this.deliverSecond * 1000;
+        final long currentBucket = TimerLogFile.bucketOf(deliverTimestamp);
+        final long nextBucket = TimerLogFile.bucketOf(deliverTimestamp + PREFETCH_FILE_AHEAD);
+        if (nextBucket != currentBucket) {
+            List<TimerLogFile> files = this.timerLogTable.get(nextBucket);
+            if (files != null) {
+                for (TimerLogFile file : files) {
+                    file.warm();
+                }
+            }
+        }
+
+        for (Iterator<Map.Entry<Long, List<TimerLogFile>>> it = this.timerLogTable.entrySet().iterator(); it
+            .hasNext();) {
+            Map.Entry<Long, List<TimerLogFile>> next = it.next();
+            if (next.getKey() >= currentBucket) {
+                break;
+            }
+
+            for (TimerLogFile file : next.getValue()) {
+                boolean result = file.destroy(3000);
+                log.info("destroy timer log file " + file.getFileName() + (result ? " OK" : " Failed"));
+            }
+            it.remove();
+        }
+    }
+
+
+    public boolean load() {
+        MessageStoreConfig config = this.defaultMessageStore.getMessageStoreConfig();
+
+        String str = MixAll.file2String(config.getTimerCheckpointPath());
+        if (str != null) {
+            Properties prop = MixAll.string2Properties(str);
+            if (prop != null) {
+                this.enqueueOffset = UtilALl.asLong(prop.getProperty(KEY_ENQUEUE_OFFSET), 0);
+                this.deliverSecond = UtilALl.asLong(prop.getProperty(KEY_DELIVER_SECOND), 0);
+                log.info("load timer checkpoint, enqueueOffset {} deliverSecond {}", this.enqueueOffset,
+                    this.deliverSecond);
+            }
+        }
+
+        File dir = new File(config.getStorePathTimerLog());
+        File[] files = dir.listFiles();
+        if (files != null) {
+            // ļ򣬱֤ļ˳
+            Arrays.sort(files);
+            for (File file : files) {
+                try {
+                    int entryNum = TimerLogFile.entryNumOf(file.length());
+                    if (entryNum <= 0) {
+                        log.warn("load timer log file, invalid file size " + file);
+                        continue;
+                    }
+
+                    TimerLogFile f = new TimerLogFile(file.getPath(), entryNum);
+                    f.load();
+                    this.maxEnqueuedOffsetPy = Math.max(this.maxEnqueuedOffsetPy, f.getMaxOffsetPy());
+                    List<TimerLogFile> list = this.timerLogTable.get(f.getBucket());
+                    if (null == list) {
+                        list = new ArrayList<TimerLogFile>();
+                        this.timerLogTable.put(f.getBucket(), list);
+                    }
+                    list.add(f);
+                    log.info("load timer log file OK, " + f.getFileName());
+                }
+                catch (IOException e) {
+                    log.error("load timer log file " + file + " error", e);
+                    return false;
+                }
+                catch (NumberFormatException e) {
+                    log.warn("load timer log file, unknown file " + file);
+                }
+            }
+        }
+
+        return true;
+    }
+
+
+    /**
+     * У鶨ʱϢͶʱ䣬ʽǷCommitLogʱϢܾд룬ǰϢѾɾ
+     */
+    public boolean checkDeliverTimestamp(final Message msg) {
+        String t = msg.getProperty(Message.PROPERTY_DELIVER_TIMESTAMP);
+        if (null == t) {
+            return true;
+        }
+
+        long deliverTimestamp = UtilALl.asLong(t, -1);
+        if (deliverTimestamp < 0) {
+            log.warn("putMessage timer message illegal deliver timestamp " + t);
+            return false;
+        }
+
+        MessageStoreConfig config = this.defaultMessageStore.getMessageStoreConfig();
+        int reservedHours = config.getFileReservedTime();
+        if (config.isTieredStoreEnable()) {
+            reservedHours = Math.max(reservedHours, config.getTieredFileReservedTime());
+        }
+
+        long maxDeliverTimestamp = System.currentTimeMillis() + reservedHours * 60L * 60 * 1000;
+        if (deliverTimestamp > maxDeliverTimestamp) {
+            log.warn("putMessage timer message deliver timestamp " + deliverTimestamp
+                    + " exceeds the commit log reserved time " + reservedHours + "h");
+            return false;
+        }
+
+        return true;
+    }
+
+
+    public void start() {
+        if (0 == this.deliverSecond) {
+            this.deliverSecond = System.currentTimeMillis() / 1000;
+        }
+        this.loadedUpToSecond = this.deliverSecond;
+
+        this.enqueueService.start();
+        this.deliverService.start();
+
+        // ʱļˢ
+        this.timer.scheduleAtFixedRate(new TimerTask() {
+
+            @Override
+            public void run() {
+                try {
+                    TimerMessageService.this.flush();
+                }
+                catch (Exception e) {
+                    log.error("scheduleAtFixedRate flush exception", e);
+                }
+            }
+        }, 10000, this.defaultMessageStore.getMessageStoreConfig().getFlushTimerInterval());
+
+        // ʱԤһСʱļɾļ
+        this.timer.scheduleAtFixedRate(new TimerTask() {
+
+            @Override
+            public void run() {
+                try {
+                    TimerMessageService.this.prefetchAndCleanFiles();
+                }
+                catch (Exception e) {
+                    log.error("scheduleAtFixedRate prefetchAndCleanFiles exception", e);
+                }
+            }
+        }, 1000 * 60, 1000 * 60);
+    }
+
+
+    /**
+     * ˢʱļټ¼ȣ֤֮ǰݶѾ
+     */
+    private void flush() {
+        long offset;
+        long second;
+        List<TimerLogFile> files = new ArrayList<TimerLogFile>();
+        synchronized (this) {
+            offset = this.enqueueOffset;
+            second = this.deliverSecond;
+            for (List<TimerLogFile> list : this.timerLogTable.values()) {
+                files.addAll(list);
+            }
+        }
+
+        for (TimerLogFile file : files) {
+            file.flush();
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(KEY_ENQUEUE_OFFSET + "=" + offset + IOUtils.LINE_SEPARATOR);
+        sb.append(KEY_DELIVER_SECOND + "=" + second + IOUtils.LINE_SEPARATOR);
+
+        boolean result =
+                MixAll.string2File(sb.toString(), this.defaultMessageStore.getMessageStoreConfig()
+                    .getTimerCheckpointPath());
+        log.info("flush timer checkpoint, {}", (result ? "SUCCESS" : "FAILED"));
+    }
+
+
+    public void shutdown() {
+        this.timer.cancel();
+        this.enqueueService.shutdown();
+        this.deliverService.shutdown();
+        this.flush();
+    }
+
+
+    public long getEnqueueOffset() {
+        return enqueueOffset;
+    }
+
+
+    public long getDeliverSecond() {
+        return deliverSecond;
+    }
+
+
+    public int getWheelEntryCount() {
+        return this.timerWheel.getEntryCount();
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * $Id: TimerWheel.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.store.timer;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+
+/**
+ * ڴʱֻ֣漴ڵһʱ䴰ڵĶʱϢÿһλ
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class TimerWheel {
+    private final int slotNum;
+    private final List<List<TimerEntry>> slots;
+    private int entryCount = 0;
+
+
+    public TimerWheel(final int slotNum) {
+        this.slotNum = slotNum;
+        this.slots = new ArrayList<List<TimerEntry>>(slotNum);
+        for (int i = 0; i < slotNum; i++) {
+            this.slots.add(new ArrayList<TimerEntry>());
+        }
+    }
+
+
+    private List<TimerEntry> slotOf(final long second) {
+        return this.slots.get((int) (second % this.slotNum));
+    }
+
+
+    public synchronized void addEntry(final long second, final TimerEntry entry) {
+        this.slotOf(second).add(entry);
+        this.entryCount++;
+    }
+
+
+    public synchronized void addEntries(final long second, final List<TimerEntry> entries) {
+        this.slotOf(second).addAll(entries);
+        this.entryCount += entries.size();
+    }
+
+
+    /**
+     * ȡĳһλѾڵϢ
+     */
+    public synchronized List<TimerEntry> pollDue(final long second, final long now) {
+        List<TimerEntry> slot = this.slotOf(second);
+        List<TimerEntry> due = new ArrayList<TimerEntry>();
+        for (Iterator<TimerEntry> it = slot.iterator(); it.hasNext();) {
+            TimerEntry entry = it.next();
+            if (entry.getDeliverTimestamp() <= now) {
+                due.add(entry);
+                it.remove();
+            }
+        }
+
+        this.entryCount -= due.size();
+        return due;
+    }
+
+
+    public synchronized boolean isSlotEmpty(final long second) {
+        return this.slotOf(second).isEmpty();
+    }
+
+
+    public synchronized int getEntryCount() {
+        return entryCount;
+    }
+
+
+    public int getSlotNum() {
+        return slotNum;
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * $Id: TransactionPreparedIndex.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.store.transaction;
+
+import java.util.BitSet;
+
+
+/**
+ * ״̬ļPreparedÿ洢Ԫռһλ<br>
+ * 洢Ԫд˳ʱ˳У԰λСǰʱϵ±
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class TransactionPreparedIndex {
+    private final long fileFromOffset;
+    private final BitSet preparedBits;
+    private int preparedCount = 0;
+    // ǷѾΪļز鶨ʱ
+    private boolean timerTaskAdded = false;
+
+
+    public TransactionPreparedIndex(final long fileFromOffset) {
+        this.fileFromOffset = fileFromOffset;
+        // չȫύļֻռúڴ
+        this.preparedBits = new BitSet();
+    }
+
+
+    public synchronized void markPrepared(final int unitIndex) {
+        if (!this.preparedBits.get(unitIndex)) {
+            this.preparedBits.set(unitIndex);
+            this.preparedCount++;
+        }
+    }
+
+
+    public synchronized void clearPrepared(final int unitIndex) {
+        if (this.preparedBits.get(unitIndex)) {
+            this.preparedBits.clear(unitIndex);
+            this.preparedCount--;
+        }
+    }
+
+
+    /**
+     * شfromIndexʼĵһPreparedԪûз-1
+     */
+    public synchronized int nextPrepared(final int fromIndex) {
+        return this.preparedBits.nextSetBit(fromIndex);
+    }
+
+
+    public synchronized int getPreparedCount() {
+        return preparedCount;
+    }
+
+
+    /**
+     * ֮ǰûдʱ񣬷true
+     */
+    public synchronized boolean markTimerTaskAdded() {
+        if (this.timerTaskAdded) {
+            return false;
+        }
+
+        this.timerTaskAdded = true;
+        return true;
+    }
+
+
+    public long getFileFromOffset() {
+        return fileFromOffset;
+    }
+}
@@ -9,6 +9,7 @@ import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
@@ -23,6 +24,7 @@ import com.alibaba.rocketmq.store.DefaultMessageStore;
 import com.alibaba.rocketmq.store.MapedFile;
 import com.alibaba.rocketmq.store.MapedFileQueue;
 import com.alibaba.rocketmq.store.SelectMapedBufferResult;
+import com.alibaba.rocketmq.store.UpdateTransactionStateStatus;
 import com.alibaba.rocketmq.store.config.BrokerRole;
 
 
@@ -62,6 +64,10 @@ public class TransactionStateService {
     // ʱز߳
     private final Timer timer = new Timer("CheckTransactionMessageTimer", true);
 
+    // ÿļPreparedزʱֻPrepared״̬Ĵ洢Ԫ
+    private final ConcurrentHashMap<Long/* fileFromOffset */, TransactionPreparedIndex> preparedIndexTable =
+            new ConcurrentHashMap<Long, TransactionPreparedIndex>(32);
+
 
     public TransactionStateService(final DefaultMessageStore defaultMessageStore) {
         this.defaultMessageStore = defaultMessageStore;
@@ -106,17 +112,78 @@ public class TransactionStateService {
 
     public int deleteExpiredStateFile(long offset) {
         int cnt = this.tranStateTable.deleteExpiredFileByOffset(offset, TSStoreUnitSize);
+        if (cnt > 0) {
+            this.removeExpiredPreparedIndex();
+        }
         return cnt;
     }
 
 
+    private TransactionPreparedIndex findPreparedIndex(final MapedFile mapedFile) {
+        TransactionPreparedIndex index = this.preparedIndexTable.get(mapedFile.getFileFromOffset());
+        if (null == index) {
+            index = new TransactionPreparedIndex(mapedFile.getFileFromOffset());
+            TransactionPreparedIndex prev =
+                    this.preparedIndexTable.putIfAbsent(mapedFile.getFileFromOffset(), index);
+            if (prev != null) {
+                index = prev;
+            }
+        }
+
+        return index;
+    }
+
+
+    /**
+     * ļɾɾӦPrepared
+     */
+    private void removeExpiredPreparedIndex() {
+        final List<MapedFile> mapedFiles = this.tranStateTable.getMapedFiles();
+        long minFileFromOffset =
+                mapedFiles.isEmpty() ? Long.MAX_VALUE : mapedFiles.get(0).getFileFromOffset();
+        for (Iterator<Long> it = this.preparedIndexTable.keySet().iterator(); it.hasNext();) {
+            Long fileFromOffset = it.next();
+            if (fileFromOffset < minFileFromOffset) {
+                it.remove();
+                log.info("remove expired transaction prepared index, file from offset {}", fileFromOffset);
+            }
+        }
+    }
+
+
+    /**
+     * ָɨһ״̬ؽPrepared
+     */
+    private void rebuildPreparedIndex() {
+        this.preparedIndexTable.clear();
+        long preparedTotal = 0;
+        final List<MapedFile> mapedFiles = this.tranStateTable.getMapedFiles();
+        for (MapedFile mapedFile : mapedFiles) {
+            TransactionPreparedIndex index = this.findPreparedIndex(mapedFile);
+            ByteBuffer byteBuffer = mapedFile.sliceByteBuffer();
+            int wrotePostion = mapedFile.getWrotePostion();
+            for (int i = 0; i + TSStoreUnitSize <= wrotePostion; i += TSStoreUnitSize) {
+                if (MessageSysFlag.TransactionPreparedType == byteBuffer.getInt(i + TS_STATE_POS)) {
+                    index.markPrepared(i / TSStoreUnitSize);
+                }
+            }
+
+            preparedTotal += index.getPreparedCount();
+        }
+
+        log.info("rebuild transaction prepared index over, Prepared Transaction Count: {}", preparedTotal);
+    }
+
+
     public void recoverStateTable(final boolean lastExitOK) {
         if (lastExitOK) {
             this.recoverStateTableNormal();
+            this.rebuildPreparedIndex();
         }
         else {
             // һɾState Table
             this.tranStateTable.destroy();
+            this.preparedIndexTable.clear();
             // ڶͨRedoLogȫָStateTable
             this.recreateStateTable();
         }
@@ -262,8 +329,15 @@ public class TransactionStateService {
 
 
     private void addTimerTask(final MapedFile mf) {
+        final TransactionPreparedIndex preparedIndex = this.findPreparedIndex(mf);
+        // ͬһļֻһʱ
+        if (!preparedIndex.markTimerTaskAdded()) {
+            return;
+        }
+
         this.timer.scheduleAtFixedRate(new TimerTask() {
             private final MapedFile mapedFile = mf;
+            private final TransactionPreparedIndex index = preparedIndex;
             private final TransactionCheckExecuter transactionCheckExecuter =
                     TransactionStateService.this.defaultMessageStore.getTransactionCheckExecuter();
             private final long checkTransactionMessageAtleastInterval =
@@ -282,6 +356,12 @@ public class TransactionStateService {
             }
 
 
+            private void cancelTask() {
+                this.cancel();
+                TransactionStateService.this.preparedIndexTable.remove(this.mapedFile.getFileFromOffset());
+            }
+
+
             @Override
             public void run() {
                 // SlaveҪز״̬
@@ -289,39 +369,53 @@ public class TransactionStateService {
                     return;
 
                 try {
+                    // PreparedϢļѾдֹʱ
+                    if (0 == this.index.getPreparedCount() && mapedFile.isFull()) {
+                        tranlog.info(
+                            "remove the transaction timer task, because no prepared message in this mapedfile[{}]",
+                            mapedFile.getFileName());
+                        this.cancelTask();
+                        return;
+                    }
+
                     SelectMapedBufferResult selectMapedBufferResult = mapedFile.selectMapedBuffer(0);
                     if (selectMapedBufferResult != null) {
-                        long preparedMessageCountInThisMapedFile = 0;
-                        int i = 0;
+                        long checkedCount = 0;
                         try {
-
-                            for (; i < selectMapedBufferResult.getSize(); i += TSStoreUnitSize) {
-                                selectMapedBufferResult.getByteBuffer().position(i);
+                            final ByteBuffer byteBuffer = selectMapedBufferResult.getByteBuffer();
+                            // ֻPrepared״̬Ĵ洢Ԫʱϵ
+                            for (int unitIndex = this.index.nextPrepared(0); unitIndex >= 0; unitIndex =
+                                    this.index.nextPrepared(unitIndex + 1)) {
+                                int i = unitIndex * TSStoreUnitSize;
+                                if (i + TSStoreUnitSize > selectMapedBufferResult.getSize()) {
+                                    break;
+                                }
 
                                 // Commit Log Offset
-                                long clOffset = selectMapedBufferResult.getByteBuffer().getLong();
+                                long clOffset = byteBuffer.getLong(i);
                                 // Message Size
-                                int msgSize = selectMapedBufferResult.getByteBuffer().getInt();
+                                int msgSize = byteBuffer.getInt(i + 8);
                                 // Timestamp
-                                int timestamp = selectMapedBufferResult.getByteBuffer().getInt();
+                                int timestamp = byteBuffer.getInt(i + 12);
                                 // Producer Group Hashcode
-                                int groupHashCode = selectMapedBufferResult.getByteBuffer().getInt();
+                                int groupHashCode = byteBuffer.getInt(i + 16);
                                 // Transaction State
-                                int tranType = selectMapedBufferResult.getByteBuffer().getInt();
+                                int tranType = byteBuffer.getInt(i + TS_STATE_POS);
 
-                                // Ѿύ߻عϢ
+                                // Ѿύ߻عϢ
                                 if (tranType != MessageSysFlag.TransactionPreparedType) {
+                                    this.index.clearPrepared(unitIndex);
                                     continue;
                                 }
 
                                 // ʱ䲻ϣֹ
-                                long timestampLong = timestamp * 1000;
+                                long timestampLong = timestamp * 1000L;
                                 long diff = System.currentTimeMillis() - timestampLong;
                                 if (diff < checkTransactionMessageAtleastInterval) {
                                     break;
                                 }
 
-                                preparedMessageCountInThisMapedFile++;
+                                checkedCount++;
 
                                 try {
                                     this.transactionCheckExecuter.gotoCheck(//
@@ -334,34 +428,22 @@ public class TransactionStateService {
                                     tranlog.warn("gotoCheck Exception", e);
                                 }
                             }
-
-                            // PreparedϢұֹ꣬ʱ
-                            if (0 == preparedMessageCountInThisMapedFile //
-                                    && i == mapedFile.getFileSize()) {
-                                tranlog
-                                    .info(
-                                        "remove the transaction timer task, because no prepared message in this mapedfile[{}]",
-                                        mapedFile.getFileName());
-                                this.cancel();
-                            }
                         }
                         finally {
                             selectMapedBufferResult.release();
                         }
 
-                        tranlog
-                            .info(
-                                "the transaction timer task execute over in this period, {} Prepared Message: {} Check Progress: {}/{}",
-                                mapedFile.getFileName(),//
-                                preparedMessageCountInThisMapedFile,//
-                                i / TSStoreUnitSize,//
-                                mapedFile.getFileSize() / TSStoreUnitSize//
+                        tranlog.info(
+                            "the transaction timer task execute over in this period, {} Prepared: {} Checked: {}",
+                            mapedFile.getFileName(),//
+                            this.index.getPreparedCount(),//
+                            checkedCount//
                             );
                     }
                     else if (mapedFile.isFull()) {
                         tranlog.info("the mapedfile[{}] maybe deleted, cancel check transaction timer task",
                             mapedFile.getFileName());
-                        this.cancel();
+                        this.cancelTask();
                         return;
                     }
                 }
@@ -407,12 +489,22 @@ public class TransactionStateService {
         // Transaction State
         this.byteBufferAppend.putInt(MessageSysFlag.TransactionPreparedType);
 
-        return mapedFile.appendMessage(this.byteBufferAppend.array());
+        // ȱд룬дļһ¼ʱʱд֮
+        // ļûPreparedԪǰֹɾԶᱻز
+        final int unitIndex = mapedFile.getWrotePostion() / TSStoreUnitSize;
+        final TransactionPreparedIndex preparedIndex = this.findPreparedIndex(mapedFile);
+        preparedIndex.markPrepared(unitIndex);
+        boolean result = mapedFile.appendMessage(this.byteBufferAppend.array());
+        if (!result) {
+            preparedIndex.clearPrepared(unitIndex);
+        }
+
+        return result;
     }
 
 
     /**
-     * ̵߳
+     * ̵ַ߳ãCommit/RollbackϢѾEndTransactionProcessorֱӸ¹ģظ
      */
     public boolean updateTransactionState(//
             final long tsOffset,//
@@ -420,61 +512,96 @@ public class TransactionStateService {
             final int groupHashCode,//
             final int state//
     ) {
-        SelectMapedBufferResult selectMapedBufferResult = this.findTransactionBuffer(tsOffset);
-        if (selectMapedBufferResult != null) {
-            try {
-                final long clOffset_read = selectMapedBufferResult.getByteBuffer().getLong();
-                final int size_read = selectMapedBufferResult.getByteBuffer().getInt();
-                final int timestamp_read = selectMapedBufferResult.getByteBuffer().getInt();
-                final int groupHashCode_read = selectMapedBufferResult.getByteBuffer().getInt();
-                final int state_read = selectMapedBufferResult.getByteBuffer().getInt();
-
-                // Уȷ
-                if (clOffset != clOffset_read) {
-                    log.error("updateTransactionState error clOffset: {} clOffset_read: {}", clOffset,
-                        clOffset_read);
-                    return false;
-                }
+        UpdateTransactionStateStatus status =
+                this.compareAndSetTransactionState(tsOffset, clOffset, groupHashCode,
+                    MessageSysFlag.TransactionPreparedType, state);
+        return status != UpdateTransactionStateStatus.NOT_FOUND;
+    }
 
-                // Уȷ
-                if (groupHashCode != groupHashCode_read) {
-                    log.error("updateTransactionState error groupHashCode: {} groupHashCode_read: {}",
-                        groupHashCode, groupHashCode_read);
-                    return false;
-                }
 
-                // жǷѾ¹
-                if (MessageSysFlag.TransactionPreparedType != state_read) {
-                    log.warn("updateTransactionState error, the transaction is updated before.");
-                    return true;
-                }
+    /**
+     * ֱӶӳڴе״ֶ̬CASɶ̵߳
+     */
+    public UpdateTransactionStateStatus compareAndSetTransactionState(//
+            final long tsOffset,//
+            final long clOffset,//
+            final int groupHashCode,//
+            final int expectState,//
+            final int state//
+    ) {
+        final long offset = tsOffset * TSStoreUnitSize;
+        // ַ̻߳ûд¼
+        if (offset < 0 || offset + TSStoreUnitSize > this.tranStateTable.getMaxOffset()) {
+            return UpdateTransactionStateStatus.NOT_FOUND;
+        }
 
-                // ״̬
-                selectMapedBufferResult.getByteBuffer().putInt(TS_STATE_POS, state);
+        MapedFile mapedFile = this.tranStateTable.findMapedFileByOffset(offset);
+        if (null == mapedFile || !mapedFile.hold()) {
+            return UpdateTransactionStateStatus.NOT_FOUND;
+        }
+
+        try {
+            final int pos = (int) (offset % this.tranStateTable.getMapedFileSize());
+            final ByteBuffer byteBuffer = mapedFile.getMappedByteBuffer();
+            final long clOffset_read = byteBuffer.getLong(pos);
+            final int groupHashCode_read = byteBuffer.getInt(pos + 16);
+
+            // Уȷ
+            if (clOffset != clOffset_read) {
+                log.error("updateTransactionState error clOffset: {} clOffset_read: {}", clOffset, clOffset_read);
+                return UpdateTransactionStateStatus.NOT_FOUND;
             }
-            catch (Exception e) {
-                log.error("updateTransactionState exception", e);
+
+            // Уȷ
+            if (groupHashCode != groupHashCode_read) {
+                log.error("updateTransactionState error groupHashCode: {} groupHashCode_read: {}",
+                    groupHashCode, groupHashCode_read);
+                return UpdateTransactionStateStatus.NOT_FOUND;
             }
-            finally {
-                selectMapedBufferResult.release();
+
+            // ״̬
+            if (mapedFile.compareAndSwapInt(pos + TS_STATE_POS, expectState, state)) {
+                if (MessageSysFlag.TransactionPreparedType == state) {
+                    // ָPrepared״̬Ҫ»ز
+                    this.findPreparedIndex(mapedFile).markPrepared(pos / TSStoreUnitSize);
+                    this.addTimerTask(mapedFile);
+                }
+                else {
+                    TransactionPreparedIndex index = this.preparedIndexTable.get(mapedFile.getFileFromOffset());
+                    if (index != null) {
+                        index.clearPrepared(pos / TSStoreUnitSize);
+                    }
+                }
+
+                return UpdateTransactionStateStatus.UPDATE_OK;
+            }
+
+            // жǷѾ³ͬ״̬
+            final int state_read = byteBuffer.getInt(pos + TS_STATE_POS);
+            if (state_read != state) {
+                log.warn("updateTransactionState conflict, state: " + state_read + " expect: " + expectState
+                        + " update: " + state);
+                return UpdateTransactionStateStatus.UPDATE_CONFLICT;
             }
-        }
 
-        return false;
+            return UpdateTransactionStateStatus.UPDATED_BEFORE;
+        }
+        finally {
+            mapedFile.release();
+        }
     }
 
 
-    private SelectMapedBufferResult findTransactionBuffer(final long tsOffset) {
-        final int mapedFileSize =
-                this.defaultMessageStore.getMessageStoreConfig().getTranStateTableMapedFileSize();
-        final long offset = tsOffset * TSStoreUnitSize;
-        MapedFile mapedFile = this.tranStateTable.findMapedFileByOffset(offset);
-        if (mapedFile != null) {
-            SelectMapedBufferResult result = mapedFile.selectMapedBuffer((int) (offset % mapedFileSize));
-            return result;
+    /**
+     * ǰPrepared״̬
+     */
+    public long getPreparedTransactionCount() {
+        long count = 0;
+        for (TransactionPreparedIndex index : this.preparedIndexTable.values()) {
+            count += index.getPreparedCount();
         }
 
-        return null;
+        return count;
     }
 
 
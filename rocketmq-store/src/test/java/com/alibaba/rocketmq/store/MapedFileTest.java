@@ -66,6 +66,23 @@ public class MapedFileTest {
     }
 
 
+    @Test
+    public void test_compareAndSwapInt() throws IOException {
+        MapedFile mapedFile = new MapedFile("./unit_test_store/MapedFileTest/001", 1024 * 64);
+        mapedFile.getMappedByteBuffer().putInt(20, 1);
+        assertTrue(mapedFile.hold());
+
+        assertTrue(mapedFile.compareAndSwapInt(20, 1, 2));
+        assertTrue(mapedFile.getMappedByteBuffer().getInt(20) == 2);
+        assertTrue(!mapedFile.compareAndSwapInt(20, 1, 3));
+        assertTrue(mapedFile.getMappedByteBuffer().getInt(20) == 2);
+
+        mapedFile.release();
+        mapedFile.shutdown(1000);
+        assertTrue(mapedFile.destroy(1000));
+    }
+
+
     /**
      * ǰڶmmap󣬻ᵼJVM CRASHED
      */
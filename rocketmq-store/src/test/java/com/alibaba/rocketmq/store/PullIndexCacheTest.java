@@ -0,0 +1,62 @@
+/**
+ * $Id: PullIndexCacheTest.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.alibaba.rocketmq.common.protocol.heartbeat.SubscriptionData;
+
+
+/**
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class PullIndexCacheTest {
+    private static SubscriptionData buildSubscriptionData(final String subString, final int... codes) {
+        SubscriptionData subscriptionData = new SubscriptionData("TestTopic", subString);
+        for (int code : codes) {
+            subscriptionData.getCodeSet().add(code);
+        }
+        return subscriptionData;
+    }
+
+
+    @Test
+    public void test_sharedAcrossGroups() {
+        PullIndexCache cache = new PullIndexCache(3000, 100);
+        PullIndexCache.CacheEntry entry = new PullIndexCache.CacheEntry(100, 1000);
+        entry.addMessage(4096, 200);
+        entry.setScannedCount(1);
+        cache.put("TestTopic", 0, 99, 32, buildSubscriptionData("TagA", 1), entry);
+
+        // ͬĶĹϵͬͬ
+        PullIndexCache.CacheEntry found =
+                cache.get("TestTopic", 0, 99, 32, buildSubscriptionData("TagA", 1), 100, 1500);
+        assertTrue(found == entry);
+        assertEquals(4096, found.getPhyOffset(0));
+
+        assertNull(cache.get("TestTopic", 0, 99, 32, buildSubscriptionData("TagB", 2), 100, 1500));
+        assertNull(cache.get("TestTopic", 0, 99, 32, buildSubscriptionData("*"), 100, 1500));
+        assertNull(cache.get("TestTopic", 0, 99, 16, buildSubscriptionData("TagA", 1), 100, 1500));
+    }
+
+
+    @Test
+    public void test_invalidate() {
+        PullIndexCache cache = new PullIndexCache(3000, 100);
+        cache.put("TestTopic", 0, 99, 32, null, new PullIndexCache.CacheEntry(100, 1000));
+        assertTrue(cache.get("TestTopic", 0, 99, 32, buildSubscriptionData("*"), 100, 1000) != null);
+
+        // Offset仯
+        assertNull(cache.get("TestTopic", 0, 99, 32, null, 101, 1000));
+        assertEquals(0, cache.size());
+
+        // ʱ
+        cache.put("TestTopic", 0, 99, 32, null, new PullIndexCache.CacheEntry(100, 1000));
+        assertNull(cache.get("TestTopic", 0, 99, 32, null, 100, 4000));
+    }
+}
@@ -0,0 +1,54 @@
+/**
+ * $Id: StoreTestUtil.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.store;
+
+import java.io.File;
+
+import com.alibaba.rocketmq.store.config.MessageStoreConfig;
+
+
+/**
+ * 洢ԪԹ÷
+ *
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class StoreTestUtil {
+    /**
+     * д洢·storeDir£ļССڲԿļ
+     */
+    public static MessageStoreConfig buildMessageStoreConfig(final File storeDir) {
+        final String root = storeDir.getAbsolutePath() + File.separator;
+        MessageStoreConfig messageStoreConfig = new MessageStoreConfig();
+        messageStoreConfig.setMapedFileSizeCommitLog(1024 * 64);
+        messageStoreConfig.setMapedFileSizeConsumeQueue(1024 * 4);
+        messageStoreConfig.setMaxHashSlotNum(100);
+        messageStoreConfig.setMaxIndexNum(100 * 10);
+        messageStoreConfig.setStorePathCommitLog(root + "commitlog");
+        messageStoreConfig.setStorePathConsumeQueue(root + "consumequeue");
+        messageStoreConfig.setStorePathIndex(root + "index");
+        messageStoreConfig.setStoreCheckpoint(root + "checkpoint");
+        messageStoreConfig.setAbortFile(root + "abort");
+        messageStoreConfig.setDelayOffsetStorePath(root + "delayOffset.json");
+        messageStoreConfig.setStorePathTimerLog(root + "timerlog");
+        messageStoreConfig.setTimerCheckpointPath(root + "timerCheckpoint.properties");
+        final String transaction = root + "transaction" + File.separator;
+        messageStoreConfig.setTranStateTableStorePath(transaction + "statetable");
+        messageStoreConfig.setTranRedoLogStorePath(transaction + "redolog");
+        return messageStoreConfig;
+    }
+
+
+    /**
+     * ݹɾļĿ¼
+     */
+    public static void deleteFile(final File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                deleteFile(f);
+            }
+        }
+        file.delete();
+    }
+}
@@ -3,6 +3,7 @@
  */
 package com.alibaba.rocketmq.store.index;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -74,4 +75,44 @@ public class IndexFileTest {
             assertTrue(false);
         }
     }
+
+
+    @Test
+    public void test_select_by_cursor() {
+        try {
+            IndexFile indexFile = new IndexFile("300", hashSlotNum, indexNum, 0, 0);
+
+            // ͬһKey֮Key
+            for (long i = 0; i < 10; i++) {
+                assertTrue(indexFile.putKey("cursor", i, System.currentTimeMillis()));
+                assertTrue(indexFile.putKey(Long.toString(i), 100 + i, System.currentTimeMillis()));
+            }
+
+            // ÿҳ3һҳһλüдĵ򷵻ȫ10
+            final List<Long> phyOffsets = new ArrayList<Long>();
+            final List<Integer> indexes = new ArrayList<Integer>();
+            int afterIndex = 0;
+            for (int page = 0; page < 5; page++) {
+                int size = phyOffsets.size();
+                indexFile.selectPhyOffset(phyOffsets, indexes, "cursor", size + 3, 0, Long.MAX_VALUE, true,
+                    afterIndex);
+                if (phyOffsets.size() == size) {
+                    break;
+                }
+                afterIndex = indexes.get(indexes.size() - 1);
+            }
+
+            assertEquals(10, phyOffsets.size());
+            for (int i = 0; i < 10; i++) {
+                assertEquals(9 - i, phyOffsets.get(i).longValue());
+            }
+
+            // ɾļ
+            indexFile.destroy(0);
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            assertTrue(false);
+        }
+    }
 }
@@ -0,0 +1,138 @@
+/**
+ * $Id: TieredFileTest.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.store.tiered;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alibaba.rocketmq.common.UtilALl;
+import com.alibaba.rocketmq.store.MapedFile;
+import com.alibaba.rocketmq.store.SelectMapedBufferResult;
+import com.alibaba.rocketmq.store.StoreTestUtil;
+
+
+public class TieredFileTest {
+    private final int blockSize = 1024;
+    private final int fileSize = blockSize * 10 + 100;
+    private File storeDir;
+
+
+    @Before
+    public void setUp() {
+        this.storeDir = new File(System.getProperty("java.io.tmpdir"), "TieredFileTest_"
+                + System.currentTimeMillis());
+        assertTrue(this.storeDir.mkdirs());
+    }
+
+
+    @After
+    public void tearDown() {
+        StoreTestUtil.deleteFile(this.storeDir);
+    }
+
+
+    private ByteBuffer buildData() {
+        ByteBuffer data = ByteBuffer.allocate(fileSize);
+        for (int i = 0; i < fileSize / 4; i++) {
+            data.putInt(i % 64);
+        }
+        data.flip();
+        return data;
+    }
+
+
+    private void test_create_read(final boolean compress) throws Exception {
+        ByteBuffer data = this.buildData();
+
+        TieredReadCache readCache = new TieredReadCache(4);
+        File file = new File(this.storeDir, "00000000000000102400");
+        TieredFile tieredFile = TieredFile.create(file, data, blockSize, compress, 0, readCache);
+        assertEquals(102400, tieredFile.getFileFromOffset());
+        assertEquals(fileSize, tieredFile.getFileSize());
+        if (compress) {
+            assertTrue(tieredFile.getStoredSize() < fileSize);
+        }
+
+        // ȡ
+        ByteBuffer result = tieredFile.read(blockSize - 4, 8);
+        assertEquals(((blockSize - 4) / 4) % 64, result.getInt());
+        assertEquals((blockSize / 4) % 64, result.getInt());
+
+        // Խȡ
+        assertNull(tieredFile.read(fileSize - 4, 8));
+
+        // ¼
+        TieredFile loaded = TieredFile.load(file, readCache);
+        result = loaded.read(blockSize * 10, 4);
+        assertEquals((blockSize * 10 / 4) % 64, result.getInt());
+
+        loaded.destroy();
+        tieredFile.destroy();
+    }
+
+
+    @Test
+    public void test_create_read_compress() throws Exception {
+        this.test_create_read(true);
+    }
+
+
+    @Test
+    public void test_create_read_uncompress() throws Exception {
+        this.test_create_read(false);
+    }
+
+
+    @Test
+    public void test_offload_and_read_by_block() throws Exception {
+        final int unitSize = 20;
+        MapedFile.ensureDirOK(new File(this.storeDir, "hot").getPath());
+        MapedFile mapedFile =
+                new MapedFile(new File(this.storeDir, "hot" + File.separator + UtilALl.offset2FileName(0))
+                    .getPath(), fileSize);
+        assertTrue(mapedFile.appendMessage(this.buildData().array()));
+
+        TieredOffloadService offloadService = new TieredOffloadService();
+        offloadService.start();
+        TieredFileQueue fileQueue =
+                new TieredFileQueue(new File(this.storeDir, "tiered").getPath(), blockSize, true,
+                    new TieredReadCache(4), offloadService);
+        try {
+            // һεֻύת󣬲߳
+            assertFalse(fileQueue.offload(mapedFile));
+            for (int i = 0; i < 100 && !fileQueue.offload(mapedFile); i++) {
+                Thread.sleep(50);
+            }
+            assertTrue(fileQueue.offload(mapedFile));
+
+            // ֻصڿβԽ߽ĵԪһ
+            SelectMapedBufferResult result = fileQueue.getData(0, fileSize, unitSize);
+            assertNotNull(result);
+            assertEquals(1040, result.getSize());
+            result = fileQueue.getData(1040, fileSize, unitSize);
+            assertEquals(1020, result.getSize());
+            assertEquals((1040 / 4) % 64, result.getByteBuffer().getInt());
+
+            // ļβһԪ
+            result = fileQueue.getData(10240, fileSize, unitSize);
+            assertEquals(100, result.getSize());
+            assertNull(fileQueue.getData(10340, fileSize, unitSize));
+        }
+        finally {
+            offloadService.shutdown();
+            fileQueue.destroy();
+            mapedFile.destroy(1000);
+        }
+    }
+}
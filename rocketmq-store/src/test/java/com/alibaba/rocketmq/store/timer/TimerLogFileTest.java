@@ -0,0 +1,157 @@
+/**
+ * $Id: TimerLogFileTest.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.store.timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class TimerLogFileTest {
+    private final int entryNum = 400;
+    private File storeDir;
+
+
+    @Before
+    public void setUp() {
+        this.storeDir = new File(System.getProperty("java.io.tmpdir"), "TimerLogFileTest_"
+                + System.currentTimeMillis());
+        assertTrue(this.storeDir.mkdirs());
+    }
+
+
+    @After
+    public void tearDown() {
+        File[] files = this.storeDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        this.storeDir.delete();
+    }
+
+
+    private String fileName(final long bucket) {
+        return new File(this.storeDir, String.valueOf(bucket)).getPath();
+    }
+
+
+    @Test
+    public void test_put_entry() {
+        try {
+            TimerLogFile timerLogFile = new TimerLogFile(this.fileName(3600000), entryNum);
+            assertEquals(3600000, timerLogFile.getBucket());
+
+            // дĿ
+            for (long i = 0; i < entryNum; i++) {
+                boolean putResult = timerLogFile.putEntry(i, 100, 3600000 + i * 1000);
+                assertTrue(putResult);
+            }
+
+            // ļѾˣ дʧ
+            boolean putResult = timerLogFile.putEntry(400, 100, 3600000);
+            assertFalse(putResult);
+
+            // ɾļ
+            timerLogFile.destroy(0);
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            assertTrue(false);
+        }
+    }
+
+
+    @Test
+    public void test_put_select_entry() {
+        try {
+            TimerLogFile timerLogFile = new TimerLogFile(this.fileName(7200000), entryNum);
+
+            // ÿд3
+            for (long i = 0; i < (entryNum - 1); i++) {
+                boolean putResult = timerLogFile.putEntry(i, 100, 7200000 + (i / 3) * 1000 + i % 3);
+                assertTrue(putResult);
+            }
+
+            // 10Ĳλ
+            final List<TimerEntry> entries = new ArrayList<TimerEntry>();
+            timerLogFile.selectSlot(entries, 7200 + 10);
+            assertEquals(3, entries.size());
+            for (TimerEntry entry : entries) {
+                assertEquals(7200000 + 10 * 1000, entry.getDeliverTimestamp() - entry.getDeliverTimestamp() % 1000);
+            }
+
+            // ļ
+            entries.clear();
+            timerLogFile.selectSlot(entries, 7200 + 3600);
+            assertTrue(entries.isEmpty());
+
+            // ɾļ
+            timerLogFile.destroy(0);
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            assertTrue(false);
+        }
+    }
+
+
+    @Test
+    public void test_mark_delivered_and_reload() throws Exception {
+        String fileName = this.fileName(10800000);
+        TimerLogFile timerLogFile = new TimerLogFile(fileName, entryNum);
+        int first = timerLogFile.appendEntry(100, 100, 10800000 + 5000);
+        int second = timerLogFile.appendEntry(200, 100, 10800000 + 5500);
+        assertTrue(first > 0 && second > first);
+        assertEquals(200, timerLogFile.getMaxOffsetPy());
+
+        // Ͷɺǣٴζȡλʱ
+        timerLogFile.markDelivered(first);
+        List<TimerEntry> entries = new ArrayList<TimerEntry>();
+        timerLogFile.selectSlot(entries, 10800 + 5);
+        assertEquals(1, entries.size());
+        assertEquals(200, entries.get(0).getOffsetPy());
+        assertEquals(second, entries.get(0).getEntryIndex());
+        timerLogFile.flush();
+
+        // ļС¼أȻЧ
+        assertEquals(entryNum, TimerLogFile.entryNumOf(new File(fileName).length()));
+        TimerLogFile loaded = new TimerLogFile(fileName, entryNum);
+        loaded.load();
+        assertEquals(200, loaded.getMaxOffsetPy());
+        entries.clear();
+        loaded.selectSlot(entries, 10800 + 5);
+        assertEquals(1, entries.size());
+
+        loaded.destroy(0);
+        timerLogFile.destroy(0);
+    }
+
+
+    @Test
+    public void test_wheel_poll_due() {
+        TimerWheel timerWheel = new TimerWheel(120);
+        timerWheel.addEntry(100, new TimerEntry(1, 100, 100 * 1000 + 200));
+        timerWheel.addEntry(100, new TimerEntry(2, 100, 100 * 1000 + 800));
+
+        List<TimerEntry> due = timerWheel.pollDue(100, 100 * 1000 + 500);
+        assertEquals(1, due.size());
+        assertEquals(1, due.get(0).getOffsetPy());
+        assertFalse(timerWheel.isSlotEmpty(100));
+
+        due = timerWheel.pollDue(100, 101 * 1000);
+        assertEquals(1, due.size());
+        assertTrue(timerWheel.isSlotEmpty(100));
+        assertEquals(0, timerWheel.getEntryCount());
+    }
+}
@@ -0,0 +1,198 @@
+/**
+ * $Id: TimerMessageServiceTest.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.store.timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alibaba.rocketmq.common.MixAll;
+import com.alibaba.rocketmq.common.message.Message;
+import com.alibaba.rocketmq.common.message.MessageDecoder;
+import com.alibaba.rocketmq.store.ConsumeQueue;
+import com.alibaba.rocketmq.store.DefaultMessageStore;
+import com.alibaba.rocketmq.store.MessageExtBrokerInner;
+import com.alibaba.rocketmq.store.PutMessageStatus;
+import com.alibaba.rocketmq.store.SelectMapedBufferResult;
+import com.alibaba.rocketmq.store.StoreTestUtil;
+import com.alibaba.rocketmq.store.config.MessageStoreConfig;
+
+
+/**
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class TimerMessageServiceTest {
+    private static final String Topic = "TimerMessageServiceTest";
+    private File storeDir;
+    private MessageStoreConfig messageStoreConfig;
+
+
+    @Before
+    public void setUp() {
+        this.storeDir = new File(System.getProperty("java.io.tmpdir"), "TimerMessageServiceTest_"
+                + System.currentTimeMillis());
+        this.messageStoreConfig = StoreTestUtil.buildMessageStoreConfig(this.storeDir);
+        this.messageStoreConfig.setTimerLogInitEntryNum(16);
+    }
+
+
+    @After
+    public void tearDown() {
+        StoreTestUtil.deleteFile(this.storeDir);
+    }
+
+
+    private static MessageExtBrokerInner buildMessage(final String deliverTimestamp) throws Exception {
+        MessageExtBrokerInner msg = new MessageExtBrokerInner();
+        msg.setTopic(Topic);
+        msg.setQueueId(0);
+        msg.setBody("timer message".getBytes());
+        msg.setBornTimestamp(System.currentTimeMillis());
+        msg.setBornHost(new InetSocketAddress(InetAddress.getLocalHost(), 0));
+        msg.setStoreHost(new InetSocketAddress(InetAddress.getLocalHost(), 8123));
+        msg.putProperty(Message.PROPERTY_DELIVER_TIMESTAMP, deliverTimestamp);
+        msg.setPropertiesString(MessageDecoder.messageProperties2String(msg.getProperties()));
+        return msg;
+    }
+
+
+    private static boolean waitForQueueOffset(final DefaultMessageStore store, final long offset)
+            throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            if (store.getMaxOffsetInQuque(Topic, 0) >= offset) {
+                return true;
+            }
+            Thread.sleep(100);
+        }
+
+        return false;
+    }
+
+
+    @Test
+    public void test_deliver_and_reject() throws Exception {
+        DefaultMessageStore master = new DefaultMessageStore(this.messageStoreConfig);
+        assertTrue(master.load());
+        master.start();
+        try {
+            long deliverTimestamp = System.currentTimeMillis() + 2000;
+            assertEquals(PutMessageStatus.PUT_OK,
+                master.putMessage(buildMessage(String.valueOf(deliverTimestamp))).getPutMessageStatus());
+
+            // ֮ǰɼ
+            Thread.sleep(500);
+            assertEquals(0, master.getMaxOffsetInQuque(Topic, 0));
+            assertTrue(waitForQueueOffset(master, 1));
+            assertTrue(System.currentTimeMillis() >= deliverTimestamp);
+
+            // ͶʱʽǷ
+            assertEquals(PutMessageStatus.MESSAGE_ILLEGAL, master.putMessage(buildMessage("abc"))
+                .getPutMessageStatus());
+
+            // Ͷʱ䳬CommitLogʱ
+            long tooLate =
+                    System.currentTimeMillis() + (this.messageStoreConfig.getFileReservedTime() + 1) * 3600L
+                            * 1000;
+            assertEquals(PutMessageStatus.MESSAGE_ILLEGAL,
+                master.putMessage(buildMessage(String.valueOf(tooLate))).getPutMessageStatus());
+        }
+        finally {
+            master.shutdown();
+        }
+    }
+
+
+    private static long readTimerTagsCode(final DefaultMessageStore store) throws InterruptedException {
+        ConsumeQueue cq =
+                store.findConsumeQueue(TimerMessageService.TIMER_TOPIC, TimerMessageService.TIMER_QUEUE_ID);
+        for (int i = 0; i < 100 && cq.getMaxOffsetInQuque() < 1; i++) {
+            Thread.sleep(100);
+        }
+
+        SelectMapedBufferResult result = cq.getIndexBuffer(0);
+        assertTrue(result != null);
+        try {
+            result.getByteBuffer().getLong();
+            result.getByteBuffer().getInt();
+            return result.getByteBuffer().getLong();
+        }
+        finally {
+            result.release();
+        }
+    }
+
+
+    @Test
+    public void test_deliver_timestamp_after_rebuild_consume_queue() throws Exception {
+        long deliverTimestamp = System.currentTimeMillis() + 1000 * 60;
+        DefaultMessageStore master = new DefaultMessageStore(this.messageStoreConfig);
+        assertTrue(master.load());
+        master.start();
+        try {
+            assertEquals(PutMessageStatus.PUT_OK,
+                master.putMessage(buildMessage(String.valueOf(deliverTimestamp))).getPutMessageStatus());
+            assertEquals(deliverTimestamp, readTimerTagsCode(master));
+        }
+        finally {
+            master.shutdown();
+        }
+
+        // ģ쳣˳߼жʧʱCommitLogؽ߼
+        StoreTestUtil.deleteFile(new File(this.messageStoreConfig.getStorePathConsumeQueue()));
+        assertTrue(new File(this.messageStoreConfig.getAbortFile()).createNewFile());
+
+        DefaultMessageStore restarted = new DefaultMessageStore(this.messageStoreConfig);
+        assertTrue(restarted.load());
+        restarted.start();
+        try {
+            assertEquals(deliverTimestamp, readTimerTagsCode(restarted));
+        }
+        finally {
+            restarted.shutdown();
+        }
+    }
+
+
+    @Test
+    public void test_no_redeliver_after_restart() throws Exception {
+        DefaultMessageStore master = new DefaultMessageStore(this.messageStoreConfig);
+        assertTrue(master.load());
+        master.start();
+        final long startSecond = System.currentTimeMillis() / 1000;
+        try {
+            for (int i = 0; i < 3; i++) {
+                long deliverTimestamp = System.currentTimeMillis() + 1000 + i * 300;
+                assertEquals(PutMessageStatus.PUT_OK,
+                    master.putMessage(buildMessage(String.valueOf(deliverTimestamp))).getPutMessageStatus());
+            }
+            assertTrue(waitForQueueOffset(master, 3));
+        }
+        finally {
+            master.shutdown();
+        }
+
+        // ģ֮ǰ崻Ȼ˵Ͷ֮ǰ
+        MixAll.string2File("enqueueOffset=0\ndeliverSecond=" + startSecond + "\n",
+            this.messageStoreConfig.getTimerCheckpointPath());
+
+        DefaultMessageStore restarted = new DefaultMessageStore(this.messageStoreConfig);
+        assertTrue(restarted.load());
+        restarted.start();
+        try {
+            Thread.sleep(3000);
+            assertTrue(restarted.getTimerMessageService().getDeliverSecond() > startSecond);
+            assertEquals(3, restarted.getMaxOffsetInQuque(Topic, 0));
+        }
+        finally {
+            restarted.shutdown();
+        }
+    }
+}
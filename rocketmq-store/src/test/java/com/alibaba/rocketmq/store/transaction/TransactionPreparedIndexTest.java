@@ -0,0 +1,58 @@
+/**
+ * $Id: TransactionPreparedIndexTest.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.store.transaction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+
+/**
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class TransactionPreparedIndexTest {
+    @Test
+    public void test_mark_clear() {
+        TransactionPreparedIndex index = new TransactionPreparedIndex(0);
+        index.markPrepared(3);
+        index.markPrepared(10);
+        // ظǲظ
+        index.markPrepared(3);
+        assertEquals(2, index.getPreparedCount());
+
+        index.clearPrepared(3);
+        // δǵĵԪӰ
+        index.clearPrepared(4);
+        assertEquals(1, index.getPreparedCount());
+
+        index.clearPrepared(10);
+        assertEquals(0, index.getPreparedCount());
+        assertEquals(-1, index.nextPrepared(0));
+    }
+
+
+    @Test
+    public void test_next_prepared_in_order() {
+        TransactionPreparedIndex index = new TransactionPreparedIndex(1024);
+        index.markPrepared(100);
+        index.markPrepared(7);
+        index.markPrepared(42);
+
+        assertEquals(7, index.nextPrepared(0));
+        assertEquals(42, index.nextPrepared(8));
+        assertEquals(100, index.nextPrepared(43));
+        assertEquals(-1, index.nextPrepared(101));
+        assertEquals(1024, index.getFileFromOffset());
+    }
+
+
+    @Test
+    public void test_timer_task_added_once() {
+        TransactionPreparedIndex index = new TransactionPreparedIndex(0);
+        assertTrue(index.markTimerTaskAdded());
+        assertFalse(index.markTimerTaskAdded());
+    }
+}
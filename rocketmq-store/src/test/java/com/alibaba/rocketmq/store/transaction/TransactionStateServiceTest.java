@@ -0,0 +1,104 @@
+/**
+ * $Id: TransactionStateServiceTest.java 1831 2013-05-16 01:39:51Z shijia.wxr $
+ */
+package com.alibaba.rocketmq.store.transaction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import com.alibaba.rocketmq.common.sysflag.MessageSysFlag;
+import com.alibaba.rocketmq.store.DefaultMessageStore;
+import com.alibaba.rocketmq.store.StoreTestUtil;
+import com.alibaba.rocketmq.store.UpdateTransactionStateStatus;
+import com.alibaba.rocketmq.store.config.MessageStoreConfig;
+
+
+/**
+ * @author shijia.wxr<vintage.wang@gmail.com>
+ */
+public class TransactionStateServiceTest {
+    private static MessageStoreConfig buildMessageStoreConfig(final File storeDir) {
+        MessageStoreConfig messageStoreConfig = StoreTestUtil.buildMessageStoreConfig(storeDir);
+        // ÿļ10洢ԪԿļ
+        messageStoreConfig.setTranStateTableMapedFileSize(TransactionStateService.TSStoreUnitSize * 10);
+        messageStoreConfig.setTimerMessageEnable(false);
+        return messageStoreConfig;
+    }
+
+
+    @Test
+    public void test_rebuild_prepared_index_on_restart() throws Exception {
+        File storeDir = new File(System.getProperty("java.io.tmpdir"), "TransactionStateServiceTest_"
+                + System.currentTimeMillis());
+        try {
+            MessageStoreConfig messageStoreConfig = buildMessageStoreConfig(storeDir);
+
+            // д25Prepared񣬿3ļȻύе5
+            DefaultMessageStore master = new DefaultMessageStore(messageStoreConfig);
+            assertTrue(master.load());
+            TransactionStateService service = master.getTransactionStateService();
+            final int timestamp = (int) (System.currentTimeMillis() / 1000);
+            for (int i = 0; i < 25; i++) {
+                assertTrue(service.appendPreparedTransaction(1000L * i, 100, timestamp, 1234));
+            }
+            assertEquals(25, service.getPreparedTransactionCount());
+
+            for (int i = 0; i < 25; i += 5) {
+                assertTrue(service.updateTransactionState(i, 1000L * i, 1234,
+                    MessageSysFlag.TransactionCommitType));
+            }
+            assertEquals(20, service.getPreparedTransactionCount());
+            master.shutdown();
+
+            // 󣬴״̬ؽ
+            DefaultMessageStore restarted = new DefaultMessageStore(messageStoreConfig);
+            assertTrue(restarted.load());
+            service = restarted.getTransactionStateService();
+            assertEquals(25, service.getTranStateTableOffset().get());
+            assertEquals(20, service.getPreparedTransactionCount());
+
+            // ؽܼ
+            assertTrue(service.updateTransactionState(1, 1000L, 1234, MessageSysFlag.TransactionRollbackType));
+            assertEquals(19, service.getPreparedTransactionCount());
+            restarted.shutdown();
+        }
+        finally {
+            StoreTestUtil.deleteFile(storeDir);
+        }
+    }
+
+
+    @Test
+    public void test_repeated_and_conflict_end() throws Exception {
+        File storeDir = new File(System.getProperty("java.io.tmpdir"), "TransactionStateServiceTest_"
+                + System.currentTimeMillis());
+        try {
+            DefaultMessageStore master = new DefaultMessageStore(buildMessageStoreConfig(storeDir));
+            assertTrue(master.load());
+            TransactionStateService service = master.getTransactionStateService();
+            final int timestamp = (int) (System.currentTimeMillis() / 1000);
+            assertTrue(service.appendPreparedTransaction(1000L, 100, timestamp, 1234));
+
+            final int prepared = MessageSysFlag.TransactionPreparedType;
+            final int commit = MessageSysFlag.TransactionCommitType;
+            final int rollback = MessageSysFlag.TransactionRollbackType;
+            assertEquals(UpdateTransactionStateStatus.UPDATE_OK,
+                service.compareAndSetTransactionState(0, 1000L, 1234, prepared, commit));
+            // ظύΪɹύֻعǳͻ
+            assertEquals(UpdateTransactionStateStatus.UPDATED_BEFORE,
+                service.compareAndSetTransactionState(0, 1000L, 1234, prepared, commit));
+            assertEquals(UpdateTransactionStateStatus.UPDATE_CONFLICT,
+                service.compareAndSetTransactionState(0, 1000L, 1234, prepared, rollback));
+            assertEquals(UpdateTransactionStateStatus.NOT_FOUND,
+                service.compareAndSetTransactionState(1, 2000L, 1234, prepared, commit));
+            master.shutdown();
+        }
+        finally {
+            StoreTestUtil.deleteFile(storeDir);
+        }
+    }
+}